@@ -781,6 +781,9 @@ public final class LauncherHelper {
      */
     private final class HMCLProcessListener implements ProcessListener {
 
+        private static final int LOG_BUFFER_CAPACITY = 100000;
+        private static final int LOG_BATCH_SIZE = 5000;
+
         private final ReentrantLock lock = new ReentrantLock();
         private final HMCLGameRepository repository;
         private final Version version;
@@ -793,7 +796,7 @@ public final class LauncherHelper {
         private final CountDownLatch launchingLatch;
         private final String forbiddenAccessToken;
         private Thread submitLogThread;
-        private LinkedBlockingQueue<Log> logBuffer;
+        private BatchingQueue<Log> logBuffer;
 
         public HMCLProcessListener(HMCLGameRepository repository, Version version, AuthInfo authInfo, LaunchOptions launchOptions, CountDownLatch launchingLatch, boolean detectWindow) {
             this.repository = repository;
@@ -826,45 +829,15 @@ public final class LauncherHelper {
                     logWindowLatch.countDown();
                 });
 
-                logBuffer = new LinkedBlockingQueue<>();
-                submitLogThread = Lang.thread(new Runnable() {
-                    private final ArrayList<Log> currentLogs = new ArrayList<>();
-                    private final Semaphore semaphore = new Semaphore(0);
-
-                    private void submitLogs() {
-                        if (currentLogs.size() == 1) {
-                            Log log = currentLogs.get(0);
-                            runLater(() -> logWindow.logLine(log));
-                        } else {
-                            runLater(() -> {
-                                logWindow.logLines(currentLogs);
-                                semaphore.release();
-                            });
-                            semaphore.acquireUninterruptibly();
-                        }
-                        currentLogs.clear();
-                    }
-
-                    @Override
-                    public void run() {
-                        while (true) {
-                            try {
-                                currentLogs.add(logBuffer.take());
-                                //noinspection BusyWait
-                                Thread.sleep(200); // Wait for more logs
-                            } catch (InterruptedException e) {
-                                break;
-                            }
-
-                            logBuffer.drainTo(currentLogs);
-                            submitLogs();
-                        }
-
-                        do {
-                            submitLogs();
-                        } while (logBuffer.drainTo(currentLogs) > 0);
-                    }
-                }, "Game Log Submitter", true);
+                Semaphore semaphore = new Semaphore(0);
+                logBuffer = new BatchingQueue<>(LOG_BUFFER_CAPACITY, LOG_BATCH_SIZE, batch -> {
+                    runLater(() -> {
+                        logWindow.logLines(batch);
+                        semaphore.release();
+                    });
+                    semaphore.acquireUninterruptibly();
+                }, dropped -> new Log("[HMCL ProcessListener] " + dropped + " lines of logs were dropped because the log window could not keep up.", Log4jLevel.WARN));
+                submitLogThread = Lang.thread(logBuffer, "Game Log Submitter", true);
 
                 try {
                     logWindowLatch.await();
@@ -920,24 +893,25 @@ public final class LauncherHelper {
                 log = log.replace(forbiddenAccessToken, "<access token>");
 
             Log4jLevel level = isErrorStream && !log.startsWith("[authlib-injector]") ? Log4jLevel.ERROR : null;
-            if (showLogs) {
-                if (level == null)
-                    level = Lang.requireNonNullElse(Log4jLevel.guessLevel(log), Log4jLevel.INFO);
-                logBuffer.add(new Log(log, level));
-            } else {
-                lock.lock();
-                try {
-                    logs.addLast(new Log(log, level));
-                    if (logs.size() > Log.getLogLines())
-                        logs.removeFirst();
-                } finally {
-                    lock.unlock();
-                }
+            if (showLogs && level == null)
+                level = Lang.requireNonNullElse(Log4jLevel.guessLevel(log), Log4jLevel.INFO);
+            Log line = new Log(log, level);
+
+            // The recent lines are kept for the crash window, even if the log window has been closed
+            lock.lock();
+            try {
+                logs.addLast(line);
+                if (logs.size() > Log.getLogLines())
+                    logs.removeFirst();
+            } finally {
+                lock.unlock();
             }
 
+            if (showLogs)
+                logBuffer.offer(line);
+
             if (!lwjgl) {
-                String lowerCaseLog = log.toLowerCase(Locale.ROOT);
-                if (!detectWindow || lowerCaseLog.contains("lwjgl version") || lowerCaseLog.contains("lwjgl openal")) {
+                if (!detectWindow || StringUtils.containsIgnoreCase(log, "lwjgl version") || StringUtils.containsIgnoreCase(log, "lwjgl openal")) {
                     lock.lock();
                     try {
                         if (!lwjgl) {
@@ -955,12 +929,13 @@ public final class LauncherHelper {
         public void onExit(int exitCode, ExitType exitType) {
             if (showLogs) {
                 logBuffer.add(new Log(String.format("[HMCL ProcessListener] Minecraft exit with code %d(0x%x), type is %s.", exitCode, exitCode, exitType), Log4jLevel.INFO));
-                submitLogThread.interrupt();
+                logBuffer.close();
                 try {
                     submitLogThread.join();
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                 }
+                LOG.info("Game log delivery: " + logBuffer.getMetrics());
             }
 
             launchingLatch.countDown();
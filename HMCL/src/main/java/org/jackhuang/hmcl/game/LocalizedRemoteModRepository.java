@@ -114,6 +114,16 @@ public abstract class LocalizedRemoteModRepository implements RemoteModRepositor
         return getBackedRemoteModRepository().getRemoteVersionByLocalFile(localModFile, file);
     }
 
+    @Override
+    public Map<Path, RemoteMod.Version> getRemoteVersionsByLocalFiles(Collection<LocalModFile> localModFiles) throws IOException {
+        return getBackedRemoteModRepository().getRemoteVersionsByLocalFiles(localModFiles);
+    }
+
+    @Override
+    public Map<Path, LocalModFile.ModUpdate> checkUpdates(DownloadProvider downloadProvider, String gameVersion, Collection<LocalModFile> localModFiles) throws IOException {
+        return getBackedRemoteModRepository().checkUpdates(downloadProvider, gameVersion, localModFiles);
+    }
+
     @Override
     public RemoteMod getModById(DownloadProvider downloadProvider, String id) throws IOException {
         return getBackedRemoteModRepository().getModById(downloadProvider, id);
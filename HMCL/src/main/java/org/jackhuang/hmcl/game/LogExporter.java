@@ -25,19 +25,33 @@ import org.jackhuang.hmcl.util.platform.OperatingSystem;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import static org.jackhuang.hmcl.util.Lang.threadPool;
 import static org.jackhuang.hmcl.util.logging.Logger.LOG;
 
 public final class LogExporter {
+    private static final int PARALLELISM = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final ThreadPoolExecutor POOL = threadPool("LogExporter", true, PARALLELISM, 10, TimeUnit.SECONDS);
+
     private LogExporter() {
     }
 
@@ -64,13 +78,17 @@ public final class LogExporter {
         }
 
         return CompletableFuture.runAsync(() -> {
-            try (Zipper zipper = new Zipper(zipFile, true)) {
+            try (Zipper zipper = new Zipper(zipFile, true, POOL, PARALLELISM)) {
                 processLogs(runDirectory.resolve("liteconfig"), "*.log", "liteconfig", zipper, logMatcher);
                 processLogs(runDirectory.resolve("logs"), "*.log", "logs", zipper, logMatcher);
                 processLogs(runDirectory, "*.log", "runDirectory", zipper, logMatcher);
                 processLogs(runDirectory.resolve("crash-reports"), "*.txt", "crash-reports", zipper, logMatcher);
 
-                zipper.putTextFile(LOG.getLogs(), "hmcl.log");
+                try (OutputStream output = zipper.putStream("hmcl.log")) {
+                    LOG.exportLogs(output);
+                } catch (IOException e) {
+                    LOG.warning("Failed to export logs", e);
+                }
                 zipper.putTextFile(logs, "minecraft.log");
                 zipper.putTextFile(Logger.filterForbiddenToken(launchScript), OperatingSystem.CURRENT_OS == OperatingSystem.WINDOWS ? "launch.bat" : "launch.sh");
 
@@ -87,20 +105,72 @@ public final class LogExporter {
     }
 
     private static void processLogs(Path directory, String fileExtension, String logDirectory, Zipper zipper, PathMatcher logMatcher) {
+        List<Path> files = new ArrayList<>();
         try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, fileExtension)) {
             for (Path file : stream) {
-                if (Files.isRegularFile(file)) {
-                    if (logMatcher == null || logMatcher.matches(file)) {
-                        try (BufferedReader reader = IOUtils.newBufferedReaderMaybeNativeEncoding(file)) {
-                            zipper.putLines(reader.lines().map(Logger::filterForbiddenToken), file.getFileName().toString());
-                        } catch (IOException e) {
-                            LOG.warning("Failed to read log file: " + file, e);
-                        }
-                    }
+                if (Files.isRegularFile(file) && (logMatcher == null || logMatcher.matches(file))) {
+                    files.add(file);
                 }
             }
         } catch (Throwable e) {
             LOG.warning("Failed to find any log on " + logDirectory, e);
+            return;
         }
+
+        // Keep the entries in a stable order so that the exported file is reproducible
+        files.sort(Comparator.comparing(file -> file.getFileName().toString()));
+
+        for (Path file : files) {
+            FileTime lastModified;
+            try {
+                lastModified = Files.getLastModifiedTime(file);
+            } catch (IOException e) {
+                LOG.warning("Failed to read log file: " + file, e);
+                continue;
+            }
+
+            // The file is opened, read, filtered and compressed on the pool while the zip file is assembled in order,
+            // so nothing is left open if the export is aborted before the file is read
+            try {
+                zipper.putLinesAsync(() -> readLogLines(file), file.getFileName().toString(), lastModified);
+            } catch (IOException e) {
+                LOG.warning("Failed to read log file: " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Reads the lines of a log file with sensitive information removed.
+     * A log file which can't be read, for example because of malformed input, doesn't fail the export:
+     * the lines read before the failure are exported, and the failure is logged.
+     */
+    private static Stream<String> readLogLines(Path file) {
+        BufferedReader reader;
+        try {
+            reader = IOUtils.newBufferedReaderMaybeNativeEncoding(file);
+        } catch (IOException e) {
+            LOG.warning("Failed to read log file: " + file, e);
+            return Stream.empty();
+        }
+
+        Spliterator<String> lines = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super String> action) {
+                String line;
+                try {
+                    line = reader.readLine();
+                } catch (IOException e) {
+                    LOG.warning("Failed to read log file: " + file, e);
+                    return false;
+                }
+                if (line == null)
+                    return false;
+                action.accept(line);
+                return true;
+            }
+        };
+        return StreamSupport.stream(lines, false)
+                .map(Logger::filterForbiddenToken)
+                .onClose(() -> IOUtils.closeQuietly(reader));
     }
 }
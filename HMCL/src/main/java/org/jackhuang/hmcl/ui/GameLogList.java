@@ -0,0 +1,200 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.ui;
+
+import javafx.collections.ObservableListBase;
+import org.jackhuang.hmcl.game.GameLogStore;
+import org.jackhuang.hmcl.game.Log;
+import org.jackhuang.hmcl.util.Log4jLevel;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * A virtualized list over a {@link GameLogStore}, which only decodes the lines the list view asks for.
+ * <p>
+ * Only the last {@linkplain #setLimit(int) limit} lines of the view are in the list, like the lines kept by the log window
+ * before it was backed by a store. The store still keeps all lines, so they can be exported.
+ * <p>
+ * The recently returned items are cached by line, so that the same line is the same {@link Log} instance
+ * for the cells and the selection model, and in the removed items of a change.
+ * <p>
+ * All methods except {@link #find(GameLogStore.View, String, int, int)} must be called on the JavaFX application thread.
+ */
+final class GameLogList extends ObservableListBase<Log> {
+    private static final int MAX_CACHED_LOGS = 1024;
+
+    private final GameLogStore store;
+    private final LinkedHashMap<Integer, Log> logs = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Log> eldest) {
+            return size() > MAX_CACHED_LOGS;
+        }
+    };
+    private GameLogStore.View view;
+    private int limit;
+
+    GameLogList(GameLogStore.View view, int limit) {
+        this.store = view.getStore();
+        this.view = view;
+        this.limit = limit;
+    }
+
+    GameLogStore.View getView() {
+        return view;
+    }
+
+    /// The position in the view of the first line in this list
+    private int getOffset() {
+        return view.size() - size();
+    }
+
+    private Log getLog(int line) {
+        Log log = logs.get(line);
+        if (log == null) {
+            log = new Log(store.getLine(line), store.getLevel(line));
+            logs.put(line, log);
+        }
+        return log;
+    }
+
+    /// The items at `[offset, offset + size)` of `view`, which are only materialized if a listener asks for them
+    private List<Log> subList(GameLogStore.View view, int offset, int size) {
+        return new AbstractList<>() {
+            @Override
+            public Log get(int index) {
+                return getLog(view.getLine(offset + Objects.checkIndex(index, size)));
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /// Replaces the view or the limit, and tells the listeners that all items are replaced
+    private void replace(GameLogStore.View newView, int newLimit) {
+        GameLogStore.View oldView = this.view;
+        int oldOffset = getOffset();
+        int oldSize = size();
+        this.view = newView;
+        this.limit = newLimit;
+
+        int newSize = size();
+        if (oldSize == 0 && newSize == 0)
+            return;
+
+        beginChange();
+        // A listener asks for the removed items before this method returns, while the store still has them
+        if (oldSize > 0)
+            nextRemove(0, subList(oldView, oldOffset, oldSize));
+        if (newSize > 0)
+            nextAdd(0, newSize);
+        endChange();
+    }
+
+    void setView(GameLogStore.View newView) {
+        replace(newView, limit);
+    }
+
+    void setLimit(int limit) {
+        if (limit <= 0)
+            throw new IllegalArgumentException("Invalid limit: " + limit);
+        if (limit != this.limit)
+            replace(view, limit);
+    }
+
+    /**
+     * Removes all lines from the store. The listeners are notified before the lines are removed, so they can still read them.
+     */
+    void clearStore(Set<Log4jLevel> levels) {
+        setView(store.newView(EnumSet.noneOf(Log4jLevel.class)));
+        logs.clear();
+        store.clear();
+        this.view = store.newView(levels);
+    }
+
+    void update() {
+        int oldOffset = getOffset();
+        int oldSize = size();
+        int added = view.update();
+        if (added == 0)
+            return;
+
+        // The oldest lines are removed when the list is full
+        int newSize = size();
+        int removed = Math.min(oldSize, oldSize + added - newSize);
+        beginChange();
+        if (removed > 0)
+            nextRemove(0, subList(view, oldOffset, removed));
+        nextAdd(oldSize - removed, newSize);
+        endChange();
+    }
+
+    /**
+     * @return the line number in the store of the item at {@code position}
+     */
+    int getLine(int position) {
+        return view.getLine(getOffset() + Objects.checkIndex(position, size()));
+    }
+
+    /**
+     * @return the position of the line in this list, or -1 if it is not in this list
+     */
+    int indexOfLine(int line) {
+        int index = view.indexOf(line);
+        if (index < 0)
+            return -1;
+        index -= getOffset();
+        return index >= 0 && index < size() ? index : -1;
+    }
+
+    /**
+     * Searches the lines of {@code view}, which is {@linkplain #getView() captured} on the JavaFX application thread,
+     * so it is not affected by the view being replaced or the store being cleared during the search.
+     * This method may be called from any thread.
+     *
+     * @param fromLine  the line number to start searching at
+     * @param firstLine the line number to continue searching at if nothing is found after {@code fromLine},
+     *                  which is the first line in this list
+     * @return the line number in the store of the first shown line which contains {@code text}, or -1
+     */
+    int find(GameLogStore.View view, String text, int fromLine, int firstLine) throws IOException {
+        Set<Log4jLevel> levels = EnumSet.noneOf(Log4jLevel.class);
+        for (Log4jLevel level : Log4jLevel.values()) {
+            if (view.isShown(level))
+                levels.add(level);
+        }
+
+        int line = store.find(text, fromLine, levels);
+        if (line < 0 && fromLine > firstLine)
+            line = store.find(text, firstLine, levels);
+        return line;
+    }
+
+    @Override
+    public Log get(int index) {
+        return getLog(getLine(index));
+    }
+
+    @Override
+    public int size() {
+        return Math.min(view.size(), limit);
+    }
+}
@@ -22,8 +22,6 @@ import javafx.application.Platform;
 import javafx.beans.InvalidationListener;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.*;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.css.PseudoClass;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -33,6 +31,7 @@ import javafx.scene.input.KeyCode;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
 import org.jackhuang.hmcl.game.GameDumpGenerator;
+import org.jackhuang.hmcl.game.GameLogStore;
 import org.jackhuang.hmcl.game.Log;
 import org.jackhuang.hmcl.setting.StyleSheets;
 import org.jackhuang.hmcl.task.Schedulers;
@@ -46,6 +45,7 @@ import org.jackhuang.hmcl.util.StringUtils;
 import org.jackhuang.hmcl.util.platform.ManagedProcess;
 import org.jackhuang.hmcl.util.platform.SystemUtils;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -53,8 +53,8 @@ import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.jackhuang.hmcl.setting.ConfigHolder.config;
 import static org.jackhuang.hmcl.util.Lang.thread;
 import static org.jackhuang.hmcl.util.i18n.I18n.i18n;
@@ -67,7 +67,8 @@ public final class LogWindow extends Stage {
 
     private static final Log4jLevel[] LEVELS = {Log4jLevel.FATAL, Log4jLevel.ERROR, Log4jLevel.WARN, Log4jLevel.INFO, Log4jLevel.DEBUG};
 
-    private final CircularArrayList<Log> logs;
+    private final GameLogStore store = new GameLogStore();
+    private final GameLogList items;
     private final Map<Log4jLevel, SimpleIntegerProperty> levelCountMap = new EnumMap<>(Log4jLevel.class);
     private final Map<Log4jLevel, SimpleBooleanProperty> levelShownMap = new EnumMap<>(Log4jLevel.class);
 
@@ -88,7 +89,13 @@ public final class LogWindow extends Stage {
     public LogWindow(ManagedProcess gameProcess, CircularArrayList<Log> logs) {
         Themes.applyNativeDarkMode(this);
 
-        this.logs = logs;
+        for (Log log : logs) {
+            store.append(log.getLog(), log.getLevel());
+            SimpleIntegerProperty property = levelCountMap.get(log.getLevel());
+            property.set(property.get() + 1);
+        }
+        items = new GameLogList(store.newView(getShownLevels()), Log.getLogLines());
+
         this.impl = new LogWindowImpl();
         setScene(new Scene(impl, 800, 480));
         StyleSheets.init(getScene());
@@ -100,55 +107,43 @@ public final class LogWindow extends Stage {
         }
 
         this.gameProcess = gameProcess;
+
+        setOnHidden(e -> {
+            try {
+                store.close();
+            } catch (IOException ex) {
+                LOG.warning("Failed to close game log store", ex);
+            }
+        });
     }
 
     public void logLine(Log log) {
-        Log4jLevel level = log.getLevel();
-        logs.add(log);
-        if (levelShownMap.get(level).get())
-            impl.listView.getItems().add(log);
-
-        SimpleIntegerProperty property = levelCountMap.get(log.getLevel());
-        property.set(property.get() + 1);
-        checkLogCount();
-        autoScroll();
+        logLines(List.of(log));
     }
 
     public void logLines(List<Log> logs) {
         for (Log log : logs) {
-            Log4jLevel level = log.getLevel();
-            this.logs.add(log);
-            if (levelShownMap.get(level).get())
-                impl.listView.getItems().add(log);
+            store.append(log.getLog(), log.getLevel());
 
             SimpleIntegerProperty property = levelCountMap.get(log.getLevel());
             property.set(property.get() + 1);
         }
-        checkLogCount();
+        items.update();
         autoScroll();
     }
 
-    private void shakeLogs() {
-        impl.listView.getItems().setAll(logs.stream().filter(log -> levelShownMap.get(log.getLevel()).get()).collect(Collectors.toList()));
-        autoScroll();
+    private Set<Log4jLevel> getShownLevels() {
+        EnumSet<Log4jLevel> levels = EnumSet.noneOf(Log4jLevel.class);
+        levelShownMap.forEach((level, shown) -> {
+            if (shown.get())
+                levels.add(level);
+        });
+        return levels;
     }
 
-    private void checkLogCount() {
-        int nRemove = logs.size() - Log.getLogLines();
-        if (nRemove <= 0)
-            return;
-
-        ObservableList<Log> items = impl.listView.getItems();
-        int itemsSize = items.size();
-        int count = 0;
-
-        for (int i = 0; i < nRemove; i++) {
-            Log removedLog = logs.removeFirst();
-            if (itemsSize > count && items.get(count) == removedLog)
-                count++;
-        }
-
-        items.remove(0, count);
+    private void shakeLogs() {
+        items.setView(store.newView(getShownLevels()));
+        autoScroll();
     }
 
     private void autoScroll() {
@@ -159,6 +154,7 @@ public final class LogWindow extends Stage {
     private final class LogWindowImpl extends Control {
 
         private final ListView<Log> listView = new JFXListView<>();
+        private final JFXTextField txtSearch = new JFXTextField();
         private final BooleanProperty autoScroll = new SimpleBooleanProperty();
         private final StringProperty[] buttonText = new StringProperty[LEVELS.length];
         private final BooleanProperty[] showLevel = new BooleanProperty[LEVELS.length];
@@ -170,7 +166,10 @@ public final class LogWindow extends Stage {
 
             listView.getStyleClass().add("no-horizontal-scrollbar");
             listView.getProperties().put("no-smooth-scrolling", true);
-            listView.setItems(FXCollections.observableList(new CircularArrayList<>(logs.size())));
+            listView.setItems(items);
+
+            txtSearch.setPromptText(i18n("search"));
+            txtSearch.setOnAction(e -> onSearch());
 
             for (int i = 0; i < LEVELS.length; i++) {
                 buttonText[i] = new SimpleStringProperty();
@@ -179,7 +178,13 @@ public final class LogWindow extends Stage {
 
             cboLines.getItems().setAll(500, 2000, 5000, 10000);
             cboLines.setValue(Log.getLogLines());
-            cboLines.getSelectionModel().selectedItemProperty().addListener((a, b, newValue) -> config().setLogLines(newValue));
+            cboLines.getSelectionModel().selectedItemProperty().addListener((a, b, newValue) -> {
+                if (newValue == null)
+                    return;
+                config().setLogLines(newValue);
+                items.setLimit(newValue);
+                autoScroll();
+            });
 
             for (int i = 0; i < LEVELS.length; ++i) {
                 buttonText[i].bind(Bindings.concat(levelCountMap.get(LEVELS[i]), " " + LEVELS[i].name().toLowerCase(Locale.ROOT) + "s"));
@@ -192,15 +197,51 @@ public final class LogWindow extends Stage {
         }
 
         private void onClear() {
-            impl.listView.getItems().clear();
-            logs.clear();
+            items.clearStore(getShownLevels());
+            for (SimpleIntegerProperty property : levelCountMap.values()) {
+                property.set(0);
+            }
+        }
+
+        private void onSearch() {
+            String text = txtSearch.getText();
+            if (StringUtils.isBlank(text))
+                return;
+
+            GameLogStore.View view = items.getView();
+            int position = listView.getSelectionModel().getSelectedIndex();
+            int firstLine = items.isEmpty() ? 0 : items.getLine(0);
+            int fromLine = position >= 0 && position < items.size() ? items.getLine(position) + 1 : firstLine;
+            thread(() -> {
+                int line;
+                try {
+                    line = items.find(view, text, fromLine, firstLine);
+                } catch (IOException e) {
+                    LOG.warning("Failed to search game logs", e);
+                    return;
+                }
+
+                Platform.runLater(() -> {
+                    // The view may have been replaced during the search
+                    if (items.getView() != view)
+                        return;
+
+                    int result = line >= 0 ? items.indexOfLine(line) : -1;
+                    if (result >= 0) {
+                        listView.getSelectionModel().clearAndSelect(result);
+                        listView.scrollTo(result);
+                    } else {
+                        listView.getSelectionModel().clearSelection();
+                    }
+                });
+            });
         }
 
         private void onExportLogs() {
             thread(() -> {
                 Path logFile = Paths.get("minecraft-exported-logs-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH-mm-ss")) + ".log").toAbsolutePath();
-                try {
-                    Files.write(logFile, logs.stream().map(Log::getLog).collect(Collectors.toList()));
+                try (BufferedWriter writer = Files.newBufferedWriter(logFile, UTF_8)) {
+                    store.writeTo(writer);
                 } catch (IOException e) {
                     LOG.warning("Failed to export logs", e);
                     return;
@@ -280,7 +321,7 @@ public final class LogWindow extends Stage {
                     hBox.setAlignment(Pos.CENTER_LEFT);
 
                     Label label = new Label(i18n("logwindow.show_lines"));
-                    hBox.getChildren().setAll(label, control.cboLines);
+                    hBox.getChildren().setAll(label, control.cboLines, control.txtSearch);
 
                     borderPane.setLeft(hBox);
                 }
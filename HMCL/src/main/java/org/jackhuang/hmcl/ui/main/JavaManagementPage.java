@@ -84,7 +84,7 @@ public final class JavaManagementPage extends ListPageBase<JavaRuntime> {
 
         FXUtils.applyDragListener(this, it -> {
             String name = FileUtils.getName(it);
-            return Files.isDirectory(it) || name.endsWith(".zip") || name.endsWith(".tar.gz") || name.equals(OperatingSystem.CURRENT_OS.getJavaExecutable());
+            return Files.isDirectory(it) || name.endsWith(".zip") || name.endsWith(".tar.gz") || name.endsWith(".tar.xz") || name.equals(OperatingSystem.CURRENT_OS.getJavaExecutable());
         }, files -> {
             for (Path file : files) {
                 if (Files.isDirectory(file)) {
@@ -94,7 +94,7 @@ public final class JavaManagementPage extends ListPageBase<JavaRuntime> {
 
                     if (fileName.equals(OperatingSystem.CURRENT_OS.getJavaExecutable())) {
                         onAddJavaBinary(file);
-                    } else if (fileName.endsWith(".zip") || fileName.endsWith(".tar.gz")) {
+                    } else if (fileName.endsWith(".zip") || fileName.endsWith(".tar.gz") || fileName.endsWith(".tar.xz")) {
                         onInstallArchive(file);
                     } else {
                         throw new AssertionError("Unreachable code");
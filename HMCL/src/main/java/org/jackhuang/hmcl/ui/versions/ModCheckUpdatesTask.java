@@ -24,39 +24,29 @@ import org.jackhuang.hmcl.task.Schedulers;
 import org.jackhuang.hmcl.task.Task;
 
 import java.io.IOException;
-import java.util.Collection;
-import java.util.List;
-import java.util.Objects;
+import java.nio.file.Path;
+import java.util.*;
 
+import static org.jackhuang.hmcl.util.i18n.I18n.i18n;
 import static org.jackhuang.hmcl.util.logging.Logger.LOG;
 
 public class ModCheckUpdatesTask extends Task<List<LocalModFile.ModUpdate>> {
-    private final DownloadProvider downloadProvider;
-    private final List<Task<LocalModFile.ModUpdate>> dependents;
+    private final List<LocalModFile> mods;
+    private final List<Task<Map<Path, LocalModFile.ModUpdate>>> dependents;
 
     public ModCheckUpdatesTask(DownloadProvider downloadProvider, String gameVersion, Collection<LocalModFile> mods) {
-        this.downloadProvider = downloadProvider;
-        dependents = mods.stream().map(mod ->
-                Task.supplyAsync(Schedulers.io(), () -> {
-                    LocalModFile.ModUpdate candidate = null;
-                    for (RemoteMod.Type type : RemoteMod.Type.values()) {
-                        LocalModFile.ModUpdate update = null;
-                        try {
-                            update = mod.checkUpdates(downloadProvider, gameVersion, type.getRemoteModRepository());
-                        } catch (IOException e) {
-                            LOG.warning(String.format("Cannot check update for mod %s.", mod.getFileName()), e);
-                        }
-                        if (update == null) {
-                            continue;
-                        }
+        this.mods = List.copyOf(mods);
 
-                        if (candidate == null || candidate.getCandidate().getDatePublished().isBefore(update.getCandidate().getDatePublished())) {
-                            candidate = update;
-                        }
+        // Each repository checks all mods at once, so that it can look them up in bulk
+        dependents = Arrays.stream(RemoteMod.Type.values()).map(type ->
+                Task.supplyAsync(Schedulers.io(), () -> {
+                    try {
+                        return type.getRemoteModRepository().checkUpdates(downloadProvider, gameVersion, this.mods);
+                    } catch (IOException e) {
+                        LOG.warning("Cannot check updates of mods in " + type, e);
+                        return Map.<Path, LocalModFile.ModUpdate>of();
                     }
-
-                    return candidate;
-                }).setName(mod.getFileName()).setSignificance(TaskSignificance.MAJOR).withCounter("update.checking")
+                }).setName(i18n("mods." + type.name().toLowerCase(Locale.ROOT))).setSignificance(TaskSignificance.MAJOR).withCounter("update.checking")
         ).toList();
 
         setStage("update.checking");
@@ -85,8 +75,28 @@ public class ModCheckUpdatesTask extends Task<List<LocalModFile.ModUpdate>> {
 
     @Override
     public void execute() throws Exception {
-        setResult(dependents.stream()
+        List<Map<Path, LocalModFile.ModUpdate>> updates = dependents.stream()
                 .map(Task::getResult)
-                .filter(Objects::nonNull).toList());
+                .filter(Objects::nonNull).toList();
+
+        List<LocalModFile.ModUpdate> result = new ArrayList<>();
+        for (LocalModFile mod : mods) {
+            LocalModFile.ModUpdate candidate = null;
+            for (Map<Path, LocalModFile.ModUpdate> repositoryUpdates : updates) {
+                LocalModFile.ModUpdate update = repositoryUpdates.get(mod.getFile());
+                if (update == null) {
+                    continue;
+                }
+
+                if (candidate == null || candidate.getCandidate().getDatePublished().isBefore(update.getCandidate().getDatePublished())) {
+                    candidate = update;
+                }
+            }
+
+            if (candidate != null) {
+                result.add(candidate);
+            }
+        }
+        setResult(result);
     }
 }
@@ -129,8 +129,8 @@ public final class WorldBackupsPage extends ListPageBase<WorldBackupsPage.Backup
         return new WorldBackupsPageSkin();
     }
 
-    void createBackup() {
-        Controllers.taskDialog(new WorldBackupTask(world, backupsDir, false).setName(i18n("world.backup.processing")).thenApplyAsync(path -> {
+    void createBackup(World.ExportCompression compression) {
+        Controllers.taskDialog(new WorldBackupTask(world, backupsDir, false, compression).setName(i18n("world.backup.processing")).thenApplyAsync(path -> {
             Matcher matcher = backupFileNamePattern.matcher(path.getFileName().toString());
             if (!matcher.matches()) {
                 throw new AssertionError("Wrong backup file name" + path);
@@ -166,12 +166,19 @@ public final class WorldBackupsPage extends ListPageBase<WorldBackupsPage.Backup
 
         @Override
         protected List<Node> initializeToolbar(WorldBackupsPage skinnable) {
-            JFXButton createBackup = createToolbarButton2(i18n("world.backup.create.new_one"), SVG.ARCHIVE, skinnable::createBackup);
+            JFXButton createBackup = createToolbarButton2(i18n("world.backup.create.new_one"), SVG.ARCHIVE,
+                    () -> skinnable.createBackup(World.ExportCompression.NORMAL));
             createBackup.disableProperty().bind(getSkinnable().readOnly);
 
+            JFXButton createFastBackup = createToolbarButton2(i18n("world.backup.create.fast"), SVG.BOLT,
+                    () -> skinnable.createBackup(World.ExportCompression.FAST));
+            createFastBackup.disableProperty().bind(getSkinnable().readOnly);
+            FXUtils.installFastTooltip(createFastBackup, i18n("world.backup.create.fast.tooltip"));
+
             return Arrays.asList(
                     createToolbarButton2(i18n("button.refresh"), SVG.REFRESH, skinnable::refresh),
-                    createBackup
+                    createBackup,
+                    createFastBackup
             );
         }
     }
@@ -0,0 +1,172 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.ui;
+
+import javafx.collections.ListChangeListener;
+import org.jackhuang.hmcl.game.GameLogStore;
+import org.jackhuang.hmcl.game.Log;
+import org.jackhuang.hmcl.util.Log4jLevel;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class GameLogListTest {
+
+    private static final Set<Log4jLevel> ALL_LEVELS = EnumSet.allOf(Log4jLevel.class);
+
+    private static GameLogStore createStore() {
+        GameLogStore store = new GameLogStore(null);
+        for (int i = 0; i < 100; i++) {
+            store.append("Line " + i, i % 2 == 0 ? Log4jLevel.INFO : Log4jLevel.WARN);
+        }
+        return store;
+    }
+
+    @Test
+    public void testRemoved() throws IOException {
+        try (GameLogStore store = createStore()) {
+            GameLogList list = new GameLogList(store.newView(ALL_LEVELS), 1000);
+            Log first = list.get(0);
+            Log second = list.get(1);
+
+            List<Log> removed = new ArrayList<>();
+            List<Integer> sizes = new ArrayList<>();
+            list.addListener((ListChangeListener<Log>) change -> {
+                while (change.next()) {
+                    if (change.wasRemoved())
+                        removed.addAll(change.getRemoved());
+                }
+                sizes.add(change.getList().size());
+            });
+
+            // The removed items are the instances which have been returned
+            list.setView(store.newView(EnumSet.of(Log4jLevel.INFO)));
+            assertEquals(100, removed.size());
+            assertSame(first, removed.get(0));
+            assertSame(second, removed.get(1));
+            assertEquals("Line 99", removed.get(99).getLog());
+            assertEquals(50, list.size());
+            assertSame(first, list.get(0));
+
+            // The removed lines can still be read while the store is being cleared
+            removed.clear();
+            sizes.clear();
+            list.clearStore(EnumSet.of(Log4jLevel.INFO));
+            assertEquals(50, removed.size());
+            assertSame(first, removed.get(0));
+            assertEquals("Line 98", removed.get(49).getLog());
+            assertEquals(List.of(0), sizes);
+            assertEquals(0, list.size());
+            assertEquals(0, store.size());
+
+            // Lines appended after clearing are shown
+            store.append("New line", Log4jLevel.INFO);
+            store.append("Hidden line", Log4jLevel.WARN);
+            list.update();
+            assertEquals(1, list.size());
+            assertEquals("New line", list.get(0).getLog());
+        }
+    }
+
+    @Test
+    public void testLimit() throws IOException {
+        try (GameLogStore store = createStore()) {
+            GameLogList list = new GameLogList(store.newView(ALL_LEVELS), 10);
+            assertEquals(10, list.size());
+            assertEquals("Line 90", list.get(0).getLog());
+            assertEquals("Line 99", list.get(9).getLog());
+            assertEquals(90, list.getLine(0));
+            assertEquals(0, list.indexOfLine(90));
+            assertEquals(-1, list.indexOfLine(89));
+
+            List<Log> removed = new ArrayList<>();
+            list.addListener((ListChangeListener<Log>) change -> {
+                while (change.next()) {
+                    if (change.wasRemoved())
+                        removed.addAll(change.getRemoved());
+                }
+            });
+
+            // The oldest lines are removed when new lines are appended
+            Log first = list.get(0);
+            store.append("Line 100", Log4jLevel.INFO);
+            store.append("Line 101", Log4jLevel.INFO);
+            list.update();
+            assertEquals(10, list.size());
+            assertEquals(2, removed.size());
+            assertSame(first, removed.get(0));
+            assertEquals("Line 91", removed.get(1).getLog());
+            assertEquals("Line 92", list.get(0).getLog());
+            assertEquals("Line 101", list.get(9).getLog());
+
+            // More lines are appended than the limit
+            removed.clear();
+            for (int i = 102; i < 120; i++) {
+                store.append("Line " + i, Log4jLevel.INFO);
+            }
+            list.update();
+            assertEquals(10, removed.size());
+            assertEquals("Line 110", list.get(0).getLog());
+
+            removed.clear();
+            list.setLimit(50);
+            assertEquals(10, removed.size());
+            assertEquals(50, list.size());
+            assertEquals("Line 70", list.get(0).getLog());
+            assertEquals("Line 119", list.get(49).getLog());
+
+            list.setView(store.newView(EnumSet.of(Log4jLevel.WARN)));
+            assertEquals(50, list.size());
+            assertEquals("Line 1", list.get(0).getLog());
+
+            list.setLimit(5);
+            assertEquals(5, list.size());
+            assertEquals("Line 91", list.get(0).getLog());
+        }
+    }
+
+    @Test
+    public void testFind() throws IOException {
+        try (GameLogStore store = createStore()) {
+            GameLogList list = new GameLogList(store.newView(EnumSet.of(Log4jLevel.WARN)), 1000);
+            GameLogStore.View view = list.getView();
+
+            assertEquals(11, list.find(view, "Line 11", 0, 0));
+            assertEquals(5, list.indexOfLine(11));
+            assertEquals(11, list.find(view, "Line 11", 12, 0));
+            assertEquals(-1, list.find(view, "Line 10", 0, 0));
+
+            // Only the lines in the list are searched
+            list.setLimit(10);
+            view = list.getView();
+            assertEquals(-1, list.find(view, "Line 11", 90, list.getLine(0)));
+            assertEquals(91, list.find(view, "Line 91", 95, list.getLine(0)));
+
+            // The view and the store change while searching
+            list.clearStore(ALL_LEVELS);
+            assertEquals(-1, list.find(view, "Line 11", 40, 0));
+            assertEquals(-1, list.find(view, "Line 11", 1000, 0));
+        }
+    }
+}
@@ -0,0 +1,574 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.game;
+
+import org.jackhuang.hmcl.util.Log4jLevel;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.*;
+import static org.jackhuang.hmcl.util.logging.Logger.LOG;
+
+/**
+ * An append-only store of game log lines which can hold millions of lines.
+ * <p>
+ * Lines are kept UTF-8 encoded in 1 MiB chunks. Full chunks are spilled to a temporary file which is deleted on close,
+ * so the heap only holds the line index: about 9 bytes per line, plus 512 bytes per block of 1024 lines for the search index.
+ * Decoded lines are cached by page, so a virtualized view only decodes the lines it shows.
+ * <p>
+ * The store keeps a list of line numbers per level, so {@linkplain #newView(Set) filtering by level} costs time proportional
+ * to the number of matching lines. For {@linkplain #find(String, int, Set) searching}, every block of lines records the
+ * trigrams it contains, and blocks which cannot contain the text are skipped without reading them.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class GameLogStore implements Closeable {
+
+    private static final int CHUNK_SHIFT = 20;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    private static final int BLOCK_SHIFT = 10;
+    private static final int BLOCK_LINES = 1 << BLOCK_SHIFT;
+
+    private static final int PAGE_SHIFT = 8;
+    private static final int PAGE_LINES = 1 << PAGE_SHIFT;
+    private static final int MAX_CACHED_PAGES = 32;
+
+    private static final int TRIGRAM_BITS_SHIFT = 12;
+    private static final int TRIGRAM_WORDS = (1 << TRIGRAM_BITS_SHIFT) / Long.SIZE;
+
+    private static final Log4jLevel[] LEVELS = Log4jLevel.values();
+
+    private final @Nullable Path directory;
+    private FileChannel channel;
+    private boolean closed = false;
+
+    /// The data of each chunk, or `null` if the chunk has been spilled to [#channel]
+    private byte[][] chunks = new byte[16][];
+    private long length = 0;
+
+    private int lineCount = 0;
+    /// The offset of the first line of each block
+    private long[] blockStart = new long[16];
+    /// The end offset of each line, relative to the start of its block
+    private int[] lineEnd = new int[1024];
+    private byte[] lineLevel = new byte[1024];
+    private long[] trigrams = new long[16 * TRIGRAM_WORDS];
+    private final IntList[] levelLines = new IntList[LEVELS.length];
+
+    /// Incremented by [#clear()], so that views and searches can detect it
+    private int generation = 0;
+
+    private final LinkedHashMap<Integer, String[]> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String[]> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+
+    /**
+     * Creates a store which spills to a temporary file in the default temporary-file directory.
+     */
+    public GameLogStore() {
+        this(Path.of(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * @param directory the directory of the temporary file, or {@code null} to keep everything in memory
+     */
+    public GameLogStore(@Nullable Path directory) {
+        this.directory = directory;
+        for (int i = 0; i < levelLines.length; i++) {
+            levelLines[i] = new IntList();
+        }
+    }
+
+    // Storage
+
+    private void write(byte[] bytes) {
+        int offset = 0;
+        while (offset < bytes.length) {
+            int chunkIndex = (int) (length >>> CHUNK_SHIFT);
+            int chunkOffset = (int) (length & (CHUNK_SIZE - 1));
+
+            if (chunkIndex >= chunks.length)
+                chunks = Arrays.copyOf(chunks, chunks.length * 2);
+            byte[] chunk = chunks[chunkIndex];
+            if (chunk == null)
+                chunks[chunkIndex] = chunk = new byte[CHUNK_SIZE];
+
+            int n = Math.min(bytes.length - offset, CHUNK_SIZE - chunkOffset);
+            System.arraycopy(bytes, offset, chunk, chunkOffset, n);
+            offset += n;
+            length += n;
+
+            if (chunkOffset + n == CHUNK_SIZE)
+                spill(chunkIndex);
+        }
+    }
+
+    private void spill(int chunkIndex) {
+        if (directory == null)
+            return;
+
+        try {
+            if (channel == null) {
+                Path file = Files.createTempFile(directory, "hmcl-game-log-", ".bin");
+                channel = FileChannel.open(file, READ, WRITE, DELETE_ON_CLOSE);
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(chunks[chunkIndex]);
+            long position = (long) chunkIndex << CHUNK_SHIFT;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            chunks[chunkIndex] = null;
+        } catch (IOException e) {
+            // Keep the chunk in memory
+            LOG.warning("Failed to spill game logs to disk", e);
+        }
+    }
+
+    private void read(long position, byte[] dst, int offset, int length) throws IOException {
+        while (length > 0) {
+            int chunkIndex = (int) (position >>> CHUNK_SHIFT);
+            int chunkOffset = (int) (position & (CHUNK_SIZE - 1));
+            int n = Math.min(length, CHUNK_SIZE - chunkOffset);
+
+            byte[] chunk = chunks[chunkIndex];
+            if (chunk != null) {
+                System.arraycopy(chunk, chunkOffset, dst, offset, n);
+            } else {
+                ByteBuffer buffer = ByteBuffer.wrap(dst, offset, n);
+                long p = position;
+                while (buffer.hasRemaining()) {
+                    int r = channel.read(buffer, p);
+                    if (r < 0)
+                        throw new IOException("Unexpected end of file");
+                    p += r;
+                }
+            }
+
+            position += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    // Index
+
+    private long lineStart(int line) {
+        int block = line >> BLOCK_SHIFT;
+        return (line & (BLOCK_LINES - 1)) == 0 ? blockStart[block] : blockStart[block] + lineEnd[line - 1];
+    }
+
+    private long lineEnd(int line) {
+        return blockStart[line >> BLOCK_SHIFT] + lineEnd[line];
+    }
+
+    private static int trigramHash(int b0, int b1, int b2) {
+        return ((b0 << 16) | (b1 << 8) | b2) * 0x9E3779B1 >>> (Integer.SIZE - TRIGRAM_BITS_SHIFT);
+    }
+
+    private static byte toLowerCase(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private void indexTrigrams(int block, byte[] bytes) {
+        int base = block * TRIGRAM_WORDS;
+        for (int i = 0; i + 2 < bytes.length; i++) {
+            int hash = trigramHash(toLowerCase(bytes[i]) & 0xff, toLowerCase(bytes[i + 1]) & 0xff, toLowerCase(bytes[i + 2]) & 0xff);
+            trigrams[base + (hash >>> 6)] |= 1L << hash;
+        }
+    }
+
+    public synchronized void append(String line, Log4jLevel level) {
+        if (closed)
+            return;
+
+        int block = lineCount >> BLOCK_SHIFT;
+        if ((lineCount & (BLOCK_LINES - 1)) == 0) {
+            if (block >= blockStart.length) {
+                blockStart = Arrays.copyOf(blockStart, blockStart.length * 2);
+                trigrams = Arrays.copyOf(trigrams, blockStart.length * TRIGRAM_WORDS);
+            }
+            blockStart[block] = length;
+        }
+        if (lineCount >= lineEnd.length) {
+            lineEnd = Arrays.copyOf(lineEnd, lineEnd.length * 2);
+            lineLevel = Arrays.copyOf(lineLevel, lineLevel.length * 2);
+        }
+
+        byte[] bytes = line.getBytes(UTF_8);
+        write(bytes);
+        indexTrigrams(block, bytes);
+
+        lineEnd[lineCount] = (int) (length - blockStart[block]);
+        lineLevel[lineCount] = (byte) level.ordinal();
+        levelLines[level.ordinal()].add(lineCount);
+        lineCount++;
+    }
+
+    public synchronized int size() {
+        return lineCount;
+    }
+
+    public synchronized int count(Log4jLevel level) {
+        return levelLines[level.ordinal()].size;
+    }
+
+    public synchronized Log4jLevel getLevel(int line) {
+        if (line < 0 || line >= lineCount)
+            throw new IndexOutOfBoundsException(line);
+        return LEVELS[lineLevel[line]];
+    }
+
+    public synchronized String getLine(int line) {
+        if (line < 0 || line >= lineCount)
+            throw new IndexOutOfBoundsException(line);
+
+        int pageIndex = line >> PAGE_SHIFT;
+        int indexInPage = line & (PAGE_LINES - 1);
+
+        String[] page = pages.get(pageIndex);
+        if (page == null || indexInPage >= page.length) {
+            page = loadPage(pageIndex);
+            pages.put(pageIndex, page);
+        }
+        return page[indexInPage];
+    }
+
+    private String[] loadPage(int pageIndex) {
+        int first = pageIndex << PAGE_SHIFT;
+        int last = Math.min(lineCount, first + PAGE_LINES);
+        String[] page = new String[last - first];
+
+        long start = lineStart(first);
+        byte[] bytes = new byte[(int) (lineEnd(last - 1) - start)];
+        try {
+            read(start, bytes, 0, bytes.length);
+        } catch (IOException e) {
+            LOG.warning("Failed to read game logs", e);
+            Arrays.fill(page, "");
+            return page;
+        }
+
+        for (int line = first; line < last; line++) {
+            int from = (int) (lineStart(line) - start);
+            int to = (int) (lineEnd(line) - start);
+            page[line - first] = new String(bytes, from, to - from, UTF_8);
+        }
+        return page;
+    }
+
+    // Filtering
+
+    /**
+     * Creates a view of the lines whose level is in {@code levels}.
+     */
+    public synchronized View newView(Set<Log4jLevel> levels) {
+        boolean[] shown = new boolean[LEVELS.length];
+        int size = 0;
+        for (Log4jLevel level : levels) {
+            shown[level.ordinal()] = true;
+            size += levelLines[level.ordinal()].size;
+        }
+
+        // Merge the line lists of the shown levels
+        int[] lines = new int[Math.max(size, 16)];
+        int[] cursors = new int[LEVELS.length];
+        for (int i = 0; i < size; i++) {
+            int minLevel = -1;
+            int minLine = Integer.MAX_VALUE;
+            for (int level = 0; level < LEVELS.length; level++) {
+                if (shown[level] && cursors[level] < levelLines[level].size) {
+                    int line = levelLines[level].values[cursors[level]];
+                    if (line < minLine) {
+                        minLine = line;
+                        minLevel = level;
+                    }
+                }
+            }
+            lines[i] = minLine;
+            cursors[minLevel]++;
+        }
+
+        return new View(shown, lines, size, lineCount, generation);
+    }
+
+    /**
+     * A filtered view of the store, which maps positions in the view to line numbers in the store.
+     * <p>
+     * Lines appended to the store after the view was created appear in the view after {@link #update()}.
+     */
+    public final class View {
+        private final boolean[] shown;
+        private int[] lines;
+        private int size;
+        private int scanned;
+        private final int generation;
+
+        private View(boolean[] shown, int[] lines, int size, int scanned, int generation) {
+            this.shown = shown;
+            this.lines = lines;
+            this.size = size;
+            this.scanned = scanned;
+            this.generation = generation;
+        }
+
+        public GameLogStore getStore() {
+            return GameLogStore.this;
+        }
+
+        public boolean isShown(Log4jLevel level) {
+            return shown[level.ordinal()];
+        }
+
+        public int size() {
+            synchronized (GameLogStore.this) {
+                return size;
+            }
+        }
+
+        /**
+         * @return the line number in the store of the line at {@code position}
+         */
+        public int getLine(int position) {
+            synchronized (GameLogStore.this) {
+                if (position < 0 || position >= size)
+                    throw new IndexOutOfBoundsException(position);
+                return lines[position];
+            }
+        }
+
+        /**
+         * @return the position of {@code line} in this view, or {@code -(insertion point) - 1} if it is not shown
+         */
+        public int indexOf(int line) {
+            synchronized (GameLogStore.this) {
+                return Arrays.binarySearch(lines, 0, size, line);
+            }
+        }
+
+        /**
+         * Adds the lines appended to the store since the last update.
+         *
+         * @return the number of added lines
+         */
+        public int update() {
+            synchronized (GameLogStore.this) {
+                if (generation != GameLogStore.this.generation)
+                    return 0;
+
+                int oldSize = size;
+                for (int line = scanned; line < lineCount; line++) {
+                    if (shown[lineLevel[line]]) {
+                        if (size >= lines.length)
+                            lines = Arrays.copyOf(lines, lines.length * 2);
+                        lines[size++] = line;
+                    }
+                }
+                scanned = lineCount;
+                return size - oldSize;
+            }
+        }
+    }
+
+    // Searching
+
+    private static byte[] toLowerCase(byte[] bytes) {
+        byte[] result = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            result[i] = toLowerCase(bytes[i]);
+        }
+        return result;
+    }
+
+    private static int indexOf(byte[] bytes, int from, int to, byte[] pattern) {
+        outer:
+        for (int i = from, end = to - pattern.length; i <= end; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (toLowerCase(bytes[i + j]) != pattern[j])
+                    continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first line at or after {@code fromLine} which contains {@code text} and whose level is in {@code levels}.
+     * <p>
+     * The search ignores the case of ASCII letters. It only locks the store while it reads a block of lines,
+     * so it may be called from a background thread while lines are being appended.
+     *
+     * @return the line number, or -1 if there is no such line
+     */
+    public int find(String text, int fromLine, Set<Log4jLevel> levels) throws IOException {
+        byte[] pattern = toLowerCase(text.getBytes(UTF_8));
+
+        long[] mask = null;
+        if (pattern.length >= 3) {
+            mask = new long[TRIGRAM_WORDS];
+            for (int i = 0; i + 2 < pattern.length; i++) {
+                int hash = trigramHash(pattern[i] & 0xff, pattern[i + 1] & 0xff, pattern[i + 2] & 0xff);
+                mask[hash >>> 6] |= 1L << hash;
+            }
+        }
+
+        boolean[] shown = new boolean[LEVELS.length];
+        for (Log4jLevel level : levels) {
+            shown[level.ordinal()] = true;
+        }
+
+        int generation;
+        synchronized (this) {
+            generation = this.generation;
+        }
+
+        byte[] buffer = new byte[0];
+        int[] ends = new int[BLOCK_LINES];
+        byte[] levelsOfBlock = new byte[BLOCK_LINES];
+
+        for (int block = Math.max(0, fromLine) >> BLOCK_SHIFT; ; block++) {
+            int first, last;
+            synchronized (this) {
+                if (closed || generation != this.generation)
+                    return -1;
+
+                first = Math.max(fromLine, block << BLOCK_SHIFT);
+                last = Math.min(lineCount, (block + 1) << BLOCK_SHIFT);
+                if (first >= last)
+                    return -1;
+
+                if (mask != null && !containsTrigrams(block, mask))
+                    continue;
+
+                long start = lineStart(first);
+                int blockLength = (int) (lineEnd(last - 1) - start);
+                if (buffer.length < blockLength)
+                    buffer = new byte[Math.max(blockLength, buffer.length * 2)];
+                read(start, buffer, 0, blockLength);
+
+                for (int line = first; line < last; line++) {
+                    ends[line - first] = (int) (lineEnd(line) - start);
+                    levelsOfBlock[line - first] = lineLevel[line];
+                }
+            }
+
+            int from = 0;
+            for (int i = 0; i < last - first; i++) {
+                int to = ends[i];
+                if (shown[levelsOfBlock[i]] && indexOf(buffer, from, to, pattern) >= 0)
+                    return first + i;
+                from = to;
+            }
+        }
+    }
+
+    private boolean containsTrigrams(int block, long[] mask) {
+        int base = block * TRIGRAM_WORDS;
+        for (int i = 0; i < TRIGRAM_WORDS; i++) {
+            if ((trigrams[base + i] & mask[i]) != mask[i])
+                return false;
+        }
+        return true;
+    }
+
+    // Export
+
+    /**
+     * Writes all lines to {@code writer}, one per line.
+     */
+    public void writeTo(BufferedWriter writer) throws IOException {
+        int size = size();
+        for (int line = 0; line < size; line++) {
+            String text;
+            synchronized (this) {
+                if (closed || line >= lineCount)
+                    break;
+                text = getLine(line);
+            }
+            writer.write(text);
+            writer.newLine();
+        }
+    }
+
+    /**
+     * Removes all lines. Views created before are no longer updated.
+     */
+    public synchronized void clear() {
+        generation++;
+        pages.clear();
+        Arrays.fill(chunks, null);
+        length = 0;
+        lineCount = 0;
+        Arrays.fill(trigrams, 0L);
+        for (IntList list : levelLines) {
+            list.size = 0;
+        }
+
+        if (channel != null) {
+            try {
+                channel.truncate(0);
+            } catch (IOException e) {
+                LOG.warning("Failed to truncate game log file", e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+
+        closed = true;
+        generation++;
+        pages.clear();
+        chunks = new byte[0][];
+        lineCount = 0;
+        length = 0;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[16];
+        int size = 0;
+
+        void add(int value) {
+            if (size >= values.length)
+                values = Arrays.copyOf(values, values.length * 2);
+            values[size++] = value;
+        }
+    }
+}
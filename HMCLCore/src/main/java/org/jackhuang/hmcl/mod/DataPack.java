@@ -25,10 +25,13 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import org.jackhuang.hmcl.mod.modinfo.PackMcMeta;
 import org.jackhuang.hmcl.util.StringUtils;
+import org.jackhuang.hmcl.util.function.ExceptionalSupplier;
 import org.jackhuang.hmcl.util.gson.JsonUtils;
 import org.jackhuang.hmcl.util.io.CompressingUtils;
 import org.jackhuang.hmcl.util.io.FileUtils;
 import org.jackhuang.hmcl.util.io.Unzipper;
+import org.jackhuang.hmcl.util.io.ZipIndex;
+import org.jackhuang.hmcl.util.io.ZipIndexPool;
 import org.jackhuang.hmcl.util.versioning.GameVersionNumber;
 
 import java.io.IOException;
@@ -205,14 +208,12 @@ public class DataPack {
         }
 
         Path targetPath = Files.exists(mcmeta) ? mcmeta : mcmetaDisabled;
-        return parsePack(path, true, FileUtils.getNameWithoutExtension(path), targetPath);
+        return parsePack(path, true, FileUtils.getNameWithoutExtension(path), () -> Files.readString(targetPath));
     }
 
     private Optional<Pack> loadSinglePackFromZipFile(Path path) {
-        try (FileSystem fs = CompressingUtils.createReadOnlyZipFileSystem(path)) {
-            Path mcmeta = fs.getPath("pack.mcmeta");
-
-            if (!Files.exists(mcmeta)) {
+        try (ZipIndex zip = ZipIndexPool.getDefault().open(path)) {
+            if (!zip.contains("pack.mcmeta")) {
                 return Optional.empty();
             }
 
@@ -222,16 +223,16 @@ public class DataPack {
             }
             packName = FileUtils.getNameWithoutExtension(packName);
 
-            return parsePack(path, false, packName, mcmeta);
+            return parsePack(path, false, packName, () -> zip.readTextEntry("pack.mcmeta"));
         } catch (IOException e) {
             LOG.warning("IO error reading " + path, e);
             return Optional.empty();
         }
     }
 
-    private Optional<Pack> parsePack(Path dataPackPath, boolean isDirectory, String name, Path mcmetaPath) {
+    private Optional<Pack> parsePack(Path dataPackPath, boolean isDirectory, String name, ExceptionalSupplier<String, IOException> mcmetaReader) {
         try {
-            PackMcMeta mcMeta = JsonUtils.fromNonNullJson(Files.readString(mcmetaPath), PackMcMeta.class);
+            PackMcMeta mcMeta = JsonUtils.fromNonNullJson(mcmetaReader.get(), PackMcMeta.class);
             return Optional.of(new Pack(dataPackPath, isDirectory, name, mcMeta.pack().description(), this));
         } catch (JsonParseException e) {
             LOG.warning("Invalid pack.mcmeta format in " + dataPackPath, e);
@@ -0,0 +1,212 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.mod;
+
+import com.google.gson.annotations.SerializedName;
+import org.jackhuang.hmcl.util.DigestUtils;
+import org.jackhuang.hmcl.util.gson.JsonUtils;
+import org.jackhuang.hmcl.util.io.FileUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.jackhuang.hmcl.util.Lang.threadPool;
+import static org.jackhuang.hmcl.util.logging.Logger.LOG;
+
+/**
+ * Caches the SHA-1 of the files of an instance, so that a modpack update can find out which files the user modified
+ * without reading the files which did not change.
+ * <p>
+ * A file is identified by its path relative to the root directory, and its hash is reused as long as its size
+ * and last modified time are the same. Files modified just before they are hashed are not cached,
+ * because a later modification within the resolution of the file system timestamps would not be noticed.
+ */
+public final class FileHashCache {
+    public static final String FILE_NAME = "hmclhashcache.json";
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String ALGORITHM = "SHA-1";
+    /// Files modified more recently than this when they are hashed may be modified again without changing their timestamps
+    private static final long RACY_INTERVAL = TimeUnit.SECONDS.toMillis(2);
+
+    private static final int PARALLELISM = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    private static final ThreadPoolExecutor POOL = threadPool("FileHashCache", true, PARALLELISM, 10, TimeUnit.SECONDS);
+
+    private final Path file;
+    private final Path root;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private boolean loaded = false;
+    private boolean dirty = false;
+
+    /**
+     * @param file the cache file
+     * @param root the directory which the paths of the cached files are relative to
+     */
+    public FileHashCache(Path file, Path root) {
+        this.file = file;
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    String getKey(Path path) {
+        Path absolutePath = path.toAbsolutePath().normalize();
+        Path relativePath = absolutePath.startsWith(root) ? root.relativize(absolutePath) : absolutePath;
+        return relativePath.toString().replace('\\', '/');
+    }
+
+    private synchronized void load() {
+        if (loaded)
+            return;
+        loaded = true;
+
+        if (Files.isRegularFile(file)) {
+            try {
+                CacheFile cacheFile = JsonUtils.fromJsonFile(file, CacheFile.class);
+                if (cacheFile != null && cacheFile.version == FORMAT_VERSION && cacheFile.files != null) {
+                    for (Entry entry : cacheFile.files) {
+                        if (entry != null && entry.path != null && DigestUtils.isSha1Digest(entry.hash))
+                            entries.put(entry.path, entry);
+                    }
+                }
+            } catch (Exception e) {
+                LOG.warning("Failed to read file hash cache " + file, e);
+                entries.clear();
+            }
+        }
+    }
+
+    /**
+     * Computes the SHA-1 of the files in parallel, reusing the cached hashes of unchanged files, and saves the cache.
+     *
+     * @return the hashes keyed by the given paths, without the files which do not exist
+     */
+    public Map<Path, String> hash(Collection<Path> files) throws IOException {
+        return hash(files, POOL);
+    }
+
+    Map<Path, String> hash(Collection<Path> files, @Nullable Executor executor) throws IOException {
+        load();
+
+        List<Path> paths = new ArrayList<>(new LinkedHashSet<>(files));
+        String[] hashes = new String[paths.size()];
+        if (executor == null || paths.size() < 2) {
+            for (int i = 0; i < hashes.length; i++) {
+                hashes[i] = hash(paths.get(i));
+            }
+        } else {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[hashes.length];
+            for (int i = 0; i < hashes.length; i++) {
+                int index = i;
+                Path path = paths.get(i);
+                futures[i] = CompletableFuture.runAsync(() -> {
+                    try {
+                        hashes[index] = hash(path);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, executor);
+            }
+
+            try {
+                CompletableFuture.allOf(futures).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UncheckedIOException uncheckedIOException)
+                    throw uncheckedIOException.getCause();
+                throw e;
+            }
+        }
+
+        Map<Path, String> result = new HashMap<>();
+        for (int i = 0; i < hashes.length; i++) {
+            if (hashes[i] != null)
+                result.put(paths.get(i), hashes[i]);
+        }
+
+        save();
+        return result;
+    }
+
+    private @Nullable String hash(Path path) throws IOException {
+        String key = getKey(path);
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            synchronized (this) {
+                if (entries.remove(key) != null)
+                    dirty = true;
+            }
+            return null;
+        }
+
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.size == size && entry.lastModified == lastModified)
+                return entry.hash;
+        }
+
+        long now = System.currentTimeMillis();
+        String hash = DigestUtils.digestToString(ALGORITHM, path);
+        synchronized (this) {
+            if (now - lastModified >= RACY_INTERVAL)
+                entries.put(key, new Entry(key, size, lastModified, hash));
+            else
+                entries.remove(key);
+            dirty = true;
+        }
+        return hash;
+    }
+
+    private synchronized void save() {
+        if (!dirty)
+            return;
+
+        List<Entry> files = new ArrayList<>(entries.values());
+        files.sort(Comparator.comparing(Entry::path));
+        try {
+            Files.createDirectories(file.getParent());
+            FileUtils.saveSafely(file, JsonUtils.UGLY_GSON.toJson(new CacheFile(FORMAT_VERSION, files)));
+            dirty = false;
+        } catch (IOException e) {
+            LOG.warning("Failed to save file hash cache " + file, e);
+        }
+    }
+
+    private record CacheFile(@SerializedName("version") int version,
+                             @SerializedName("files") List<Entry> files) {
+    }
+
+    private record Entry(@SerializedName("path") String path,
+                         @SerializedName("size") long size,
+                         @SerializedName("lastModified") long lastModified,
+                         @SerializedName("hash") String hash) {
+    }
+}
@@ -87,10 +87,13 @@ public final class LocalModFile implements Comparable<LocalModFile> {
 
         fileName = FileUtils.getNameWithoutExtension(ModManager.getModName(file));
 
-        if (isOld()) {
-            mod.getOldFiles().add(this);
-        } else {
-            mod.getFiles().add(this);
+        // Mod files may be read concurrently by ModManager
+        synchronized (mod) {
+            if (isOld()) {
+                mod.getOldFiles().add(this);
+            } else {
+                mod.getFiles().add(this);
+            }
         }
     }
 
@@ -181,14 +184,18 @@ public final class LocalModFile implements Comparable<LocalModFile> {
     public ModUpdate checkUpdates(DownloadProvider downloadProvider, String gameVersion, RemoteModRepository repository) throws IOException {
         Optional<RemoteMod.Version> currentVersion = repository.getRemoteVersionByLocalFile(this, file);
         if (!currentVersion.isPresent()) return null;
-        List<RemoteMod.Version> remoteVersions = repository.getRemoteVersionsById(downloadProvider, currentVersion.get().getModid())
+        return checkUpdates(downloadProvider, gameVersion, repository, currentVersion.get());
+    }
+
+    public ModUpdate checkUpdates(DownloadProvider downloadProvider, String gameVersion, RemoteModRepository repository, RemoteMod.Version currentVersion) throws IOException {
+        List<RemoteMod.Version> remoteVersions = repository.getRemoteVersionsById(downloadProvider, currentVersion.getModid())
                 .filter(version -> version.getGameVersions().contains(gameVersion))
                 .filter(version -> version.getLoaders().contains(getModLoaderType()))
-                .filter(version -> version.getDatePublished().compareTo(currentVersion.get().getDatePublished()) > 0)
+                .filter(version -> version.getDatePublished().compareTo(currentVersion.getDatePublished()) > 0)
                 .sorted(Comparator.comparing(RemoteMod.Version::getDatePublished).reversed())
                 .toList();
         if (remoteVersions.isEmpty()) return null;
-        return new ModUpdate(this, currentVersion.get(), remoteVersions.get(0));
+        return new ModUpdate(this, currentVersion, remoteVersions.get(0));
     }
 
     @Override
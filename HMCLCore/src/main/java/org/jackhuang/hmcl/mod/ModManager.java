@@ -25,13 +25,22 @@ import org.jackhuang.hmcl.util.Pair;
 import org.jackhuang.hmcl.util.StringUtils;
 import org.jackhuang.hmcl.util.io.CompressingUtils;
 import org.jackhuang.hmcl.util.io.FileUtils;
+import org.jackhuang.hmcl.util.io.ZipIndex;
+import org.jackhuang.hmcl.util.io.ZipIndexPool;
 import org.jackhuang.hmcl.util.tree.ZipFileTree;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
 
 import java.io.IOException;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import static org.jackhuang.hmcl.util.Lang.threadPool;
 import static org.jackhuang.hmcl.util.Pair.pair;
 import static org.jackhuang.hmcl.util.logging.Logger.LOG;
 
@@ -61,11 +70,15 @@ public final class ModManager {
         READERS = map;
     }
 
+    private static final int PARALLELISM = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    private static final ThreadPoolExecutor POOL = threadPool("ModManager", true, PARALLELISM, 10, TimeUnit.SECONDS);
+
     private final GameRepository repository;
     private final String id;
     private final TreeSet<LocalModFile> localModFiles = new TreeSet<>();
     private final HashMap<Pair<String, ModLoaderType>, LocalMod> localMods = new HashMap<>();
     private LibraryAnalyzer analyzer;
+    private ModMetadataCache metadataCache;
 
     private boolean loaded = false;
 
@@ -91,25 +104,54 @@ public final class ModManager {
     }
 
     public LocalMod getLocalMod(String modId, ModLoaderType modLoaderType) {
-        return localMods.computeIfAbsent(pair(modId, modLoaderType),
-                x -> new LocalMod(x.getKey(), x.getValue()));
+        synchronized (localMods) {
+            return localMods.computeIfAbsent(pair(modId, modLoaderType),
+                    x -> new LocalMod(x.getKey(), x.getValue()));
+        }
     }
 
     public boolean hasMod(String modId, ModLoaderType modLoaderType) {
-        return localMods.containsKey(pair(modId, modLoaderType));
+        synchronized (localMods) {
+            return localMods.containsKey(pair(modId, modLoaderType));
+        }
     }
 
-    private void addModInfo(Path file) {
+    private ModMetadataCache getMetadataCache() {
+        if (metadataCache == null)
+            metadataCache = new ModMetadataCache(repository.getVersionRoot(id).resolve(METADATA_CACHE_FILE_NAME));
+        return metadataCache;
+    }
+
+    /**
+     * Reads the metadata of a mod file. This method may be called concurrently.
+     *
+     * @return the mod file, or {@code null} if the file is not a mod file
+     */
+    private @Nullable LocalModFile readModInfo(Path file, Set<ModLoaderType> modLoaderTypes) {
         String fileName = StringUtils.removeSuffix(FileUtils.getName(file), DISABLED_EXTENSION, OLD_EXTENSION);
         String extension = fileName.substring(fileName.lastIndexOf(".") + 1);
 
         List<Pair<ModMetadataReader, ModLoaderType>> readersMap = READERS.get(extension);
         if (readersMap == null) {
             // Is not a mod file.
-            return;
+            return null;
         }
 
-        Set<ModLoaderType> modLoaderTypes = analyzer.getModLoaders();
+        ModMetadataCache cache = getMetadataCache();
+        String cacheKey = ModMetadataCache.getKey(getModsDirectory(), file);
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            attributes = null;
+        }
+
+        if (attributes != null) {
+            ModMetadataCache.Entry entry = cache.get(cacheKey, attributes.size(), attributes.lastModifiedTime().toMillis());
+            if (entry != null) {
+                return entry.toLocalModFile(this, file);
+            }
+        }
 
         var supportedReaders = new ArrayList<ModMetadataReader>();
         var unsupportedReaders = new ArrayList<ModMetadataReader>();
@@ -123,9 +165,12 @@ public final class ModManager {
         }
 
         LocalModFile modInfo = null;
+        // Only cache the result if the file could be opened, as other failures may be temporary
+        boolean cacheable = false;
 
         List<Exception> exceptions = new ArrayList<>();
         try (ZipFileTree tree = CompressingUtils.openZipTree(file)) {
+            cacheable = true;
             for (ModMetadataReader reader : supportedReaders) {
                 try {
                     modInfo = reader.fromFile(this, file, tree);
@@ -165,36 +210,101 @@ public final class ModManager {
             );
         }
 
-        if (!modInfo.isOld()) {
+        if (cacheable && attributes != null) {
+            cache.put(cacheKey, attributes.size(), attributes.lastModifiedTime().toMillis(), modInfo);
+        }
+
+        return modInfo;
+    }
+
+    private void addModInfo(Path file) {
+        LocalModFile modInfo = readModInfo(file, analyzer.getModLoaders());
+        if (modInfo != null && !modInfo.isOld()) {
             localModFiles.add(modInfo);
         }
     }
 
+    /**
+     * Reads the metadata of {@code files} on {@code executor} and adds them in the order of their paths,
+     * so that the result does not depend on the order in which the reads complete.
+     */
+    void loadModFiles(List<Path> files, Set<ModLoaderType> modLoaderTypes, @Nullable Executor executor) {
+        files = new ArrayList<>(files);
+        files.sort(Comparator.comparing(Path::toString));
+
+        LocalModFile[] modInfos = new LocalModFile[files.size()];
+        if (executor == null || files.size() < 2) {
+            for (int i = 0; i < modInfos.length; i++) {
+                modInfos[i] = readModInfoSafely(files.get(i), modLoaderTypes);
+            }
+        } else {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[modInfos.length];
+            for (int i = 0; i < modInfos.length; i++) {
+                int index = i;
+                Path file = files.get(i);
+                futures[i] = CompletableFuture.runAsync(() -> modInfos[index] = readModInfoSafely(file, modLoaderTypes), executor);
+            }
+            CompletableFuture.allOf(futures).join();
+        }
+
+        Set<String> cacheKeys = new HashSet<>();
+        for (int i = 0; i < modInfos.length; i++) {
+            LocalModFile modInfo = modInfos[i];
+            if (modInfo != null) {
+                cacheKeys.add(ModMetadataCache.getKey(getModsDirectory(), files.get(i)));
+                if (!modInfo.isOld()) {
+                    localModFiles.add(modInfo);
+                }
+            }
+        }
+
+        ModMetadataCache cache = getMetadataCache();
+        cache.retainAll(cacheKeys);
+        cache.save();
+        loaded = true;
+    }
+
+    private @Nullable LocalModFile readModInfoSafely(Path file, Set<ModLoaderType> modLoaderTypes) {
+        try {
+            return readModInfo(file, modLoaderTypes);
+        } catch (Throwable e) {
+            LOG.warning("Failed to load mod file " + file, e);
+            return null;
+        }
+    }
+
     public void refreshMods() throws IOException {
         localModFiles.clear();
-        localMods.clear();
+        synchronized (localMods) {
+            localMods.clear();
+        }
 
         analyzer = LibraryAnalyzer.analyze(getRepository().getResolvedPreservingPatchesVersion(id), null);
 
         boolean supportSubfolders = analyzer.has(LibraryAnalyzer.LibraryType.FORGE)
                 || analyzer.has(LibraryAnalyzer.LibraryType.QUILT);
 
+        Set<ModLoaderType> modLoaderTypes = analyzer.getModLoaders();
+        getMetadataCache().load(modLoaderTypes);
+
+        List<Path> files = new ArrayList<>();
         if (Files.isDirectory(getModsDirectory())) {
             try (DirectoryStream<Path> modsDirectoryStream = Files.newDirectoryStream(getModsDirectory())) {
                 for (Path subitem : modsDirectoryStream) {
                     if (supportSubfolders && Files.isDirectory(subitem) && !".connector".equalsIgnoreCase(subitem.getFileName().toString())) {
                         try (DirectoryStream<Path> subitemDirectoryStream = Files.newDirectoryStream(subitem)) {
                             for (Path subsubitem : subitemDirectoryStream) {
-                                addModInfo(subsubitem);
+                                files.add(subsubitem);
                             }
                         }
                     } else {
-                        addModInfo(subitem);
+                        files.add(subitem);
                     }
                 }
             }
         }
-        loaded = true;
+
+        loadModFiles(files, modLoaderTypes, POOL);
     }
 
     public @Unmodifiable List<LocalModFile> getMods() throws IOException {
@@ -217,6 +327,7 @@ public final class ModManager {
         FileUtils.copyFile(file, newFile);
 
         addModInfo(newFile);
+        getMetadataCache().save();
     }
 
     public void removeMods(LocalModFile... localModFiles) throws IOException {
@@ -332,28 +443,28 @@ public final class ModManager {
     }
 
     public static boolean isFileMod(Path modFile) {
-        try (FileSystem fs = CompressingUtils.createReadOnlyZipFileSystem(modFile)) {
-            if (Files.exists(fs.getPath("mcmod.info")) || Files.exists(fs.getPath("META-INF/mods.toml"))) {
+        try (ZipIndex zip = ZipIndexPool.getDefault().open(modFile)) {
+            if (zip.contains("mcmod.info") || zip.contains("META-INF/mods.toml")) {
                 // Forge mod
                 return true;
             }
 
-            if (Files.exists(fs.getPath("fabric.mod.json"))) {
+            if (zip.contains("fabric.mod.json")) {
                 // Fabric mod
                 return true;
             }
 
-            if (Files.exists(fs.getPath("quilt.mod.json"))) {
+            if (zip.contains("quilt.mod.json")) {
                 // Quilt mod
                 return true;
             }
 
-            if (Files.exists(fs.getPath("litemod.json"))) {
+            if (zip.contains("litemod.json")) {
                 // Liteloader mod
                 return true;
             }
 
-            if (Files.exists(fs.getPath("pack.mcmeta"))) {
+            if (zip.contains("pack.mcmeta")) {
                 // resource pack, data pack
                 return true;
             }
@@ -383,4 +494,5 @@ public final class ModManager {
 
     public static final String DISABLED_EXTENSION = ".disabled";
     public static final String OLD_EXTENSION = ".old";
+    public static final String METADATA_CACHE_FILE_NAME = "hmclmodcache.json";
 }
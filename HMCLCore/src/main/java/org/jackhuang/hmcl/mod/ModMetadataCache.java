@@ -0,0 +1,167 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.mod;
+
+import com.google.gson.annotations.SerializedName;
+import org.jackhuang.hmcl.util.StringUtils;
+import org.jackhuang.hmcl.util.gson.JsonUtils;
+import org.jackhuang.hmcl.util.io.FileUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.jackhuang.hmcl.util.logging.Logger.LOG;
+
+/**
+ * Caches the metadata of mod files of an instance, so that unchanged mod files need not be opened again.
+ * <p>
+ * A mod file is identified by its path relative to the mods directory without {@link ModManager#DISABLED_EXTENSION},
+ * so that enabling or disabling a mod keeps its entry, its size and its last modified time. Since which metadata is read from a file
+ * depends on the mod loaders installed, the cache is discarded when they change.
+ */
+final class ModMetadataCache {
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path file;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private Set<ModLoaderType> modLoaders = EnumSet.noneOf(ModLoaderType.class);
+    private boolean loaded = false;
+    private boolean dirty = false;
+
+    ModMetadataCache(Path file) {
+        this.file = file;
+    }
+
+    static String getKey(Path modsDirectory, Path modFile) {
+        String relativePath = modsDirectory.relativize(modFile).toString().replace('\\', '/');
+        return StringUtils.removeSuffix(relativePath, ModManager.DISABLED_EXTENSION);
+    }
+
+    /**
+     * Loads the cache file if it has not been loaded, and discards it if it was created with other mod loaders.
+     */
+    synchronized void load(Set<ModLoaderType> modLoaders) {
+        if (!loaded) {
+            loaded = true;
+            if (Files.isRegularFile(file)) {
+                try {
+                    CacheFile cacheFile = JsonUtils.fromJsonFile(file, CacheFile.class);
+                    if (cacheFile != null && cacheFile.version == FORMAT_VERSION && cacheFile.modLoaders != null && cacheFile.files != null) {
+                        this.modLoaders = cacheFile.modLoaders.isEmpty() ? EnumSet.noneOf(ModLoaderType.class) : EnumSet.copyOf(cacheFile.modLoaders);
+                        for (Entry entry : cacheFile.files) {
+                            if (entry != null && entry.isValid())
+                                entries.put(entry.path, entry);
+                        }
+                    }
+                } catch (Exception e) {
+                    LOG.warning("Failed to read mod metadata cache " + file, e);
+                    entries.clear();
+                }
+            }
+        }
+
+        if (!this.modLoaders.equals(modLoaders)) {
+            this.modLoaders = modLoaders.isEmpty() ? EnumSet.noneOf(ModLoaderType.class) : EnumSet.copyOf(modLoaders);
+            if (!entries.isEmpty()) {
+                entries.clear();
+                dirty = true;
+            }
+        }
+    }
+
+    synchronized @Nullable Entry get(String key, long size, long lastModified) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.size == size && entry.lastModified == lastModified ? entry : null;
+    }
+
+    synchronized void put(String key, long size, long lastModified, LocalModFile modFile) {
+        List<DescriptionPart> description = new ArrayList<>();
+        for (LocalModFile.Description.Part part : modFile.getDescription().getParts()) {
+            description.add(new DescriptionPart(part.getText(), part.getColor()));
+        }
+
+        entries.put(key, new Entry(key, size, lastModified,
+                modFile.getId(), modFile.getModLoaderType(), modFile.getName(), description,
+                modFile.getAuthors(), modFile.getVersion(), modFile.getGameVersion(), modFile.getUrl(), modFile.getLogoPath()));
+        dirty = true;
+    }
+
+    /**
+     * Removes the entries of mod files which no longer exist.
+     */
+    synchronized void retainAll(Set<String> keys) {
+        if (entries.keySet().retainAll(keys))
+            dirty = true;
+    }
+
+    synchronized void save() {
+        if (!dirty)
+            return;
+
+        List<Entry> files = new ArrayList<>(entries.values());
+        files.sort(Comparator.comparing(Entry::path));
+        CacheFile cacheFile = new CacheFile(FORMAT_VERSION, new ArrayList<>(modLoaders), files);
+        try {
+            Files.createDirectories(file.getParent());
+            FileUtils.saveSafely(file, JsonUtils.UGLY_GSON.toJson(cacheFile));
+            dirty = false;
+        } catch (IOException e) {
+            LOG.warning("Failed to save mod metadata cache " + file, e);
+        }
+    }
+
+    private record CacheFile(@SerializedName("version") int version,
+                             @SerializedName("modLoaders") List<ModLoaderType> modLoaders,
+                             @SerializedName("files") List<Entry> files) {
+    }
+
+    record DescriptionPart(@SerializedName("text") String text,
+                           @SerializedName("color") String color) {
+    }
+
+    record Entry(@SerializedName("path") String path,
+                 @SerializedName("size") long size,
+                 @SerializedName("lastModified") long lastModified,
+                 @SerializedName("id") String id,
+                 @SerializedName("modLoaderType") ModLoaderType modLoaderType,
+                 @SerializedName("name") String name,
+                 @SerializedName("description") List<DescriptionPart> description,
+                 @SerializedName("authors") String authors,
+                 @SerializedName("version") String version,
+                 @SerializedName("gameVersion") String gameVersion,
+                 @SerializedName("url") String url,
+                 @SerializedName("logoPath") String logoPath) {
+
+        private boolean isValid() {
+            return path != null && id != null && modLoaderType != null && name != null && description != null;
+        }
+
+        LocalModFile toLocalModFile(ModManager modManager, Path file) {
+            List<LocalModFile.Description.Part> parts = new ArrayList<>(description.size());
+            for (DescriptionPart part : description) {
+                parts.add(new LocalModFile.Description.Part(Objects.requireNonNullElse(part.text, ""), Objects.requireNonNullElse(part.color, "")));
+            }
+
+            return new LocalModFile(modManager, modManager.getLocalMod(id, modLoaderType), file, name,
+                    new LocalModFile.Description(parts), authors, version, gameVersion, url, logoPath);
+        }
+    }
+}
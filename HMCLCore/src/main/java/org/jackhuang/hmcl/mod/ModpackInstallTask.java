@@ -35,6 +35,7 @@ public class ModpackInstallTask<T> extends Task<Void> {
     private final List<String> subDirectories;
     private final List<ModpackConfiguration.FileInformation> overrides;
     private final Predicate<String> callback;
+    private final List<ModpackConfiguration.FileInformation> newOverrides = new ArrayList<>();
 
     /// Constructor
     ///
@@ -57,8 +58,15 @@ public class ModpackInstallTask<T> extends Task<Void> {
             overrides = oldConfiguration.getOverrides();
     }
 
+    /// The files in the subdirectories of the new modpack and their SHA-1 hashes, including the files which were not unpacked.
+    /// They are recorded while unpacking, so the modpack does not need to be read again to build its configuration.
+    public List<ModpackConfiguration.FileInformation> getNewOverrides() {
+        return newOverrides;
+    }
+
     @Override
     public void execute() throws Exception {
+        newOverrides.clear();
         Set<String> entries = new HashSet<>();
         Files.createDirectories(dest);
 
@@ -73,6 +81,9 @@ public class ModpackInstallTask<T> extends Task<Void> {
                     .setTerminateIfSubDirectoryNotExists()
                     .setReplaceExistentFile(true)
                     .setEncoding(charset)
+                    .setParallel(true)
+                    .setDigest("SHA-1", (zipEntry, relativePath, hash) ->
+                            newOverrides.add(new ModpackConfiguration.FileInformation(relativePath, hash)))
                     .setFilter((zipEntry, destFile, relativePath) -> {
                         if (zipEntry.isDirectory()) return true;
                         if (!callback.test(relativePath)) return false;
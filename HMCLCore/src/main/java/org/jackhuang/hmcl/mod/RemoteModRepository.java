@@ -18,14 +18,17 @@
 package org.jackhuang.hmcl.mod;
 
 import org.jackhuang.hmcl.download.DownloadProvider;
+import org.jackhuang.hmcl.task.Schedulers;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
+import static org.jackhuang.hmcl.util.logging.Logger.LOG;
+
 public interface RemoteModRepository {
 
     enum Type {
@@ -90,6 +93,61 @@ public interface RemoteModRepository {
 
     Optional<RemoteMod.Version> getRemoteVersionByLocalFile(LocalModFile localModFile, Path file) throws IOException;
 
+    /**
+     * Finds the remote versions of many local mod files.
+     * Repositories which can look up many files in one request should override this method.
+     *
+     * @return the remote versions of the files found in this repository, keyed by {@link LocalModFile#getFile()}
+     */
+    default Map<Path, RemoteMod.Version> getRemoteVersionsByLocalFiles(Collection<LocalModFile> localModFiles) throws IOException {
+        Map<Path, RemoteMod.Version> result = new HashMap<>();
+        for (LocalModFile localModFile : localModFiles) {
+            try {
+                getRemoteVersionByLocalFile(localModFile, localModFile.getFile())
+                        .ifPresent(version -> result.put(localModFile.getFile(), version));
+            } catch (IOException e) {
+                LOG.warning("Cannot find the remote version of " + localModFile.getFile(), e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks updates of many local mod files.
+     * <p>
+     * The default implementation looks up the files with {@link #getRemoteVersionsByLocalFiles(Collection)},
+     * then fetches the versions of the found mods concurrently.
+     *
+     * @return the updates of the mods, keyed by {@link LocalModFile#getFile()}
+     */
+    default Map<Path, LocalModFile.ModUpdate> checkUpdates(DownloadProvider downloadProvider, String gameVersion, Collection<LocalModFile> localModFiles) throws IOException {
+        Map<Path, RemoteMod.Version> currentVersions = getRemoteVersionsByLocalFiles(localModFiles);
+
+        Map<Path, CompletableFuture<LocalModFile.ModUpdate>> futures = new LinkedHashMap<>();
+        for (LocalModFile localModFile : localModFiles) {
+            RemoteMod.Version currentVersion = currentVersions.get(localModFile.getFile());
+            if (currentVersion == null)
+                continue;
+
+            futures.put(localModFile.getFile(), CompletableFuture.supplyAsync(() -> {
+                try {
+                    return localModFile.checkUpdates(downloadProvider, gameVersion, this, currentVersion);
+                } catch (IOException e) {
+                    LOG.warning("Cannot check update for mod " + localModFile.getFileName(), e);
+                    return null;
+                }
+            }, Schedulers.io()));
+        }
+
+        Map<Path, LocalModFile.ModUpdate> updates = new HashMap<>();
+        for (Map.Entry<Path, CompletableFuture<LocalModFile.ModUpdate>> entry : futures.entrySet()) {
+            LocalModFile.ModUpdate update = entry.getValue().join();
+            if (update != null)
+                updates.put(entry.getKey(), update);
+        }
+        return updates;
+    }
+
     RemoteMod getModById(DownloadProvider downloadProvider, String id) throws IOException;
 
     default RemoteMod resolveDependency(DownloadProvider downloadProvider, String id) throws IOException {
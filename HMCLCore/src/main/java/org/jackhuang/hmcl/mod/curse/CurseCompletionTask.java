@@ -19,11 +19,9 @@ package org.jackhuang.hmcl.mod.curse;
 
 import com.google.gson.JsonParseException;
 import org.jackhuang.hmcl.download.DefaultDependencyManager;
-import org.jackhuang.hmcl.download.DownloadProvider;
 import org.jackhuang.hmcl.game.DefaultGameRepository;
 import org.jackhuang.hmcl.mod.ModManager;
 import org.jackhuang.hmcl.mod.ModpackCompletionException;
-import org.jackhuang.hmcl.mod.RemoteMod;
 import org.jackhuang.hmcl.task.FileDownloadTask;
 import org.jackhuang.hmcl.task.Task;
 import org.jackhuang.hmcl.util.StringUtils;
@@ -33,12 +31,12 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static org.jackhuang.hmcl.util.logging.Logger.LOG;
 
@@ -49,6 +47,10 @@ import static org.jackhuang.hmcl.util.logging.Logger.LOG;
  */
 public final class CurseCompletionTask extends Task<Void> {
 
+    /// The number of files or mods fetched in one request.
+    /// The manifest is saved after each batch of files, so an interrupted installation resumes from there.
+    private static final int FILES_PER_BATCH = 100;
+
     private final DefaultDependencyManager dependency;
     private final DefaultGameRepository repository;
     private final ModManager modManager;
@@ -57,7 +59,6 @@ public final class CurseCompletionTask extends Task<Void> {
     private List<Task<?>> dependencies;
 
     private final AtomicBoolean allNameKnown = new AtomicBoolean(true);
-    private final AtomicInteger finished = new AtomicInteger(0);
     private final AtomicBoolean notFound = new AtomicBoolean(false);
 
     /**
@@ -115,56 +116,82 @@ public final class CurseCompletionTask extends Task<Void> {
 
         // Because in China, Curse is too difficult to visit,
         // if failed, ignore it and retry next time.
-        CurseManifest newManifest = manifest.setFiles(
-                manifest.files().parallelStream()
-                        .map(file -> {
-                            updateProgress(finished.incrementAndGet(), manifest.files().size());
-                            if (StringUtils.isBlank(file.fileName()) || file.url() == null) {
-                                try {
-                                    RemoteMod.File remoteFile = CurseForgeRemoteModRepository.MODS.getModFile(Integer.toString(file.projectID()), Integer.toString(file.fileID()));
-                                    return file.withFileName(remoteFile.getFilename()).withURL(remoteFile.getUrl());
-                                } catch (FileNotFoundException fof) {
-                                    LOG.warning("Could not query api.curseforge.com for deleted mods: " + file.projectID() + ", " + file.fileID(), fof);
-                                    notFound.set(true);
-                                    return file;
-                                } catch (IOException | JsonParseException e) {
-                                    LOG.warning("Unable to fetch the file name projectID=" + file.projectID() + ", fileID=" + file.fileID(), e);
-                                    allNameKnown.set(false);
-                                    return file;
-                                }
-                            } else {
-                                return file;
-                            }
-                        })
-                        .collect(Collectors.toList()));
-        JsonUtils.writeToJsonFile(root.resolve("manifest.json"), newManifest);
+        List<CurseManifestFile> files = new ArrayList<>(manifest.files());
+        List<Integer> unresolved = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            CurseManifestFile file = files.get(i);
+            if (StringUtils.isBlank(file.fileName()) || file.url() == null)
+                unresolved.add(i);
+        }
+
+        for (int i = 0; i < unresolved.size(); i += FILES_PER_BATCH) {
+            if (isCancelled())
+                throw new InterruptedException();
+
+            List<Integer> batch = unresolved.subList(i, Math.min(unresolved.size(), i + FILES_PER_BATCH));
+            try {
+                Map<Integer, CurseAddon.LatestFile> remoteFiles = CurseForgeRemoteModRepository.MODS.getModFiles(
+                        batch.stream().map(index -> files.get(index).fileID()).toList());
+                for (int index : batch) {
+                    CurseManifestFile file = files.get(index);
+                    CurseAddon.LatestFile remoteFile = remoteFiles.get(file.fileID());
+                    if (remoteFile == null) {
+                        LOG.warning("Could not query api.curseforge.com for deleted mods: " + file.projectID() + ", " + file.fileID());
+                        notFound.set(true);
+                    } else {
+                        files.set(index, file.withFileName(remoteFile.getFileName()).withURL(remoteFile.getDownloadUrl()));
+                    }
+                }
+            } catch (IOException | JsonParseException e) {
+                LOG.warning("Unable to fetch the file names of " + batch.size() + " files", e);
+                allNameKnown.set(false);
+                continue;
+            } finally {
+                updateProgress(i + batch.size(), unresolved.size());
+            }
+
+            // Save the resolved files, so that they are not fetched again if the installation is interrupted
+            manifest = manifest.setFiles(new ArrayList<>(files));
+            JsonUtils.writeToJsonFile(root.resolve("manifest.json"), manifest);
+        }
+
+        List<CurseManifestFile> knownFiles = files.stream().filter(f -> f.fileName() != null).toList();
+        Map<Integer, CurseAddon> mods = new HashMap<>();
+        List<Integer> projectIDs = knownFiles.stream().map(CurseManifestFile::projectID).distinct().toList();
+        for (int i = 0; i < projectIDs.size(); i += FILES_PER_BATCH) {
+            if (isCancelled())
+                throw new InterruptedException();
+
+            List<Integer> batch = projectIDs.subList(i, Math.min(projectIDs.size(), i + FILES_PER_BATCH));
+            try {
+                mods.putAll(CurseForgeRemoteModRepository.MODS.getModsByIds(batch));
+            } catch (IOException | JsonParseException e) {
+                // Ignore these files.
+                LOG.warning("Could not query api.curseforge.com for " + batch.size() + " mods", e);
+            }
+            updateProgress(i + batch.size(), projectIDs.size());
+        }
 
         Path versionRoot = repository.getVersionRoot(modManager.getInstanceId());
         Path resourcePacksRoot = versionRoot.resolve("resourcepacks");
         Path shaderPacksRoot = versionRoot.resolve("shaderpacks");
-        finished.set(0);
-        dependencies = newManifest.files()
-                .stream().parallel()
-                .filter(f -> f.fileName() != null)
-                .flatMap(f -> {
-                    try {
-                        Path path = guessFilePath(f, dependency.getDownloadProvider(), resourcePacksRoot, shaderPacksRoot);
-                        if (path == null) {
-                            return Stream.empty();
-                        }
-
-                        var task = new FileDownloadTask(f.url(), path);
-                        task.setCacheRepository(dependency.getCacheRepository());
-                        task.setCaching(true);
-                        return Stream.of(task.withCounter("hmcl.modpack.download"));
-                    } catch (IOException e) {
-                        LOG.warning("Could not query api.curseforge.com for mod: " + f.projectID() + ", " + f.fileID(), e);
-                        return Stream.empty(); // Ignore this file.
-                    } finally {
-                        updateProgress(finished.incrementAndGet(), newManifest.files().size());
-                    }
-                })
-                .collect(Collectors.toList());
+        dependencies = new ArrayList<>();
+        for (CurseManifestFile f : knownFiles) {
+            CurseAddon mod = mods.get(f.projectID());
+            if (mod == null) {
+                LOG.warning("Could not query api.curseforge.com for mod: " + f.projectID() + ", " + f.fileID());
+                continue; // Ignore this file.
+            }
+
+            Path path = guessFilePath(f, mod.getClassId(), resourcePacksRoot, shaderPacksRoot);
+            if (path == null)
+                continue;
+
+            var task = new FileDownloadTask(f.url(), path);
+            task.setCacheRepository(dependency.getCacheRepository());
+            task.setCaching(true);
+            dependencies.add(task.withCounter("hmcl.modpack.download"));
+        }
 
         if (!dependencies.isEmpty()) {
             getProperties().put("total", dependencies.size());
@@ -176,15 +203,12 @@ public final class CurseCompletionTask extends Task<Void> {
      * Guess where to store the file.
      *
      * @param file              The file.
-     * @param downloadProvider
+     * @param classID           The class of the mod of the file.
      * @param resourcePacksRoot ./resourcepacks.
      * @param shaderPacksRoot   ./shaderpacks.
      * @return ./resourcepacks/$filename or ./shaderpacks/$filename or ./mods/$filename if the file doesn't exist. null if the file existed.
-     * @throws IOException If IOException was encountered during getting data from CurseForge.
      */
-    private Path guessFilePath(CurseManifestFile file, DownloadProvider downloadProvider, Path resourcePacksRoot, Path shaderPacksRoot) throws IOException {
-        RemoteMod mod = CurseForgeRemoteModRepository.MODS.getModById(downloadProvider, Integer.toString(file.projectID()));
-        int classID = ((CurseAddon) mod.getData()).getClassId();
+    private Path guessFilePath(CurseManifestFile file, int classID, Path resourcePacksRoot, Path shaderPacksRoot) {
         String fileName = file.fileName();
         return switch (classID) {
             case 12,       // Resource pack
@@ -26,18 +26,25 @@ import org.jackhuang.hmcl.util.MurmurHash2;
 import org.jackhuang.hmcl.util.Pair;
 import org.jackhuang.hmcl.util.StringUtils;
 import org.jackhuang.hmcl.util.io.HttpRequest;
+import org.jackhuang.hmcl.util.io.HttpResponseCache;
+import org.jackhuang.hmcl.util.io.IOUtils;
 import org.jackhuang.hmcl.util.io.JarUtils;
 import org.jackhuang.hmcl.util.io.NetworkUtils;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import static org.jackhuang.hmcl.util.Lang.mapOf;
@@ -53,8 +60,26 @@ public final class CurseForgeRemoteModRepository implements RemoteModRepository
 
     private static final int WORD_PERFECT_MATCH_WEIGHT = 5;
 
-    private static <R extends HttpRequest> R withApiKey(R request) {
-        if (request.getUrl().startsWith(PREFIX) && !apiKey.isEmpty()) {
+    /// The maximum number of fingerprints matched in one request
+    private static final int MAX_FINGERPRINTS_PER_REQUEST = 500;
+    /// The maximum number of mods or files fetched in one request
+    private static final int MAX_IDS_PER_REQUEST = 500;
+    /// How long a fingerprint match is shared with later lookups
+    private static final long FINGERPRINT_MATCH_TTL = TimeUnit.MINUTES.toNanos(10);
+
+    /// Workaround for https://github.com/HMCL-dev/HMCL/issues/4597
+    private static final long IGNORED_FINGERPRINT = 811513880;
+
+    private static final HttpResponseCache.Policy SEARCH_CACHE_POLICY = new HttpResponseCache.Policy(Duration.ofMinutes(5), Duration.ofHours(1));
+    private static final HttpResponseCache.Policy PROJECT_CACHE_POLICY = new HttpResponseCache.Policy(Duration.ofMinutes(10), Duration.ofDays(1));
+    // Update checks need the latest versions, so only skip requests briefly
+    private static final HttpResponseCache.Policy VERSIONS_CACHE_POLICY = new HttpResponseCache.Policy(Duration.ofMinutes(5), Duration.ZERO);
+    // Files do not change once they are published
+    private static final HttpResponseCache.Policy FILE_CACHE_POLICY = new HttpResponseCache.Policy(Duration.ofDays(1), Duration.ofDays(7));
+    private static final HttpResponseCache.Policy CATEGORIES_CACHE_POLICY = new HttpResponseCache.Policy(Duration.ofDays(1), Duration.ofDays(7));
+
+    private <R extends HttpRequest> R withApiKey(R request) {
+        if (request.getUrl().startsWith(prefix) && !apiKey.isEmpty()) {
             request.header("X-API-KEY", apiKey);
         }
         return request;
@@ -66,10 +91,20 @@ public final class CurseForgeRemoteModRepository implements RemoteModRepository
 
     private final Type type;
     private final int section;
+    private final String prefix;
+
+    /// Fingerprint matches which are in flight or were made recently, so that the lookups of one operation,
+    /// such as checking updates or exporting a modpack, do not ask for the same file again
+    private final Map<Long, FingerprintLookup> fingerprintLookups = new ConcurrentHashMap<>();
 
     public CurseForgeRemoteModRepository(Type type, int section) {
+        this(type, section, PREFIX);
+    }
+
+    CurseForgeRemoteModRepository(Type type, int section, String prefix) {
         this.type = type;
         this.section = section;
+        this.prefix = prefix;
     }
 
     @Override
@@ -136,11 +171,12 @@ public final class CurseForgeRemoteModRepository implements RemoteModRepository
             Response<List<CurseAddon>> response = null;
 
             IOException exception = null;
-            List<URI> candidates = downloadProvider.injectURLWithCandidates(NetworkUtils.withQuery(PREFIX + "/v1/mods/search", query));
+            List<URI> candidates = downloadProvider.injectURLWithCandidates(NetworkUtils.withQuery(prefix + "/v1/mods/search", query));
             for (URI candidate : candidates) {
                 LOG.info("Fetching " + candidate);
                 try {
                     response = withApiKey(HttpRequest.GET(candidate.toString()))
+                            .cache(HttpResponseCache.getDefault(), SEARCH_CACHE_POLICY)
                             .getJson(Response.typeOf(listTypeOf(CurseAddon.class)));
                     if (searchFilter.isEmpty()) {
                         return new SearchResult(response.getData().stream().map(CurseAddon::toMod), calculateTotalPages(response, pageSize));
@@ -189,48 +225,221 @@ public final class CurseForgeRemoteModRepository implements RemoteModRepository
         }
     }
 
-    @Override
-    public Optional<RemoteMod.Version> getRemoteVersionByLocalFile(LocalModFile localModFile, Path file) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    private static boolean isWhitespace(byte b) {
+        return b == 0x9 || b == 0xa || b == 0xd || b == 0x20;
+    }
+
+    /**
+     * Computes the CurseForge fingerprint of a file, which is the MurmurHash2 of its content without whitespace bytes.
+     * <p>
+     * The hash depends on the length of the normalized content, so the file is read twice:
+     * once to count the bytes and once to hash them.
+     */
+    public static long getFingerprint(Path file) throws IOException {
+        byte[] buffer = new byte[IOUtils.DEFAULT_BUFFER_SIZE];
+
+        long length = 0;
         try (InputStream stream = Files.newInputStream(file)) {
-            byte[] buf = new byte[1024];
             int len;
-            while ((len = stream.read(buf, 0, buf.length)) != -1) {
+            while ((len = stream.read(buffer)) != -1) {
                 for (int i = 0; i < len; i++) {
-                    byte b = buf[i];
-                    if (b != 0x9 && b != 0xa && b != 0xd && b != 0x20) {
-                        baos.write(b);
+                    if (!isWhitespace(buffer[i]))
+                        length++;
+                }
+            }
+        }
+
+        if (length > Integer.MAX_VALUE)
+            throw new IOException("File is too large: " + file);
+
+        MurmurHash2.Hash32 hash = new MurmurHash2.Hash32((int) length, 1);
+        try (InputStream stream = Files.newInputStream(file)) {
+            int len;
+            while ((len = stream.read(buffer)) != -1) {
+                // Move the bytes to keep to the front of the buffer
+                int kept = 0;
+                for (int i = 0; i < len; i++) {
+                    byte b = buffer[i];
+                    if (!isWhitespace(b))
+                        buffer[kept++] = b;
+                }
+                hash.update(buffer, 0, kept);
+            }
+        }
+
+        try {
+            return Integer.toUnsignedLong(hash.getValue());
+        } catch (IllegalStateException e) {
+            throw new IOException("File was modified while computing its fingerprint: " + file, e);
+        }
+    }
+
+    /**
+     * Computes the CurseForge fingerprint of content which has already been read into memory.
+     *
+     * @see #getFingerprint(Path)
+     */
+    public static long getFingerprint(byte[] data, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, data.length);
+
+        int count = 0;
+        for (int i = offset; i < offset + length; i++) {
+            if (!isWhitespace(data[i]))
+                count++;
+        }
+
+        MurmurHash2.Hash32 hash = new MurmurHash2.Hash32(count, 1);
+        byte[] buffer = new byte[Math.min(count, IOUtils.DEFAULT_BUFFER_SIZE)];
+        int kept = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = data[i];
+            if (!isWhitespace(b)) {
+                buffer[kept++] = b;
+                if (kept == buffer.length) {
+                    hash.update(buffer, 0, kept);
+                    kept = 0;
+                }
+            }
+        }
+        hash.update(buffer, 0, kept);
+        return Integer.toUnsignedLong(hash.getValue());
+    }
+
+    /**
+     * Matches fingerprints with as few requests as possible.
+     * Fingerprints which are being matched or were matched recently by other callers are not requested again.
+     *
+     * @return the files matching the fingerprints, keyed by fingerprint
+     */
+    private Map<Long, CurseAddon.LatestFile> matchFingerprints(Collection<Long> fingerprints) throws IOException {
+        long now = System.nanoTime();
+        fingerprintLookups.values().removeIf(lookup -> lookup.isExpired(now));
+
+        Map<Long, FingerprintLookup> lookups = new LinkedHashMap<>();
+        List<Long> requested = new ArrayList<>();
+        for (Long fingerprint : fingerprints) {
+            if (lookups.containsKey(fingerprint))
+                continue;
+
+            FingerprintLookup newLookup = new FingerprintLookup(now, new CompletableFuture<>());
+            FingerprintLookup lookup = fingerprintLookups.compute(fingerprint,
+                    (key, oldLookup) -> oldLookup != null && !oldLookup.isExpired(now) ? oldLookup : newLookup);
+            if (lookup == newLookup)
+                requested.add(fingerprint);
+            lookups.put(fingerprint, lookup);
+        }
+
+        try {
+            for (int i = 0; i < requested.size(); i += MAX_FINGERPRINTS_PER_REQUEST) {
+                List<Long> chunk = requested.subList(i, Math.min(requested.size(), i + MAX_FINGERPRINTS_PER_REQUEST));
+
+                Response<FingerprintMatchesResult> response;
+                SEMAPHORE.acquireUninterruptibly();
+                try {
+                    response = withApiKey(HttpRequest.POST(prefix + "/v1/fingerprints/432"))
+                            .json(mapOf(pair("fingerprints", chunk)))
+                            .getJson(Response.typeOf(FingerprintMatchesResult.class));
+                } finally {
+                    SEMAPHORE.release();
+                }
+
+                Map<Long, CurseAddon.LatestFile> matches = new HashMap<>();
+                if (response.getData().getExactMatches() != null) {
+                    for (FingerprintMatch match : response.getData().getExactMatches()) {
+                        if (match.getFile() != null)
+                            matches.put(match.getFile().getFileFingerprint(), match.getFile());
                     }
                 }
+
+                for (Long fingerprint : chunk) {
+                    lookups.get(fingerprint).file().complete(matches.get(fingerprint));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Long fingerprint : requested) {
+                FingerprintLookup lookup = lookups.get(fingerprint);
+                if (lookup.file().completeExceptionally(e))
+                    fingerprintLookups.remove(fingerprint, lookup);
             }
+            throw e;
         }
 
-        long hash = Integer.toUnsignedLong(MurmurHash2.hash32(baos.toByteArray(), baos.size(), 1));
-        if (hash == 811513880) { // Workaround for https://github.com/HMCL-dev/HMCL/issues/4597
+        Map<Long, CurseAddon.LatestFile> result = new HashMap<>();
+        for (Map.Entry<Long, FingerprintLookup> entry : lookups.entrySet()) {
+            CurseAddon.LatestFile file;
+            try {
+                file = entry.getValue().file().get();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioException)
+                    throw new IOException(ioException.getMessage(), ioException);
+                throw new IOException(e.getCause());
+            }
+
+            if (file != null)
+                result.put(entry.getKey(), file);
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<RemoteMod.Version> getRemoteVersionByLocalFile(LocalModFile localModFile, Path file) throws IOException {
+        long fingerprint = getFingerprint(file);
+        if (fingerprint == IGNORED_FINGERPRINT) {
             return Optional.empty();
         }
 
-        SEMAPHORE.acquireUninterruptibly();
-        try {
-            Response<FingerprintMatchesResult> response = withApiKey(HttpRequest.POST(PREFIX + "/v1/fingerprints/432"))
-                    .json(mapOf(pair("fingerprints", Collections.singletonList(hash))))
-                    .getJson(Response.typeOf(FingerprintMatchesResult.class));
+        return Optional.ofNullable(matchFingerprints(List.of(fingerprint)).get(fingerprint))
+                .map(CurseAddon.LatestFile::toVersion);
+    }
 
-            if (response.getData().getExactMatches() == null || response.getData().getExactMatches().isEmpty()) {
-                return Optional.empty();
+    @Override
+    public Map<Path, RemoteMod.Version> getRemoteVersionsByLocalFiles(Collection<LocalModFile> localModFiles) throws IOException {
+        Map<Path, Long> fingerprints = new LinkedHashMap<>();
+        for (LocalModFile localModFile : localModFiles) {
+            try {
+                long fingerprint = getFingerprint(localModFile.getFile());
+                if (fingerprint != IGNORED_FINGERPRINT)
+                    fingerprints.put(localModFile.getFile(), fingerprint);
+            } catch (IOException e) {
+                LOG.warning("Failed to compute the fingerprint of " + localModFile.getFile(), e);
             }
+        }
 
-            return Optional.of(response.getData().getExactMatches().get(0).getFile().toVersion());
-        } finally {
-            SEMAPHORE.release();
+        Map<Long, CurseAddon.LatestFile> matches = matchFingerprints(fingerprints.values());
+        Map<Path, RemoteMod.Version> result = new HashMap<>();
+        fingerprints.forEach((file, fingerprint) -> {
+            CurseAddon.LatestFile match = matches.get(fingerprint);
+            if (match != null)
+                result.put(file, match.toVersion());
+        });
+        return result;
+    }
+
+    /**
+     * Looks up the files with the given fingerprints, which were computed with {@link #getFingerprint(Path)}.
+     *
+     * @return the versions keyed by fingerprint, without the fingerprints which do not match any file
+     */
+    public Map<Long, RemoteMod.Version> getRemoteVersionsByFingerprints(Collection<Long> fingerprints) throws IOException {
+        List<Long> requested = new ArrayList<>();
+        for (Long fingerprint : fingerprints) {
+            if (fingerprint != IGNORED_FINGERPRINT)
+                requested.add(fingerprint);
         }
+
+        Map<Long, RemoteMod.Version> result = new HashMap<>();
+        matchFingerprints(requested).forEach((fingerprint, file) -> result.put(fingerprint, file.toVersion()));
+        return result;
     }
 
     @Override
     public RemoteMod getModById(DownloadProvider downloadProvider, String id) throws IOException {
         SEMAPHORE.acquireUninterruptibly();
         try {
-            Response<CurseAddon> response = withApiKey(HttpRequest.GET(PREFIX + "/v1/mods/" + id))
+            Response<CurseAddon> response = withApiKey(HttpRequest.GET(prefix + "/v1/mods/" + id))
+                    .cache(HttpResponseCache.getDefault(), PROJECT_CACHE_POLICY)
                     .getJson(Response.typeOf(CurseAddon.class));
             return response.data.toMod();
         } finally {
@@ -242,7 +451,8 @@ public final class CurseForgeRemoteModRepository implements RemoteModRepository
     public RemoteMod.File getModFile(String modId, String fileId) throws IOException {
         SEMAPHORE.acquireUninterruptibly();
         try {
-            Response<CurseAddon.LatestFile> response = withApiKey(HttpRequest.GET(String.format("%s/v1/mods/%s/files/%s", PREFIX, modId, fileId)))
+            Response<CurseAddon.LatestFile> response = withApiKey(HttpRequest.GET(String.format("%s/v1/mods/%s/files/%s", prefix, modId, fileId)))
+                    .cache(HttpResponseCache.getDefault(), FILE_CACHE_POLICY)
                     .getJson(Response.typeOf(CurseAddon.LatestFile.class));
             return response.getData().toVersion().getFile();
         } finally {
@@ -250,12 +460,65 @@ public final class CurseForgeRemoteModRepository implements RemoteModRepository
         }
     }
 
+    /**
+     * Fetches mods with as few requests as possible.
+     *
+     * @return the mods keyed by id, without the mods which do not exist
+     */
+    public Map<Integer, CurseAddon> getModsByIds(Collection<Integer> modIds) throws IOException {
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(modIds));
+        Map<Integer, CurseAddon> result = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += MAX_IDS_PER_REQUEST) {
+            List<Integer> chunk = ids.subList(i, Math.min(ids.size(), i + MAX_IDS_PER_REQUEST));
+
+            SEMAPHORE.acquireUninterruptibly();
+            try {
+                Response<List<CurseAddon>> response = withApiKey(HttpRequest.POST(prefix + "/v1/mods"))
+                        .json(mapOf(pair("modIds", chunk)))
+                        .getJson(Response.typeOf(listTypeOf(CurseAddon.class)));
+                for (CurseAddon addon : response.getData()) {
+                    result.put(addon.getId(), addon);
+                }
+            } finally {
+                SEMAPHORE.release();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Fetches files with as few requests as possible.
+     *
+     * @return the files keyed by id, without the files which do not exist
+     */
+    public Map<Integer, CurseAddon.LatestFile> getModFiles(Collection<Integer> fileIds) throws IOException {
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(fileIds));
+        Map<Integer, CurseAddon.LatestFile> result = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += MAX_IDS_PER_REQUEST) {
+            List<Integer> chunk = ids.subList(i, Math.min(ids.size(), i + MAX_IDS_PER_REQUEST));
+
+            SEMAPHORE.acquireUninterruptibly();
+            try {
+                Response<List<CurseAddon.LatestFile>> response = withApiKey(HttpRequest.POST(prefix + "/v1/mods/files"))
+                        .json(mapOf(pair("fileIds", chunk)))
+                        .getJson(Response.typeOf(listTypeOf(CurseAddon.LatestFile.class)));
+                for (CurseAddon.LatestFile file : response.getData()) {
+                    result.put(file.getId(), file);
+                }
+            } finally {
+                SEMAPHORE.release();
+            }
+        }
+        return result;
+    }
+
     @Override
     public Stream<RemoteMod.Version> getRemoteVersionsById(DownloadProvider downloadProvider, String id) throws IOException {
         SEMAPHORE.acquireUninterruptibly();
         try {
-            Response<List<CurseAddon.LatestFile>> response = withApiKey(HttpRequest.GET(PREFIX + "/v1/mods/" + id + "/files",
+            Response<List<CurseAddon.LatestFile>> response = withApiKey(HttpRequest.GET(prefix + "/v1/mods/" + id + "/files",
                     pair("pageSize", "10000")))
+                    .cache(HttpResponseCache.getDefault(), VERSIONS_CACHE_POLICY)
                     .getJson(Response.typeOf(listTypeOf(CurseAddon.LatestFile.class)));
             return response.getData().stream().map(CurseAddon.LatestFile::toVersion);
         } finally {
@@ -267,7 +530,8 @@ public final class CurseForgeRemoteModRepository implements RemoteModRepository
     public Stream<RemoteModRepository.Category> getCategories() throws IOException {
         SEMAPHORE.acquireUninterruptibly();
         try {
-            Response<List<CurseAddon.Category>> categories = withApiKey(HttpRequest.GET(PREFIX + "/v1/categories", pair("gameId", "432")))
+            Response<List<CurseAddon.Category>> categories = withApiKey(HttpRequest.GET(prefix + "/v1/categories", pair("gameId", "432")))
+                    .cache(HttpResponseCache.getDefault(), CATEGORIES_CACHE_POLICY)
                     .getJson(Response.typeOf(listTypeOf(CurseAddon.Category.class)));
             return reorganizeCategories(categories.getData(), section).stream().map(CurseAddon.Category::toCategory);
         } finally {
@@ -375,6 +639,12 @@ public final class CurseForgeRemoteModRepository implements RemoteModRepository
         }
     }
 
+    private record FingerprintLookup(long time, CompletableFuture<CurseAddon.LatestFile> file) {
+        boolean isExpired(long now) {
+            return file.isDone() && now - time >= FINGERPRINT_MATCH_TTL;
+        }
+    }
+
     /**
      * @see <a href="https://docs.curseforge.com/#tocS_FingerprintsMatchesResult">Schema</a>
      */
@@ -20,12 +20,12 @@ package org.jackhuang.hmcl.mod.mcbbs;
 import com.google.gson.JsonParseException;
 import org.jackhuang.hmcl.download.DefaultDependencyManager;
 import org.jackhuang.hmcl.game.DefaultGameRepository;
+import org.jackhuang.hmcl.mod.FileHashCache;
 import org.jackhuang.hmcl.mod.ModManager;
 import org.jackhuang.hmcl.mod.ModpackConfiguration;
 import org.jackhuang.hmcl.mod.ModpackCompletionException;
 import org.jackhuang.hmcl.mod.curse.CurseMetaMod;
 import org.jackhuang.hmcl.task.*;
-import org.jackhuang.hmcl.util.DigestUtils;
 import org.jackhuang.hmcl.util.StringUtils;
 import org.jackhuang.hmcl.util.gson.JsonUtils;
 import org.jackhuang.hmcl.util.io.NetworkUtils;
@@ -114,6 +114,16 @@ public class McbbsModpackCompletionTask extends CompletableFutureTask<Void> {
 
                 Map<McbbsModpackManifest.File, McbbsModpackManifest.File> localFiles = manifest.getFiles().stream().collect(Collectors.toMap(Function.identity(), Function.identity()));
 
+                // Only the files which the user may have modified need to be hashed
+                List<Path> filesToHash = new ArrayList<>();
+                for (McbbsModpackManifest.File file : remoteManifest.getFiles()) {
+                    Path actualPath = getFilePath(file);
+                    McbbsModpackManifest.File oldFile = localFiles.get(file);
+                    if (oldFile != null && actualPath != null && getFileHash(file) != null && getFileHash(oldFile) != null)
+                        filesToHash.add(actualPath);
+                }
+                Map<Path, String> fileHashes = new FileHashCache(rootPath.resolve(FileHashCache.FILE_NAME), rootPath).hash(filesToHash);
+
                 // for files in new modpack
                 List<McbbsModpackManifest.File> newFiles = new ArrayList<>(remoteManifest.getFiles().size());
                 List<Task<?>> tasks = new ArrayList<>();
@@ -132,7 +142,7 @@ public class McbbsModpackCompletionTask extends CompletableFutureTask<Void> {
                         } else if (getFileHash(file) != null) {
                             // If user modified this entry file, we will not replace this file since this modified file is what user expects.
                             // Or we have downloaded latest file in previous completion task, this time we have no need to download it again.
-                            String fileHash = DigestUtils.digestToString("SHA-1", actualPath);
+                            String fileHash = fileHashes.get(actualPath);
                             String oldHash = getFileHash(oldFile);
                             String newHash = getFileHash(file);
                             if (oldHash == null) {
@@ -19,28 +19,43 @@ package org.jackhuang.hmcl.mod.modrinth;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import org.jackhuang.hmcl.download.LibraryAnalyzer;
 import org.jackhuang.hmcl.game.DefaultGameRepository;
 import org.jackhuang.hmcl.mod.ModAdviser;
 import org.jackhuang.hmcl.mod.Modpack;
 import org.jackhuang.hmcl.mod.ModpackExportInfo;
+import org.jackhuang.hmcl.task.Schedulers;
 import org.jackhuang.hmcl.task.Task;
 import org.jackhuang.hmcl.util.DigestUtils;
+import org.jackhuang.hmcl.util.function.ExceptionalFunction;
 import org.jackhuang.hmcl.util.gson.JsonUtils;
 import org.jackhuang.hmcl.util.io.Zipper;
-import org.jackhuang.hmcl.mod.LocalModFile;
 import org.jackhuang.hmcl.mod.RemoteMod;
 import org.jackhuang.hmcl.mod.curse.CurseForgeRemoteModRepository;
 
 import static org.jackhuang.hmcl.download.LibraryAnalyzer.LibraryType.*;
+import static org.jackhuang.hmcl.util.Lang.threadPool;
 import static org.jackhuang.hmcl.util.logging.Logger.LOG;
 
 public class ModrinthModpackExportTask extends Task<Void> {
+    private static final int PARALLELISM = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final ThreadPoolExecutor POOL = threadPool("ModrinthModpackExport", true, PARALLELISM, 10, TimeUnit.SECONDS);
+
+    /// Files no larger than this are read into memory once to compute all of their digests
+    private static final int IN_MEMORY_DIGEST_LIMIT = 16 * 1024 * 1024;
+
     private final DefaultGameRepository repository;
     private final String version;
     private final ModpackExportInfo info;
@@ -63,55 +78,137 @@ public class ModrinthModpackExportTask extends Task<Void> {
         });
     }
 
-    private ModrinthManifest.File tryGetRemoteFile(Path file, String relativePath) throws IOException {
-        if (info.isNoCreateRemoteFiles()) {
-            return null;
-        }
+    /// The digests needed to look up a file on Modrinth and CurseForge and to list it in the manifest
+    private record FileDigests(long size, String sha1, String sha512, long fingerprint) {
+    }
 
-        boolean isDisabled = repository.getModManager(version).isDisabled(file);
-        if (isDisabled) {
-            relativePath = repository.getModManager(version).enableMod(Paths.get(relativePath)).toString();
+    /**
+     * Computes the SHA-1, the SHA-512 and optionally the CurseForge fingerprint of the file.
+     * <p>
+     * Small files are read only once. The fingerprint of a large file needs a second read,
+     * because it has to know how many bytes are not whitespace before hashing them.
+     */
+    private static FileDigests digest(Path file, boolean computeFingerprint) throws IOException {
+        MessageDigest sha1 = DigestUtils.getDigest("SHA-1");
+        MessageDigest sha512 = DigestUtils.getDigest("SHA-512");
+        long size;
+        long fingerprint = 0L;
+
+        if (Files.size(file) <= IN_MEMORY_DIGEST_LIMIT) {
+            byte[] data = Files.readAllBytes(file);
+            size = data.length;
+            sha1.update(data);
+            sha512.update(data);
+            if (computeFingerprint)
+                fingerprint = CurseForgeRemoteModRepository.getFingerprint(data, 0, data.length);
+        } else {
+            size = 0L;
+            try (InputStream input = Files.newInputStream(file)) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = input.read(buffer)) > 0) {
+                    sha1.update(buffer, 0, read);
+                    sha512.update(buffer, 0, read);
+                    size += read;
+                }
+            }
+            if (computeFingerprint)
+                fingerprint = CurseForgeRemoteModRepository.getFingerprint(file);
         }
 
-        LocalModFile localModFile = null;
-        Optional<RemoteMod.Version> modrinthVersion = Optional.empty();
-        Optional<RemoteMod.Version> curseForgeVersion = Optional.empty();
+        return new FileDigests(size,
+                HexFormat.of().formatHex(sha1.digest()),
+                HexFormat.of().formatHex(sha512.digest()),
+                fingerprint);
+    }
 
-        try {
-            modrinthVersion = ModrinthRemoteModRepository.MODS.getRemoteVersionByLocalFile(localModFile, file);
-        } catch (IOException e) {
-            LOG.warning("Failed to get remote file from Modrinth for: " + file, e);
+    /// A file which may be downloaded from Modrinth or CurseForge instead of being packed into the modpack
+    private record Candidate(Path file, String relativePath, boolean disabled, CompletableFuture<FileDigests> digests) {
+    }
+
+    private List<Candidate> findCandidates(Path runDirectory, boolean computeFingerprint) throws IOException {
+        List<Candidate> candidates = new ArrayList<>();
+        String[] resourceDirs = {"resourcepacks", "shaderpacks", "mods"};
+        for (String dir : resourceDirs) {
+            Path dirPath = runDirectory.resolve(dir);
+            if (!Files.exists(dirPath))
+                continue;
+
+            List<Path> files;
+            try (Stream<Path> stream = Files.walk(dirPath)) {
+                files = stream.filter(Files::isRegularFile).toList();
+            }
+
+            for (Path file : files) {
+                String relativePath = runDirectory.relativize(file).normalize().toString().replace(File.separatorChar, '/');
+                if (!info.getWhitelist().contains(relativePath))
+                    continue;
+
+                CompletableFuture<FileDigests> digests = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return digest(file, computeFingerprint);
+                    } catch (IOException e) {
+                        LOG.warning("Failed to process file: " + file, e);
+                        return null;
+                    }
+                }, POOL);
+                candidates.add(new Candidate(file, relativePath, repository.getModManager(version).isDisabled(file), digests));
+            }
         }
+        return candidates;
+    }
 
-        if (!info.isSkipCurseForgeRemoteFiles() && CurseForgeRemoteModRepository.isAvailable()) {
+    /// Looks up the hashed candidates on one site with as few requests as possible
+    private static <K> CompletableFuture<Map<K, RemoteMod.Version>> lookupAsync(
+            CompletableFuture<?> hashed, List<Candidate> candidates, String name, Function<FileDigests, K> key,
+            ExceptionalFunction<Collection<K>, Map<K, RemoteMod.Version>, IOException> lookup) {
+        return hashed.thenApplyAsync(ignored -> {
+            long startTime = System.nanoTime();
+            Set<K> keys = new LinkedHashSet<>();
+            for (Candidate candidate : candidates) {
+                FileDigests digests = candidate.digests().join();
+                if (digests != null)
+                    keys.add(key.apply(digests));
+            }
+            if (keys.isEmpty())
+                return Map.of();
+
+            Map<K, RemoteMod.Version> result;
             try {
-                curseForgeVersion = CurseForgeRemoteModRepository.MODS.getRemoteVersionByLocalFile(localModFile, file);
+                result = lookup.apply(keys);
             } catch (IOException e) {
-                LOG.warning("Failed to get remote file from CurseForge for: " + file, e);
+                LOG.warning("Failed to get remote files from " + name, e);
+                result = Map.of();
             }
-        }
+            LOG.info("Found " + result.size() + " of " + keys.size() + " files on " + name + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms");
+            return result;
+        }, Schedulers.io());
+    }
 
-        if (modrinthVersion.isEmpty() && curseForgeVersion.isEmpty()) {
-            return null;
+    private ModrinthManifest.File toManifestFile(Candidate candidate, FileDigests digests,
+                                                 RemoteMod.Version modrinthVersion, RemoteMod.Version curseForgeVersion) {
+        String relativePath = candidate.relativePath();
+        if (candidate.disabled()) {
+            relativePath = repository.getModManager(version).enableMod(Paths.get(relativePath)).toString();
         }
 
         Map<String, String> hashes = new HashMap<>();
-        hashes.put("sha1", DigestUtils.digestToString("SHA-1", file));
-        hashes.put("sha512", DigestUtils.digestToString("SHA-512", file));
+        hashes.put("sha1", digests.sha1());
+        hashes.put("sha512", digests.sha512());
 
         Map<String, String> env = null;
-        if (isDisabled) {
+        if (candidate.disabled()) {
             env = new HashMap<>();
             env.put("client", "optional");
         }
 
         List<String> downloads = new ArrayList<>();
-        if (modrinthVersion.isPresent())
-            downloads.add(modrinthVersion.get().getFile().getUrl());
-        if (curseForgeVersion.isPresent())
-            downloads.add(curseForgeVersion.get().getFile().getUrl());
+        if (modrinthVersion != null)
+            downloads.add(modrinthVersion.getFile().getUrl());
+        if (curseForgeVersion != null)
+            downloads.add(curseForgeVersion.getFile().getUrl());
 
-        long fileSize = Files.size(file);
+        long fileSize = digests.size();
         if (fileSize > Integer.MAX_VALUE) {
             LOG.warning("File " + relativePath + " is too large (size: " + fileSize + " bytes), precision may be lost when converting to int");
         }
@@ -126,49 +223,58 @@ public class ModrinthModpackExportTask extends Task<Void> {
 
     @Override
     public void execute() throws Exception {
+        long startTime = System.nanoTime();
         ArrayList<String> blackList = new ArrayList<>(ModAdviser.MODPACK_BLACK_LIST);
         blackList.add(version + ".jar");
         blackList.add(version + ".json");
         LOG.info("Compressing game files without some files in blacklist, including files or directories: usernamecache.json, asm, logs, backups, versions, assets, usercache.json, libraries, crash-reports, launcher_profiles.json, NVIDIA, TCNodeTracker");
-        try (var zip = new Zipper(modpackFile)) {
+        try (var zip = new Zipper(modpackFile, false, POOL, PARALLELISM)) {
             Path runDirectory = repository.getRunDirectory(version);
-            List<ModrinthManifest.File> files = new ArrayList<>();
-            Set<String> filesInManifest = new HashSet<>();
-
-            String[] resourceDirs = {"resourcepacks", "shaderpacks", "mods"};
-            for (String dir : resourceDirs) {
-                Path dirPath = runDirectory.resolve(dir);
-                if (Files.exists(dirPath)) {
-                    Files.walk(dirPath)
-                            .filter(Files::isRegularFile)
-                            .forEach(file -> {
-                                try {
-                                    String relativePath = runDirectory.relativize(file).normalize().toString().replace(File.separatorChar, '/');
-
-                                    if (!info.getWhitelist().contains(relativePath)) {
-                                        return;
-                                    }
-
-                                    ModrinthManifest.File fileEntry = tryGetRemoteFile(file, relativePath);
-                                    if (fileEntry != null) {
-                                        files.add(fileEntry);
-                                        filesInManifest.add(relativePath);
-                                    }
-                                } catch (IOException e) {
-                                    LOG.warning("Failed to process file: " + file, e);
-                                }
-                            });
-                }
+            boolean useCurseForge = !info.isSkipCurseForgeRemoteFiles() && CurseForgeRemoteModRepository.isAvailable();
+
+            // Hash the candidates in the background, then look them up on both sites at the same time,
+            // while the other files are being compressed.
+            List<Candidate> candidates = info.isNoCreateRemoteFiles() ? List.of() : findCandidates(runDirectory, useCurseForge);
+            CompletableFuture<Void> hashed = CompletableFuture.allOf(candidates.stream().map(Candidate::digests).toArray(CompletableFuture[]::new))
+                    .thenRun(() -> LOG.info("Hashed " + candidates.size() + " files in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms"));
+            CompletableFuture<Map<String, RemoteMod.Version>> modrinthVersions =
+                    lookupAsync(hashed, candidates, "Modrinth", FileDigests::sha1, ModrinthRemoteModRepository.MODS::getRemoteVersionsBySha1);
+            CompletableFuture<Map<Long, RemoteMod.Version>> curseForgeVersions = useCurseForge
+                    ? lookupAsync(hashed, candidates, "CurseForge", FileDigests::fingerprint, CurseForgeRemoteModRepository.MODS::getRemoteVersionsByFingerprints)
+                    : CompletableFuture.completedFuture(Map.of());
+
+            Set<String> candidatePaths = new HashSet<>();
+            for (Candidate candidate : candidates) {
+                candidatePaths.add(candidate.relativePath());
             }
 
+            long compressionStartTime = System.nanoTime();
             zip.putDirectory(runDirectory, "client-overrides", path -> {
                 String relativePath = path.replace(File.separatorChar, '/');
-                if (filesInManifest.contains(relativePath)) {
+                if (candidatePaths.contains(relativePath)) {
                     return false;
                 }
                 return Modpack.acceptFile(path, blackList, info.getWhitelist());
             });
 
+            long lookupStartTime = System.nanoTime();
+            modrinthVersions.join();
+            curseForgeVersions.join();
+            long lookupWaitTime = System.nanoTime() - lookupStartTime;
+
+            List<ModrinthManifest.File> files = new ArrayList<>();
+            for (Candidate candidate : candidates) {
+                FileDigests digests = candidate.digests().join();
+                RemoteMod.Version modrinthVersion = digests != null ? modrinthVersions.join().get(digests.sha1()) : null;
+                RemoteMod.Version curseForgeVersion = digests != null ? curseForgeVersions.join().get(digests.fingerprint()) : null;
+
+                if (modrinthVersion != null || curseForgeVersion != null) {
+                    files.add(toManifestFile(candidate, digests, modrinthVersion, curseForgeVersion));
+                } else if (Modpack.acceptFile(candidate.relativePath(), blackList, info.getWhitelist())) {
+                    zip.putFile(candidate.file(), "client-overrides/" + candidate.relativePath());
+                }
+            }
+
             String gameVersion = repository.getGameVersion(version)
                     .orElseThrow(() -> new IOException("Cannot parse the version of " + version));
             LibraryAnalyzer analyzer = LibraryAnalyzer.analyze(repository.getResolvedPreservingPatchesVersion(version), gameVersion);
@@ -196,7 +302,12 @@ public class ModrinthModpackExportTask extends Task<Void> {
             );
 
             zip.putTextFile(JsonUtils.GSON.toJson(manifest), "modrinth.index.json");
+
+            zip.close();
+            LOG.info("Compressed modpack files in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - compressionStartTime - lookupWaitTime)
+                    + " ms, waited " + TimeUnit.NANOSECONDS.toMillis(lookupWaitTime) + " ms for remote files");
         }
+        LOG.info("Exported Modrinth modpack " + modpackFile + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms");
     }
 
     public static final ModpackExportInfo.Options OPTION = new ModpackExportInfo.Options()
@@ -27,6 +27,7 @@ import org.jackhuang.hmcl.mod.RemoteModRepository;
 import org.jackhuang.hmcl.util.*;
 import org.jackhuang.hmcl.util.gson.JsonUtils;
 import org.jackhuang.hmcl.util.io.HttpRequest;
+import org.jackhuang.hmcl.util.io.HttpResponseCache;
 import org.jackhuang.hmcl.util.io.NetworkUtils;
 import org.jackhuang.hmcl.util.io.ResponseCodeException;
 import org.jetbrains.annotations.Nullable;
@@ -36,15 +37,9 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -52,6 +47,7 @@ import java.util.stream.Stream;
 import static org.jackhuang.hmcl.util.Lang.mapOf;
 import static org.jackhuang.hmcl.util.Pair.pair;
 import static org.jackhuang.hmcl.util.gson.JsonUtils.listTypeOf;
+import static org.jackhuang.hmcl.util.gson.JsonUtils.mapTypeOf;
 import static org.jackhuang.hmcl.util.logging.Logger.LOG;
 
 public final class ModrinthRemoteModRepository implements RemoteModRepository {
@@ -99,10 +95,25 @@ public final class ModrinthRemoteModRepository implements RemoteModRepository {
 
     private static final String PREFIX = "https://api.modrinth.com";
 
+    /// The maximum number of hashes looked up in one request
+    private static final int MAX_HASHES_PER_REQUEST = 500;
+
+    private static final HttpResponseCache.Policy SEARCH_CACHE_POLICY = new HttpResponseCache.Policy(Duration.ofMinutes(5), Duration.ofHours(1));
+    private static final HttpResponseCache.Policy PROJECT_CACHE_POLICY = new HttpResponseCache.Policy(Duration.ofMinutes(10), Duration.ofDays(1));
+    // Update checks need the latest versions, so only skip requests briefly
+    private static final HttpResponseCache.Policy VERSIONS_CACHE_POLICY = new HttpResponseCache.Policy(Duration.ofMinutes(5), Duration.ZERO);
+    private static final HttpResponseCache.Policy CATEGORIES_CACHE_POLICY = new HttpResponseCache.Policy(Duration.ofDays(1), Duration.ofDays(7));
+
     private final String projectType;
+    private final String prefix;
 
     private ModrinthRemoteModRepository(String projectType) {
+        this(projectType, PREFIX);
+    }
+
+    ModrinthRemoteModRepository(String projectType, String prefix) {
         this.projectType = projectType;
+        this.prefix = prefix;
     }
 
     @Override
@@ -153,12 +164,13 @@ public final class ModrinthRemoteModRepository implements RemoteModRepository {
                     pair("index", convertSortType(sort))
             );
 
-            List<URI> candidates = downloadProvider.injectURLWithCandidates(NetworkUtils.withQuery(PREFIX + "/v2/search", query));
+            List<URI> candidates = downloadProvider.injectURLWithCandidates(NetworkUtils.withQuery(prefix + "/v2/search", query));
             IOException exception = null;
             for (URI candidate : candidates) {
                 try {
                     LOG.info("Fetching " + candidate);
                     Response<ProjectSearchResult> response = HttpRequest.GET(candidate.toString())
+                            .cache(HttpResponseCache.getDefault(), SEARCH_CACHE_POLICY)
                             .getJson(Response.typeOf(ProjectSearchResult.class));
                     return new SearchResult(response.getHits().stream().map(ProjectSearchResult::toMod), (int) Math.ceil((double) response.totalHits / pageSize));
                 } catch (IOException e) {
@@ -188,7 +200,7 @@ public final class ModrinthRemoteModRepository implements RemoteModRepository {
 
         SEMAPHORE.acquireUninterruptibly();
         try {
-            ProjectVersion mod = HttpRequest.GET(PREFIX + "/v2/version_file/" + sha1,
+            ProjectVersion mod = HttpRequest.GET(prefix + "/v2/version_file/" + sha1,
                             pair("algorithm", "sha1"))
                     .getJson(ProjectVersion.class);
             return mod.toVersion();
@@ -205,17 +217,168 @@ public final class ModrinthRemoteModRepository implements RemoteModRepository {
         }
     }
 
+    private static Map<String, List<LocalModFile>> hashFiles(Collection<LocalModFile> localModFiles) {
+        Map<String, List<LocalModFile>> result = new LinkedHashMap<>();
+        for (LocalModFile localModFile : localModFiles) {
+            try {
+                String sha1 = DigestUtils.digestToString("SHA-1", localModFile.getFile());
+                result.computeIfAbsent(sha1, key -> new ArrayList<>(1)).add(localModFile);
+            } catch (IOException e) {
+                LOG.warning("Failed to compute the hash of " + localModFile.getFile(), e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Looks up versions by SHA-1 hashes with the bulk endpoints, in as few requests as possible.
+     *
+     * @param downloadProvider provides the candidate URLs of the endpoint, or {@code null} to use the endpoint of this repository directly
+     */
+    private Map<String, ProjectVersion> getVersionsByHashes(@Nullable DownloadProvider downloadProvider, String path, Collection<String> hashes, Map<String, Object> parameters) throws IOException {
+        List<URI> candidates = downloadProvider != null
+                ? downloadProvider.injectURLWithCandidates(prefix + path)
+                : List.of(NetworkUtils.toURI(prefix + path));
+        Map<String, ProjectVersion> result = new HashMap<>();
+        List<String> hashList = new ArrayList<>(hashes);
+        for (int i = 0; i < hashList.size(); i += MAX_HASHES_PER_REQUEST) {
+            Map<String, Object> body = new LinkedHashMap<>(parameters);
+            body.put("hashes", hashList.subList(i, Math.min(hashList.size(), i + MAX_HASHES_PER_REQUEST)));
+            body.put("algorithm", "sha1");
+
+            Map<String, ProjectVersion> response = postVersionsByHashes(candidates, body);
+            if (response != null)
+                result.putAll(response);
+        }
+        return result;
+    }
+
+    private static Map<String, ProjectVersion> postVersionsByHashes(List<URI> candidates, Map<String, Object> body) throws IOException {
+        SEMAPHORE.acquireUninterruptibly();
+        try {
+            IOException exception = null;
+            for (URI candidate : candidates) {
+                try {
+                    return HttpRequest.POST(candidate.toString())
+                            .json(body)
+                            .getJson(mapTypeOf(String.class, ProjectVersion.class));
+                } catch (IOException e) {
+                    IOException wrapper = new IOException("Failed to get versions by hashes: " + candidate, e);
+                    if (candidates.size() == 1) {
+                        exception = wrapper;
+                    } else {
+                        if (exception == null) {
+                            exception = new IOException("Failed to get versions by hashes");
+                        }
+                        exception.addSuppressed(wrapper);
+                    }
+                }
+            }
+
+            throw exception != null ? exception : new IOException("No candidates found");
+        } finally {
+            SEMAPHORE.release();
+        }
+    }
+
+    /**
+     * Looks up the versions of files by their SHA-1 hashes.
+     *
+     * @return the versions keyed by hash, without the hashes which do not match any file
+     */
+    public Map<String, RemoteMod.Version> getRemoteVersionsBySha1(Collection<String> hashes) throws IOException {
+        Map<String, RemoteMod.Version> result = new HashMap<>();
+        getVersionsByHashes(null, "/v2/version_files", new LinkedHashSet<>(hashes), Map.of()).forEach((hash, version) ->
+                version.toVersion().ifPresent(remoteVersion -> result.put(hash, remoteVersion)));
+        return result;
+    }
+
+    @Override
+    public Map<Path, RemoteMod.Version> getRemoteVersionsByLocalFiles(Collection<LocalModFile> localModFiles) throws IOException {
+        Map<String, List<LocalModFile>> files = hashFiles(localModFiles);
+        Map<String, ProjectVersion> versions = getVersionsByHashes(null, "/v2/version_files", files.keySet(), Map.of());
+
+        Map<Path, RemoteMod.Version> result = new HashMap<>();
+        files.forEach((hash, mods) -> {
+            ProjectVersion version = versions.get(hash);
+            if (version != null) {
+                version.toVersion().ifPresent(remoteVersion -> {
+                    for (LocalModFile mod : mods) {
+                        result.put(mod.getFile(), remoteVersion);
+                    }
+                });
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public Map<Path, LocalModFile.ModUpdate> checkUpdates(DownloadProvider downloadProvider, String gameVersion, Collection<LocalModFile> localModFiles) throws IOException {
+        Map<String, List<LocalModFile>> files = hashFiles(localModFiles);
+        Map<String, ProjectVersion> currentVersions = getVersionsByHashes(downloadProvider, "/v2/version_files", files.keySet(), Map.of());
+
+        // A newer version is only an update for the mods of the same loader, so look up the latest versions per loader
+        Map<String, Set<String>> hashesByLoader = new LinkedHashMap<>();
+        files.forEach((hash, mods) -> {
+            if (currentVersions.containsKey(hash)) {
+                for (LocalModFile mod : mods) {
+                    String loader = getLoaderName(mod.getModLoaderType());
+                    if (loader != null)
+                        hashesByLoader.computeIfAbsent(loader, key -> new LinkedHashSet<>()).add(hash);
+                }
+            }
+        });
+
+        Map<Path, LocalModFile.ModUpdate> updates = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : hashesByLoader.entrySet()) {
+            String loader = entry.getKey();
+            Map<String, ProjectVersion> latestVersions = getVersionsByHashes(downloadProvider, "/v2/version_files/update", entry.getValue(),
+                    Map.of("loaders", List.of(loader), "game_versions", List.of(gameVersion)));
+
+            for (String hash : entry.getValue()) {
+                ProjectVersion latestVersion = latestVersions.get(hash);
+                if (latestVersion == null)
+                    continue;
+
+                Optional<RemoteMod.Version> current = currentVersions.get(hash).toVersion();
+                Optional<RemoteMod.Version> candidate = latestVersion.toVersion();
+                if (current.isEmpty() || candidate.isEmpty()
+                        || candidate.get().getDatePublished().compareTo(current.get().getDatePublished()) <= 0)
+                    continue;
+
+                for (LocalModFile mod : files.get(hash)) {
+                    if (loader.equals(getLoaderName(mod.getModLoaderType())))
+                        updates.put(mod.getFile(), new LocalModFile.ModUpdate(mod, current.get(), candidate.get()));
+                }
+            }
+        }
+        return updates;
+    }
+
+    private static @Nullable String getLoaderName(ModLoaderType modLoaderType) {
+        return switch (modLoaderType) {
+            case FABRIC -> "fabric";
+            case FORGE -> "forge";
+            case NEO_FORGE -> "neoforge";
+            case QUILT -> "quilt";
+            case LITE_LOADER -> "liteloader";
+            default -> null;
+        };
+    }
+
     @Override
     public RemoteMod getModById(DownloadProvider downloadProvider, String id) throws IOException {
         SEMAPHORE.acquireUninterruptibly();
         try {
             id = StringUtils.removePrefix(id, "local-");
-            List<URI> candidates = downloadProvider.injectURLWithCandidates(PREFIX + "/v2/project/" + id);
+            List<URI> candidates = downloadProvider.injectURLWithCandidates(prefix + "/v2/project/" + id);
             IOException exception = null;
 
             for (URI candidate : candidates) {
                 try {
-                    Project project = HttpRequest.GET(candidate.toString()).getJson(Project.class);
+                    Project project = HttpRequest.GET(candidate.toString())
+                            .cache(HttpResponseCache.getDefault(), PROJECT_CACHE_POLICY)
+                            .getJson(Project.class);
                     return project.toMod();
                 } catch (IOException e) {
                     IOException wrapper = new IOException("Failed to get mod: " + candidate, e);
@@ -261,12 +424,13 @@ public final class ModrinthRemoteModRepository implements RemoteModRepository {
         try {
             id = StringUtils.removePrefix(id, "local-");
 
-            List<URI> candidates = downloadProvider.injectURLWithCandidates(PREFIX + "/v2/project/" + id + "/version?include_changelog=false");
+            List<URI> candidates = downloadProvider.injectURLWithCandidates(prefix + "/v2/project/" + id + "/version?include_changelog=false");
             IOException exception = null;
 
             for (URI candidate : candidates) {
                 try {
                     List<ProjectVersion> versions = HttpRequest.GET(candidate.toString())
+                            .cache(HttpResponseCache.getDefault(), VERSIONS_CACHE_POLICY)
                             .getJson(listTypeOf(ProjectVersion.class));
                     return versions.stream().map(ProjectVersion::toVersion).flatMap(Lang::toStream);
                 } catch (IOException e) {
@@ -292,7 +456,9 @@ public final class ModrinthRemoteModRepository implements RemoteModRepository {
     public Stream<RemoteModRepository.Category> getCategories() throws IOException {
         SEMAPHORE.acquireUninterruptibly();
         try {
-            List<Category> categories = HttpRequest.GET(PREFIX + "/v2/tag/category").getJson(listTypeOf(Category.class));
+            List<Category> categories = HttpRequest.GET(prefix + "/v2/tag/category")
+                    .cache(HttpResponseCache.getDefault(), CATEGORIES_CACHE_POLICY)
+                    .getJson(listTypeOf(Category.class));
             return categories.stream()
                     .filter(category -> category.getProjectType().equals(projectType))
                     .map(Category::toCategory);
@@ -75,7 +75,7 @@ public class MultiMCModpackExportTask extends Task<Void> {
         blackList.add(versionId + ".jar");
         blackList.add(versionId + ".json");
         LOG.info("Compressing game files without some files in blacklist, including files or directories: usernamecache.json, asm, logs, backups, versions, assets, usercache.json, libraries, crash-reports, launcher_profiles.json, NVIDIA, TCNodeTracker");
-        try (Zipper zip = new Zipper(output)) {
+        try (Zipper zip = Zipper.parallel(output)) {
             zip.putDirectory(repository.getRunDirectory(versionId), ".minecraft", path -> Modpack.acceptFile(path, blackList, whitelist));
 
             String gameVersion = repository.getGameVersion(versionId)
@@ -21,12 +21,12 @@ import com.google.gson.JsonParseException;
 import org.jackhuang.hmcl.download.DefaultDependencyManager;
 import org.jackhuang.hmcl.download.GameBuilder;
 import org.jackhuang.hmcl.game.DefaultGameRepository;
+import org.jackhuang.hmcl.mod.FileHashCache;
 import org.jackhuang.hmcl.mod.ModManager;
 import org.jackhuang.hmcl.mod.ModpackConfiguration;
 import org.jackhuang.hmcl.task.FileDownloadTask;
 import org.jackhuang.hmcl.task.GetTask;
 import org.jackhuang.hmcl.task.Task;
-import org.jackhuang.hmcl.util.DigestUtils;
 import org.jackhuang.hmcl.util.StringUtils;
 import org.jackhuang.hmcl.util.gson.JsonUtils;
 
@@ -131,6 +131,16 @@ public class ServerModpackCompletionTask extends Task<Void> {
         Path runDirectory = repository.getRunDirectory(version).toAbsolutePath().normalize();
         Path modsDirectory = runDirectory.resolve("mods");
 
+        // Only the files which the user may have modified and which the new modpack changed need to be hashed
+        List<Path> filesToHash = new ArrayList<>();
+        for (ModpackConfiguration.FileInformation file : remoteManifest.getFiles()) {
+            Path actualPath = rootPath.resolve(file.getPath()).toAbsolutePath().normalize();
+            ModpackConfiguration.FileInformation oldFile = files.get(file.getPath());
+            if (actualPath.startsWith(rootPath) && oldFile != null && !Objects.equals(oldFile.getHash(), file.getHash()))
+                filesToHash.add(actualPath);
+        }
+        Map<Path, String> fileHashes = new FileHashCache(rootPath.resolve(FileHashCache.FILE_NAME), rootPath).hash(filesToHash);
+
         int total = 0;
         // for files in new modpack
         for (ModpackConfiguration.FileInformation file : remoteManifest.getFiles()) {
@@ -158,9 +168,8 @@ public class ServerModpackCompletionTask extends Task<Void> {
                 download = true;
             } else {
                 // If user modified this entry file, we will not replace this file since this modified file is that user expects.
-                String fileHash = DigestUtils.digestToString("SHA-1", actualPath);
                 String oldHash = files.get(file.getPath()).getHash();
-                download = !Objects.equals(oldHash, file.getHash()) && Objects.equals(oldHash, fileHash);
+                download = !Objects.equals(oldHash, file.getHash()) && Objects.equals(oldHash, fileHashes.get(actualPath));
             }
 
             if (download) {
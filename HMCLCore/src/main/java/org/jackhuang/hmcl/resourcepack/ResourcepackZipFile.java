@@ -20,9 +20,8 @@ package org.jackhuang.hmcl.resourcepack;
 import org.jackhuang.hmcl.mod.LocalModFile;
 import org.jackhuang.hmcl.mod.modinfo.PackMcMeta;
 import org.jackhuang.hmcl.util.gson.JsonUtils;
-import org.jackhuang.hmcl.util.io.CompressingUtils;
 import org.jackhuang.hmcl.util.io.FileUtils;
-import org.jackhuang.hmcl.util.tree.ZipFileTree;
+import org.jackhuang.hmcl.util.io.ZipIndexPool;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
@@ -43,16 +42,16 @@ public final class ResourcepackZipFile implements ResourcepackFile {
 
         byte[] icon = null;
 
-        try (var zipFileTree = new ZipFileTree(CompressingUtils.openZipFile(path))) {
+        try (var zipIndex = ZipIndexPool.getDefault().open(path)) {
             try {
-                description = JsonUtils.fromNonNullJson(zipFileTree.readTextEntry("/pack.mcmeta"), PackMcMeta.class).pack().description();
+                description = JsonUtils.fromNonNullJson(zipIndex.readTextEntry("/pack.mcmeta"), PackMcMeta.class).pack().description();
             } catch (Exception e) {
                 LOG.warning("Failed to parse resourcepack meta", e);
             }
 
-            var iconEntry = zipFileTree.getEntry("/pack.png");
+            var iconEntry = zipIndex.getEntry("/pack.png");
             if (iconEntry != null) {
-                try (InputStream is = zipFileTree.getInputStream(iconEntry)) {
+                try (InputStream is = zipIndex.getInputStream(iconEntry)) {
                     icon = is.readAllBytes();
                 } catch (Exception e) {
                     LOG.warning("Failed to load resourcepack icon", e);
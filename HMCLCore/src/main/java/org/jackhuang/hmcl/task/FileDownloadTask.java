@@ -19,10 +19,11 @@ package org.jackhuang.hmcl.task;
 
 import org.jackhuang.hmcl.util.DigestUtils;
 import org.jackhuang.hmcl.util.io.ChecksumMismatchException;
-import org.jackhuang.hmcl.util.io.CompressingUtils;
 import org.jackhuang.hmcl.util.io.FileUtils;
 import org.jackhuang.hmcl.util.io.NetworkUtils;
 import org.jackhuang.hmcl.util.io.UrlResponseInfo;
+import org.jackhuang.hmcl.util.io.ZipIndex;
+import org.jackhuang.hmcl.util.io.ZipStreamValidator;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -31,7 +32,6 @@ import java.net.URI;
 import java.net.http.HttpResponse;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
-import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -196,6 +196,7 @@ public class FileDownloadTask extends FetchTask<Void> {
         }
 
         MessageDigest digest = algorithm != null ? DigestUtils.getDigest(algorithm) : null;
+        StreamingIntegrityCheck[] streamingChecks = createStreamingChecks();
 
         FileChannel fileOutput = FileChannel.open(temp,
                 StandardOpenOption.WRITE,
@@ -208,6 +209,9 @@ public class FileDownloadTask extends FetchTask<Void> {
                     digest.reset();
                 }
 
+                StreamingIntegrityCheck[] newStreamingChecks = createStreamingChecks();
+                System.arraycopy(newStreamingChecks, 0, streamingChecks, 0, streamingChecks.length);
+
                 fileOutput.truncate(0L);
                 fileOutput.position(0L);
             }
@@ -218,6 +222,12 @@ public class FileDownloadTask extends FetchTask<Void> {
                     digest.update(buffer, offset, len);
                 }
 
+                for (StreamingIntegrityCheck check : streamingChecks) {
+                    if (check != null) {
+                        check.update(buffer, offset, len);
+                    }
+                }
+
                 ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, offset, len);
                 while (byteBuffer.hasRemaining()) {
                     //noinspection ResultOfMethodCallIgnored
@@ -242,8 +252,10 @@ public class FileDownloadTask extends FetchTask<Void> {
 
                 boolean moved = false;
                 try {
-                    for (IntegrityCheckHandler handler : integrityCheckHandlers) {
-                        handler.checkIntegrity(temp, file);
+                    for (int i = 0; i < streamingChecks.length; i++) {
+                        if (streamingChecks[i] == null || !streamingChecks[i].finish()) {
+                            integrityCheckHandlers.get(i).checkIntegrity(temp, file);
+                        }
                     }
 
                     if (checksum != null) {
@@ -290,6 +302,14 @@ public class FileDownloadTask extends FetchTask<Void> {
         };
     }
 
+    private StreamingIntegrityCheck[] createStreamingChecks() {
+        StreamingIntegrityCheck[] checks = new StreamingIntegrityCheck[integrityCheckHandlers.size()];
+        for (int i = 0; i < checks.length; i++) {
+            checks[i] = integrityCheckHandlers.get(i).createStreamingCheck(file);
+        }
+        return checks;
+    }
+
     public interface IntegrityCheckHandler {
         /**
          * Check whether the file is corrupted or not.
@@ -299,14 +319,64 @@ public class FileDownloadTask extends FetchTask<Void> {
          * @throws IOException if the file is corrupted
          */
         void checkIntegrity(Path filePath, Path destinationPath) throws IOException;
+
+        /**
+         * Creates a check which receives the content of the file while it is being downloaded,
+         * so that the file does not have to be read again.
+         *
+         * @param destinationPath for real file name
+         * @return null if the file should only be checked by {@link #checkIntegrity(Path, Path)}
+         */
+        default @Nullable StreamingIntegrityCheck createStreamingCheck(Path destinationPath) {
+            return null;
+        }
     }
 
-    public static final IntegrityCheckHandler ZIP_INTEGRITY_CHECK_HANDLER = (filePath, destinationPath) -> {
-        String ext = FileUtils.getExtension(destinationPath).toLowerCase(Locale.ROOT);
-        if (ext.equals("zip") || ext.equals("jar")) {
-            try (FileSystem ignored = CompressingUtils.createReadOnlyZipFileSystem(filePath)) {
-                // test for zip format
+    public interface StreamingIntegrityCheck {
+        /**
+         * @throws IOException if the file is corrupted
+         */
+        void update(byte[] buffer, int offset, int len) throws IOException;
+
+        /**
+         * @return whether the file has been checked, false if it should be checked by {@link IntegrityCheckHandler#checkIntegrity(Path, Path)}
+         * @throws IOException if the file is corrupted
+         */
+        boolean finish() throws IOException;
+    }
+
+    public static final IntegrityCheckHandler ZIP_INTEGRITY_CHECK_HANDLER = new IntegrityCheckHandler() {
+        private static boolean isZipFile(Path destinationPath) {
+            String ext = FileUtils.getExtension(destinationPath).toLowerCase(Locale.ROOT);
+            return ext.equals("zip") || ext.equals("jar");
+        }
+
+        @Override
+        public void checkIntegrity(Path filePath, Path destinationPath) throws IOException {
+            if (isZipFile(destinationPath)) {
+                try (ZipIndex ignored = new ZipIndex(filePath)) {
+                    // test for zip format
+                }
             }
         }
+
+        @Override
+        public @Nullable StreamingIntegrityCheck createStreamingCheck(Path destinationPath) {
+            if (!isZipFile(destinationPath))
+                return null;
+
+            ZipStreamValidator validator = new ZipStreamValidator();
+            return new StreamingIntegrityCheck() {
+                @Override
+                public void update(byte[] buffer, int offset, int len) throws IOException {
+                    validator.update(buffer, offset, len);
+                }
+
+                @Override
+                public boolean finish() throws IOException {
+                    return validator.finish();
+                }
+            };
+        }
     };
 }
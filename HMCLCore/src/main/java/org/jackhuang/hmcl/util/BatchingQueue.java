@@ -0,0 +1,278 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * A bounded queue which delivers its elements in batches to a slow consumer, such as the JavaFX thread.
+ * <p>
+ * Producers never block. When the queue is full, new elements are dropped, and the consumer receives a single summary
+ * element created by {@code droppedSummary} at the position where they were dropped.
+ * <p>
+ * The consumer runs on the thread calling {@link #run()}. A batch is delivered once the queue holds {@code maxBatchSize}
+ * elements, or once the batch interval has passed since its first element arrived. The interval adapts to the consumer:
+ * it grows while the consumer is slower than the interval and shrinks back when the consumer keeps up,
+ * so a busy UI receives fewer, larger batches.
+ */
+public final class BatchingQueue<E> implements Runnable {
+
+    public static final long MIN_INTERVAL = TimeUnit.MILLISECONDS.toNanos(16);
+    public static final long MAX_INTERVAL = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final int capacity;
+    private final int maxBatchSize;
+    private final Consumer<List<E>> consumer;
+    private final IntFunction<E> droppedSummary;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition batchReady = lock.newCondition();
+
+    // Ring buffer
+    private Object[] elements;
+    private long[] enqueueTimes;
+    /// The number of elements dropped right after the element in the same slot
+    private int[] droppedAfter;
+    private int head = 0;
+    private int size = 0;
+
+    private boolean closed = false;
+
+    private long interval = MIN_INTERVAL;
+
+    // Metrics
+    private int maxQueueDepth = 0;
+    private long deliveredCount = 0;
+    private long droppedCount = 0;
+    private long batchCount = 0;
+    private long maxLatency = 0;
+    private long totalLatency = 0;
+
+    /**
+     * @param capacity       the maximum number of queued elements
+     * @param maxBatchSize   the maximum number of elements delivered in a batch
+     * @param consumer       receives the batches; the list is reused after it returns
+     * @param droppedSummary creates the element which replaces a run of dropped elements
+     */
+    public BatchingQueue(int capacity, int maxBatchSize, Consumer<List<E>> consumer, IntFunction<E> droppedSummary) {
+        if (capacity <= 0 || maxBatchSize <= 0)
+            throw new IllegalArgumentException();
+
+        this.capacity = capacity;
+        this.maxBatchSize = maxBatchSize;
+        this.consumer = consumer;
+        this.droppedSummary = droppedSummary;
+
+        int initialCapacity = Math.min(capacity, 256);
+        this.elements = new Object[initialCapacity];
+        this.enqueueTimes = new long[initialCapacity];
+        this.droppedAfter = new int[initialCapacity];
+    }
+
+    private void grow() {
+        int oldLength = elements.length;
+        int newLength = oldLength * 2;
+
+        Object[] newElements = new Object[newLength];
+        long[] newEnqueueTimes = new long[newLength];
+        int[] newDroppedAfter = new int[newLength];
+        for (int i = 0; i < size; i++) {
+            int index = (head + i) % oldLength;
+            newElements[i] = elements[index];
+            newEnqueueTimes[i] = enqueueTimes[index];
+            newDroppedAfter[i] = droppedAfter[index];
+        }
+
+        elements = newElements;
+        enqueueTimes = newEnqueueTimes;
+        droppedAfter = newDroppedAfter;
+        head = 0;
+    }
+
+    private void enqueue(E element) {
+        if (size == elements.length)
+            grow();
+
+        int index = (head + size) % elements.length;
+        elements[index] = element;
+        enqueueTimes[index] = System.nanoTime();
+        droppedAfter[index] = 0;
+        size++;
+
+        if (size > maxQueueDepth)
+            maxQueueDepth = size;
+
+        if (size == 1)
+            notEmpty.signal();
+        else if (size == maxBatchSize)
+            batchReady.signal();
+    }
+
+    /**
+     * Adds an element without blocking.
+     *
+     * @return {@code false} if the element was dropped because the queue is full or closed
+     */
+    public boolean offer(E element) {
+        lock.lock();
+        try {
+            if (closed)
+                return false;
+
+            if (size >= capacity) {
+                droppedCount++;
+                droppedAfter[(head + size - 1) % elements.length]++;
+                return false;
+            }
+
+            enqueue(element);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds an element even if the queue is full. This is meant for rare control messages which must not be lost.
+     */
+    public void add(E element) {
+        lock.lock();
+        try {
+            if (closed)
+                throw new IllegalStateException("Queue is closed");
+            enqueue(element);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting elements. {@link #run()} returns after the remaining elements have been delivered.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            batchReady.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void run() {
+        List<E> batch = new ArrayList<>();
+        while (true) {
+            long oldestEnqueueTime;
+
+            lock.lock();
+            try {
+                while (size == 0 && !closed) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (size == 0)
+                    return;
+
+                // Wait for more elements
+                long deadline = enqueueTimes[head] + interval;
+                long remaining;
+                while (!closed && size < maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+                    try {
+                        batchReady.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        close();
+                    }
+                }
+
+                oldestEnqueueTime = enqueueTimes[head];
+
+                for (int n = Math.min(size, maxBatchSize); n > 0; n--) {
+                    batch.add((E) elements[head]);
+                    if (droppedAfter[head] > 0)
+                        batch.add(droppedSummary.apply(droppedAfter[head]));
+                    elements[head] = null;
+                    head = (head + 1) % elements.length;
+                    size--;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            long deliverStart = System.nanoTime();
+            consumer.accept(batch);
+            long now = System.nanoTime();
+
+            lock.lock();
+            try {
+                long latency = now - oldestEnqueueTime;
+                if (latency > maxLatency)
+                    maxLatency = latency;
+                totalLatency += latency;
+                batchCount++;
+                deliveredCount += batch.size();
+
+                // Back off while the consumer is slower than the interval, and recover gradually when it keeps up
+                long consumeTime = now - deliverStart;
+                if (consumeTime * 2 > interval)
+                    interval = Math.min(MAX_INTERVAL, Math.max(interval * 2, consumeTime * 2));
+                else
+                    interval = Math.max(MIN_INTERVAL, interval * 3 / 4);
+            } finally {
+                lock.unlock();
+            }
+
+            batch.clear();
+        }
+    }
+
+    public Metrics getMetrics() {
+        lock.lock();
+        try {
+            return new Metrics(size, maxQueueDepth, deliveredCount, droppedCount, batchCount,
+                    batchCount == 0 ? 0 : totalLatency / batchCount, maxLatency, interval);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param averageLatency the average time in nanoseconds from the oldest element of a batch being queued to the batch being consumed
+     * @param maxLatency     the maximum of that time in nanoseconds
+     * @param interval       the current batch interval in nanoseconds
+     */
+    public record Metrics(int queueDepth, int maxQueueDepth,
+                          long deliveredCount, long droppedCount, long batchCount,
+                          long averageLatency, long maxLatency, long interval) {
+        @Override
+        public String toString() {
+            return "queue depth: " + queueDepth + " (max " + maxQueueDepth + "), "
+                    + "delivered: " + deliveredCount + " in " + batchCount + " batches, "
+                    + "dropped: " + droppedCount + ", "
+                    + "latency: " + TimeUnit.NANOSECONDS.toMillis(averageLatency) + "ms (max " + TimeUnit.NANOSECONDS.toMillis(maxLatency) + "ms)";
+        }
+    }
+}
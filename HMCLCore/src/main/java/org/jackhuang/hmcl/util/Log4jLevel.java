@@ -17,7 +17,6 @@
  */
 package org.jackhuang.hmcl.util;
 
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -51,62 +50,60 @@ public enum Log4jLevel {
     public static final Pattern MINECRAFT_LOGGER_CATEGORY = Pattern.compile("\\[(?<timestamp>[0-9:]+)] \\[[^/]+/(?<level>[^]]+)] \\[(?<category>[^]]+)]");
     public static final String JAVA_SYMBOL = "([a-zA-Z_$][a-zA-Z\\d_$]*\\.)+[a-zA-Z_$][a-zA-Z\\d_$]*";
 
+    /**
+     * Guesses the level of a game log line.
+     * <p>
+     * This is called for every line the game prints, so it recognizes the layouts matched by
+     * {@link #MINECRAFT_LOGGER} and {@link #MINECRAFT_LOGGER_CATEGORY} by hand instead of running the regular expressions,
+     * and does not allocate.
+     */
     public static Log4jLevel guessLevel(String line) {
         Log4jLevel level = null;
-        Matcher m = MINECRAFT_LOGGER.matcher(line);
-        if (m.find()) {
+
+        int loggerStart = findLogger(line, 0);
+        if (loggerStart >= 0) {
             // New style logs from log4j
-            String levelStr = m.group("level");
-            if (null != levelStr)
-                switch (levelStr) {
-                    case "INFO":
+            int levelStart = line.indexOf('/', line.indexOf("] [", loggerStart) + 3) + 1;
+            int levelEnd = line.indexOf(']', levelStart);
+            level = parseLevel(line, levelStart, levelEnd);
+
+            for (int start = loggerStart; start >= 0; start = findLogger(line, start + 1)) {
+                int categoryStart = categoryStart(line, start);
+                if (categoryStart >= 0) {
+                    int categoryEnd = line.indexOf(']', categoryStart);
+                    if (regionEquals(line, categoryStart, categoryEnd, "STDOUT"))
                         level = INFO;
-                        break;
-                    case "WARN":
-                        level = WARN;
-                        break;
-                    case "ERROR":
+                    else if (regionEquals(line, categoryStart, categoryEnd, "STDERR"))
                         level = ERROR;
-                        break;
-                    case "FATAL":
-                        level = FATAL;
-                        break;
-                    case "TRACE":
-                        level = TRACE;
-                        break;
-                    case "DEBUG":
-                        level = DEBUG;
-                        break;
-                    default:
-                        break;
+                    break;
                 }
-            Matcher m2 = MINECRAFT_LOGGER_CATEGORY.matcher(line);
-            if (m2.find()) {
-                String level2Str = m2.group("category");
-                if (null != level2Str)
-                    switch (level2Str) {
-                        case "STDOUT":
-                            level = INFO;
-                            break;
-                        case "STDERR":
-                            level = ERROR;
-                            break;
-                    }
             }
 
             if (line.contains("STDERR]") || line.contains("[STDERR/]")) {
                 level = ERROR;
             }
         } else {
-            if (line.contains("[INFO]") || line.contains("[CONFIG]") || line.contains("[FINE]")
-                    || line.contains("[FINER]") || line.contains("[FINEST]"))
-                level = INFO;
-            if (line.contains("[SEVERE]") || line.contains("[STDERR]"))
-                level = ERROR;
-            if (line.contains("[WARNING]"))
-                level = WARN;
-            if (line.contains("[DEBUG]"))
+            boolean info = false, error = false, warn = false, debug = false;
+            for (int i = line.indexOf('['); i >= 0; i = line.indexOf('[', i + 1)) {
+                if (line.startsWith("[INFO]", i) || line.startsWith("[CONFIG]", i) || line.startsWith("[FINE]", i)
+                        || line.startsWith("[FINER]", i) || line.startsWith("[FINEST]", i))
+                    info = true;
+                else if (line.startsWith("[SEVERE]", i) || line.startsWith("[STDERR]", i))
+                    error = true;
+                else if (line.startsWith("[WARNING]", i))
+                    warn = true;
+                else if (line.startsWith("[DEBUG]", i))
+                    debug = true;
+            }
+
+            if (debug)
                 level = DEBUG;
+            else if (warn)
+                level = WARN;
+            else if (error)
+                level = ERROR;
+            else if (info)
+                level = INFO;
         }
         if (line.contains("overwriting existing"))
             level = FATAL;
@@ -120,6 +117,87 @@ public enum Log4jLevel {
         return level;
     }
 
+    /**
+     * Finds the first match of {@link #MINECRAFT_LOGGER} starting at or after {@code fromIndex}.
+     *
+     * @return the start index of the match, or -1 if there is none
+     */
+    private static int findLogger(String line, int fromIndex) {
+        for (int start = line.indexOf('[', fromIndex); start >= 0; start = line.indexOf('[', start + 1)) {
+            if (loggerEnd(line, start) >= 0)
+                return start;
+        }
+        return -1;
+    }
+
+    /**
+     * Matches {@code \[[0-9:]+] \[[^/]+/[^]]+]} at {@code start}.
+     *
+     * @return the index of the closing bracket of the level, or -1 if it does not match
+     */
+    private static int loggerEnd(String line, int start) {
+        final int length = line.length();
+
+        // Timestamp
+        int i = start + 1;
+        while (i < length) {
+            char ch = line.charAt(i);
+            if ((ch < '0' || ch > '9') && ch != ':')
+                break;
+            i++;
+        }
+        if (i == start + 1 || !line.startsWith("] [", i))
+            return -1;
+
+        // Thread
+        int threadStart = i + 3;
+        int slash = line.indexOf('/', threadStart);
+        if (slash <= threadStart)
+            return -1;
+
+        // Level
+        int levelEnd = line.indexOf(']', slash + 1);
+        if (levelEnd <= slash + 1)
+            return -1;
+
+        return levelEnd;
+    }
+
+    /**
+     * Matches {@link #MINECRAFT_LOGGER_CATEGORY} at {@code start}.
+     *
+     * @return the start index of the category, or -1 if it does not match
+     */
+    private static int categoryStart(String line, int start) {
+        int levelEnd = loggerEnd(line, start);
+        if (levelEnd < 0 || !line.startsWith(" [", levelEnd + 1))
+            return -1;
+
+        int categoryStart = levelEnd + 3;
+        int categoryEnd = line.indexOf(']', categoryStart);
+        return categoryEnd > categoryStart ? categoryStart : -1;
+    }
+
+    private static Log4jLevel parseLevel(String line, int start, int end) {
+        switch (end - start) {
+            case 4:
+                if (line.startsWith("INFO", start)) return INFO;
+                if (line.startsWith("WARN", start)) return WARN;
+                break;
+            case 5:
+                if (line.startsWith("ERROR", start)) return ERROR;
+                if (line.startsWith("FATAL", start)) return FATAL;
+                if (line.startsWith("TRACE", start)) return TRACE;
+                if (line.startsWith("DEBUG", start)) return DEBUG;
+                break;
+        }
+        return null;
+    }
+
+    private static boolean regionEquals(String line, int start, int end, String target) {
+        return end - start == target.length() && line.startsWith(target, start);
+    }
+
     public static boolean isError(Log4jLevel a) {
         return a != null && a.lessOrEqual(Log4jLevel.ERROR);
     }
@@ -18,6 +18,7 @@
 package org.jackhuang.hmcl.util;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Objects;
 
 /**
  * Implementation of the MurmurHash2 32-bit and 64-bit hash functions.
@@ -113,6 +114,87 @@ public final class MurmurHash2 {
         return h;
     }
 
+    /**
+     * Computes the same 32-bit hash as {@link #hash32(byte[], int, int)} incrementally, in constant memory.
+     *
+     * <p>MurmurHash2 mixes the length of the input into the initial state,
+     * so the length must be known before the first byte is hashed.</p>
+     */
+    public static final class Hash32 {
+        private final int length;
+        private int h;
+        private long count = 0;
+
+        // The last bytes which do not fill a block yet, in little-endian order
+        private int tail = 0;
+        private int tailLength = 0;
+
+        /**
+         * @param length The total length of the input
+         * @param seed   The initial seed value
+         */
+        public Hash32(final int length, final int seed) {
+            this.length = length;
+            this.h = seed ^ length;
+        }
+
+        private void mix(int k) {
+            k *= M32;
+            k ^= k >>> R32;
+            k *= M32;
+            h *= M32;
+            h ^= k;
+        }
+
+        public void update(final byte[] data, final int offset, final int len) {
+            Objects.checkFromIndexSize(offset, len, data.length);
+            count += len;
+
+            int index = offset;
+            final int end = offset + len;
+
+            // Complete the pending block
+            while (tailLength != 0 && index < end) {
+                tail |= (data[index++] & 0xff) << (tailLength << 3);
+                if (++tailLength == 4) {
+                    mix(tail);
+                    tail = 0;
+                    tailLength = 0;
+                }
+            }
+
+            for (; end - index >= 4; index += 4) {
+                mix(ByteArray.getIntLE(data, index));
+            }
+
+            while (index < end) {
+                tail |= (data[index++] & 0xff) << (tailLength << 3);
+                tailLength++;
+            }
+        }
+
+        /**
+         * @return The 32-bit hash
+         * @throws IllegalStateException if the number of bytes hashed differs from the length given to the constructor
+         */
+        public int getValue() {
+            if (count != length) {
+                throw new IllegalStateException("Expected " + length + " bytes, but got " + count);
+            }
+
+            int h = this.h;
+            if (tailLength != 0) {
+                h ^= tail;
+                h *= M32;
+            }
+
+            h ^= h >>> 13;
+            h *= M32;
+            h ^= h >>> 15;
+            return h;
+        }
+    }
+
     /**
      * Generates a 32-bit hash from byte array with the given length and a default seed value.
      * This is a helper method that will produce the same result as:
@@ -254,6 +254,17 @@ public final class StringUtils {
         return false;
     }
 
+    /**
+     * Case-insensitive variant of {@link String#contains(CharSequence)} which does not allocate.
+     */
+    public static boolean containsIgnoreCase(String str, String target) {
+        for (int i = 0, end = str.length() - target.length(); i <= end; i++) {
+            if (str.regionMatches(true, i, target, 0, target.length()))
+                return true;
+        }
+        return false;
+    }
+
     public static boolean containsChinese(String str) {
         for (int i = 0; i < str.length(); i++) {
             char ch = str.charAt(i);
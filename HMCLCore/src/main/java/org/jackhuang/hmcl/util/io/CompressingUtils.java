@@ -22,6 +22,7 @@ import kala.compress.archivers.zip.ZipArchiveReader;
 import org.jackhuang.hmcl.util.Lang;
 import org.jackhuang.hmcl.util.platform.OperatingSystem;
 import org.jackhuang.hmcl.util.tree.ZipFileTree;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -44,6 +45,54 @@ public final class CompressingUtils {
             .findFirst()
             .orElse(null);
 
+    /// At most this many names which are not ASCII are decoded to detect the encoding of a zip file.
+    private static final int MAX_SAMPLED_NAMES = 256;
+
+    private static final int MAX_CACHED_SAMPLES = 64;
+
+    private static final List<Charset> CANDIDATE_ENCODINGS;
+
+    static {
+        String[] candidates = {
+                "GB18030",
+                "Big5",
+                "Shift_JIS",
+                "EUC-JP",
+                "ISO-2022-JP",
+                "EUC-KR",
+                "ISO-2022-KR",
+                "KOI8-R",
+                "windows-1251",
+                "x-MacCyrillic",
+                "IBM855",
+                "IBM866",
+                "windows-1252",
+                "ISO-8859-1",
+                "ISO-8859-5",
+                "ISO-8859-7",
+                "ISO-8859-8",
+                "UTF-16LE", "UTF-16BE",
+                "UTF-32LE", "UTF-32BE"
+        };
+
+        List<Charset> encodings = new ArrayList<>(candidates.length);
+        for (String candidate : candidates) {
+            try {
+                encodings.add(Charset.forName(candidate));
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        CANDIDATE_ENCODINGS = List.copyOf(encodings);
+    }
+
+    /// The sampled names of the zip files which have been opened recently, keyed by their normalized paths
+    private static final LinkedHashMap<Path, NameSample> NAME_SAMPLES = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, NameSample> eldest) {
+            return size() > MAX_CACHED_SAMPLES;
+        }
+    };
+
     private CompressingUtils() {
     }
 
@@ -51,21 +100,66 @@ public final class CompressingUtils {
         return charset.newDecoder().onMalformedInput(CodingErrorAction.REPORT).onUnmappableCharacter(CodingErrorAction.REPORT);
     }
 
-    public static boolean testEncoding(Path zipFile, Charset encoding) throws IOException {
-        try (ZipArchiveReader zf = openZipFile(zipFile, encoding)) {
-            return testEncoding(zf, encoding);
+    private static boolean isASCII(byte[] name) {
+        for (byte b : name) {
+            if (b < 0)
+                return false;
         }
+        return true;
     }
 
-    public static boolean testEncoding(ZipArchiveReader zipFile, Charset encoding) {
-        CharsetDecoder cd = newCharsetDecoder(encoding);
-        CharBuffer cb = CharBuffer.allocate(32);
-
+    /// Returns the raw names which are not marked as UTF-8 and contain non-ASCII bytes, at most [#MAX_SAMPLED_NAMES] of them.
+    ///
+    /// ASCII names are decoded in the same way in all the encodings which may be detected, so they are not sampled.
+    private static List<byte[]> sampleNames(ZipArchiveReader zipFile) {
+        List<byte[]> names = new ArrayList<>();
         for (ZipArchiveEntry entry : zipFile.getEntries()) {
             if (entry.getGeneralPurposeBit().usesUTF8ForNames()) continue;
 
+            byte[] name = entry.getRawName();
+            if (!isASCII(name)) {
+                names.add(name);
+                if (names.size() >= MAX_SAMPLED_NAMES)
+                    break;
+            }
+        }
+        return names;
+    }
+
+    private static NameSample getNameSample(Path zipFile) throws IOException {
+        Path key = zipFile.toAbsolutePath().normalize();
+        FileIdentity identity = FileIdentity.of(key);
+        NameSample sample = getCachedNameSample(key, identity);
+        if (sample == null) {
+            try (ZipArchiveReader zf = openZipFile(key, StandardCharsets.UTF_8)) {
+                sample = cacheNameSample(key, identity, zf);
+            }
+        }
+        return sample;
+    }
+
+    private static NameSample getCachedNameSample(Path key, FileIdentity identity) {
+        synchronized (NAME_SAMPLES) {
+            NameSample sample = NAME_SAMPLES.get(key);
+            return sample != null && sample.identity.equals(identity) ? sample : null;
+        }
+    }
+
+    private static NameSample cacheNameSample(Path key, FileIdentity identity, ZipArchiveReader zipFile) {
+        List<byte[]> names = sampleNames(zipFile);
+        NameSample sample = new NameSample(identity, names, detectEncoding(names));
+        synchronized (NAME_SAMPLES) {
+            NAME_SAMPLES.put(key, sample);
+        }
+        return sample;
+    }
+
+    private static boolean testEncoding(List<byte[]> names, Charset encoding) {
+        CharsetDecoder cd = newCharsetDecoder(encoding);
+        CharBuffer cb = CharBuffer.allocate(32);
+
+        for (byte[] ba : names) {
             cd.reset();
-            byte[] ba = entry.getRawName();
             int clen = (int) (ba.length * cd.maxCharsPerByte());
             if (clen == 0) continue;
             if (clen <= cb.capacity())
@@ -82,50 +176,37 @@ public final class CompressingUtils {
         return true;
     }
 
-    public static Charset findSuitableEncoding(Path zipFile) throws IOException {
-        try (ZipArchiveReader zf = openZipFile(zipFile, StandardCharsets.UTF_8)) {
-            return findSuitableEncoding(zf);
+    private static @Nullable Charset detectEncoding(List<byte[]> names) {
+        // All the names are ASCII or marked as UTF-8
+        if (names.isEmpty() || testEncoding(names, StandardCharsets.UTF_8)) return StandardCharsets.UTF_8;
+        if (OperatingSystem.NATIVE_CHARSET != StandardCharsets.UTF_8 && testEncoding(names, OperatingSystem.NATIVE_CHARSET))
+            return OperatingSystem.NATIVE_CHARSET;
+
+        for (Charset charset : CANDIDATE_ENCODINGS) {
+            if (!charset.equals(OperatingSystem.NATIVE_CHARSET) && testEncoding(names, charset)) {
+                return charset;
+            }
         }
+        return null;
     }
 
-    public static Charset findSuitableEncoding(ZipArchiveReader zipFile) throws IOException {
-        if (testEncoding(zipFile, StandardCharsets.UTF_8)) return StandardCharsets.UTF_8;
-        if (OperatingSystem.NATIVE_CHARSET != StandardCharsets.UTF_8 && testEncoding(zipFile, OperatingSystem.NATIVE_CHARSET))
-            return OperatingSystem.NATIVE_CHARSET;
+    public static boolean testEncoding(Path zipFile, Charset encoding) throws IOException {
+        return testEncoding(getNameSample(zipFile).names, encoding);
+    }
 
-        String[] candidates = {
-                "GB18030",
-                "Big5",
-                "Shift_JIS",
-                "EUC-JP",
-                "ISO-2022-JP",
-                "EUC-KR",
-                "ISO-2022-KR",
-                "KOI8-R",
-                "windows-1251",
-                "x-MacCyrillic",
-                "IBM855",
-                "IBM866",
-                "windows-1252",
-                "ISO-8859-1",
-                "ISO-8859-5",
-                "ISO-8859-7",
-                "ISO-8859-8",
-                "UTF-16LE", "UTF-16BE",
-                "UTF-32LE", "UTF-32BE"
-        };
+    public static boolean testEncoding(ZipArchiveReader zipFile, Charset encoding) {
+        return testEncoding(sampleNames(zipFile), encoding);
+    }
 
-        for (String candidate : candidates) {
-            try {
-                Charset charset = Charset.forName(candidate);
-                if (!charset.equals(OperatingSystem.NATIVE_CHARSET) && testEncoding(zipFile, charset)) {
-                    return charset;
-                }
-            } catch (IllegalArgumentException ignored) {
-            }
-        }
+    public static Charset findSuitableEncoding(Path zipFile) throws IOException {
+        return getNameSample(zipFile).getSuitableEncoding();
+    }
 
-        throw new IOException("Cannot find suitable encoding for the zip.");
+    public static Charset findSuitableEncoding(ZipArchiveReader zipFile) throws IOException {
+        Charset encoding = detectEncoding(sampleNames(zipFile));
+        if (encoding == null)
+            throw new IOException("Cannot find suitable encoding for the zip.");
+        return encoding;
     }
 
     public static ZipFileTree openZipTree(Path zipFile) throws IOException {
@@ -144,23 +225,34 @@ public final class CompressingUtils {
         if (possibleEncoding == null)
             possibleEncoding = StandardCharsets.UTF_8;
 
-        ZipArchiveReader zipReader = new ZipArchiveReader(Files.newByteChannel(zipFile));
+        Path key = zipFile.toAbsolutePath().normalize();
+        FileIdentity identity = FileIdentity.of(key);
+        NameSample sample = getCachedNameSample(key, identity);
 
+        // Reuses the zip file opened for sampling the names if they are in UTF-8
+        ZipArchiveReader zipReader = null;
         Charset suitableEncoding;
         try {
-            if (possibleEncoding != StandardCharsets.UTF_8 && CompressingUtils.testEncoding(zipReader, possibleEncoding)) {
+            if (sample == null) {
+                zipReader = new ZipArchiveReader(Files.newByteChannel(zipFile));
+                sample = cacheNameSample(key, identity, zipReader);
+            }
+
+            if (possibleEncoding != StandardCharsets.UTF_8 && testEncoding(sample.names, possibleEncoding)) {
                 suitableEncoding = possibleEncoding;
             } else {
-                suitableEncoding = CompressingUtils.findSuitableEncoding(zipReader);
-                if (suitableEncoding == StandardCharsets.UTF_8)
+                suitableEncoding = sample.getSuitableEncoding();
+                if (suitableEncoding == StandardCharsets.UTF_8 && zipReader != null)
                     return zipReader;
             }
         } catch (Throwable e) {
-            IOUtils.closeQuietly(zipReader, e);
+            if (zipReader != null)
+                IOUtils.closeQuietly(zipReader, e);
             throw e;
         }
 
-        zipReader.close();
+        if (zipReader != null)
+            zipReader.close();
         return new ZipArchiveReader(Files.newByteChannel(zipFile), suitableEncoding);
     }
 
@@ -299,4 +391,14 @@ public final class CompressingUtils {
             return Optional.empty();
         }
     }
+
+    /// @param names            the sampled names, see [#sampleNames(ZipArchiveReader)]
+    /// @param suitableEncoding the detected encoding of the names, or null if there is no suitable encoding
+    private record NameSample(FileIdentity identity, List<byte[]> names, @Nullable Charset suitableEncoding) {
+        Charset getSuitableEncoding() throws IOException {
+            if (suitableEncoding == null)
+                throw new IOException("Cannot find suitable encoding for the zip.");
+            return suitableEncoding;
+        }
+    }
 }
@@ -24,6 +24,7 @@ import org.jackhuang.hmcl.util.Pair;
 import org.jackhuang.hmcl.util.function.ExceptionalBiConsumer;
 import org.jackhuang.hmcl.util.function.ExceptionalSupplier;
 import org.jackhuang.hmcl.util.gson.JsonUtils;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -33,6 +34,7 @@ import java.net.URL;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
@@ -132,17 +134,61 @@ public abstract class HttpRequest {
     }
 
     public static class HttpGetRequest extends HttpRequest {
+        private @Nullable HttpResponseCache cache;
+        private HttpResponseCache.Policy cachePolicy;
+
         protected HttpGetRequest(String url) {
             super(url, "GET");
         }
 
+        /**
+         * Serves the response from {@code cache} according to {@code policy}.
+         *
+         * @param cache the cache, or {@code null} to disable caching
+         */
+        public HttpGetRequest cache(@Nullable HttpResponseCache cache, HttpResponseCache.Policy policy) {
+            this.cache = cache;
+            this.cachePolicy = Objects.requireNonNull(policy);
+            return this;
+        }
+
         public String getString() throws IOException {
-            return getStringWithRetry(() -> {
+            if (cache != null) {
+                return cache.get(this, cachePolicy);
+            }
+
+            return withRetry(() -> {
                 HttpURLConnection con = createConnection();
                 con = resolveConnection(con);
                 return IOUtils.readFullyAsString("gzip".equals(con.getContentEncoding()) ? IOUtils.wrapFromGZip(con.getInputStream()) : con.getInputStream());
             }, retryTimes);
         }
+
+        /**
+         * Sends the request, conditionally if {@code eTag} is not null.
+         */
+        HttpResponseCache.Response fetch(@Nullable String eTag) throws IOException {
+            return withRetry(() -> {
+                HttpURLConnection con = createConnection();
+                if (eTag != null) {
+                    con.setRequestProperty("If-None-Match", eTag);
+                }
+                con = resolveConnection(con);
+
+                int code = con.getResponseCode();
+                if (code == HttpURLConnection.HTTP_NOT_MODIFIED && eTag != null) {
+                    return new HttpResponseCache.Response(null, eTag, true);
+                }
+                if (code / 100 != 2) {
+                    throw new ResponseCodeException(url, code);
+                }
+
+                String body = IOUtils.readFullyAsString("gzip".equals(con.getContentEncoding()) ? IOUtils.wrapFromGZip(con.getInputStream()) : con.getInputStream());
+                String cacheControl = con.getHeaderField("Cache-Control");
+                return new HttpResponseCache.Response(body, con.getHeaderField("ETag"),
+                        cacheControl == null || !cacheControl.contains("no-store"));
+            }, retryTimes);
+        }
     }
 
     public static final class HttpPostRequest extends HttpRequest {
@@ -178,7 +224,7 @@ public abstract class HttpRequest {
         }
 
         public String getString() throws IOException {
-            return getStringWithRetry(() -> {
+            return withRetry(() -> {
                 HttpURLConnection con = createConnection();
                 con.setDoOutput(true);
 
@@ -216,7 +262,7 @@ public abstract class HttpRequest {
         return new HttpPostRequest(url);
     }
 
-    private static String getStringWithRetry(ExceptionalSupplier<String, IOException> supplier, int retryTimes) throws IOException {
+    private static <T> T withRetry(ExceptionalSupplier<T, IOException> supplier, int retryTimes) throws IOException {
         Throwable exception = null;
         for (int i = 0; i < retryTimes; i++) {
             try {
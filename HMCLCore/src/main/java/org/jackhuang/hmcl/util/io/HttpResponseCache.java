@@ -0,0 +1,324 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.util.io;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+import org.jackhuang.hmcl.task.Schedulers;
+import org.jackhuang.hmcl.util.CacheRepository;
+import org.jackhuang.hmcl.util.DigestUtils;
+import org.jackhuang.hmcl.util.gson.JsonUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.jackhuang.hmcl.util.logging.Logger.LOG;
+
+/**
+ * A bounded on-disk cache of the responses of HTTP GET requests.
+ * <p>
+ * Every response is stored in its own file named after the SHA-1 of its URL. Files are written to a temporary file
+ * and then moved into place, so launcher instances sharing the cache directory never read a partially written entry.
+ * A response is used without asking the server during {@link Policy#maxAge()}, then served while it is revalidated
+ * in the background during {@link Policy#staleWhileRevalidate()}, and revalidated before use after that.
+ * Revalidation sends {@code If-None-Match} if the server provided an {@code ETag}.
+ * If revalidation fails, the cached response is used anyway.
+ * <p>
+ * When the cache grows over its size limit, the least recently used entries are deleted.
+ */
+public final class HttpResponseCache {
+
+    /**
+     * @param maxAge               how long a response is used without asking the server
+     * @param staleWhileRevalidate how long after {@code maxAge} a response is still used while it is revalidated in the background
+     */
+    public record Policy(Duration maxAge, Duration staleWhileRevalidate) {
+        public Policy {
+            Objects.requireNonNull(maxAge);
+            Objects.requireNonNull(staleWhileRevalidate);
+        }
+    }
+
+    /**
+     * @param body      the body, or {@code null} if the server responded {@code 304 Not Modified}
+     * @param cacheable whether the server allows storing the response
+     */
+    record Response(@Nullable String body, @Nullable String eTag, boolean cacheable) {
+    }
+
+    private record Header(@SerializedName("url") String url,
+                          @SerializedName("eTag") @Nullable String eTag,
+                          @SerializedName("date") long date) {
+    }
+
+    private record Entry(Header header, String body) {
+    }
+
+    public static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    /// Temporary files older than this were left behind by crashed instances
+    private static final long TEMP_FILE_EXPIRATION = TimeUnit.HOURS.toMillis(1);
+
+    private static volatile HttpResponseCache defaultCache;
+
+    /**
+     * @return the cache in the cache directory of {@link CacheRepository}, or {@code null} if it has not been set up
+     */
+    public static @Nullable HttpResponseCache getDefault() {
+        Path cacheDirectory = CacheRepository.getInstance().getCacheDirectory();
+        if (cacheDirectory == null)
+            return null;
+
+        Path directory = cacheDirectory.resolve("responses");
+        HttpResponseCache cache = defaultCache;
+        if (cache == null || !cache.directory.equals(directory)) {
+            synchronized (HttpResponseCache.class) {
+                cache = defaultCache;
+                if (cache == null || !cache.directory.equals(directory)) {
+                    defaultCache = cache = new HttpResponseCache(directory, DEFAULT_MAX_SIZE);
+                }
+            }
+        }
+        return cache;
+    }
+
+    private final Path directory;
+    private final long maxSize;
+
+    /// The approximate total size of the entries, or -1 if unknown
+    private long size = -1;
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+    public HttpResponseCache(Path directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private Path getFile(String url) throws IOException {
+        String hash = DigestUtils.digestToString("SHA-1", url.getBytes(UTF_8));
+        return directory.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    String get(HttpRequest.HttpGetRequest request, Policy policy) throws IOException {
+        String url = request.getUrl();
+        Path file = getFile(url);
+        Entry entry = read(file, url);
+
+        if (entry != null) {
+            long age = System.currentTimeMillis() - entry.header().date();
+            long maxAge = policy.maxAge().toMillis();
+            if (age >= 0 && age < maxAge) {
+                touch(file);
+                return entry.body();
+            }
+
+            if (age >= 0 && age < maxAge + policy.staleWhileRevalidate().toMillis()) {
+                touch(file);
+                revalidateInBackground(request, file, entry);
+                return entry.body();
+            }
+        }
+
+        try {
+            return revalidate(request, file, entry);
+        } catch (IOException e) {
+            if (entry != null) {
+                LOG.warning("Failed to revalidate " + url + ", using the cached response", e);
+                return entry.body();
+            }
+            throw e;
+        }
+    }
+
+    private String revalidate(HttpRequest.HttpGetRequest request, Path file, @Nullable Entry entry) throws IOException {
+        Response response = request.fetch(entry != null ? entry.header().eTag() : null);
+        long now = System.currentTimeMillis();
+
+        if (response.body() == null) {
+            // Not modified
+            assert entry != null;
+            store(file, new Entry(new Header(entry.header().url(), entry.header().eTag(), now), entry.body()));
+            return entry.body();
+        }
+
+        if (response.cacheable()) {
+            store(file, new Entry(new Header(request.getUrl(), response.eTag(), now), response.body()));
+        } else if (entry != null) {
+            Files.deleteIfExists(file);
+        }
+        return response.body();
+    }
+
+    private void revalidateInBackground(HttpRequest.HttpGetRequest request, Path file, Entry entry) {
+        String url = request.getUrl();
+        if (!revalidating.add(url))
+            return;
+
+        Schedulers.io().execute(() -> {
+            try {
+                revalidate(request, file, entry);
+            } catch (IOException e) {
+                LOG.warning("Failed to revalidate " + url, e);
+            } finally {
+                revalidating.remove(url);
+            }
+        });
+    }
+
+    private static @Nullable Entry read(Path file, String url) {
+        String content;
+        try {
+            content = Files.readString(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOG.warning("Failed to read cached response " + file, e);
+            return null;
+        }
+
+        int headerEnd = content.indexOf('\n');
+        if (headerEnd < 0)
+            return null;
+
+        try {
+            Header header = JsonUtils.GSON.fromJson(content.substring(0, headerEnd), Header.class);
+            // Guard against hash collisions
+            if (header == null || !url.equals(header.url()))
+                return null;
+            return new Entry(header, content.substring(headerEnd + 1));
+        } catch (JsonParseException e) {
+            LOG.warning("Broken cached response " + file, e);
+            return null;
+        }
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void store(Path file, Entry entry) {
+        byte[] bytes = (JsonUtils.UGLY_GSON.toJson(entry.header()) + "\n" + entry.body()).getBytes(UTF_8);
+        if (bytes.length > maxSize / 8)
+            return;
+
+        try {
+            Files.createDirectories(file.getParent());
+            Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), TEMP_FILE_SUFFIX);
+            try {
+                Files.write(tempFile, bytes);
+                try {
+                    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            LOG.warning("Failed to cache the response of " + entry.header().url(), e);
+            return;
+        }
+
+        boolean needPrune;
+        synchronized (this) {
+            if (size >= 0)
+                size += bytes.length;
+            needPrune = size < 0 || size > maxSize;
+        }
+        if (needPrune)
+            prune();
+    }
+
+    private record CachedFile(Path path, long size, long lastModified) {
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache is well below its size limit.
+     * Other instances may delete or replace entries concurrently, so every step tolerates missing files.
+     */
+    synchronized void prune() {
+        List<CachedFile> files = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        try {
+            Files.createDirectories(directory);
+            Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    long lastModified = attrs.lastModifiedTime().toMillis();
+                    if (file.getFileName().toString().endsWith(TEMP_FILE_SUFFIX)) {
+                        if (now - lastModified > TEMP_FILE_EXPIRATION)
+                            Files.deleteIfExists(file);
+                    } else {
+                        files.add(new CachedFile(file, attrs.size(), lastModified));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            LOG.warning("Failed to list cached responses in " + directory, e);
+            return;
+        }
+
+        long total = 0;
+        for (CachedFile file : files) {
+            total += file.size();
+        }
+
+        if (total > maxSize) {
+            files.sort(Comparator.comparingLong(CachedFile::lastModified));
+            long target = maxSize / 4 * 3;
+            for (CachedFile file : files) {
+                if (total <= target)
+                    break;
+                try {
+                    Files.deleteIfExists(file.path());
+                } catch (IOException e) {
+                    LOG.warning("Failed to delete cached response " + file.path(), e);
+                }
+                total -= file.size();
+            }
+        }
+
+        size = total;
+    }
+}
@@ -19,22 +19,44 @@ package org.jackhuang.hmcl.util.io;
 
 import kala.compress.archivers.zip.ZipArchiveEntry;
 import kala.compress.archivers.zip.ZipArchiveReader;
+import org.jackhuang.hmcl.util.DigestUtils;
 import org.jackhuang.hmcl.util.StringUtils;
 import org.jackhuang.hmcl.util.platform.OperatingSystem;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.jackhuang.hmcl.util.Lang.threadPool;
 
 public final class Unzipper {
+    /// The number of files which {@link #setParallel(boolean)} writes concurrently
+    private static final int DEFAULT_PARALLELISM = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    private static final ThreadPoolExecutor POOL = threadPool("Unzipper", true, DEFAULT_PARALLELISM, 10, TimeUnit.SECONDS);
+
     private final Path zipFile, dest;
     private boolean replaceExistentFile = false;
     private boolean terminateIfSubDirectoryNotExists = false;
     private String subDirectory = "/";
     private EntryFilter filter;
+    private String digestAlgorithm;
+    private DigestConsumer digestConsumer;
     private Charset encoding = StandardCharsets.UTF_8;
+    private @Nullable Executor executor;
+    private int parallelism;
 
     /// Decompress the given zip file to a directory.
     ///
@@ -70,11 +92,34 @@ public final class Unzipper {
         return this;
     }
 
+    /// Will be called with the digest of every file in the zip file, including the files left uncompressed by the filter.
+    ///
+    /// The digest of an uncompressed file is computed while it is written, so every entry is only decompressed once.
+    public Unzipper setDigest(String algorithm, DigestConsumer consumer) {
+        this.digestAlgorithm = algorithm;
+        this.digestConsumer = consumer;
+        return this;
+    }
+
     public Unzipper setEncoding(Charset encoding) {
         this.encoding = encoding;
         return this;
     }
 
+    /// Will decompress and write files concurrently on a pool shared by all unzippers.
+    ///
+    /// Entries are still checked, filtered and reported to the digest consumer one at a time on the calling thread,
+    /// in the order they appear in the zip file, so the callbacks do not need to be thread-safe.
+    public Unzipper setParallel(boolean parallel) {
+        return parallel ? setExecutor(POOL, DEFAULT_PARALLELISM) : setExecutor(null, 0);
+    }
+
+    Unzipper setExecutor(@Nullable Executor executor, int parallelism) {
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
     public Unzipper setTerminateIfSubDirectoryNotExists() {
         this.terminateIfSubDirectoryNotExists = true;
         return this;
@@ -93,63 +138,81 @@ public final class Unzipper {
 
         long entryCount = 0L;
         try (ZipArchiveReader reader = CompressingUtils.openZipFileWithPossibleEncoding(zipFile, encoding)) {
-            String pathPrefix = StringUtils.addSuffix(subDirectory, "/");
+            Extraction extraction = new Extraction(destDir);
+            try {
+                String pathPrefix = StringUtils.addSuffix(subDirectory, "/");
 
-            for (ZipArchiveEntry entry : reader.getEntries()) {
-                String normalizedPath = FileUtils.normalizePath(entry.getName());
-                if (!normalizedPath.startsWith(pathPrefix)) {
-                    continue;
-                }
+                for (ZipArchiveEntry entry : reader.getEntries()) {
+                    String normalizedPath = FileUtils.normalizePath(entry.getName());
+                    if (!normalizedPath.startsWith(pathPrefix)) {
+                        continue;
+                    }
 
-                String relativePath = normalizedPath.substring(pathPrefix.length());
-                Path destFile = destDir.resolve(relativePath).toAbsolutePath().normalize();
-                if (!destFile.startsWith(destDir)) {
-                    throw new IOException("Zip entry is trying to write outside of the destination directory: " + entry.getName());
-                }
+                    String relativePath = normalizedPath.substring(pathPrefix.length());
+                    Path destFile = destDir.resolve(relativePath).toAbsolutePath().normalize();
+                    if (!destFile.startsWith(destDir)) {
+                        throw new IOException("Zip entry is trying to write outside of the destination directory: " + entry.getName());
+                    }
 
-                if (filter != null && !filter.accept(entry, destFile, relativePath)) {
-                    continue;
-                }
+                    // The filter may look at the file written by a previous entry with the same name
+                    if (extraction.pendingFiles.contains(destFile))
+                        extraction.finish(0);
 
-                entryCount++;
-
-                if (entry.isDirectory()) {
-                    Files.createDirectories(destFile);
-                } else {
-                    Files.createDirectories(destFile.getParent());
-                    if (entry.isUnixSymlink()) {
-                        String linkTarget = reader.getUnixSymlink(entry);
-                        if (replaceExistentFile)
-                            Files.deleteIfExists(destFile);
-
-                        Path targetPath;
-                        try {
-                            targetPath = Path.of(linkTarget);
-                        } catch (InvalidPathException e) {
-                            throw new IOException("Zip entry has an invalid symlink target: " + entry.getName(), e);
+                    if (filter != null && !filter.accept(entry, destFile, relativePath)) {
+                        if (digestConsumer != null && !entry.isDirectory()) {
+                            extraction.submit(entry, relativePath, destFile, () -> {
+                                try (InputStream input = reader.getInputStream(entry)) {
+                                    return DigestUtils.digestToString(digestAlgorithm, input);
+                                }
+                            });
                         }
+                        continue;
+                    }
 
-                        if (!destFile.getParent().resolve(targetPath).toAbsolutePath().normalize().startsWith(destDir)) {
-                            throw new IOException("Zip entry is trying to create a symlink outside of the destination directory: " + entry.getName());
-                        }
+                    entryCount++;
 
-                        try {
-                            Files.createSymbolicLink(destFile, targetPath);
-                        } catch (FileAlreadyExistsException ignored) {
-                        }
+                    if (entry.isDirectory()) {
+                        extraction.createDirectories(destFile);
                     } else {
-                        try (InputStream input = reader.getInputStream(entry)) {
-                            Files.copy(input, destFile, copyOptions);
-                        } catch (FileAlreadyExistsException e) {
+                        extraction.createDirectories(destFile.getParent());
+                        if (entry.isUnixSymlink()) {
+                            // Files in the directory which the link points to may be written concurrently
+                            extraction.finish(0);
+
+                            String linkTarget = reader.getUnixSymlink(entry);
                             if (replaceExistentFile)
-                                throw e;
-                        }
+                                Files.deleteIfExists(destFile);
+
+                            Path targetPath;
+                            try {
+                                targetPath = Path.of(linkTarget);
+                            } catch (InvalidPathException e) {
+                                throw new IOException("Zip entry has an invalid symlink target: " + entry.getName(), e);
+                            }
+
+                            if (!destFile.getParent().resolve(targetPath).toAbsolutePath().normalize().startsWith(destDir)) {
+                                throw new IOException("Zip entry is trying to create a symlink outside of the destination directory: " + entry.getName());
+                            }
 
-                        if (entry.getUnixMode() != 0 && OperatingSystem.CURRENT_OS != OperatingSystem.WINDOWS) {
-                            Files.setPosixFilePermissions(destFile, FileUtils.parsePosixFilePermission(entry.getUnixMode()));
+                            try {
+                                Files.createSymbolicLink(destFile, targetPath);
+                            } catch (FileAlreadyExistsException ignored) {
+                            }
+
+                            if (digestConsumer != null) {
+                                try (InputStream input = reader.getInputStream(entry)) {
+                                    digestConsumer.accept(entry, relativePath, DigestUtils.digestToString(digestAlgorithm, input));
+                                }
+                            }
+                        } else {
+                            extraction.submit(entry, relativePath, destFile, () -> extractFile(reader, entry, destFile, copyOptions));
                         }
                     }
                 }
+
+                extraction.finish(0);
+            } finally {
+                extraction.cancel();
             }
 
             if (entryCount == 0 && !"/".equals(subDirectory) && !terminateIfSubDirectoryNotExists) {
@@ -158,8 +221,115 @@ public final class Unzipper {
         }
     }
 
+    /// Writes the entry to the file and returns its digest, or `null` if no digest is needed.
+    private @Nullable String extractFile(ZipArchiveReader reader, ZipArchiveEntry entry, Path destFile, CopyOption[] copyOptions) throws IOException {
+        MessageDigest digest = digestConsumer != null ? DigestUtils.getDigest(digestAlgorithm) : null;
+        try (InputStream input = digest != null
+                ? new DigestInputStream(reader.getInputStream(entry), digest)
+                : reader.getInputStream(entry)) {
+            try {
+                Files.copy(input, destFile, copyOptions);
+            } catch (FileAlreadyExistsException e) {
+                if (replaceExistentFile)
+                    throw e;
+                // The entry is skipped, but its digest is still needed
+                if (digest != null)
+                    input.transferTo(OutputStream.nullOutputStream());
+            }
+        }
+
+        if (entry.getUnixMode() != 0 && OperatingSystem.CURRENT_OS != OperatingSystem.WINDOWS) {
+            Files.setPosixFilePermissions(destFile, FileUtils.parsePosixFilePermission(entry.getUnixMode()));
+        }
+
+        return digest != null ? HexFormat.of().formatHex(digest.digest()) : null;
+    }
+
+    @FunctionalInterface
+    private interface EntryAction {
+        @Nullable String run() throws IOException;
+    }
+
+    private record PendingEntry(ZipArchiveEntry entry, String relativePath, Path destFile,
+                                CompletableFuture<String> digest) {
+    }
+
+    /// The state of one call to {@link #unzip()}
+    private final class Extraction {
+        private final Set<Path> createdDirectories = new HashSet<>();
+        private final ArrayDeque<PendingEntry> pendingEntries = new ArrayDeque<>();
+        private final Set<Path> pendingFiles = new HashSet<>();
+
+        Extraction(Path destDir) {
+            createdDirectories.add(destDir);
+        }
+
+        /// Creates the directory and its parents, unless they have been created by this extraction
+        void createDirectories(Path dir) throws IOException {
+            if (createdDirectories.add(dir))
+                Files.createDirectories(dir);
+        }
+
+        /// Runs the action, concurrently if an executor is set, and reports its digest to the consumer in order
+        void submit(ZipArchiveEntry entry, String relativePath, Path destFile, EntryAction action) throws IOException {
+            CompletableFuture<String> digest;
+            if (executor == null) {
+                digest = CompletableFuture.completedFuture(action.run());
+            } else {
+                digest = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return action.run();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, executor);
+            }
+
+            pendingEntries.add(new PendingEntry(entry, relativePath, destFile, digest));
+            pendingFiles.add(destFile);
+            finish(executor == null ? 0 : parallelism * 2);
+        }
+
+        /// Waits for the earliest entries until at most `maxPending` entries are in flight
+        void finish(int maxPending) throws IOException {
+            while (pendingEntries.size() > maxPending) {
+                PendingEntry pending = pendingEntries.poll();
+                pendingFiles.remove(pending.destFile());
+
+                String digest;
+                try {
+                    digest = pending.digest().join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof UncheckedIOException uncheckedIOException)
+                        throw uncheckedIOException.getCause();
+                    throw e;
+                }
+
+                if (digest != null && digestConsumer != null)
+                    digestConsumer.accept(pending.entry(), pending.relativePath(), digest);
+            }
+        }
+
+        /// Waits for the entries in flight, so that the zip file is not closed while they are being read
+        void cancel() {
+            for (PendingEntry pending : pendingEntries) {
+                try {
+                    pending.digest().join();
+                } catch (Throwable ignored) {
+                }
+            }
+            pendingEntries.clear();
+            pendingFiles.clear();
+        }
+    }
+
     @FunctionalInterface
     public interface EntryFilter {
         boolean accept(ZipArchiveEntry zipArchiveEntry, Path destFile, String relativePath) throws IOException;
     }
+
+    @FunctionalInterface
+    public interface DigestConsumer {
+        void accept(ZipArchiveEntry zipArchiveEntry, String relativePath, String digest) throws IOException;
+    }
 }
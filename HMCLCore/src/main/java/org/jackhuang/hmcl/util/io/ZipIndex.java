@@ -0,0 +1,396 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.util.io;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.UnmodifiableView;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * A read-only view of a zip file, which only reads the end of central directory record and the central directory
+ * when it is opened, and reads the entries on demand.
+ * <p>
+ * It is much cheaper to open than a zip file system, so it should be used to find out whether a zip file contains
+ * some entries or to read a few small entries, for example to probe the metadata of many mods.
+ * <p>
+ * Entries may be read concurrently.
+ *
+ * @see ZipIndexPool
+ */
+public final class ZipIndex implements Closeable {
+
+    static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+    static final int CENTRAL_FILE_HEADER_SIGNATURE = 0x02014b50;
+    static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+    static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+
+    static final int LOCAL_FILE_HEADER_SIZE = 30;
+    private static final int CENTRAL_FILE_HEADER_SIZE = 46;
+    static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE = 56;
+    static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE = 20;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+    private static final int METHOD_STORED = 0;
+    static final int METHOD_DEFLATED = 8;
+
+    static final int FLAG_ENCRYPTED = 0x0001;
+    private static final int FLAG_UTF8 = 0x0800;
+
+    static final int ZIP64_EXTRA_ID = 0x0001;
+    static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    private final FileChannel channel;
+    private final Map<String, Entry> entries;
+
+    public ZipIndex(Path zipFile) throws IOException {
+        this(zipFile, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param charset the charset of the names of the entries which are not marked as UTF-8
+     */
+    public ZipIndex(Path zipFile, Charset charset) throws IOException {
+        this.channel = FileChannel.open(zipFile, StandardOpenOption.READ);
+        try {
+            this.entries = readCentralDirectory(channel, charset);
+        } catch (Throwable e) {
+            IOUtils.closeQuietly(channel, e);
+            throw e;
+        }
+    }
+
+    /**
+     * @param entries the entries which have been read from the central directory of the file, which must not be modified
+     */
+    ZipIndex(FileChannel channel, Map<String, Entry> entries) {
+        this.channel = channel;
+        this.entries = entries;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new EOFException("Unexpected end of zip file");
+        }
+        return buffer.flip();
+    }
+
+    /// Returns the position of the end of central directory record in the buffer, or -1 if it is not found
+    static int findEndOfCentralDirectory(ByteBuffer tail) {
+        for (int i = tail.limit() - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE
+                    && i + END_OF_CENTRAL_DIRECTORY_SIZE + Short.toUnsignedInt(tail.getShort(i + 20)) <= tail.limit())
+                return i;
+        }
+        return -1;
+    }
+
+    static Map<String, Entry> readCentralDirectory(FileChannel channel, Charset charset) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < END_OF_CENTRAL_DIRECTORY_SIZE)
+            throw new ZipException("Not a zip file");
+
+        // Most zip files have no comment, so try to avoid reading the largest possible comment
+        long tailPosition = fileSize - END_OF_CENTRAL_DIRECTORY_SIZE;
+        ByteBuffer tail = read(channel, tailPosition, END_OF_CENTRAL_DIRECTORY_SIZE);
+        int endIndex = findEndOfCentralDirectory(tail);
+        if (endIndex < 0) {
+            int tailSize = (int) Math.min(fileSize, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_LENGTH);
+            tailPosition = fileSize - tailSize;
+            tail = read(channel, tailPosition, tailSize);
+            endIndex = findEndOfCentralDirectory(tail);
+            if (endIndex < 0)
+                throw new ZipException("Not a zip file");
+        }
+
+        long endPosition = tailPosition + endIndex;
+        long centralDirectorySize = Integer.toUnsignedLong(tail.getInt(endIndex + 12));
+        long centralDirectoryOffset = Integer.toUnsignedLong(tail.getInt(endIndex + 16));
+
+        if (endPosition >= ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE) {
+            ByteBuffer locator = read(channel, endPosition - ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE, ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE);
+            if (locator.getInt(0) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE) {
+                long zip64EndPosition = locator.getLong(8);
+                if (zip64EndPosition < 0 || zip64EndPosition + ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE > endPosition)
+                    throw new ZipException("Invalid Zip64 end of central directory locator");
+
+                ByteBuffer zip64End = read(channel, zip64EndPosition, ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE);
+                if (zip64End.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE)
+                    throw new ZipException("Invalid Zip64 end of central directory record");
+
+                endPosition = zip64EndPosition;
+                centralDirectorySize = zip64End.getLong(40);
+                centralDirectoryOffset = zip64End.getLong(48);
+            }
+        }
+
+        // Data may be prepended to the zip file, in which case all offsets are relative to the start of the zip file
+        long centralDirectoryPosition = endPosition - centralDirectorySize;
+        long base = centralDirectoryPosition - centralDirectoryOffset;
+        if (centralDirectorySize < 0 || centralDirectoryPosition < 0 || base < 0)
+            throw new ZipException("Invalid central directory");
+        if (centralDirectorySize > Integer.MAX_VALUE - 8)
+            throw new ZipException("Central directory is too large");
+
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        for (Entry entry : parseCentralDirectory(read(channel, centralDirectoryPosition, (int) centralDirectorySize), charset, base, centralDirectoryOffset)) {
+            entries.putIfAbsent(entry.name(), entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Parses the central directory headers.
+     *
+     * @param base                   the position of the start of the zip file
+     * @param centralDirectoryOffset the offset of the central directory relative to the start of the zip file
+     * @return the entries in the order of the central directory, including the entries with duplicate names
+     */
+    static List<Entry> parseCentralDirectory(ByteBuffer centralDirectory, Charset charset, long base, long centralDirectoryOffset) throws ZipException {
+        List<Entry> entries = new ArrayList<>();
+        int position = 0;
+        while (position < centralDirectory.limit()) {
+            if (position + CENTRAL_FILE_HEADER_SIZE > centralDirectory.limit()
+                    || centralDirectory.getInt(position) != CENTRAL_FILE_HEADER_SIGNATURE)
+                throw new ZipException("Invalid central directory header");
+
+            int flags = Short.toUnsignedInt(centralDirectory.getShort(position + 8));
+            int method = Short.toUnsignedInt(centralDirectory.getShort(position + 10));
+            long crc = Integer.toUnsignedLong(centralDirectory.getInt(position + 16));
+            long compressedSize = Integer.toUnsignedLong(centralDirectory.getInt(position + 20));
+            long size = Integer.toUnsignedLong(centralDirectory.getInt(position + 24));
+            int nameLength = Short.toUnsignedInt(centralDirectory.getShort(position + 28));
+            int extraLength = Short.toUnsignedInt(centralDirectory.getShort(position + 30));
+            int commentLength = Short.toUnsignedInt(centralDirectory.getShort(position + 32));
+            long localHeaderOffset = Integer.toUnsignedLong(centralDirectory.getInt(position + 42));
+
+            int namePosition = position + CENTRAL_FILE_HEADER_SIZE;
+            int extraPosition = namePosition + nameLength;
+            int next = extraPosition + extraLength + commentLength;
+            if (next > centralDirectory.limit())
+                throw new ZipException("Invalid central directory header");
+
+            String name = new String(centralDirectory.array(), namePosition, nameLength,
+                    (flags & FLAG_UTF8) != 0 ? StandardCharsets.UTF_8 : charset);
+
+            // Sizes and offsets which do not fit in 32 bits are stored in the Zip64 extra field, in this order
+            if (size == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC || localHeaderOffset == ZIP64_MAGIC) {
+                int extraEnd = extraPosition + extraLength;
+                while (extraPosition + 4 <= extraEnd) {
+                    int id = Short.toUnsignedInt(centralDirectory.getShort(extraPosition));
+                    int length = Short.toUnsignedInt(centralDirectory.getShort(extraPosition + 2));
+                    int dataPosition = extraPosition + 4;
+                    int dataEnd = dataPosition + length;
+                    if (dataEnd > extraEnd)
+                        throw new ZipException("Invalid extra field of entry " + name);
+
+                    if (id == ZIP64_EXTRA_ID) {
+                        if (size == ZIP64_MAGIC && dataPosition + 8 <= dataEnd) {
+                            size = centralDirectory.getLong(dataPosition);
+                            dataPosition += 8;
+                        }
+                        if (compressedSize == ZIP64_MAGIC && dataPosition + 8 <= dataEnd) {
+                            compressedSize = centralDirectory.getLong(dataPosition);
+                            dataPosition += 8;
+                        }
+                        if (localHeaderOffset == ZIP64_MAGIC && dataPosition + 8 <= dataEnd) {
+                            localHeaderOffset = centralDirectory.getLong(dataPosition);
+                        }
+                        break;
+                    }
+                    extraPosition = dataEnd;
+                }
+            }
+
+            if (size < 0 || compressedSize < 0 || localHeaderOffset < 0
+                    || localHeaderOffset + LOCAL_FILE_HEADER_SIZE > centralDirectoryOffset)
+                throw new ZipException("Invalid central directory header of entry " + name);
+
+            entries.add(new Entry(name, method, flags, crc, compressedSize, size, base + localHeaderOffset));
+            position = next;
+        }
+
+        return entries;
+    }
+
+    private static String normalize(String name) {
+        return name.startsWith("/") ? name.substring(1) : name;
+    }
+
+    public @NotNull @UnmodifiableView Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    /// Returns the entry with the name, such as `META-INF/mods.toml`. The names of directories end with `/`.
+    public @Nullable Entry getEntry(@NotNull String name) {
+        return entries.get(normalize(name));
+    }
+
+    public boolean contains(@NotNull String name) {
+        return entries.containsKey(normalize(name));
+    }
+
+    public @NotNull InputStream getInputStream(@NotNull Entry entry) throws IOException {
+        if ((entry.flags() & FLAG_ENCRYPTED) != 0)
+            throw new ZipException("Entry " + entry.name() + " is encrypted");
+
+        ByteBuffer header = read(channel, entry.localHeaderOffset(), LOCAL_FILE_HEADER_SIZE);
+        if (header.getInt(0) != LOCAL_FILE_HEADER_SIGNATURE)
+            throw new ZipException("Invalid local file header of entry " + entry.name());
+
+        long dataPosition = entry.localHeaderOffset() + LOCAL_FILE_HEADER_SIZE
+                + Short.toUnsignedInt(header.getShort(26)) + Short.toUnsignedInt(header.getShort(28));
+        if (dataPosition + entry.compressedSize() > channel.size())
+            throw new ZipException("Entry " + entry.name() + " is truncated");
+
+        InputStream input = new EntryInputStream(channel, dataPosition, entry.compressedSize());
+        return switch (entry.method()) {
+            case METHOD_STORED -> input;
+            case METHOD_DEFLATED -> new EntryInflaterInputStream(input, entry.size());
+            default -> throw new ZipException("Unsupported compression method " + entry.method() + " of entry " + entry.name());
+        };
+    }
+
+    public @NotNull InputStream getInputStream(@NotNull String name) throws IOException {
+        Entry entry = getEntry(name);
+        if (entry == null)
+            throw new FileNotFoundException("Entry not found: " + name);
+        return getInputStream(entry);
+    }
+
+    public byte[] readBinaryEntry(@NotNull String name) throws IOException {
+        try (InputStream input = getInputStream(name)) {
+            return input.readAllBytes();
+        }
+    }
+
+    public String readTextEntry(@NotNull String name) throws IOException {
+        return new String(readBinaryEntry(name), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @param localHeaderOffset the position of the local file header in the file
+     */
+    public record Entry(String name, int method, int flags, long crc, long compressedSize, long size,
+                        long localHeaderOffset) {
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+    }
+
+    /// Reads a range of the file with positional reads, so that entries can be read concurrently
+    private static final class EntryInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private long remaining;
+
+        EntryInputStream(FileChannel channel, long position, long size) {
+            this.channel = channel;
+            this.position = position;
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] buffer = new byte[1];
+            return read(buffer, 0, 1) < 0 ? -1 : Byte.toUnsignedInt(buffer[0]);
+        }
+
+        @Override
+        public int read(byte @NotNull [] b, int off, int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+            if (remaining <= 0)
+                return -1;
+            if (len == 0)
+                return 0;
+
+            int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), position);
+            if (read < 0)
+                throw new EOFException("Unexpected end of zip file");
+            position += read;
+            remaining -= read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, remaining));
+            position += skipped;
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(remaining, Integer.MAX_VALUE);
+        }
+    }
+
+    private static final class EntryInflaterInputStream extends InflaterInputStream {
+        private boolean eof = false;
+
+        EntryInflaterInputStream(InputStream input, long size) {
+            super(input, new Inflater(true), (int) Math.max(512, Math.min(size, 8192)));
+        }
+
+        @Override
+        protected void fill() throws IOException {
+            if (eof)
+                throw new EOFException("Unexpected end of ZLIB input stream");
+
+            len = in.read(buf, 0, buf.length);
+            if (len < 0) {
+                // The inflater may need an extra byte when the raw deflate data does not end at a block boundary
+                buf[0] = 0;
+                len = 1;
+                eof = true;
+            }
+            inf.setInput(buf, 0, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                inf.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.util.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the central directories of the zip files which are opened repeatedly, such as mods, resource packs and data packs,
+ * so that opening them again does not read and parse the central directory.
+ * <p>
+ * Only the parsed directories are cached. Each {@link ZipIndex} opened from the pool has its own file handle,
+ * which is closed with it, so the pool never keeps files open, which would prevent them from being renamed or
+ * deleted on Windows. A cached directory is only used while the size, the last modified time and the file key
+ * of the file are the same as when it was read.
+ * <p>
+ * Thread-safe
+ */
+public final class ZipIndexPool {
+
+    private static final ZipIndexPool DEFAULT = new ZipIndexPool(1024, 500_000);
+
+    public static ZipIndexPool getDefault() {
+        return DEFAULT;
+    }
+
+    private final int maxArchives;
+    private final long maxEntries;
+    private final LinkedHashMap<Path, Directory> directories = new LinkedHashMap<>(16, 0.75f, true);
+    private long entryCount = 0;
+
+    /**
+     * @param maxArchives the maximum number of cached directories
+     * @param maxEntries  the maximum total number of entries in the cached directories
+     */
+    public ZipIndexPool(int maxArchives, long maxEntries) {
+        this.maxArchives = maxArchives;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Opens the zip file, reusing its cached directory if the file has not changed.
+     * The names of the entries which are not marked as UTF-8 are decoded as UTF-8.
+     */
+    public ZipIndex open(Path zipFile) throws IOException {
+        Path key = zipFile.toAbsolutePath().normalize();
+        FileChannel channel = FileChannel.open(key, StandardOpenOption.READ);
+        try {
+            FileIdentity identity = FileIdentity.of(key);
+
+            Map<String, ZipIndex.Entry> entries = null;
+            synchronized (this) {
+                Directory directory = directories.get(key);
+                if (directory != null) {
+                    if (directory.identity.equals(identity))
+                        entries = directory.entries;
+                    else
+                        remove(key);
+                }
+            }
+
+            if (entries == null) {
+                entries = ZipIndex.readCentralDirectory(channel, StandardCharsets.UTF_8);
+                put(key, new Directory(identity, entries));
+            }
+            return new ZipIndex(channel, entries);
+        } catch (Throwable e) {
+            IOUtils.closeQuietly(channel, e);
+            throw e;
+        }
+    }
+
+    private synchronized void put(Path key, Directory directory) {
+        if (directory.entries.size() > maxEntries)
+            return;
+
+        Directory old = directories.put(key, directory);
+        if (old != null)
+            entryCount -= old.entries.size();
+        entryCount += directory.entries.size();
+
+        Iterator<Directory> iterator = directories.values().iterator();
+        while (iterator.hasNext() && (directories.size() > maxArchives || entryCount > maxEntries)) {
+            entryCount -= iterator.next().entries.size();
+            iterator.remove();
+        }
+    }
+
+    private synchronized void remove(Path key) {
+        Directory directory = directories.remove(key);
+        if (directory != null)
+            entryCount -= directory.entries.size();
+    }
+
+    /// Discards the cached directory of the file, for example after it has been modified in a way which may keep its size and last modified time
+    public void invalidate(Path zipFile) {
+        remove(zipFile.toAbsolutePath().normalize());
+    }
+
+    public synchronized void clear() {
+        directories.clear();
+        entryCount = 0;
+    }
+
+    synchronized int size() {
+        return directories.size();
+    }
+
+    private record Directory(FileIdentity identity, Map<String, ZipIndex.Entry> entries) {
+    }
+}
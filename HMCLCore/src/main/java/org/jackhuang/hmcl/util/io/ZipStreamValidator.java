@@ -0,0 +1,319 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.util.io;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import static org.jackhuang.hmcl.util.io.ZipIndex.*;
+
+/**
+ * Checks the structure of a zip file while it is being downloaded, so that a corrupted zip file is detected
+ * without reading it again.
+ * <p>
+ * The local file headers are followed one after another, and the entries whose sizes are only known after their data
+ * are inflated to find their ends. The central directory is buffered, and checked against the local file headers
+ * when all data has been received.
+ * <p>
+ * Zip files which can not be checked this way, for example the ones with data prepended or put before the central directory,
+ * are reported as unchecked by {@link #finish()}, and should be checked with {@link ZipIndex} instead.
+ */
+public final class ZipStreamValidator {
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+    private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+    private static final int MAX_CENTRAL_DIRECTORY_SIZE = 64 * 1024 * 1024;
+
+    private enum State {
+        SIGNATURE, LOCAL_FILE_HEADER, NAME_AND_EXTRA, DATA, INFLATING,
+        DATA_DESCRIPTOR_SIGNATURE, DATA_DESCRIPTOR, CENTRAL_DIRECTORY, UNCHECKED
+    }
+
+    private State state = State.SIGNATURE;
+    /// The number of bytes received
+    private long position = 0;
+
+    /// Buffers the structure which is being read
+    private byte[] buffer = new byte[LOCAL_FILE_HEADER_SIZE];
+    private int buffered = 0;
+    private int needed = 4;
+
+    // The current entry
+    private int flags;
+    private int method;
+    private int nameLength;
+    private long compressedSize;
+    private long remaining;
+    private boolean zip64;
+    private Inflater inflater;
+    private byte[] inflated;
+
+    /// The offsets and compressed sizes of the local file headers, in the order of the offsets
+    private long[] localHeaderOffsets = new long[16];
+    private long[] compressedSizes = new long[16];
+    private int entryCount = 0;
+
+    private long centralDirectoryOffset;
+    private ByteArrayOutputStream centralDirectory;
+
+    public void update(byte[] b, int off, int len) throws ZipException {
+        while (len > 0 && state != State.UNCHECKED) {
+            int n;
+            switch (state) {
+                case DATA -> {
+                    n = (int) Math.min(len, remaining);
+                    position += n;
+                    remaining -= n;
+                    if (remaining == 0)
+                        endEntry();
+                }
+                case INFLATING -> {
+                    n = inflate(b, off, len);
+                    position += n;
+                }
+                case CENTRAL_DIRECTORY -> {
+                    n = len;
+                    position += n;
+                    if (centralDirectory.size() + n > MAX_CENTRAL_DIRECTORY_SIZE)
+                        setUnchecked();
+                    else
+                        centralDirectory.write(b, off, n);
+                }
+                default -> {
+                    n = Math.min(len, needed - buffered);
+                    System.arraycopy(b, off, buffer, buffered, n);
+                    buffered += n;
+                    position += n;
+                    if (buffered == needed)
+                        readStructure();
+                }
+            }
+            off += n;
+            len -= n;
+        }
+    }
+
+    private void need(State state, int size) {
+        this.state = state;
+        this.needed = size;
+        this.buffered = 0;
+        if (buffer.length < size)
+            buffer = new byte[size];
+    }
+
+    private void setUnchecked() {
+        state = State.UNCHECKED;
+        buffer = null;
+        centralDirectory = null;
+        if (inflater != null)
+            inflater.end();
+    }
+
+    private void readStructure() throws ZipException {
+        ByteBuffer structure = ByteBuffer.wrap(buffer, 0, needed).order(ByteOrder.LITTLE_ENDIAN);
+        switch (state) {
+            case SIGNATURE -> {
+                long offset = position - 4;
+                int signature = structure.getInt(0);
+                if (signature == LOCAL_FILE_HEADER_SIGNATURE) {
+                    addLocalFileHeader(offset);
+                    need(State.LOCAL_FILE_HEADER, LOCAL_FILE_HEADER_SIZE - 4);
+                } else if (signature == CENTRAL_FILE_HEADER_SIGNATURE
+                        || signature == ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE
+                        || signature == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                    state = State.CENTRAL_DIRECTORY;
+                    centralDirectoryOffset = offset;
+                    centralDirectory = new ByteArrayOutputStream();
+                    centralDirectory.write(buffer, 0, 4);
+                } else {
+                    // Maybe data is prepended to the zip file, or put between the entries and the central directory,
+                    // such as an APK signing block or an archive extra data record, so leave it to ZipIndex
+                    setUnchecked();
+                }
+            }
+            case LOCAL_FILE_HEADER -> {
+                // The offsets are relative to the end of the signature
+                flags = Short.toUnsignedInt(structure.getShort(2));
+                method = Short.toUnsignedInt(structure.getShort(4));
+                compressedSize = Integer.toUnsignedLong(structure.getInt(14));
+                int nameLength = Short.toUnsignedInt(structure.getShort(22));
+                int extraLength = Short.toUnsignedInt(structure.getShort(24));
+                this.nameLength = nameLength;
+                need(State.NAME_AND_EXTRA, nameLength + extraLength);
+                if (needed == 0)
+                    readStructure();
+            }
+            case NAME_AND_EXTRA -> {
+                zip64 = false;
+                int extraPosition = nameLength;
+                while (extraPosition + 4 <= needed) {
+                    int id = Short.toUnsignedInt(structure.getShort(extraPosition));
+                    int length = Short.toUnsignedInt(structure.getShort(extraPosition + 2));
+                    if (extraPosition + 4 + length > needed)
+                        break;
+                    if (id == ZIP64_EXTRA_ID) {
+                        zip64 = true;
+                        if (compressedSize == ZIP64_MAGIC && length >= 16)
+                            compressedSize = structure.getLong(extraPosition + 12);
+                        break;
+                    }
+                    extraPosition += 4 + length;
+                }
+
+                if ((flags & FLAG_DATA_DESCRIPTOR) != 0) {
+                    if (method != METHOD_DEFLATED || (flags & FLAG_ENCRYPTED) != 0) {
+                        // The end of the data can not be found without decompressing it
+                        setUnchecked();
+                        return;
+                    }
+
+                    if (inflater == null) {
+                        inflater = new Inflater(true);
+                        inflated = new byte[8192];
+                    } else {
+                        inflater.reset();
+                    }
+                    state = State.INFLATING;
+                } else if (compressedSize == ZIP64_MAGIC) {
+                    setUnchecked();
+                } else {
+                    state = State.DATA;
+                    remaining = compressedSize;
+                    if (remaining == 0)
+                        endEntry();
+                }
+            }
+            case DATA_DESCRIPTOR_SIGNATURE -> {
+                int descriptorSize = zip64 ? 20 : 12;
+                if (structure.getInt(0) == DATA_DESCRIPTOR_SIGNATURE) {
+                    need(State.DATA_DESCRIPTOR, descriptorSize);
+                } else {
+                    // The signature is optional, so these bytes are the CRC-32
+                    need(State.DATA_DESCRIPTOR, descriptorSize);
+                    buffered = 4;
+                }
+            }
+            case DATA_DESCRIPTOR -> {
+                long size = zip64 ? structure.getLong(4) : Integer.toUnsignedLong(structure.getInt(4));
+                if (size != (zip64 ? compressedSize : (compressedSize & ZIP64_MAGIC)))
+                    throw new ZipException("Invalid data descriptor of entry at " + localHeaderOffsets[entryCount - 1]);
+                endEntry();
+            }
+            default -> throw new AssertionError(state);
+        }
+    }
+
+    private int inflate(byte[] b, int off, int len) throws ZipException {
+        inflater.setInput(b, off, len);
+        try {
+            while (!inflater.finished()) {
+                if (inflater.inflate(inflated) == 0) {
+                    if (inflater.needsDictionary()) {
+                        setUnchecked();
+                        return len;
+                    }
+                    if (inflater.needsInput())
+                        return len;
+                }
+            }
+        } catch (DataFormatException e) {
+            ZipException exception = new ZipException("Invalid compressed data of entry at " + localHeaderOffsets[entryCount - 1]);
+            exception.initCause(e);
+            throw exception;
+        }
+
+        compressedSize = inflater.getBytesRead();
+        zip64 |= compressedSize >= ZIP64_MAGIC || inflater.getBytesWritten() >= ZIP64_MAGIC;
+        need(State.DATA_DESCRIPTOR_SIGNATURE, 4);
+        return len - inflater.getRemaining();
+    }
+
+    private void addLocalFileHeader(long offset) {
+        if (entryCount == localHeaderOffsets.length) {
+            localHeaderOffsets = Arrays.copyOf(localHeaderOffsets, entryCount * 2);
+            compressedSizes = Arrays.copyOf(compressedSizes, entryCount * 2);
+        }
+        localHeaderOffsets[entryCount++] = offset;
+    }
+
+    private void endEntry() {
+        compressedSizes[entryCount - 1] = compressedSize;
+        need(State.SIGNATURE, 4);
+    }
+
+    /**
+     * Checks the central directory after all data has been received.
+     *
+     * @return true if the zip file has been checked, false if it must be checked with {@link ZipIndex}
+     * @throws ZipException if the zip file is corrupted
+     */
+    public boolean finish() throws ZipException {
+        if (state == State.UNCHECKED)
+            return false;
+        if (state != State.CENTRAL_DIRECTORY)
+            throw new ZipException("Unexpected end of zip file");
+        if (inflater != null)
+            inflater.end();
+
+        ByteBuffer tail = ByteBuffer.wrap(centralDirectory.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        int endIndex = findEndOfCentralDirectory(tail);
+        if (endIndex < 0)
+            throw new ZipException("Missing end of central directory record");
+
+        int endPosition = endIndex;
+        long centralDirectorySize = Integer.toUnsignedLong(tail.getInt(endIndex + 12));
+        long offset = Integer.toUnsignedLong(tail.getInt(endIndex + 16));
+        if (endIndex >= ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE
+                && tail.getInt(endIndex - ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE) {
+            long zip64EndPosition = tail.getLong(endIndex - ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE + 8) - centralDirectoryOffset;
+            if (zip64EndPosition < 0 || zip64EndPosition + ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE > endIndex
+                    || tail.getInt((int) zip64EndPosition) != ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE)
+                throw new ZipException("Invalid Zip64 end of central directory record");
+
+            endPosition = (int) zip64EndPosition;
+            centralDirectorySize = tail.getLong(endPosition + 40);
+            offset = tail.getLong(endPosition + 48);
+        }
+
+        if (offset != centralDirectoryOffset || centralDirectorySize != endPosition)
+            throw new ZipException("Invalid central directory");
+
+        List<Entry> entries = parseCentralDirectory(
+                ByteBuffer.wrap(Arrays.copyOf(tail.array(), endPosition)).order(ByteOrder.LITTLE_ENDIAN),
+                StandardCharsets.UTF_8, 0, centralDirectoryOffset);
+        if (entries.size() != entryCount)
+            throw new ZipException("The central directory has " + entries.size() + " entries, but " + entryCount + " entries are found");
+
+        boolean[] found = new boolean[entryCount];
+        for (Entry entry : entries) {
+            int index = Arrays.binarySearch(localHeaderOffsets, 0, entryCount, entry.localHeaderOffset());
+            if (index < 0 || found[index])
+                throw new ZipException("Invalid local file header offset of entry " + entry.name());
+            if (compressedSizes[index] != entry.compressedSize())
+                throw new ZipException("Invalid compressed size of entry " + entry.name());
+            found[index] = true;
+        }
+        return true;
+    }
+}
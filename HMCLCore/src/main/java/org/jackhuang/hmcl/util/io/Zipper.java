@@ -18,38 +18,198 @@
 package org.jackhuang.hmcl.util.io;
 
 import org.jackhuang.hmcl.util.function.ExceptionalPredicate;
+import org.jackhuang.hmcl.util.function.ExceptionalSupplier;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.util.HashSet;
-import java.util.Set;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Stream;
-import java.util.zip.ZipEntry;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipException;
-import java.util.zip.ZipOutputStream;
+
+import static java.nio.file.StandardOpenOption.*;
+import static org.jackhuang.hmcl.util.Lang.threadPool;
 
 /**
+ * Writes a zip file.
+ * <p>
+ * The compression of each entry is chosen from its content unless {@linkplain #setAdaptiveCompression(boolean) disabled}:
+ * entries which are already compressed, such as jars, images and sounds, are stored, and entries which compress poorly
+ * are deflated with the fastest level, since deflating them costs a lot of time to save little space.
+ * Entries without a source file, such as text files and streams, are first compressed into a temporary chunk,
+ * which is kept in memory while it is small and spilled to a temporary file otherwise,
+ * so memory usage does not depend on the size of the entries.
+ * <p>
+ * If an executor is given, entries are compressed concurrently on it and written to the zip file in the order
+ * they were put. The output only depends on the entries and their order, not on whether they were compressed concurrently.
+ * Entries without a source file have a fixed time, so putting the same entries again produces the same zip file.
+ * <p>
  * Non thread-safe
  *
  * @author huangyuhui
  */
 public final class Zipper implements Closeable {
 
-    private final ZipOutputStream zos;
+    private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_FILE_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+
+    private static final int FLAG_UTF8 = 0x0800;
+
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final int EXTENDED_TIMESTAMP_EXTRA_ID = 0x5455;
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    /// The time of entries which have no source file, so that the zip file is reproducible.
+    /// It is written as the earliest DOS time, 1980-01-01 00:00, without an extended timestamp.
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final int DOS_EPOCH = (1 << 21) | (1 << 16);
+
+    /// Entries at least this large use Zip64 in their local header, leaving room for the worst case expansion of deflate
+    private static final long ZIP64_THRESHOLD = 0xF0000000L;
+
+    /// Compressed chunks larger than this are spilled to a temporary file
+    private static final int CHUNK_MEMORY_LIMIT = 1024 * 1024;
+
+    /// The compression of an entry larger than this is chosen by deflating this many bytes from its beginning.
+    /// Smaller entries are deflated as a whole, and stored if that does not save enough space.
+    private static final int SAMPLE_SIZE = 64 * 1024;
+    /// Entries are stored if deflating them saves less than this ratio of their size
+    private static final double MIN_SAVING = 0.05;
+    /// Entries are deflated with the fastest level if deflating their sample saves less than this ratio of its size
+    private static final double MIN_SAVING_FOR_DEFAULT_LEVEL = 0.2;
+    /// The compression level which means that the entry is stored
+    private static final int LEVEL_STORED = -2;
+
+    /// Entries with these extensions are already compressed, so they are stored without sampling
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "jar", "zip", "litemod", "mrpack", "gz", "xz", "bz2", "7z", "rar", "zst", "lz4",
+            "png", "jpg", "jpeg", "gif", "webp", "ogg", "mp3", "flac", "mp4", "webm"
+    );
+
+    /// The number of entries which {@link #parallel(Path)} compresses concurrently
+    private static final int DEFAULT_PARALLELISM = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    private static final ThreadPoolExecutor POOL = threadPool("Zipper", true, DEFAULT_PARALLELISM, 10, TimeUnit.SECONDS);
+
+    private final FileChannel channel;
+    private final CountingOutputStream output;
     private final byte[] buffer = new byte[IOUtils.DEFAULT_BUFFER_SIZE];
-    private final Set<String> entryNames;
+    private final Set<String> entryNames = new HashSet<>();
+    private final boolean allowDuplicateEntry;
+    private final List<CentralDirectoryEntry> centralDirectory = new ArrayList<>();
+
+    private final @Nullable Executor executor;
+    private final int maxPendingEntries;
+    private final ArrayDeque<PendingEntry> pendingEntries = new ArrayDeque<>();
+
+    private boolean adaptiveCompression = true;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private boolean closed = false;
+    /// Set if the zipper is closed after a failure, so that entries which have not started compressing are skipped
+    private volatile boolean aborted = false;
 
     public Zipper(Path zipFile) throws IOException {
         this(zipFile, false);
     }
 
     public Zipper(Path zipFile, boolean allowDuplicateEntry) throws IOException {
-        this.zos = new ZipOutputStream(Files.newOutputStream(zipFile), StandardCharsets.UTF_8);
-        this.entryNames = allowDuplicateEntry ? new HashSet<>() : null;
+        this(zipFile, allowDuplicateEntry, null, 0);
+    }
+
+    /**
+     * @param executor    the executor to compress entries on, or {@code null} to compress them on the calling thread
+     * @param parallelism the number of entries which may be compressed concurrently
+     */
+    public Zipper(Path zipFile, boolean allowDuplicateEntry, @Nullable Executor executor, int parallelism) throws IOException {
+        this.channel = FileChannel.open(zipFile, WRITE, CREATE, TRUNCATE_EXISTING);
+        this.output = new CountingOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+        this.allowDuplicateEntry = allowDuplicateEntry;
+        this.executor = executor;
+        this.maxPendingEntries = Math.max(1, parallelism) * 2;
+    }
+
+    /**
+     * Creates a zipper which compresses entries concurrently on a pool shared by all such zippers.
+     * <p>
+     * The output is the same as the one of {@link #Zipper(Path)}. This is worthwhile for many files,
+     * such as worlds and modpacks, but not for a single large file, which is compressed into a temporary chunk first.
+     */
+    public static Zipper parallel(Path zipFile) throws IOException {
+        return new Zipper(zipFile, false, POOL, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Sets whether the compression of each entry is chosen from its content, which is enabled by default.
+     * If disabled, all entries are deflated with the {@linkplain #setCompressionLevel(int) compression level}.
+     */
+    public Zipper setAdaptiveCompression(boolean adaptiveCompression) {
+        this.adaptiveCompression = adaptiveCompression;
+        return this;
+    }
+
+    /**
+     * Sets the level to deflate the entries which compress well with, which is {@link Deflater#DEFAULT_COMPRESSION} by default.
+     * {@link Deflater#BEST_SPEED} makes compressing several times faster, usually for a slightly larger zip file.
+     */
+    public Zipper setCompressionLevel(int level) {
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION)
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        this.compressionLevel = level;
+        return this;
+    }
+
+    private Compression getCompression(String name) {
+        if (!adaptiveCompression)
+            return Compression.DEFLATED;
+
+        int index = name.lastIndexOf('.');
+        if (index > name.lastIndexOf('/') && COMPRESSED_EXTENSIONS.contains(name.substring(index + 1).toLowerCase(Locale.ROOT)))
+            return Compression.STORED;
+        return Compression.ADAPTIVE;
+    }
+
+    /// Returns the level to deflate an entry with, or {@link #LEVEL_STORED} to store it, judged by a sample of its beginning
+    private static int chooseLevel(byte[] sample, int length, int level) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(sample, 0, length);
+            deflater.finish();
+            byte[] output = new byte[IOUtils.DEFAULT_BUFFER_SIZE];
+            while (!deflater.finished()) {
+                deflater.deflate(output);
+            }
+
+            double saving = 1 - (double) deflater.getBytesWritten() / length;
+            if (saving < MIN_SAVING)
+                return LEVEL_STORED;
+            else if (saving < MIN_SAVING_FOR_DEFAULT_LEVEL)
+                return Deflater.BEST_SPEED;
+            else
+                return level;
+        } finally {
+            deflater.end();
+        }
     }
 
     private static String normalize(String path) {
@@ -61,14 +221,16 @@ public final class Zipper implements Closeable {
         return path;
     }
 
-    private ZipEntry newEntry(String name) throws IOException {
-        if (entryNames == null || name.endsWith("/") || entryNames.add(name))
-            return new ZipEntry(name);
+    private String newEntryName(String name) throws IOException {
+        if (name.endsWith("/") || entryNames.add(name))
+            return name;
 
-        for (int i = 1; i < 10; i++) {
-            String newName = name + "." + i;
-            if (entryNames.add(newName)) {
-                return new ZipEntry(newName);
+        if (allowDuplicateEntry) {
+            for (int i = 1; i < 10; i++) {
+                String newName = name + "." + i;
+                if (entryNames.add(newName)) {
+                    return newName;
+                }
             }
         }
 
@@ -81,9 +243,112 @@ public final class Zipper implements Closeable {
         return dir + "/" + file;
     }
 
+    private void ensureOpen() throws IOException {
+        if (closed)
+            throw new IOException("Zipper is closed");
+    }
+
+    // Entries
+
+    private static long lastModifiedTime(BasicFileAttributes attrs) {
+        FileTime time = attrs.lastModifiedTime();
+        return time != null ? time.toMillis() : 0;
+    }
+
+    private void putDirectoryEntry(String name, long time) throws IOException {
+        if (!entryNames.add(name))
+            throw new ZipException("duplicate entry: " + name);
+
+        addPendingEntry(new PendingEntry(name, time, CompletableFuture.completedFuture(Chunk.EMPTY)));
+    }
+
+    private void putChunkEntry(String name, long time, CompletableFuture<Chunk> chunk) throws IOException {
+        addPendingEntry(new PendingEntry(name, time, chunk));
+    }
+
+    private void addPendingEntry(PendingEntry entry) throws IOException {
+        pendingEntries.addLast(entry);
+        writePendingEntries(maxPendingEntries);
+    }
+
+    /**
+     * Writes pending entries in order until at most {@code maxPending} entries are left.
+     * Entries which have already been compressed are written as well.
+     */
+    private void writePendingEntries(int maxPending) throws IOException {
+        PendingEntry entry;
+        while ((entry = pendingEntries.peekFirst()) != null
+                && (pendingEntries.size() > maxPending || entry.chunk.isDone())) {
+            pendingEntries.removeFirst();
+
+            Chunk chunk;
+            try {
+                chunk = entry.chunk.get();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException ioException)
+                    throw ioException;
+                if (cause instanceof UncheckedIOException uncheckedIOException)
+                    throw uncheckedIOException.getCause();
+                throw new IOException(cause);
+            }
+
+            writeChunk(entry.name, entry.time, chunk);
+        }
+    }
+
+    private void writeChunk(String name, long time, Chunk chunk) throws IOException {
+        try {
+            long offset = output.getCount();
+            writeLocalHeader(name, time, chunk.method, chunk.crc, chunk.compressedSize, chunk.size, chunk.size >= ZIP64_THRESHOLD);
+            chunk.writeTo(output, buffer);
+            centralDirectory.add(new CentralDirectoryEntry(name, time, chunk.method, chunk.crc, chunk.compressedSize, chunk.size, offset));
+        } finally {
+            chunk.close();
+        }
+    }
+
+    private CompletableFuture<Chunk> compressAsync(ExceptionalCallable callable) {
+        if (executor == null) {
+            try {
+                return CompletableFuture.completedFuture(callable.call());
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            if (aborted)
+                throw new CancellationException("Zipper is closed");
+            try {
+                return callable.call();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
     @Override
     public void close() throws IOException {
-        zos.close();
+        if (closed)
+            return;
+
+        try {
+            writePendingEntries(0);
+            writeCentralDirectory();
+            output.flush();
+        } finally {
+            closed = true;
+            aborted = true;
+            // Running entries cannot be stopped, so their chunks, which may have spilled to temporary files, are deleted when they are done
+            for (PendingEntry entry : pendingEntries) {
+                entry.chunk.whenComplete((chunk, e) -> IOUtils.closeQuietly(chunk));
+            }
+            pendingEntries.clear();
+            channel.close();
+        }
     }
 
     /**
@@ -126,8 +391,7 @@ public final class Zipper implements Closeable {
                     return FileVisitResult.SKIP_SUBTREE;
                 }
                 try {
-                    zos.putNextEntry(new ZipEntry(resolve(root, relativePath) + "/"));
-                    zos.closeEntry();
+                    putDirectoryEntry(resolve(root, relativePath) + "/", lastModifiedTime(attrs));
                 } catch (ZipException ignored) {
                     // Directory already exists
                 }
@@ -137,67 +401,65 @@ public final class Zipper implements Closeable {
     }
 
     public void putFile(Path file, String path) throws IOException {
+        ensureOpen();
         path = normalize(path);
 
         BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
 
-        ZipEntry entry = newEntry(attrs.isDirectory() ? path + "/" : path);
-        entry.setCreationTime(attrs.creationTime());
-        entry.setLastAccessTime(attrs.lastAccessTime());
-        entry.setLastModifiedTime(attrs.lastModifiedTime());
-
         if (attrs.isDirectory()) {
             try {
-                zos.putNextEntry(entry);
-                zos.closeEntry();
+                putDirectoryEntry(newEntryName(path + "/"), lastModifiedTime(attrs));
             } catch (ZipException ignored) {
                 // Directory already exists
             }
         } else {
-            try (InputStream input = Files.newInputStream(file)) {
-                zos.putNextEntry(entry);
-                IOUtils.copyTo(input, zos, buffer);
-                zos.closeEntry();
+            String name = newEntryName(path);
+            long time = lastModifiedTime(attrs);
+            Compression compression = getCompression(name);
+            int level = compressionLevel;
+            if (executor == null && pendingEntries.isEmpty()) {
+                writeFileDirectly(name, time, file, attrs.size(), compression);
+            } else {
+                putChunkEntry(name, time, compressAsync(() -> {
+                    try (InputStream input = Files.newInputStream(file)) {
+                        return Chunk.compress(input, compression, level);
+                    }
+                }));
             }
         }
     }
 
     public void putStream(InputStream in, String path) throws IOException {
-        zos.putNextEntry(newEntry(normalize(path)));
-        IOUtils.copyTo(in, zos, buffer);
-        zos.closeEntry();
+        ensureOpen();
+        String name = newEntryName(normalize(path));
+        putChunkEntry(name, NO_TIME, CompletableFuture.completedFuture(Chunk.compress(in, getCompression(name), compressionLevel)));
     }
 
     public OutputStream putStream(String path) throws IOException {
-        zos.putNextEntry(newEntry(normalize(path)));
-        return new OutputStream() {
-            public void write(int b) throws IOException {
-                zos.write(b);
-            }
-
-            public void write(@NotNull byte[] b) throws IOException {
-                zos.write(b);
-            }
+        ensureOpen();
+        String name = newEntryName(normalize(path));
+        ChunkOutputStream chunkOutput = new ChunkOutputStream(getCompression(name), compressionLevel);
+        return new FilterOutputStream(chunkOutput) {
+            private boolean closed = false;
 
+            @Override
             public void write(@NotNull byte[] b, int off, int len) throws IOException {
-                zos.write(b, off, len);
-            }
-
-            public void flush() throws IOException {
-                zos.flush();
+                out.write(b, off, len);
             }
 
+            @Override
             public void close() throws IOException {
-                zos.closeEntry();
+                if (closed)
+                    return;
+                closed = true;
+                putChunkEntry(name, NO_TIME, CompletableFuture.completedFuture(chunkOutput.finish()));
             }
         };
     }
 
     public void putLines(Stream<String> lines, String path) throws IOException {
-        zos.putNextEntry(newEntry(normalize(path)));
-
-        try {
-            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(zos));
+        try (OutputStream output = putStream(path)) {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
             lines.forEachOrdered(line -> {
                 try {
                     writer.write(line);
@@ -209,18 +471,557 @@ public final class Zipper implements Closeable {
             writer.flush();
         } catch (UncheckedIOException e) {
             throw e.getCause();
-        } finally {
-            zos.closeEntry();
         }
     }
 
+    /**
+     * Reads and compresses lines on the executor. Lines are separated by {@code '\n'} in the entry.
+     *
+     * @param reader opens the lines, for example of a log file with sensitive information removed; the stream is closed after use
+     */
+    public void putLinesAsync(ExceptionalSupplier<Stream<String>, IOException> reader, String path) throws IOException {
+        putLinesAsync(reader, path, null);
+    }
+
+    /**
+     * Reads and compresses lines on the executor. Lines are separated by {@code '\n'} in the entry.
+     *
+     * @param reader       opens the lines, for example of a log file with sensitive information removed; the stream is closed after use
+     * @param lastModified the last modified time of the file which the lines are read from, or {@code null} if there is no such file
+     */
+    public void putLinesAsync(ExceptionalSupplier<Stream<String>, IOException> reader, String path, @Nullable FileTime lastModified) throws IOException {
+        ensureOpen();
+        String name = newEntryName(normalize(path));
+        Compression compression = getCompression(name);
+        int level = compressionLevel;
+        putChunkEntry(name, lastModified != null ? lastModified.toMillis() : NO_TIME, compressAsync(() -> {
+            ChunkOutputStream chunkOutput = new ChunkOutputStream(compression, level);
+            try (Stream<String> lines = reader.get()) {
+                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(chunkOutput, StandardCharsets.UTF_8));
+                Iterator<String> iterator = lines.iterator();
+                while (iterator.hasNext()) {
+                    writer.write(iterator.next());
+                    writer.write('\n');
+                }
+                writer.flush();
+                return chunkOutput.finish();
+            } catch (Throwable e) {
+                chunkOutput.discard();
+                throw e;
+            }
+        }));
+    }
+
     public void putTextFile(String text, String path) throws IOException {
         putTextFile(text, StandardCharsets.UTF_8, path);
     }
 
     public void putTextFile(String text, Charset encoding, String path) throws IOException {
-        zos.putNextEntry(newEntry(normalize(path)));
-        zos.write(text.getBytes(encoding));
-        zos.closeEntry();
+        putStream(new ByteArrayInputStream(text.getBytes(encoding)), path);
+    }
+
+    @FunctionalInterface
+    private interface ExceptionalCallable {
+        Chunk call() throws IOException;
+    }
+
+    // Format
+
+    private static int toDosTime(long time) {
+        if (time == NO_TIME)
+            return DOS_EPOCH;
+        LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+        if (dateTime.getYear() < 1980)
+            return DOS_EPOCH;
+        return (dateTime.getYear() - 1980) << 25
+                | dateTime.getMonthValue() << 21
+                | dateTime.getDayOfMonth() << 16
+                | dateTime.getHour() << 11
+                | dateTime.getMinute() << 5
+                | dateTime.getSecond() >> 1;
+    }
+
+    private static boolean hasExtendedTimestamp(long time) {
+        long seconds = Math.floorDiv(time, 1000L);
+        return seconds >= 0 && seconds <= Integer.MAX_VALUE;
+    }
+
+    private final ByteBuffer headerBuffer = ByteBuffer.allocate(128).order(ByteOrder.LITTLE_ENDIAN);
+
+    private void writeLocalHeader(String name, long time, int method, int crc, long compressedSize, long size, boolean zip64) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        boolean extendedTimestamp = hasExtendedTimestamp(time);
+        int extraLength = (zip64 ? 20 : 0) + (extendedTimestamp ? 9 : 0);
+
+        ByteBuffer header = headerBuffer.clear();
+        header.putInt(LOCAL_FILE_HEADER_SIGNATURE);
+        header.putShort((short) (zip64 ? 45 : 20));
+        header.putShort((short) FLAG_UTF8);
+        header.putShort((short) method);
+        header.putInt(toDosTime(time));
+        header.putInt(crc);
+        header.putInt((int) (zip64 ? ZIP64_MAGIC : compressedSize));
+        header.putInt((int) (zip64 ? ZIP64_MAGIC : size));
+        header.putShort((short) nameBytes.length);
+        header.putShort((short) extraLength);
+        output.write(header.array(), 0, header.position());
+        output.write(nameBytes);
+
+        header.clear();
+        if (zip64) {
+            header.putShort((short) ZIP64_EXTRA_ID);
+            header.putShort((short) 16);
+            header.putLong(size);
+            header.putLong(compressedSize);
+        }
+        if (extendedTimestamp) {
+            header.putShort((short) EXTENDED_TIMESTAMP_EXTRA_ID);
+            header.putShort((short) 5);
+            header.put((byte) 1);
+            header.putInt((int) Math.floorDiv(time, 1000L));
+        }
+        output.write(header.array(), 0, header.position());
+    }
+
+    /**
+     * Compresses {@code file} straight into the zip file, then patches the sizes and CRC in the local header.
+     * This avoids a temporary copy when entries are compressed serially.
+     */
+    private void writeFileDirectly(String name, long time, Path file, long expectedSize, Compression compression) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            InputStream data = input;
+            int level;
+            if (compression == Compression.ADAPTIVE) {
+                byte[] sample = input.readNBytes(SAMPLE_SIZE);
+                if (sample.length < SAMPLE_SIZE) {
+                    // The whole file is in the sample, so compress it in memory like other small entries
+                    writeChunk(name, time, Chunk.compress(new ByteArrayInputStream(sample), compression, compressionLevel));
+                    return;
+                }
+                data = new SequenceInputStream(new ByteArrayInputStream(sample), input);
+                level = chooseLevel(sample, sample.length, compressionLevel);
+            } else {
+                level = compression == Compression.STORED ? LEVEL_STORED : compressionLevel;
+            }
+            int method = level == LEVEL_STORED ? METHOD_STORED : METHOD_DEFLATED;
+
+            boolean zip64 = expectedSize >= ZIP64_THRESHOLD;
+            long offset = output.getCount();
+            writeLocalHeader(name, time, method, 0, 0, 0, zip64);
+            long dataOffset = output.getCount();
+
+            CRC32 crc = new CRC32();
+            long size;
+            if (method == METHOD_STORED) {
+                size = store(data, output, crc, buffer);
+            } else {
+                Deflater deflater = new Deflater(level, true);
+                try {
+                    size = deflate(data, output, deflater, crc, buffer);
+                } finally {
+                    deflater.end();
+                }
+            }
+            long compressedSize = output.getCount() - dataOffset;
+
+            if (!zip64 && (size >= ZIP64_MAGIC || compressedSize >= ZIP64_MAGIC))
+                throw new ZipException("File " + file + " grew too large while it was being compressed");
+
+            output.flush();
+            ByteBuffer patch = ByteBuffer.allocate(zip64 ? 16 : 12).order(ByteOrder.LITTLE_ENDIAN);
+            if (zip64) {
+                patch.putLong(size).putLong(compressedSize).flip();
+                // signature(4) + version(2) + flags(2) + method(2) + time(4) + crc(4) + sizes(8) + name length(2) + extra length(2) + name + zip64 header(4)
+                writeFully(patch, offset + 30 + name.getBytes(StandardCharsets.UTF_8).length + 4);
+                patch = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt((int) crc.getValue()).flip();
+                writeFully(patch, offset + 14);
+            } else {
+                patch.putInt((int) crc.getValue()).putInt((int) compressedSize).putInt((int) size).flip();
+                writeFully(patch, offset + 14);
+            }
+
+            centralDirectory.add(new CentralDirectoryEntry(name, time, method, (int) crc.getValue(), compressedSize, size, offset));
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    static long deflate(InputStream input, OutputStream output, Deflater deflater, CRC32 crc, byte[] buffer) throws IOException {
+        byte[] outputBuffer = new byte[buffer.length];
+        int n;
+        while ((n = input.read(buffer)) > 0) {
+            crc.update(buffer, 0, n);
+            deflater.setInput(buffer, 0, n);
+            while (!deflater.needsInput()) {
+                int len = deflater.deflate(outputBuffer);
+                if (len > 0)
+                    output.write(outputBuffer, 0, len);
+            }
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            int len = deflater.deflate(outputBuffer);
+            if (len > 0)
+                output.write(outputBuffer, 0, len);
+        }
+        return deflater.getBytesRead();
+    }
+
+    static long store(InputStream input, OutputStream output, CRC32 crc, byte[] buffer) throws IOException {
+        long size = 0;
+        int n;
+        while ((n = input.read(buffer)) > 0) {
+            crc.update(buffer, 0, n);
+            output.write(buffer, 0, n);
+            size += n;
+        }
+        return size;
+    }
+
+    private void writeCentralDirectory() throws IOException {
+        long centralDirectoryOffset = output.getCount();
+        ByteBuffer header = headerBuffer;
+
+        for (CentralDirectoryEntry entry : centralDirectory) {
+            byte[] nameBytes = entry.name.getBytes(StandardCharsets.UTF_8);
+            boolean sizeZip64 = entry.size >= ZIP64_MAGIC;
+            boolean compressedSizeZip64 = entry.compressedSize >= ZIP64_MAGIC;
+            boolean offsetZip64 = entry.offset >= ZIP64_MAGIC;
+            int zip64Length = (sizeZip64 ? 8 : 0) + (compressedSizeZip64 ? 8 : 0) + (offsetZip64 ? 8 : 0);
+            boolean extendedTimestamp = hasExtendedTimestamp(entry.time);
+            int extraLength = (zip64Length > 0 ? 4 + zip64Length : 0) + (extendedTimestamp ? 9 : 0);
+            int version = zip64Length > 0 || entry.size >= ZIP64_THRESHOLD ? 45 : 20;
+
+            header.clear();
+            header.putInt(CENTRAL_FILE_HEADER_SIGNATURE);
+            header.putShort((short) version);
+            header.putShort((short) version);
+            header.putShort((short) FLAG_UTF8);
+            header.putShort((short) entry.method);
+            header.putInt(toDosTime(entry.time));
+            header.putInt(entry.crc);
+            header.putInt((int) (compressedSizeZip64 ? ZIP64_MAGIC : entry.compressedSize));
+            header.putInt((int) (sizeZip64 ? ZIP64_MAGIC : entry.size));
+            header.putShort((short) nameBytes.length);
+            header.putShort((short) extraLength);
+            header.putShort((short) 0); // comment length
+            header.putShort((short) 0); // disk number
+            header.putShort((short) 0); // internal attributes
+            header.putInt(0); // external attributes
+            header.putInt((int) (offsetZip64 ? ZIP64_MAGIC : entry.offset));
+            output.write(header.array(), 0, header.position());
+            output.write(nameBytes);
+
+            header.clear();
+            if (zip64Length > 0) {
+                header.putShort((short) ZIP64_EXTRA_ID);
+                header.putShort((short) zip64Length);
+                if (sizeZip64) header.putLong(entry.size);
+                if (compressedSizeZip64) header.putLong(entry.compressedSize);
+                if (offsetZip64) header.putLong(entry.offset);
+            }
+            if (extendedTimestamp) {
+                header.putShort((short) EXTENDED_TIMESTAMP_EXTRA_ID);
+                header.putShort((short) 5);
+                header.put((byte) 1);
+                header.putInt((int) Math.floorDiv(entry.time, 1000L));
+            }
+            output.write(header.array(), 0, header.position());
+        }
+
+        long centralDirectoryEnd = output.getCount();
+        long centralDirectorySize = centralDirectoryEnd - centralDirectoryOffset;
+        int count = centralDirectory.size();
+
+        boolean zip64 = count >= 0xFFFF || centralDirectorySize >= ZIP64_MAGIC || centralDirectoryOffset >= ZIP64_MAGIC;
+        if (zip64) {
+            header.clear();
+            header.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+            header.putLong(44); // size of the remaining record
+            header.putShort((short) 45);
+            header.putShort((short) 45);
+            header.putInt(0); // number of this disk
+            header.putInt(0); // disk with the central directory
+            header.putLong(count);
+            header.putLong(count);
+            header.putLong(centralDirectorySize);
+            header.putLong(centralDirectoryOffset);
+
+            header.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE);
+            header.putInt(0);
+            header.putLong(centralDirectoryEnd);
+            header.putInt(1);
+            output.write(header.array(), 0, header.position());
+        }
+
+        header.clear();
+        header.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+        header.putShort((short) 0);
+        header.putShort((short) 0);
+        header.putShort((short) Math.min(count, 0xFFFF));
+        header.putShort((short) Math.min(count, 0xFFFF));
+        header.putInt((int) Math.min(centralDirectorySize, ZIP64_MAGIC));
+        header.putInt((int) Math.min(centralDirectoryOffset, ZIP64_MAGIC));
+        header.putShort((short) 0); // comment length
+        output.write(header.array(), 0, header.position());
+    }
+
+    private enum Compression {
+        /// Chosen from the content
+        ADAPTIVE,
+        STORED,
+        /// Deflated with the compression level of the zipper
+        DEFLATED
+    }
+
+    private record PendingEntry(String name, long time, CompletableFuture<Chunk> chunk) {
+    }
+
+    private record CentralDirectoryEntry(String name, long time, int method, int crc, long compressedSize, long size,
+                                         long offset) {
+    }
+
+    /**
+     * Compressed data of an entry, kept in memory or in a temporary file.
+     */
+    private static final class Chunk implements Closeable {
+        static final Chunk EMPTY = new Chunk(new byte[0], 0, null, METHOD_STORED, 0, 0, 0);
+
+        private final byte[] data;
+        private final int dataLength;
+        private final @Nullable Path file;
+        final int method;
+        final long compressedSize;
+        final long size;
+        final int crc;
+
+        Chunk(byte[] data, int dataLength, @Nullable Path file, int method, long compressedSize, long size, int crc) {
+            this.data = data;
+            this.dataLength = dataLength;
+            this.file = file;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.crc = crc;
+        }
+
+        static Chunk compress(InputStream input, Compression compression, int level) throws IOException {
+            ChunkOutputStream output = new ChunkOutputStream(compression, level);
+            try {
+                IOUtils.copyTo(input, output, new byte[IOUtils.DEFAULT_BUFFER_SIZE]);
+                return output.finish();
+            } catch (Throwable e) {
+                output.discard();
+                throw e;
+            }
+        }
+
+        void writeTo(OutputStream output, byte[] buffer) throws IOException {
+            if (file == null) {
+                output.write(data, 0, dataLength);
+            } else {
+                try (InputStream input = Files.newInputStream(file)) {
+                    IOUtils.copyTo(input, output, buffer);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (file != null)
+                Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Compresses the data written to it into a {@link Chunk}.
+     */
+    private static final class ChunkOutputStream extends OutputStream {
+        private final CRC32 crc = new CRC32();
+        private final byte[] deflateBuffer = new byte[IOUtils.DEFAULT_BUFFER_SIZE];
+        private final int level;
+        private @Nullable Deflater deflater;
+        private int method;
+        private long size = 0;
+
+        /// The beginning of the entry, which is buffered until the compression is chosen
+        private byte @Nullable [] sample;
+        private int sampleLength = 0;
+
+        private byte[] data = new byte[IOUtils.DEFAULT_BUFFER_SIZE];
+        private int dataLength = 0;
+        private Path file;
+        private OutputStream fileOutput;
+        private long compressedSize = 0;
+
+        ChunkOutputStream(Compression compression, int level) {
+            this.level = level;
+            switch (compression) {
+                case ADAPTIVE -> {
+                    method = METHOD_DEFLATED;
+                    sample = new byte[IOUtils.DEFAULT_BUFFER_SIZE];
+                }
+                case STORED -> method = METHOD_STORED;
+                case DEFLATED -> {
+                    method = METHOD_DEFLATED;
+                    deflater = new Deflater(level, true);
+                }
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(@NotNull byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return;
+            crc.update(b, off, len);
+            size += len;
+
+            if (sample != null) {
+                int n = Math.min(len, SAMPLE_SIZE - sampleLength);
+                if (sampleLength + n > sample.length)
+                    sample = Arrays.copyOf(sample, Math.min(SAMPLE_SIZE, Math.max(sampleLength + n, sample.length * 2)));
+                System.arraycopy(b, off, sample, sampleLength, n);
+                sampleLength += n;
+                if (sampleLength < SAMPLE_SIZE)
+                    return;
+
+                byte[] sample = this.sample;
+                this.sample = null;
+                int sampleLevel = chooseLevel(sample, sampleLength, level);
+                if (sampleLevel == LEVEL_STORED)
+                    method = METHOD_STORED;
+                else
+                    deflater = new Deflater(sampleLevel, true);
+                writeData(sample, 0, sampleLength);
+                off += n;
+                len -= n;
+            }
+
+            writeData(b, off, len);
+        }
+
+        private void writeData(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return;
+
+            if (deflater == null) {
+                append(b, off, len);
+            } else {
+                deflater.setInput(b, off, len);
+                while (!deflater.needsInput()) {
+                    drain();
+                }
+            }
+        }
+
+        private void drain() throws IOException {
+            int len = deflater.deflate(deflateBuffer);
+            if (len > 0)
+                append(deflateBuffer, 0, len);
+        }
+
+        private void append(byte[] b, int off, int len) throws IOException {
+            compressedSize += len;
+            if (fileOutput == null && dataLength + len > CHUNK_MEMORY_LIMIT) {
+                file = Files.createTempFile("hmcl-zipper-", ".tmp");
+                fileOutput = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024);
+                fileOutput.write(data, 0, dataLength);
+                data = null;
+            }
+
+            if (fileOutput != null) {
+                fileOutput.write(b, off, len);
+            } else {
+                if (dataLength + len > data.length)
+                    data = Arrays.copyOf(data, Math.max(dataLength + len, data.length * 2));
+                System.arraycopy(b, off, data, dataLength, len);
+                dataLength += len;
+            }
+        }
+
+        Chunk finish() throws IOException {
+            try {
+                if (sample != null) {
+                    // The whole entry is in the sample, so deflate it, and store it if that does not save enough space
+                    deflater = new Deflater(level, true);
+                    writeData(sample, 0, sampleLength);
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        drain();
+                    }
+
+                    if (compressedSize > sampleLength * (1 - MIN_SAVING)) {
+                        method = METHOD_STORED;
+                        dataLength = 0;
+                        compressedSize = 0;
+                        append(sample, 0, sampleLength);
+                    }
+                    sample = null;
+                } else if (deflater != null) {
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        drain();
+                    }
+                }
+
+                if (fileOutput != null)
+                    fileOutput.close();
+                return new Chunk(data, dataLength, file, method, compressedSize, size, (int) crc.getValue());
+            } catch (Throwable e) {
+                discard();
+                throw e;
+            } finally {
+                if (deflater != null)
+                    deflater.end();
+            }
+        }
+
+        void discard() {
+            if (deflater != null)
+                deflater.end();
+            if (fileOutput != null) {
+                IOUtils.closeQuietly(fileOutput);
+                fileOutput = null;
+            }
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count = 0;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(@NotNull byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
     }
 }
@@ -44,24 +44,29 @@ import static java.nio.file.StandardOpenOption.CREATE_NEW;
 public final class Logger {
     public static final Logger LOG = new Logger();
 
-    private static volatile String[] accessTokens = new String[0];
+    private static final String ACCESS_TOKEN_REPLACEMENT = "<access token>";
+
+    private static volatile TokenRedactor accessTokenRedactor = new TokenRedactor(new String[0], ACCESS_TOKEN_REPLACEMENT);
 
     public static synchronized void registerAccessToken(String token) {
         if (token == null || token.length() <= 1)
             return;
 
-        final String[] oldAccessTokens = accessTokens;
-        final String[] newAccessTokens = Arrays.copyOf(oldAccessTokens, oldAccessTokens.length + 1);
-
-        newAccessTokens[oldAccessTokens.length] = token;
+        final TokenRedactor oldRedactor = accessTokenRedactor;
+        for (String registered : oldRedactor.getTokens()) {
+            if (registered.equals(token))
+                return;
+        }
 
-        accessTokens = newAccessTokens;
+        accessTokenRedactor = oldRedactor.withToken(token);
     }
 
     public static String filterForbiddenToken(String message) {
-        for (String token : accessTokens)
-            message = message.replace(token, "<access token>");
-        return message;
+        return accessTokenRedactor.redact(message);
+    }
+
+    public static void filterForbiddenToken(StringBuilder builder, String message) {
+        accessTokenRedactor.redactTo(builder, message);
     }
 
     static final String PACKAGE_PREFIX = "org.jackhuang.hmcl.";
@@ -101,8 +106,8 @@ public final class Logger {
 
         builder.append('/')
                 .append(event.level())
-                .append("] ")
-                .append(filterForbiddenToken(event.message()));
+                .append("] ");
+        filterForbiddenToken(builder, event.message());
         return builder.toString();
     }
 
@@ -0,0 +1,270 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.util.logging;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Replaces every occurrence of a fixed set of tokens in a single scan.
+ * <p>
+ * The tokens are compiled into an Aho-Corasick automaton. Scanning a string that contains no token
+ * does not allocate and returns the input itself. When tokens overlap, the leftmost and then the longest one wins.
+ * <p>
+ * Instances are immutable and thread-safe; a new instance should be built whenever the token set changes.
+ */
+public final class TokenRedactor {
+
+    private static final int ROOT = 0;
+
+    private final String[] tokens;
+    private final String replacement;
+
+    // Sparse goto function: the edges of node i are edgeChars/edgeTargets[edgeStart[i] ..< edgeStart[i + 1]], sorted by char
+    private final int[] edgeStart;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+
+    private final int[] fail;
+
+    /// The length of the longest token which is a suffix of the node, or 0 if there is none
+    private final int[] output;
+    /// The nearest node on the fail chain with a non-zero output, or -1
+    private final int[] outputLink;
+
+    public TokenRedactor(String[] tokens, String replacement) {
+        this.tokens = tokens.clone();
+        this.replacement = replacement;
+
+        // Build the trie
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        children.add(new TreeMap<>());
+        outputs.add(0);
+
+        for (String token : this.tokens) {
+            if (token.isEmpty())
+                throw new IllegalArgumentException("Empty token");
+
+            int node = ROOT;
+            for (int i = 0; i < token.length(); i++) {
+                Integer next = children.get(node).get(token.charAt(i));
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    outputs.add(0);
+                    children.get(node).put(token.charAt(i), next);
+                }
+                node = next;
+            }
+            outputs.set(node, token.length());
+        }
+
+        int nodeCount = children.size();
+        int edgeCount = nodeCount - 1;
+
+        this.edgeStart = new int[nodeCount + 1];
+        this.edgeChars = new char[edgeCount];
+        this.edgeTargets = new int[edgeCount];
+        this.output = new int[nodeCount];
+
+        int edge = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            edgeStart[node] = edge;
+            output[node] = outputs.get(node);
+            for (var entry : children.get(node).entrySet()) {
+                edgeChars[edge] = entry.getKey();
+                edgeTargets[edge] = entry.getValue();
+                edge++;
+            }
+        }
+        edgeStart[nodeCount] = edge;
+
+        // Compute the failure function breadth-first
+        this.fail = new int[nodeCount];
+        this.outputLink = new int[nodeCount];
+        outputLink[ROOT] = -1;
+
+        int[] queue = new int[nodeCount];
+        int head = 0, tail = 0;
+        for (int e = edgeStart[ROOT]; e < edgeStart[ROOT + 1]; e++) {
+            int child = edgeTargets[e];
+            fail[child] = ROOT;
+            outputLink[child] = -1;
+            queue[tail++] = child;
+        }
+
+        while (head < tail) {
+            int node = queue[head++];
+            for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+                int child = edgeTargets[e];
+                char ch = edgeChars[e];
+
+                int f = fail[node];
+                int target;
+                while ((target = transition(f, ch)) < 0 && f != ROOT) {
+                    f = fail[f];
+                }
+                fail[child] = target >= 0 ? target : ROOT;
+                outputLink[child] = output[fail[child]] > 0 ? fail[child] : outputLink[fail[child]];
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    public String[] getTokens() {
+        return tokens.clone();
+    }
+
+    public boolean isEmpty() {
+        return tokens.length == 0;
+    }
+
+    /**
+     * @return a new redactor which also replaces {@code token}
+     */
+    public TokenRedactor withToken(String token) {
+        String[] newTokens = Arrays.copyOf(tokens, tokens.length + 1);
+        newTokens[tokens.length] = token;
+        return new TokenRedactor(newTokens, replacement);
+    }
+
+    private int transition(int node, char ch) {
+        int low = edgeStart[node];
+        int high = edgeStart[node + 1] - 1;
+
+        // Most nodes are on a single token chain, so check it before falling back to binary search
+        if (low == high)
+            return edgeChars[low] == ch ? edgeTargets[low] : -1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = edgeChars[mid];
+            if (midChar < ch)
+                low = mid + 1;
+            else if (midChar > ch)
+                high = mid - 1;
+            else
+                return edgeTargets[mid];
+        }
+        return -1;
+    }
+
+    private int step(int node, char ch) {
+        while (true) {
+            int next = transition(node, ch);
+            if (next >= 0)
+                return next;
+            if (node == ROOT)
+                return ROOT;
+            node = fail[node];
+        }
+    }
+
+    /**
+     * @return the index of the first char which ends a token, or -1 if {@code text} contains no token
+     */
+    private int findFirstMatchEnd(CharSequence text) {
+        int node = ROOT;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            node = step(node, text.charAt(i));
+            if (output[node] > 0 || outputLink[node] >= 0)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return {@code true} if {@code text} contains any token
+     */
+    public boolean containsToken(CharSequence text) {
+        return tokens.length > 0 && findFirstMatchEnd(text) >= 0;
+    }
+
+    /**
+     * Replaces every token in {@code text}.
+     *
+     * @return {@code text} itself if it contains no token, otherwise a new string
+     */
+    public String redact(String text) {
+        if (tokens.length == 0 || text == null)
+            return text;
+
+        int firstMatchEnd = findFirstMatchEnd(text);
+        if (firstMatchEnd < 0)
+            return text;
+
+        StringBuilder builder = new StringBuilder(text.length());
+        appendRedacted(builder, text);
+        return builder.toString();
+    }
+
+    /**
+     * Appends {@code text} to {@code builder}, replacing every token.
+     */
+    public void redactTo(StringBuilder builder, CharSequence text) {
+        if (text == null) {
+            builder.append((String) null);
+            return;
+        }
+
+        int firstMatchEnd = tokens.length == 0 ? -1 : findFirstMatchEnd(text);
+        if (firstMatchEnd < 0)
+            builder.append(text);
+        else
+            appendRedacted(builder, text);
+    }
+
+    private void appendRedacted(StringBuilder builder, CharSequence text) {
+        final int length = text.length();
+
+        // longest[i] is the length of the longest token starting at i
+        final int[] longest = new int[length];
+        int firstMatchStart = length;
+
+        int node = ROOT;
+        for (int i = 0; i < length; i++) {
+            node = step(node, text.charAt(i));
+            for (int n = output[node] > 0 ? node : outputLink[node]; n >= 0; n = outputLink[n]) {
+                int tokenLength = output[n];
+                int start = i + 1 - tokenLength;
+                if (tokenLength > longest[start])
+                    longest[start] = tokenLength;
+                if (start < firstMatchStart)
+                    firstMatchStart = start;
+            }
+        }
+
+        builder.append(text, 0, firstMatchStart);
+        int i = firstMatchStart;
+        int copyFrom = i;
+        while (i < length) {
+            int tokenLength = longest[i];
+            if (tokenLength > 0) {
+                builder.append(text, copyFrom, i).append(replacement);
+                i += tokenLength;
+                copyFrom = i;
+            } else {
+                i++;
+            }
+        }
+        builder.append(text, copyFrom, length);
+    }
+}
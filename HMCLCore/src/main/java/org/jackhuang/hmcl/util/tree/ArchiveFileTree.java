@@ -45,7 +45,8 @@ public abstract class ArchiveFileTree<R, E extends ArchiveEntry> implements Clos
         String name = namePath.toString();
         if (name.endsWith(".jar") || name.endsWith(".zip")) {
             return new ZipFileTree(new ZipArchiveReader(file));
-        } else if (name.endsWith(".tar") || name.endsWith(".tar.gz") || name.endsWith(".tgz")) {
+        } else if (name.endsWith(".tar") || name.endsWith(".tar.gz") || name.endsWith(".tgz")
+                || name.endsWith(".tar.xz") || name.endsWith(".txz")) {
             return TarFileTree.open(file);
         } else {
             throw new IOException(file + " is not a valid archive file");
@@ -53,7 +54,26 @@ public abstract class ArchiveFileTree<R, E extends ArchiveEntry> implements Clos
     }
 
     protected final R reader;
-    protected final Dir<E> root = new Dir<>("", "");
+
+    /// The entries of the files, keyed by their normalized paths.
+    ///
+    /// The names of most entries are already normalized, so they are used as the keys without copying them.
+    /// The entries are kept in the order of the archive, so that reading the files of a directory one by one
+    /// reads the archive forward, which matters for compressed archives read in place.
+    private final Map<String, E> files = new LinkedHashMap<>();
+
+    /// The entries of the directories, keyed by their normalized paths.
+    ///
+    /// Directories which have no entries of their own, but contain other entries, are mapped to `null`.
+    private final Map<String, E> directories = new LinkedHashMap<>();
+    private @Nullable E rootEntry;
+
+    /// The parent directory of the last added entry, whose ancestors are known to be registered.
+    private String lastParent = "";
+
+    /// The directory tree, which is only built when it is used
+    private @Nullable Dir<E> root;
+    private @Nullable Map<String, Dir<E>> dirsByPath;
 
     public ArchiveFileTree(R reader) {
         this.reader = reader;
@@ -64,88 +84,170 @@ public abstract class ArchiveFileTree<R, E extends ArchiveEntry> implements Clos
     }
 
     public Dir<E> getRoot() {
+        if (root == null)
+            buildTree();
         return root;
     }
 
-    public @Nullable E getEntry(@NotNull String entryPath) {
-        Dir<E> dir = root;
-        if (entryPath.indexOf('/') < 0) {
-            return dir.getFiles().get(entryPath);
-        } else {
-            String[] path = entryPath.split("/");
-            if (path.length == 0)
-                return root.getEntry();
-
-            for (int i = 0; i < path.length - 1; i++) {
-                String item = path[i];
-                if (item.isEmpty())
-                    continue;
-                dir = dir.getSubDirs().get(item);
-                if (dir == null)
-                    return null;
+    /// Removes the empty components of the path, such as a leading `/`.
+    private static String normalizeLookupPath(String path) {
+        if (!path.startsWith("/") && !path.endsWith("/") && !path.contains("//"))
+            return path;
+
+        StringBuilder builder = new StringBuilder(path.length());
+        int start = 0;
+        while (start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0)
+                end = path.length();
+            if (end > start) {
+                if (!builder.isEmpty())
+                    builder.append('/');
+                builder.append(path, start, end);
             }
-
-            String fileName = path[path.length - 1];
-            return dir.getFiles().get(fileName);
+            start = end + 1;
         }
+        return builder.toString();
+    }
+
+    public @Nullable E getEntry(@NotNull String entryPath) {
+        String path = normalizeLookupPath(entryPath);
+        if (path.isEmpty() && entryPath.indexOf('/') >= 0)
+            return rootEntry;
+        return files.get(path);
     }
 
     public @Nullable Dir<E> getDirectory(@NotNull String dirPath) {
-        Dir<E> dir = root;
-        if (dirPath.isEmpty()) {
-            return dir;
-        }
-        String[] path = dirPath.split("/");
-        for (String item : path) {
-            if (item.isEmpty())
-                continue;
-            dir = dir.getSubDirs().get(item);
-            if (dir == null)
-                return null;
-        }
-        return dir;
+        if (root == null)
+            buildTree();
+        return dirsByPath.get(normalizeLookupPath(dirPath));
     }
 
-    protected void addEntry(E entry) throws IOException {
-        String[] path = entry.getName().split("/");
-        List<String> pathList = Arrays.asList(path);
+    /// Returns the name without trailing `/` and `.` components.
+    ///
+    /// @throws IOException if the name contains empty or `..` components
+    private static String normalizeEntryName(String name) throws IOException {
+        int end = name.length();
+        while (end > 0 && name.charAt(end - 1) == '/')
+            end--;
+        if (end == 0)
+            return "";
+
+        boolean hasDot = false;
+        int start = 0;
+        while (start <= end) {
+            int next = name.indexOf('/', start);
+            if (next < 0 || next > end)
+                next = end;
+
+            int length = next - start;
+            if (length == 0 || length == 2 && name.startsWith("..", start))
+                throw new IOException("Invalid entry: " + name);
+            if (length == 1 && name.charAt(start) == '.')
+                hasDot = true;
+            start = next + 1;
+        }
 
-        Dir<E> dir = root;
+        if (!hasDot)
+            return end == name.length() ? name : name.substring(0, end);
 
-        for (int i = 0, end = entry.isDirectory() ? path.length : path.length - 1; i < end; i++) {
-            String item = path[i];
+        StringBuilder builder = new StringBuilder(end);
+        for (String item : name.substring(0, end).split("/")) {
             if (item.equals("."))
                 continue;
-            if (item.equals("..") || item.isEmpty())
-                throw new IOException("Invalid entry: " + entry.getName());
-
-            if (dir.files.containsKey(item)) {
-                throw new IOException("A file and a directory have the same name: " + entry.getName());
-            }
+            if (!builder.isEmpty())
+                builder.append('/');
+            builder.append(item);
+        }
+        return builder.toString();
+    }
 
-            final int nameEnd = i + 1;
-            dir = dir.subDirs.computeIfAbsent(item, name ->
-                    new Dir<>(name, String.join("/", pathList.subList(0, nameEnd))));
+    /// Registers the parent directories of the path.
+    private void addParentDirectories(String path, String entryName) throws IOException {
+        int index = path.lastIndexOf('/');
+        if (index < 0)
+            return;
+
+        // Entries in the same directory are usually next to each other
+        if (lastParent.length() == index && path.startsWith(lastParent))
+            return;
+
+        String parent = path.substring(0, index);
+        lastParent = parent;
+        while (true) {
+            if (files.containsKey(parent))
+                throw new IOException("A file and a directory have the same name: " + entryName);
+            if (directories.containsKey(parent))
+                return;
+            directories.put(parent, null);
+
+            index = parent.lastIndexOf('/');
+            if (index < 0)
+                return;
+            parent = parent.substring(0, index);
         }
+    }
+
+    protected void addEntry(E entry) throws IOException {
+        String name = entry.getName();
+        String path = normalizeEntryName(name);
 
         if (entry.isDirectory()) {
-            if (dir.entry == null)
-                dir.entry = entry;
-            else if (!dir.entry.isDirectory())
-                throw new IOException("A file and a directory have the same name: " + entry.getName());
+            if (path.isEmpty()) {
+                if (rootEntry == null)
+                    rootEntry = entry;
+            } else {
+                if (files.containsKey(path))
+                    throw new IOException("A file and a directory have the same name: " + name);
+                addParentDirectories(path, name);
+                if (directories.get(path) == null)
+                    directories.put(path, entry);
+            }
         } else {
-            String fileName = path[path.length - 1];
+            if (directories.containsKey(path))
+                throw new IOException("A file and a directory have the same name: " + name);
+            addParentDirectories(path, name);
+            if (files.putIfAbsent(path, entry) != null)
+                throw new IOException("Duplicate entry: " + name);
+        }
 
-            if (dir.subDirs.containsKey(fileName)) {
-                throw new IOException("A file and a directory have the same name: " + entry.getName());
-            }
+        root = null;
+        dirsByPath = null;
+    }
 
-            if (dir.files.containsKey(fileName)) {
-                throw new IOException("Duplicate entry: " + entry.getName());
-            }
+    private void buildTree() {
+        Map<String, Dir<E>> dirsByPath = new HashMap<>();
+        Dir<E> root = new Dir<>("", "");
+        root.entry = rootEntry;
+        dirsByPath.put("", root);
+
+        for (String path : directories.keySet()) {
+            getOrCreateDir(dirsByPath, path);
+        }
 
-            dir.files.put(fileName, entry);
+        for (Map.Entry<String, E> file : files.entrySet()) {
+            String path = file.getKey();
+            int index = path.lastIndexOf('/');
+            Dir<E> parent = index < 0 ? root : dirsByPath.get(path.substring(0, index));
+            parent.files.put(path.substring(index + 1), file.getValue());
         }
+
+        this.root = root;
+        this.dirsByPath = dirsByPath;
+    }
+
+    private Dir<E> getOrCreateDir(Map<String, Dir<E>> dirsByPath, String path) {
+        Dir<E> dir = dirsByPath.get(path);
+        if (dir != null)
+            return dir;
+
+        int index = path.lastIndexOf('/');
+        Dir<E> parent = getOrCreateDir(dirsByPath, index < 0 ? "" : path.substring(0, index));
+        dir = new Dir<>(path.substring(index + 1), path);
+        dir.entry = directories.get(path);
+        parent.subDirs.put(dir.getName(), dir);
+        dirsByPath.put(path, dir);
+        return dir;
     }
 
     public abstract InputStream getInputStream(E entry) throws IOException;
@@ -224,8 +326,8 @@ public abstract class ArchiveFileTree<R, E extends ArchiveEntry> implements Clos
         private final String fullName;
         private E entry;
 
-        final Map<String, Dir<E>> subDirs = new HashMap<>();
-        final Map<String, E> files = new HashMap<>();
+        final Map<String, Dir<E>> subDirs = new LinkedHashMap<>();
+        final Map<String, E> files = new LinkedHashMap<>();
 
         public Dir(String name, String fullName) {
             this.name = name;
@@ -19,7 +19,12 @@ package org.jackhuang.hmcl.util.tree;
 
 import kala.compress.archivers.tar.TarArchiveEntry;
 import kala.compress.archivers.tar.TarArchiveReader;
+import org.jackhuang.hmcl.util.function.ExceptionalFunction;
+import org.jackhuang.hmcl.util.io.IOUtils;
 import org.jetbrains.annotations.NotNull;
+import org.tukaani.xz.SeekableFileInputStream;
+import org.tukaani.xz.SeekableXZInputStream;
+import org.tukaani.xz.XZInputStream;
 
 import java.io.*;
 import java.nio.file.Files;
@@ -33,32 +38,67 @@ import java.util.zip.GZIPInputStream;
  */
 public final class TarFileTree extends ArchiveFileTree<TarArchiveReader, TarArchiveEntry> {
 
+    /// The xz files whose blocks are no larger than this are read in place, seeking to the blocks containing the entries.
+    ///
+    /// Reading an entry may decompress the data before it in its block, so larger blocks are decompressed to a temporary file instead.
+    private static final long MAX_SEEKABLE_BLOCK_SIZE = 8 * 1024 * 1024;
+
     public static TarFileTree open(Path file) throws IOException {
         String fileName = file.getFileName().toString();
 
         if (fileName.endsWith(".tar.gz") || fileName.endsWith(".tgz")) {
-            Path tempFile = Files.createTempFile("hmcl-", ".tar");
-            TarArchiveReader tarFile;
-            try (GZIPInputStream input = new GZIPInputStream(Files.newInputStream(file));
-                 OutputStream output = Files.newOutputStream(tempFile, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.CREATE)
-            ) {
-                input.transferTo(output);
-                tarFile = new TarArchiveReader(tempFile);
+            // Deflate streams cannot be decompressed from the middle, so the whole archive is decompressed once
+            return openDecompressed(file, GZIPInputStream::new);
+        } else if (fileName.endsWith(".tar.xz") || fileName.endsWith(".txz")) {
+            SeekableFileInputStream fileInput = new SeekableFileInputStream(file.toFile());
+            SeekableXZInputStream input;
+            try {
+                input = new SeekableXZInputStream(fileInput);
             } catch (Throwable e) {
-                try {
-                    Files.deleteIfExists(tempFile);
-                } catch (Throwable e2) {
-                    e.addSuppressed(e2);
-                }
+                IOUtils.closeQuietly(fileInput, e);
                 throw e;
             }
 
-            return new TarFileTree(tarFile, tempFile);
+            if (input.getBlockCount() > 1 && input.getLargestBlockSize() <= MAX_SEEKABLE_BLOCK_SIZE) {
+                XZSeekableByteChannel channel = new XZSeekableByteChannel(input);
+                TarArchiveReader tarFile;
+                try {
+                    tarFile = new TarArchiveReader(channel);
+                } catch (Throwable e) {
+                    IOUtils.closeQuietly(channel, e);
+                    throw e;
+                }
+                return new TarFileTree(tarFile, null);
+            } else {
+                input.close();
+                return openDecompressed(file, XZInputStream::new);
+            }
         } else {
             return new TarFileTree(new TarArchiveReader(file), null);
         }
     }
 
+    private static TarFileTree openDecompressed(Path file, ExceptionalFunction<InputStream, InputStream, IOException> decompressor) throws IOException {
+        Path tempFile = Files.createTempFile("hmcl-", ".tar");
+        TarArchiveReader tarFile;
+        try (InputStream compressedInput = Files.newInputStream(file);
+             InputStream input = decompressor.apply(compressedInput);
+             OutputStream output = Files.newOutputStream(tempFile, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.CREATE)
+        ) {
+            input.transferTo(output);
+            tarFile = new TarArchiveReader(tempFile);
+        } catch (Throwable e) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (Throwable e2) {
+                e.addSuppressed(e2);
+            }
+            throw e;
+        }
+
+        return new TarFileTree(tarFile, tempFile);
+    }
+
     private final Path tempFile;
     private final Thread shutdownHook;
 
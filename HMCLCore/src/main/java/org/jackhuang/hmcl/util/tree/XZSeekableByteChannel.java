@@ -0,0 +1,114 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.util.tree;
+
+import org.tukaani.xz.SeekableXZInputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/// A read-only channel over the uncompressed data of a xz file.
+///
+/// The blocks of the xz file, which are listed in its index, are the checkpoints to seek to,
+/// so seeking decompresses at most the data before the position in the block containing it.
+/// Seeking forward in the current block continues decompressing it without starting over.
+final class XZSeekableByteChannel implements SeekableByteChannel {
+    private final SeekableXZInputStream input;
+    private byte[] buffer;
+    private boolean closed = false;
+
+    XZSeekableByteChannel(SeekableXZInputStream input) {
+        this.input = input;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed)
+            throw new ClosedChannelException();
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (!dst.hasRemaining())
+            return 0;
+
+        if (dst.hasArray()) {
+            int n = input.read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+            if (n > 0)
+                dst.position(dst.position() + n);
+            return n;
+        }
+
+        if (buffer == null)
+            buffer = new byte[8192];
+        int n = input.read(buffer, 0, Math.min(buffer.length, dst.remaining()));
+        if (n > 0)
+            dst.put(buffer, 0, n);
+        return n;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return input.position();
+    }
+
+    @Override
+    public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0)
+            throw new IllegalArgumentException("Negative position: " + newPosition);
+
+        // Readers of the entries set the position before every read
+        if (newPosition != input.position())
+            input.seek(newPosition);
+        return this;
+    }
+
+    @Override
+    public synchronized long size() throws IOException {
+        ensureOpen();
+        return input.length();
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return !closed;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            input.close();
+        }
+    }
+}
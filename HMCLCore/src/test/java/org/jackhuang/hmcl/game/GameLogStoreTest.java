@@ -0,0 +1,137 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.game;
+
+import org.jackhuang.hmcl.util.Log4jLevel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class GameLogStoreTest {
+
+    private static final Log4jLevel[] LEVELS = {Log4jLevel.INFO, Log4jLevel.INFO, Log4jLevel.WARN, Log4jLevel.INFO, Log4jLevel.ERROR, Log4jLevel.DEBUG};
+
+    private static String line(int i) {
+        return "[12:34:56] [Render thread/" + LEVELS[i % LEVELS.length] + "]: Line " + i + " 你好 " + "x".repeat(i % 97);
+    }
+
+    private static void fill(GameLogStore store, int count) {
+        for (int i = 0; i < count; i++) {
+            store.append(line(i), LEVELS[i % LEVELS.length]);
+        }
+    }
+
+    private static void testStore(GameLogStore store) throws IOException {
+        // About 4 MiB, so that several chunks are spilled
+        final int count = 40000;
+        fill(store, count);
+
+        assertEquals(count, store.size());
+        for (int i = 0; i < count; i += 7) {
+            assertEquals(line(i), store.getLine(i));
+            assertEquals(LEVELS[i % LEVELS.length], store.getLevel(i));
+        }
+        assertEquals(line(count - 1), store.getLine(count - 1));
+        assertEquals(count / 6, store.count(Log4jLevel.ERROR));
+
+        GameLogStore.View view = store.newView(EnumSet.of(Log4jLevel.WARN, Log4jLevel.ERROR));
+        assertEquals(count / 3, view.size());
+        for (int i = 0; i < view.size(); i++) {
+            assertEquals(i % 2 == 0 ? i / 2 * 6 + 2 : i / 2 * 6 + 4, view.getLine(i));
+        }
+        assertEquals(1, view.indexOf(4));
+        assertTrue(view.indexOf(3) < 0);
+
+        store.append("new error", Log4jLevel.ERROR);
+        store.append("new info", Log4jLevel.INFO);
+        assertEquals(1, view.update());
+        assertEquals(count, view.getLine(view.size() - 1));
+
+        Set<Log4jLevel> all = EnumSet.allOf(Log4jLevel.class);
+        assertEquals(12345, store.find("LINE 12345 ", 0, all));
+        assertEquals(12345, store.find("line 12345 ", 12345, all));
+        assertEquals(-1, store.find("line 12345 ", 12346, all));
+        assertEquals(-1, store.find("line 12345 ", 0, EnumSet.of(Log4jLevel.WARN)));
+        assertEquals(count, store.find("new error", 0, all));
+        assertEquals(7, store.find("你好", 7, all));
+        assertEquals(-1, store.find("not exists", 0, all));
+
+        store.clear();
+        assertEquals(0, store.size());
+        assertEquals(0, view.update());
+        store.append("after clear", Log4jLevel.WARN);
+        assertEquals("after clear", store.getLine(0));
+        assertEquals(1, store.newView(all).size());
+    }
+
+    @Test
+    public void testFileBacked(@TempDir Path tempDir) throws IOException {
+        try (GameLogStore store = new GameLogStore(tempDir)) {
+            testStore(store);
+        }
+
+        try (var stream = Files.list(tempDir)) {
+            assertEquals(0, stream.count(), "The temporary file should be deleted");
+        }
+    }
+
+    @Test
+    public void testInMemory() throws IOException {
+        try (GameLogStore store = new GameLogStore(null)) {
+            testStore(store);
+        }
+    }
+
+    @Test
+    public void testWriteTo(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("logs.txt");
+        List<String> expected = new ArrayList<>();
+        try (GameLogStore store = new GameLogStore(tempDir)) {
+            fill(store, 3000);
+            for (int i = 0; i < 3000; i++) {
+                expected.add(line(i));
+            }
+
+            try (BufferedWriter writer = Files.newBufferedWriter(file, UTF_8)) {
+                store.writeTo(writer);
+            }
+        }
+        assertEquals(expected, Files.readAllLines(file, UTF_8));
+    }
+
+    @Test
+    public void testClosed() throws IOException {
+        GameLogStore store = new GameLogStore(null);
+        fill(store, 10);
+        store.close();
+        store.append("ignored", Log4jLevel.INFO);
+        assertEquals(0, store.size());
+        assertEquals(-1, store.find("Line", 0, EnumSet.allOf(Log4jLevel.class)));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.mod;
+
+import org.jackhuang.hmcl.util.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class FileHashCacheTest {
+
+    private static final FileTime TIME = FileTime.fromMillis(1700000000000L);
+
+    /// Creates a tree of files like the overrides of a modpack
+    private static List<Path> createFiles(Path root, int count, int size) throws IOException {
+        Random random = new Random(0);
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Path file = root.resolve(switch (i % 3) {
+                case 0 -> "mods/mod-" + i + ".jar";
+                case 1 -> "config/mod-" + i + "/config.toml";
+                default -> "resourcepacks/pack-" + i + ".zip";
+            });
+            Files.createDirectories(file.getParent());
+            byte[] data = new byte[size];
+            random.nextBytes(data);
+            Files.write(file, data);
+            Files.setLastModifiedTime(file, TIME);
+            files.add(file);
+        }
+        return files;
+    }
+
+    @Test
+    public void testHash(@TempDir Path root) throws IOException {
+        List<Path> files = createFiles(root, 30, 1024);
+        Path missing = root.resolve("mods/missing.jar");
+        List<Path> query = new ArrayList<>(files);
+        query.add(missing);
+
+        Path cacheFile = root.resolve(FileHashCache.FILE_NAME);
+        Map<Path, String> hashes = new FileHashCache(cacheFile, root).hash(query);
+        assertEquals(files.size(), hashes.size());
+        assertFalse(hashes.containsKey(missing));
+        for (Path file : files) {
+            assertEquals(DigestUtils.digestToString("SHA-1", file), hashes.get(file));
+        }
+        assertTrue(Files.isRegularFile(cacheFile));
+
+        // Files with the same size and last modified time are not read again
+        Path file = files.get(0);
+        Files.write(file, new byte[1024]);
+        Files.setLastModifiedTime(file, TIME);
+        assertEquals(hashes.get(file), new FileHashCache(cacheFile, root).hash(List.of(file)).get(file));
+
+        // Modified files are hashed again
+        Files.setLastModifiedTime(file, FileTime.fromMillis(TIME.toMillis() + 1000));
+        assertEquals(DigestUtils.digestToString("SHA-1", file), new FileHashCache(cacheFile, root).hash(List.of(file)).get(file));
+    }
+
+    @Test
+    public void testRecentlyModified(@TempDir Path root) throws IOException {
+        Path file = root.resolve("options.txt");
+        Files.writeString(file, "a");
+
+        Path cacheFile = root.resolve(FileHashCache.FILE_NAME);
+        new FileHashCache(cacheFile, root).hash(List.of(file));
+
+        // The file may be modified again without changing its last modified time, so its hash is not cached
+        FileTime lastModified = Files.getLastModifiedTime(file);
+        Files.writeString(file, "b");
+        Files.setLastModifiedTime(file, lastModified);
+        assertEquals(DigestUtils.digestToString("SHA-1", file), new FileHashCache(cacheFile, root).hash(List.of(file)).get(file));
+    }
+
+    @Test
+    public void testBrokenCache(@TempDir Path root) throws IOException {
+        List<Path> files = createFiles(root, 3, 16);
+        Path cacheFile = root.resolve(FileHashCache.FILE_NAME);
+        Files.writeString(cacheFile, "{ broken");
+
+        Map<Path, String> hashes = new FileHashCache(cacheFile, root).hash(files);
+        assertEquals(DigestUtils.digestToString("SHA-1", files.get(2)), hashes.get(files.get(2)));
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "HMCL_BENCHMARK", matches = "true")
+    public void benchmarkHash(@TempDir Path root) throws IOException {
+        List<Path> files = createFiles(root, 3000, 256 * 1024);
+
+        for (int round = 0; round < 3; round++) {
+            long serialTime = System.nanoTime();
+            new FileHashCache(root.resolve("serial-" + round + ".json"), root).hash(files, null);
+            serialTime = System.nanoTime() - serialTime;
+
+            ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            Path cacheFile = root.resolve("parallel-" + round + ".json");
+            long parallelTime = System.nanoTime();
+            try {
+                new FileHashCache(cacheFile, root).hash(files, executor);
+            } finally {
+                executor.shutdown();
+            }
+            parallelTime = System.nanoTime() - parallelTime;
+
+            long cachedTime = System.nanoTime();
+            new FileHashCache(cacheFile, root).hash(files, null);
+            cachedTime = System.nanoTime() - cachedTime;
+
+            System.out.printf("Hashing %d files: serial %d ms, parallel %d ms, cached %d ms%n",
+                    files.size(), serialTime / 1_000_000, parallelTime / 1_000_000, cachedTime / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.mod;
+
+import org.jackhuang.hmcl.game.DefaultGameRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class ModManagerTest {
+
+    private static final String VERSION_ID = "test";
+    private static final Set<ModLoaderType> MOD_LOADERS = EnumSet.of(ModLoaderType.FABRIC);
+
+    static void createFabricMod(Path file, String id, int padding) throws IOException {
+        try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(file))) {
+            output.putNextEntry(new ZipEntry("fabric.mod.json"));
+            output.write(("{\"id\":\"" + id + "\",\"name\":\"Mod " + id + "\",\"version\":\"1.0.0\",\"description\":\"Description of " + id + "\"}").getBytes(UTF_8));
+            output.closeEntry();
+
+            // Make the central directory look like a real mod
+            for (int i = 0; i < padding; i++) {
+                output.putNextEntry(new ZipEntry("com/example/" + id + "/Class" + i + ".class"));
+                output.write(new byte[64]);
+                output.closeEntry();
+            }
+        }
+    }
+
+    static List<Path> createMods(Path modsDirectory, int count, int padding) throws IOException {
+        Files.createDirectories(modsDirectory);
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Path file = modsDirectory.resolve(String.format("mod-%04d.jar", i));
+            createFabricMod(file, "mod" + i, padding);
+            files.add(file);
+        }
+        return files;
+    }
+
+    private static List<String> describe(List<LocalModFile> mods) {
+        List<String> result = new ArrayList<>();
+        for (LocalModFile mod : mods) {
+            result.add(mod.getFileName() + ":" + mod.getId() + ":" + mod.getModLoaderType() + ":" + mod.getName());
+        }
+        return result;
+    }
+
+    private static List<LocalModFile> load(Path baseDirectory, List<Path> files, ExecutorService executor) throws IOException {
+        ModManager modManager = new ModManager(new DefaultGameRepository(baseDirectory), VERSION_ID);
+        modManager.loadModFiles(files, MOD_LOADERS, executor);
+        return modManager.getMods();
+    }
+
+    @Test
+    public void testParallelLoading(@TempDir Path baseDirectory) throws IOException {
+        Path modsDirectory = baseDirectory.resolve("mods");
+        List<Path> files = createMods(modsDirectory, 50, 10);
+
+        // A broken mod should not affect the others
+        Path broken = modsDirectory.resolve("broken.jar");
+        Files.writeString(broken, "not a zip file");
+        files.add(broken);
+        files.add(modsDirectory.resolve("readme.txt"));
+
+        List<String> serial = describe(load(baseDirectory.resolve("serial"), files, null));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<String> parallel = describe(load(baseDirectory.resolve("parallel"), files, executor));
+            assertEquals(serial, parallel);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(51, serial.size());
+        assertEquals("broken:broken:UNKNOWN:broken", serial.get(0));
+        assertEquals("mod-0000:mod0:FABRIC:Mod mod0", serial.get(1));
+        assertEquals("mod-0049:mod49:FABRIC:Mod mod49", serial.get(50));
+    }
+
+    @Test
+    public void testMetadataCache(@TempDir Path baseDirectory) throws IOException {
+        List<Path> files = createMods(baseDirectory.resolve("mods"), 3, 0);
+
+        List<String> expected = describe(load(baseDirectory, files, null));
+        Path cacheFile = baseDirectory.resolve("versions").resolve(VERSION_ID).resolve(ModManager.METADATA_CACHE_FILE_NAME);
+        assertTrue(Files.isRegularFile(cacheFile));
+
+        // Loaded from the cache even though the files are no longer readable as mods
+        for (Path file : files) {
+            FileTime lastModified = Files.getLastModifiedTime(file);
+            long size = Files.size(file);
+            Files.write(file, new byte[(int) size]);
+            Files.setLastModifiedTime(file, lastModified);
+        }
+        assertEquals(expected, describe(load(baseDirectory, files, null)));
+
+        // Changed files are read again
+        Files.setLastModifiedTime(files.get(0), FileTime.fromMillis(0));
+        assertEquals("mod-0000:mod-0000:UNKNOWN:mod-0000", describe(load(baseDirectory, files, null)).get(0));
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "HMCL_BENCHMARK", matches = "true")
+    public void benchmarkLoading(@TempDir Path baseDirectory) throws IOException {
+        List<Path> files = createMods(baseDirectory.resolve("mods"), 500, 500);
+
+        for (int round = 0; round < 3; round++) {
+            long serialTime = System.nanoTime();
+            load(baseDirectory.resolve("serial-" + round), files, null);
+            serialTime = System.nanoTime() - serialTime;
+
+            ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            long parallelTime = System.nanoTime();
+            try {
+                load(baseDirectory.resolve("parallel-" + round), files, executor);
+            } finally {
+                executor.shutdown();
+            }
+            parallelTime = System.nanoTime() - parallelTime;
+
+            long cachedTime = System.nanoTime();
+            load(baseDirectory.resolve("parallel-" + round), files, null);
+            cachedTime = System.nanoTime() - cachedTime;
+
+            System.out.printf("Loading %d mods: serial %d ms, parallel %d ms, cached %d ms%n",
+                    files.size(), serialTime / 1_000_000, parallelTime / 1_000_000, cachedTime / 1_000_000);
+        }
+    }
+}
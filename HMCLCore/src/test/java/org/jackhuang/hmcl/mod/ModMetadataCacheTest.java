@@ -0,0 +1,108 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.mod;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class ModMetadataCacheTest {
+
+    @Test
+    public void testGetKey(@TempDir Path dir) {
+        Path mods = dir.resolve("mods");
+        assertEquals("foo.jar", ModMetadataCache.getKey(mods, mods.resolve("foo.jar")));
+        assertEquals("foo.jar", ModMetadataCache.getKey(mods, mods.resolve("foo.jar.disabled")));
+        assertEquals("foo.jar.old", ModMetadataCache.getKey(mods, mods.resolve("foo.jar.old")));
+        assertEquals("1.20/foo.jar", ModMetadataCache.getKey(mods, mods.resolve("1.20").resolve("foo.jar")));
+    }
+
+    @Test
+    public void testPersist(@TempDir Path dir) {
+        Path cacheFile = dir.resolve(ModManager.METADATA_CACHE_FILE_NAME);
+        Path modFile = dir.resolve("mods").resolve("foo.jar");
+        Set<ModLoaderType> modLoaders = EnumSet.of(ModLoaderType.FABRIC);
+
+        ModManager modManager = new ModManager(null, "test");
+        LocalModFile original = new LocalModFile(modManager, modManager.getLocalMod("foo", ModLoaderType.FABRIC), modFile, "Foo",
+                new LocalModFile.Description(List.of(new LocalModFile.Description.Part("Hello ", "red"), new LocalModFile.Description.Part("World"))),
+                "Author", "1.0.0", "1.20.1", "https://example.com", "assets/foo/icon.png");
+
+        ModMetadataCache cache = new ModMetadataCache(cacheFile);
+        cache.load(modLoaders);
+        cache.put("foo.jar", 100, 1000, original);
+        cache.save();
+        assertTrue(Files.isRegularFile(cacheFile));
+
+        ModMetadataCache loaded = new ModMetadataCache(cacheFile);
+        loaded.load(modLoaders);
+        assertNull(loaded.get("foo.jar", 101, 1000));
+        assertNull(loaded.get("foo.jar", 100, 1001));
+        assertNull(loaded.get("bar.jar", 100, 1000));
+
+        ModMetadataCache.Entry entry = loaded.get("foo.jar", 100, 1000);
+        assertNotNull(entry);
+
+        ModManager newModManager = new ModManager(null, "test");
+        LocalModFile restored = entry.toLocalModFile(newModManager, modFile);
+        assertEquals("foo", restored.getId());
+        assertEquals(ModLoaderType.FABRIC, restored.getModLoaderType());
+        assertEquals("Foo", restored.getName());
+        assertEquals("Hello World", restored.getDescription().toString());
+        assertEquals("red", restored.getDescription().getParts().get(0).getColor());
+        assertEquals("Author", restored.getAuthors());
+        assertEquals("1.0.0", restored.getVersion());
+        assertEquals("1.20.1", restored.getGameVersion());
+        assertEquals("https://example.com", restored.getUrl());
+        assertEquals("assets/foo/icon.png", restored.getLogoPath());
+        assertTrue(newModManager.getLocalMod("foo", ModLoaderType.FABRIC).getFiles().contains(restored));
+
+        loaded.retainAll(Set.of());
+        assertNull(loaded.get("foo.jar", 100, 1000));
+    }
+
+    @Test
+    public void testInvalidation(@TempDir Path dir) throws Exception {
+        Path cacheFile = dir.resolve(ModManager.METADATA_CACHE_FILE_NAME);
+        ModManager modManager = new ModManager(null, "test");
+        LocalModFile modFile = new LocalModFile(modManager, modManager.getLocalMod("foo", ModLoaderType.FORGE),
+                dir.resolve("foo.jar"), "Foo", new LocalModFile.Description(""));
+
+        ModMetadataCache cache = new ModMetadataCache(cacheFile);
+        cache.load(EnumSet.of(ModLoaderType.FORGE));
+        cache.put("foo.jar", 1, 1, modFile);
+        cache.save();
+
+        // The metadata read from a file depends on the installed mod loaders
+        ModMetadataCache other = new ModMetadataCache(cacheFile);
+        other.load(EnumSet.of(ModLoaderType.FORGE, ModLoaderType.FABRIC));
+        assertNull(other.get("foo.jar", 1, 1));
+
+        Files.writeString(cacheFile, "{ broken");
+        ModMetadataCache broken = new ModMetadataCache(cacheFile);
+        broken.load(EnumSet.of(ModLoaderType.FORGE));
+        assertNull(broken.get("foo.jar", 1, 1));
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.mod;
+
+import org.jackhuang.hmcl.util.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class ModpackInstallTaskTest {
+
+    private static void createModpack(Path file, Map<String, String> entries) throws IOException {
+        try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(file))) {
+            output.putNextEntry(new ZipEntry("overrides/config/"));
+            output.closeEntry();
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                output.putNextEntry(new ZipEntry(entry.getKey()));
+                output.write(entry.getValue().getBytes(UTF_8));
+                output.closeEntry();
+            }
+        }
+    }
+
+    private static String sha1(String content) throws IOException {
+        return DigestUtils.digestToString("SHA-1", content.getBytes(UTF_8));
+    }
+
+    private static Map<String, String> toMap(List<ModpackConfiguration.FileInformation> overrides) {
+        Map<String, String> result = new TreeMap<>();
+        for (ModpackConfiguration.FileInformation file : overrides) {
+            result.put(file.getPath(), file.getHash());
+        }
+        return result;
+    }
+
+    private static ModpackInstallTask<Void> install(Path modpack, Path dest, ModpackConfiguration<Void> oldConfiguration) throws Exception {
+        ModpackInstallTask<Void> task = new ModpackInstallTask<>(modpack, dest, UTF_8, List.of("/overrides"),
+                path -> !"pack.json".equals(path), oldConfiguration);
+        task.execute();
+        return task;
+    }
+
+    @Test
+    public void testInstall(@TempDir Path dir) throws Exception {
+        Path modpack = dir.resolve("modpack.zip");
+        Path dest = dir.resolve("run");
+
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("manifest.json", "{}");
+        entries.put("overrides/pack.json", "pack");
+        entries.put("overrides/options.txt", "options");
+        entries.put("overrides/config/a.toml", "a");
+        entries.put("overrides/config/b.toml", "b");
+        createModpack(modpack, entries);
+
+        ModpackInstallTask<Void> task = install(modpack, dest, null);
+        assertEquals("options", Files.readString(dest.resolve("options.txt")));
+        assertEquals("a", Files.readString(dest.resolve("config/a.toml")));
+        assertFalse(Files.exists(dest.resolve("pack.json")));
+
+        // Files which are not unpacked are recorded as well
+        assertEquals(Map.of(
+                "pack.json", sha1("pack"),
+                "options.txt", sha1("options"),
+                "config/a.toml", sha1("a"),
+                "config/b.toml", sha1("b")
+        ), toMap(task.getNewOverrides()));
+    }
+
+    @Test
+    public void testUpdate(@TempDir Path dir) throws Exception {
+        Path modpack = dir.resolve("modpack.zip");
+        Path dest = dir.resolve("run");
+
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("overrides/modified.txt", "old");
+        entries.put("overrides/unmodified.txt", "old");
+        entries.put("overrides/deleted.txt", "old");
+        entries.put("overrides/removed.txt", "old");
+        entries.put("overrides/added.txt", "old");
+        createModpack(modpack, entries);
+        ModpackConfiguration<Void> oldConfiguration = new ModpackConfiguration<Void>()
+                .setOverrides(install(modpack, dest, null).getNewOverrides());
+
+        Files.writeString(dest.resolve("modified.txt"), "user");
+        Files.delete(dest.resolve("deleted.txt"));
+        Files.writeString(dest.resolve("user.txt"), "user");
+
+        entries.clear();
+        entries.put("overrides/modified.txt", "new");
+        entries.put("overrides/unmodified.txt", "new");
+        entries.put("overrides/deleted.txt", "new");
+        entries.put("overrides/added.txt", "old");
+        entries.put("overrides/user.txt", "new");
+        createModpack(modpack, entries);
+        ModpackInstallTask<Void> task = install(modpack, dest, oldConfiguration);
+
+        // Files modified by the user are kept
+        assertEquals("user", Files.readString(dest.resolve("modified.txt")));
+        assertEquals("new", Files.readString(dest.resolve("unmodified.txt")));
+        // Files deleted by the user stay missing
+        assertFalse(Files.exists(dest.resolve("deleted.txt")));
+        // Files removed from the modpack are deleted
+        assertFalse(Files.exists(dest.resolve("removed.txt")));
+        assertEquals("old", Files.readString(dest.resolve("added.txt")));
+        // Files which were not in the old modpack are overwritten
+        assertEquals("new", Files.readString(dest.resolve("user.txt")));
+
+        assertEquals(Map.of(
+                "modified.txt", sha1("new"),
+                "unmodified.txt", sha1("new"),
+                "deleted.txt", sha1("new"),
+                "added.txt", sha1("old"),
+                "user.txt", sha1("new")
+        ), toMap(task.getNewOverrides()));
+    }
+}
@@ -17,15 +17,33 @@
  */
 package org.jackhuang.hmcl.mod.curse;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jackhuang.hmcl.mod.LocalModFile;
+import org.jackhuang.hmcl.mod.ModLoaderType;
+import org.jackhuang.hmcl.mod.ModManager;
+import org.jackhuang.hmcl.mod.RemoteMod;
+import org.jackhuang.hmcl.mod.RemoteModRepository;
 import org.jackhuang.hmcl.util.MurmurHash2;
+import org.jackhuang.hmcl.util.gson.JsonUtils;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.InetSocketAddress;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.*;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class CurseForgeRemoteModRepositoryTest {
@@ -51,4 +69,265 @@ public class CurseForgeRemoteModRepositoryTest {
 
         assertEquals(hash, 3333498611L);
     }
+
+    /// The fingerprint computed by copying the content without whitespace into memory, as it was done before.
+    private static long getFingerprintInMemory(byte[] data) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        for (byte b : data) {
+            if (b != 9 && b != 10 && b != 13 && b != 32) {
+                baos.write(b);
+            }
+        }
+        return Integer.toUnsignedLong(MurmurHash2.hash32(baos.toByteArray(), baos.size(), 1));
+    }
+
+    @Test
+    public void testFingerprint(@TempDir Path dir) throws IOException {
+        Random random = new Random(0);
+        byte[] whitespace = {9, 10, 13, 32};
+        Path file = dir.resolve("test.jar");
+        for (int round = 0; round < 200; round++) {
+            // Mix random bytes with runs of whitespace, and cross the buffer boundaries
+            byte[] data = new byte[random.nextInt(round < 100 ? 64 : 100000)];
+            random.nextBytes(data);
+            for (int i = 0; i < data.length; i++) {
+                if (random.nextInt(4) == 0)
+                    data[i] = whitespace[random.nextInt(whitespace.length)];
+            }
+
+            Files.write(file, data);
+            assertEquals(getFingerprintInMemory(data), CurseForgeRemoteModRepository.getFingerprint(file), "length " + data.length);
+
+            byte[] padded = new byte[data.length + 2];
+            System.arraycopy(data, 0, padded, 1, data.length);
+            assertEquals(getFingerprintInMemory(data), CurseForgeRemoteModRepository.getFingerprint(padded, 1, data.length), "length " + data.length);
+        }
+
+        Files.writeString(file, " \t\r\n");
+        assertEquals(getFingerprintInMemory(new byte[0]), CurseForgeRemoteModRepository.getFingerprint(file));
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "HMCL_BENCHMARK", matches = "true")
+    public void benchmarkFingerprint(@TempDir Path dir) throws IOException {
+        byte[] data = new byte[64 * 1024 * 1024];
+        new Random(0).nextBytes(data);
+        Path file = dir.resolve("test.jar");
+        Files.write(file, data);
+
+        for (int round = 0; round < 5; round++) {
+            long inMemoryTime = System.nanoTime();
+            long expected = getFingerprintInMemory(Files.readAllBytes(file));
+            inMemoryTime = System.nanoTime() - inMemoryTime;
+
+            long streamingTime = System.nanoTime();
+            long actual = CurseForgeRemoteModRepository.getFingerprint(file);
+            streamingTime = System.nanoTime() - streamingTime;
+
+            assertEquals(expected, actual);
+            System.out.printf("Fingerprint of %d MiB: in memory %.1f MiB/s, streaming %.1f MiB/s%n",
+                    data.length >> 20,
+                    (data.length >> 20) / (inMemoryTime / 1e9),
+                    (data.length >> 20) / (streamingTime / 1e9));
+        }
+    }
+
+    /// A stub of the fingerprint and bulk endpoints of CurseForge, which records the ids of each request.
+    private static final class StubServer implements AutoCloseable {
+        private final HttpServer server;
+        private final Map<Long, JsonObject> files = new HashMap<>();
+        private final List<List<Long>> requests = Collections.synchronizedList(new ArrayList<>());
+
+        StubServer() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/v1/fingerprints/432", this::handle);
+            server.createContext("/v1/mods/files", exchange -> handleBulk(exchange, "fileIds", "id"));
+            server.createContext("/v1/mods", exchange -> handleBulk(exchange, "modIds", "modId"));
+            server.start();
+        }
+
+        String getPrefix() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            JsonObject request = JsonUtils.GSON.fromJson(new String(exchange.getRequestBody().readAllBytes(), UTF_8), JsonObject.class);
+
+            List<Long> fingerprints = new ArrayList<>();
+            JsonArray exactMatches = new JsonArray();
+            JsonArray exactFingerprints = new JsonArray();
+            for (JsonElement element : request.getAsJsonArray("fingerprints")) {
+                long fingerprint = element.getAsLong();
+                fingerprints.add(fingerprint);
+
+                JsonObject file = files.get(fingerprint);
+                if (file != null) {
+                    JsonObject match = new JsonObject();
+                    match.addProperty("id", file.get("modId").getAsInt());
+                    match.add("file", file);
+                    match.add("latestFiles", new JsonArray());
+                    exactMatches.add(match);
+                    exactFingerprints.add(fingerprint);
+                }
+            }
+            requests.add(fingerprints);
+
+            JsonObject data = new JsonObject();
+            data.addProperty("isCacheBuilt", true);
+            data.add("exactMatches", exactMatches);
+            data.add("exactFingerprints", exactFingerprints);
+            JsonObject response = new JsonObject();
+            response.add("data", data);
+
+            respond(exchange, response);
+        }
+
+        /// Responds with the files, or the mods of the files, whose ids are requested
+        private void handleBulk(HttpExchange exchange, String idsKey, String idKey) throws IOException {
+            JsonObject request = JsonUtils.GSON.fromJson(new String(exchange.getRequestBody().readAllBytes(), UTF_8), JsonObject.class);
+
+            List<Long> ids = new ArrayList<>();
+            for (JsonElement element : request.getAsJsonArray(idsKey)) {
+                ids.add(element.getAsLong());
+            }
+            requests.add(ids);
+
+            JsonArray data = new JsonArray();
+            Set<Long> found = new HashSet<>();
+            for (JsonObject file : files.values()) {
+                long id = file.get(idKey).getAsLong();
+                if (ids.contains(id) && found.add(id)) {
+                    if (idKey.equals("id")) {
+                        data.add(file);
+                    } else {
+                        JsonObject mod = new JsonObject();
+                        mod.addProperty("id", id);
+                        mod.addProperty("classId", CurseForgeRemoteModRepository.SECTION_MOD);
+                        data.add(mod);
+                    }
+                }
+            }
+
+            JsonObject response = new JsonObject();
+            response.add("data", data);
+            respond(exchange, response);
+        }
+
+        private static void respond(HttpExchange exchange, JsonObject response) throws IOException {
+            byte[] bytes = response.toString().getBytes(UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        }
+
+        void addFile(int modId, Path file) throws IOException {
+            long fingerprint = CurseForgeRemoteModRepository.getFingerprint(file);
+
+            JsonObject latestFile = new JsonObject();
+            latestFile.addProperty("id", modId * 10);
+            latestFile.addProperty("gameId", 432);
+            latestFile.addProperty("modId", modId);
+            latestFile.addProperty("isAvailable", true);
+            latestFile.addProperty("displayName", "Mod " + modId);
+            latestFile.addProperty("fileName", file.getFileName().toString());
+            latestFile.addProperty("releaseType", 1);
+            latestFile.addProperty("fileStatus", 4);
+            latestFile.add("hashes", new JsonArray());
+            latestFile.addProperty("fileDate", "2024-01-01T00:00:00Z");
+            latestFile.addProperty("fileLength", Files.size(file));
+            latestFile.addProperty("downloadCount", 0);
+            latestFile.addProperty("downloadUrl", "https://edge.forgecdn.net/files/" + file.getFileName());
+            latestFile.add("gameVersions", JsonUtils.GSON.toJsonTree(List.of("1.20.1", "Fabric")));
+            latestFile.add("dependencies", new JsonArray());
+            latestFile.addProperty("alternateFileId", 0);
+            latestFile.addProperty("isServerPack", false);
+            latestFile.addProperty("fileFingerprint", fingerprint);
+            files.put(fingerprint, latestFile);
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+        }
+    }
+
+    private static List<LocalModFile> createMods(Path dir, int count) throws IOException {
+        ModManager modManager = new ModManager(null, "test");
+        List<LocalModFile> mods = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Path file = dir.resolve("mod" + i + ".jar");
+            Files.writeString(file, "content of mod " + i);
+            mods.add(new LocalModFile(modManager, modManager.getLocalMod("mod" + i, ModLoaderType.FABRIC), file, "mod" + i, new LocalModFile.Description("")));
+        }
+        return mods;
+    }
+
+    @Test
+    public void testMatchFingerprints(@TempDir Path dir) throws IOException {
+        List<LocalModFile> mods = createMods(dir, 3);
+
+        try (StubServer server = new StubServer()) {
+            server.addFile(100, mods.get(0).getFile());
+            server.addFile(101, mods.get(1).getFile());
+
+            CurseForgeRemoteModRepository repository = new CurseForgeRemoteModRepository(RemoteModRepository.Type.MOD, CurseForgeRemoteModRepository.SECTION_MOD, server.getPrefix());
+            Map<Path, RemoteMod.Version> versions = repository.getRemoteVersionsByLocalFiles(mods);
+            assertEquals(Set.of(mods.get(0).getFile(), mods.get(1).getFile()), versions.keySet());
+            assertEquals("100", versions.get(mods.get(0).getFile()).getModid());
+            assertEquals("101", versions.get(mods.get(1).getFile()).getModid());
+            assertEquals(1, server.requests.size());
+            assertEquals(3, server.requests.get(0).size());
+
+            // Later lookups in the same operation reuse the matches
+            Optional<RemoteMod.Version> version = repository.getRemoteVersionByLocalFile(mods.get(1), mods.get(1).getFile());
+            assertEquals("101", version.orElseThrow().getModid());
+            assertFalse(repository.getRemoteVersionByLocalFile(mods.get(2), mods.get(2).getFile()).isPresent());
+            assertEquals(1, server.requests.size());
+        }
+    }
+
+    @Test
+    public void testMatchManyFingerprints(@TempDir Path dir) throws IOException {
+        List<LocalModFile> mods = createMods(dir, 1200);
+
+        try (StubServer server = new StubServer()) {
+            for (int i = 0; i < mods.size(); i += 3) {
+                server.addFile(i, mods.get(i).getFile());
+            }
+
+            CurseForgeRemoteModRepository repository = new CurseForgeRemoteModRepository(RemoteModRepository.Type.MOD, CurseForgeRemoteModRepository.SECTION_MOD, server.getPrefix());
+            Map<Path, RemoteMod.Version> versions = repository.getRemoteVersionsByLocalFiles(mods);
+            assertEquals(400, versions.size());
+            assertEquals(List.of(500, 500, 200), server.requests.stream().map(List::size).toList());
+        }
+    }
+
+    @Test
+    public void testGetModFiles(@TempDir Path dir) throws IOException {
+        List<LocalModFile> mods = createMods(dir, 1200);
+
+        try (StubServer server = new StubServer()) {
+            List<Integer> fileIds = new ArrayList<>();
+            for (int i = 0; i < mods.size(); i++) {
+                if (i % 3 == 0)
+                    server.addFile(i, mods.get(i).getFile());
+                fileIds.add(i * 10);
+            }
+
+            CurseForgeRemoteModRepository repository = new CurseForgeRemoteModRepository(RemoteModRepository.Type.MOD, CurseForgeRemoteModRepository.SECTION_MOD, server.getPrefix());
+            Map<Integer, CurseAddon.LatestFile> files = repository.getModFiles(fileIds);
+            assertEquals(400, files.size());
+            assertEquals("mod3.jar", files.get(30).getFileName());
+            assertEquals(3, files.get(30).getModId());
+            assertNull(files.get(10));
+            assertEquals(List.of(500, 500, 200), server.requests.stream().map(List::size).toList());
+
+            server.requests.clear();
+            Map<Integer, CurseAddon> addons = repository.getModsByIds(List.of(0, 1, 3, 3, 6));
+            assertEquals(Set.of(0, 3, 6), addons.keySet());
+            assertEquals(CurseForgeRemoteModRepository.SECTION_MOD, addons.get(3).getClassId());
+            assertEquals(List.of(List.of(0L, 1L, 3L, 6L)), server.requests);
+        }
+    }
 }
@@ -0,0 +1,272 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.mod.modrinth;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jackhuang.hmcl.download.DownloadProvider;
+import org.jackhuang.hmcl.download.VersionList;
+import org.jackhuang.hmcl.mod.LocalModFile;
+import org.jackhuang.hmcl.mod.ModLoaderType;
+import org.jackhuang.hmcl.mod.ModManager;
+import org.jackhuang.hmcl.mod.RemoteMod;
+import org.jackhuang.hmcl.util.DigestUtils;
+import org.jackhuang.hmcl.util.gson.JsonUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class ModrinthRemoteModRepositoryTest {
+
+    private static final String GAME_VERSION = "1.20.1";
+
+    /// A stub of the bulk hash endpoints of Modrinth, which records the requests it receives.
+    private static final class StubServer implements AutoCloseable {
+        private final HttpServer server;
+        private final Map<String, JsonObject> currentVersions = new HashMap<>();
+        private final Map<String, Map<String, JsonObject>> latestVersions = new HashMap<>();
+        private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+        StubServer() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/v2/version_files", this::handle);
+            server.start();
+        }
+
+        String getPrefix() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            JsonObject request = JsonUtils.GSON.fromJson(new String(exchange.getRequestBody().readAllBytes(), UTF_8), JsonObject.class);
+            String path = exchange.getRequestURI().getPath();
+            assertEquals("POST", exchange.getRequestMethod());
+            assertEquals("sha1", request.get("algorithm").getAsString());
+
+            JsonObject response = new JsonObject();
+            if (path.equals("/v2/version_files")) {
+                requests.add(path);
+                for (JsonElement hash : request.getAsJsonArray("hashes")) {
+                    JsonObject version = currentVersions.get(hash.getAsString());
+                    if (version != null)
+                        response.add(hash.getAsString(), version);
+                }
+            } else {
+                JsonArray loaders = request.getAsJsonArray("loaders");
+                assertEquals(1, loaders.size());
+                assertEquals(GAME_VERSION, request.getAsJsonArray("game_versions").get(0).getAsString());
+
+                String loader = loaders.get(0).getAsString();
+                requests.add(path + "?loader=" + loader);
+                for (JsonElement hash : request.getAsJsonArray("hashes")) {
+                    JsonObject version = latestVersions.getOrDefault(loader, Map.of()).get(hash.getAsString());
+                    if (version != null)
+                        response.add(hash.getAsString(), version);
+                }
+            }
+
+            byte[] bytes = response.toString().getBytes(UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+        }
+    }
+
+    private static JsonObject version(String projectId, String versionNumber, String datePublished, String loader, String sha1) {
+        JsonObject hashes = new JsonObject();
+        hashes.addProperty("sha1", sha1);
+
+        JsonObject file = new JsonObject();
+        file.add("hashes", hashes);
+        file.addProperty("url", "https://cdn.modrinth.com/data/" + projectId + "/" + versionNumber + ".jar");
+        file.addProperty("filename", projectId + "-" + versionNumber + ".jar");
+        file.addProperty("primary", true);
+        file.addProperty("size", 1);
+
+        JsonObject version = new JsonObject();
+        version.addProperty("id", projectId + "-" + versionNumber);
+        version.addProperty("project_id", projectId);
+        version.addProperty("name", versionNumber);
+        version.addProperty("version_number", versionNumber);
+        version.addProperty("version_type", "release");
+        version.addProperty("date_published", datePublished);
+        version.add("game_versions", JsonUtils.GSON.toJsonTree(List.of(GAME_VERSION)));
+        version.add("loaders", JsonUtils.GSON.toJsonTree(List.of(loader)));
+        version.add("files", JsonUtils.GSON.toJsonTree(List.of(file)));
+        version.add("dependencies", new JsonArray());
+        return version;
+    }
+
+    private static LocalModFile createMod(ModManager modManager, Path dir, String id, ModLoaderType modLoaderType) throws IOException {
+        Path file = dir.resolve(id + ".jar");
+        Files.writeString(file, "content of " + id);
+        return new LocalModFile(modManager, modManager.getLocalMod(id, modLoaderType), file, id, new LocalModFile.Description(""));
+    }
+
+    private static String sha1(LocalModFile mod) throws IOException {
+        return DigestUtils.digestToString("SHA-1", mod.getFile());
+    }
+
+    @Test
+    public void testCheckUpdates(@TempDir Path dir) throws IOException {
+        ModManager modManager = new ModManager(null, "test");
+        LocalModFile outdated = createMod(modManager, dir, "outdated", ModLoaderType.FABRIC);
+        LocalModFile latest = createMod(modManager, dir, "latest", ModLoaderType.FABRIC);
+        LocalModFile unknown = createMod(modManager, dir, "unknown", ModLoaderType.FABRIC);
+        LocalModFile forge = createMod(modManager, dir, "forge", ModLoaderType.FORGE);
+
+        try (StubServer server = new StubServer()) {
+            server.currentVersions.put(sha1(outdated), version("outdated", "1.0", "2024-01-01T00:00:00Z", "fabric", sha1(outdated)));
+            server.currentVersions.put(sha1(latest), version("latest", "1.0", "2024-01-01T00:00:00Z", "fabric", sha1(latest)));
+            server.currentVersions.put(sha1(forge), version("forge", "1.0", "2024-01-01T00:00:00Z", "forge", sha1(forge)));
+
+            server.latestVersions.put("fabric", Map.of(
+                    sha1(outdated), version("outdated", "2.0", "2024-06-01T00:00:00Z", "fabric", "0000"),
+                    sha1(latest), version("latest", "1.0", "2024-01-01T00:00:00Z", "fabric", sha1(latest))
+            ));
+            server.latestVersions.put("forge", Map.of(
+                    sha1(forge), version("forge", "3.0", "2024-06-01T00:00:00Z", "forge", "1111")
+            ));
+
+            ModrinthRemoteModRepository repository = new ModrinthRemoteModRepository("mod", server.getPrefix());
+            Map<Path, LocalModFile.ModUpdate> updates = repository.checkUpdates(null, GAME_VERSION, List.of(outdated, latest, unknown, forge));
+
+            assertEquals(Set.of(outdated.getFile(), forge.getFile()), updates.keySet());
+            LocalModFile.ModUpdate update = updates.get(outdated.getFile());
+            assertSame(outdated, update.getLocalMod());
+            assertEquals("1.0", update.getCurrentVersion().getVersion());
+            assertEquals("2.0", update.getCandidate().getVersion());
+            assertEquals("3.0", updates.get(forge.getFile()).getCandidate().getVersion());
+
+            // One lookup of all files, then one update lookup for each mod loader
+            assertEquals(List.of("/v2/version_files", "/v2/version_files/update?loader=fabric", "/v2/version_files/update?loader=forge"), server.requests);
+        }
+    }
+
+    @Test
+    public void testCheckUpdatesWithDownloadProvider(@TempDir Path dir) throws IOException {
+        ModManager modManager = new ModManager(null, "test");
+        LocalModFile outdated = createMod(modManager, dir, "outdated", ModLoaderType.FABRIC);
+
+        try (StubServer server = new StubServer()) {
+            server.currentVersions.put(sha1(outdated), version("outdated", "1.0", "2024-01-01T00:00:00Z", "fabric", sha1(outdated)));
+            server.latestVersions.put("fabric", Map.of(
+                    sha1(outdated), version("outdated", "2.0", "2024-06-01T00:00:00Z", "fabric", "0000")
+            ));
+
+            // The first candidate can't be connected to, so the requests fall back to the stub server
+            String prefix = "https://api.modrinth.invalid";
+            DownloadProvider downloadProvider = new DownloadProvider() {
+                @Override
+                public List<URI> getVersionListURLs() {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public List<URI> getAssetObjectCandidates(String assetObjectLocation) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public String injectURL(String baseURL) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public List<URI> injectURLWithCandidates(String baseURL) {
+                    assertTrue(baseURL.startsWith(prefix));
+                    String path = baseURL.substring(prefix.length());
+                    return List.of(URI.create("http://127.0.0.1:1" + path), URI.create(server.getPrefix() + path));
+                }
+
+                @Override
+                public VersionList<?> getVersionListById(String id) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int getConcurrency() {
+                    return 1;
+                }
+            };
+
+            ModrinthRemoteModRepository repository = new ModrinthRemoteModRepository("mod", prefix);
+            Map<Path, LocalModFile.ModUpdate> updates = repository.checkUpdates(downloadProvider, GAME_VERSION, List.of(outdated));
+
+            assertEquals(Set.of(outdated.getFile()), updates.keySet());
+            assertEquals("2.0", updates.get(outdated.getFile()).getCandidate().getVersion());
+            assertEquals(List.of("/v2/version_files", "/v2/version_files/update?loader=fabric"), server.requests);
+        }
+    }
+
+    @Test
+    public void testGetRemoteVersionsByLocalFiles(@TempDir Path dir) throws IOException {
+        ModManager modManager = new ModManager(null, "test");
+        List<LocalModFile> mods = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            mods.add(createMod(modManager, dir, "mod" + i, ModLoaderType.FABRIC));
+        }
+
+        try (StubServer server = new StubServer()) {
+            for (int i = 0; i < mods.size(); i += 2) {
+                String sha1 = sha1(mods.get(i));
+                server.currentVersions.put(sha1, version("mod" + i, "1.0", "2024-01-01T00:00:00Z", "fabric", sha1));
+            }
+
+            ModrinthRemoteModRepository repository = new ModrinthRemoteModRepository("mod", server.getPrefix());
+            Map<Path, RemoteMod.Version> versions = repository.getRemoteVersionsByLocalFiles(mods);
+
+            assertEquals(600, versions.size());
+            assertEquals("mod0", versions.get(mods.get(0).getFile()).getModid());
+            assertNull(versions.get(mods.get(1).getFile()));
+            assertEquals(3, server.requests.size());
+        }
+    }
+
+    @Test
+    public void testGetRemoteVersionsBySha1() throws IOException {
+        try (StubServer server = new StubServer()) {
+            server.currentVersions.put("1111", version("known", "1.0", "2024-01-01T00:00:00Z", "fabric", "1111"));
+
+            ModrinthRemoteModRepository repository = new ModrinthRemoteModRepository("mod", server.getPrefix());
+            Map<String, RemoteMod.Version> versions = repository.getRemoteVersionsBySha1(List.of("1111", "2222", "1111"));
+
+            assertEquals(Set.of("1111"), versions.keySet());
+            assertEquals("known", versions.get("1111").getModid());
+            assertEquals(List.of("/v2/version_files"), server.requests);
+        }
+    }
+}
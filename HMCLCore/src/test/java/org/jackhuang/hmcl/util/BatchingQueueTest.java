@@ -0,0 +1,78 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class BatchingQueueTest {
+
+    @Test
+    public void testDeliverInOrder() throws InterruptedException {
+        List<String> received = new ArrayList<>();
+        BatchingQueue<String> queue = new BatchingQueue<>(100000, 64, received::addAll, n -> "dropped " + n);
+
+        Thread thread = new Thread(queue);
+        thread.start();
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(queue.offer(String.valueOf(i)));
+        }
+        queue.close();
+        thread.join();
+
+        assertEquals(IntStream.range(0, 10000).mapToObj(String::valueOf).collect(Collectors.toList()), received);
+        assertFalse(queue.offer("closed"));
+
+        BatchingQueue.Metrics metrics = queue.getMetrics();
+        assertEquals(0, metrics.queueDepth());
+        assertEquals(10000, metrics.deliveredCount());
+        assertEquals(0, metrics.droppedCount());
+        assertTrue(metrics.batchCount() >= 10000 / 64);
+    }
+
+    @Test
+    public void testDropSummary() {
+        List<List<String>> batches = new ArrayList<>();
+        BatchingQueue<String> queue = new BatchingQueue<>(10, 4, batch -> batches.add(new ArrayList<>(batch)), n -> "dropped " + n);
+
+        for (int i = 0; i < 15; i++) {
+            assertEquals(i < 10, queue.offer(String.valueOf(i)));
+        }
+        queue.add("exit");
+        assertFalse(queue.offer("dropped after exit"));
+        queue.close();
+        queue.run();
+
+        assertEquals(List.of(
+                List.of("0", "1", "2", "3"),
+                List.of("4", "5", "6", "7"),
+                List.of("8", "9", "dropped 5", "exit", "dropped 1")
+        ), batches);
+
+        BatchingQueue.Metrics metrics = queue.getMetrics();
+        assertEquals(11, metrics.maxQueueDepth());
+        assertEquals(6, metrics.droppedCount());
+        assertEquals(3, metrics.batchCount());
+    }
+}
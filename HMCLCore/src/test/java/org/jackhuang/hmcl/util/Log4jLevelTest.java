@@ -0,0 +1,147 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+
+import static org.jackhuang.hmcl.util.Log4jLevel.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public final class Log4jLevelTest {
+
+    /// The regex based implementation which [Log4jLevel#guessLevel(String)] replaced
+    private static Log4jLevel guessLevelByRegex(String line) {
+        Log4jLevel level = null;
+        Matcher m = MINECRAFT_LOGGER.matcher(line);
+        if (m.find()) {
+            String levelStr = m.group("level");
+            if (null != levelStr)
+                switch (levelStr) {
+                    case "INFO" -> level = INFO;
+                    case "WARN" -> level = WARN;
+                    case "ERROR" -> level = ERROR;
+                    case "FATAL" -> level = FATAL;
+                    case "TRACE" -> level = TRACE;
+                    case "DEBUG" -> level = DEBUG;
+                }
+            Matcher m2 = MINECRAFT_LOGGER_CATEGORY.matcher(line);
+            if (m2.find()) {
+                String level2Str = m2.group("category");
+                if (null != level2Str)
+                    switch (level2Str) {
+                        case "STDOUT" -> level = INFO;
+                        case "STDERR" -> level = ERROR;
+                    }
+            }
+
+            if (line.contains("STDERR]") || line.contains("[STDERR/]")) {
+                level = ERROR;
+            }
+        } else {
+            if (line.contains("[INFO]") || line.contains("[CONFIG]") || line.contains("[FINE]")
+                    || line.contains("[FINER]") || line.contains("[FINEST]"))
+                level = INFO;
+            if (line.contains("[SEVERE]") || line.contains("[STDERR]"))
+                level = ERROR;
+            if (line.contains("[WARNING]"))
+                level = WARN;
+            if (line.contains("[DEBUG]"))
+                level = DEBUG;
+        }
+        if (line.contains("overwriting existing"))
+            level = FATAL;
+        return level;
+    }
+
+    private static final List<String> SAMPLES = List.of(
+            "[12:34:56] [Render thread/INFO]: Setting user: Steve",
+            "[12:34:56] [Render thread/WARN]: Missing sound for event: minecraft:item.goat_horn.play",
+            "[12:34:56] [Server thread/ERROR]: Encountered an unexpected exception",
+            "[12:34:56] [main/FATAL]: Unable to launch",
+            "[12:34:56] [main/DEBUG] [mixin/]: Mixing ...",
+            "[12:34:56] [main/TRACE]: trace",
+            "[12:34:56] [main/NOTICE]: unknown level",
+            "[12:34:56] [Render thread/INFO] [STDOUT]: Hello",
+            "[12:34:56] [Render thread/INFO] [STDERR]: Hello",
+            "[12:34:56] [Render thread/WARN] [minecraft/ModelBakery]: Unable to load model",
+            "[12:34:56] [Render thread/INFO]: [java.lang.Throwable:printStackTrace:643]: STDERR]",
+            "[12:34:56] [main/INFO]: [STDERR/]: something",
+            "[12:34:56] [main/INFO]: Registry overwriting existing entry",
+            "[12:34:56] [main/INFO] []: empty category",
+            "[] [main/INFO]: empty timestamp",
+            "[12:34:56] [/INFO]: empty thread",
+            "[12:34:56] [main/]: empty level",
+            "[abc] [12:34:56] [main/WARN]: prefix",
+            "[12:34:56] [main/INFO]: x [12:34:57] [main/WARN] [STDOUT]: second match",
+            "[12:34:56] [a/b/ERROR]: slash in level",
+            "[12:34:56] [main/INFO",
+            "2013-01-01 12:34:56 [INFO] Legacy line",
+            "2013-01-01 12:34:56 [SEVERE] Legacy error",
+            "2013-01-01 12:34:56 [WARNING] Legacy warning",
+            "2013-01-01 12:34:56 [FINEST] [DEBUG] both",
+            "2013-01-01 12:34:56 [CONFIG] [STDERR] both",
+            "[STDERR] [FINER] [WARNING] [INFO]",
+            "Exception in thread \"main\" java.lang.RuntimeException",
+            "\tat net.minecraft.client.main.Main.main(Main.java:42)",
+            "",
+            "["
+    );
+
+    @Test
+    public void testGuessLevel() {
+        assertEquals(INFO, guessLevel("[12:34:56] [Render thread/INFO]: Setting user: Steve"));
+        assertEquals(WARN, guessLevel("[12:34:56] [Render thread/WARN]: Missing sound"));
+        assertEquals(ERROR, guessLevel("[12:34:56] [Render thread/INFO] [STDERR]: Hello"));
+        assertEquals(INFO, guessLevel("[12:34:56] [Render thread/WARN] [STDOUT]: Hello"));
+        assertEquals(FATAL, guessLevel("[12:34:56] [main/INFO]: Registry overwriting existing entry"));
+        assertEquals(ERROR, guessLevel("2013-01-01 12:34:56 [SEVERE] Legacy error"));
+        assertNull(guessLevel("Hello World"));
+    }
+
+    @Test
+    public void testSamples() {
+        for (String sample : SAMPLES) {
+            assertEquals(guessLevelByRegex(sample), guessLevel(sample), sample);
+        }
+    }
+
+    @Test
+    public void testRandom() {
+        String[] fragments = {
+                "[", "]", " ", "/", ":", "12", "[12:34:56]", "] [", " [", "main", "Render thread",
+                "INFO", "WARN", "ERROR", "FATAL", "DEBUG", "TRACE", "STDOUT", "STDERR", "[STDERR]", "STDERR]", "[STDERR/]",
+                "[INFO]", "[SEVERE]", "[WARNING]", "[DEBUG]", "[FINE]", "[FINER]", "[CONFIG]", "overwriting existing",
+                "x", "\t"
+        };
+
+        Random random = new Random(0);
+        for (int round = 0; round < 100000; round++) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0, n = random.nextInt(12); i < n; i++) {
+                builder.append(fragments[random.nextInt(fragments.length)]);
+            }
+            String line = builder.toString();
+            assertEquals(guessLevelByRegex(line), guessLevel(line), line);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class MurmurHash2Test {
+
+    @Test
+    public void testHash32() {
+        byte[] data = "The quick brown fox jumps over the lazy dog".getBytes(UTF_8);
+        assertEquals(MurmurHash2.hash32(data, data.length), MurmurHash2.hash32("The quick brown fox jumps over the lazy dog"));
+        assertNotEquals(MurmurHash2.hash32(data, data.length, 1), MurmurHash2.hash32(data, data.length, 2));
+    }
+
+    @Test
+    public void testIncrementalHash32() {
+        Random random = new Random(0);
+        for (int round = 0; round < 2000; round++) {
+            byte[] data = new byte[random.nextInt(round < 1000 ? 16 : 10000)];
+            random.nextBytes(data);
+            int seed = random.nextInt();
+
+            // Feed the data in random chunks, including empty ones
+            MurmurHash2.Hash32 hash = new MurmurHash2.Hash32(data.length, seed);
+            int offset = 0;
+            while (offset < data.length) {
+                int len = random.nextInt(Math.min(data.length - offset, 9) + 1);
+                hash.update(data, offset, len);
+                offset += len;
+            }
+
+            assertEquals(MurmurHash2.hash32(data, data.length, seed), hash.getValue(), "length " + data.length);
+        }
+    }
+
+    @Test
+    public void testIncrementalHash32Length() {
+        MurmurHash2.Hash32 hash = new MurmurHash2.Hash32(4, 1);
+        hash.update(new byte[3], 0, 3);
+        assertThrows(IllegalStateException.class, hash::getValue);
+        assertThrows(IndexOutOfBoundsException.class, () -> hash.update(new byte[3], 2, 2));
+    }
+}
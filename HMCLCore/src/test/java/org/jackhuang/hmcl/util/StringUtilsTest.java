@@ -19,7 +19,7 @@ package org.jackhuang.hmcl.util;
 
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * @author Glavo
@@ -47,4 +47,13 @@ public final class StringUtilsTest {
         assertEquals("a b c", StringUtils.normalizeWhitespaces(" a \t b c "));
         assertEquals("a b c", StringUtils.normalizeWhitespaces(" a \t b  c "));
     }
+
+    @Test
+    public void testContainsIgnoreCase() {
+        assertTrue(StringUtils.containsIgnoreCase("[12:34:56] [Render thread/INFO]: LWJGL Version: 3.3.3", "lwjgl version"));
+        assertTrue(StringUtils.containsIgnoreCase("lwjgl", "lwjgl"));
+        assertTrue(StringUtils.containsIgnoreCase("abc", ""));
+        assertFalse(StringUtils.containsIgnoreCase("lwjg", "lwjgl"));
+        assertFalse(StringUtils.containsIgnoreCase("LWJGL OpenGL", "lwjgl openal"));
+    }
 }
@@ -17,6 +17,10 @@
  */
 package org.jackhuang.hmcl.util.io;
 
+import kala.compress.archivers.zip.ZipArchiveEntry;
+import kala.compress.archivers.zip.ZipArchiveReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -25,12 +29,18 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.jackhuang.hmcl.util.Pair.pair;
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * @author Glavo
@@ -55,4 +65,60 @@ public final class CompressingUtilsTest {
     public void testFindSuitableEncoding(Path path, Charset charset) throws IOException {
         assertEquals(charset, CompressingUtils.findSuitableEncoding(path));
     }
+
+    private static void createZip(Path zipFile, Charset charset, List<String> names) throws IOException {
+        try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(zipFile), charset)) {
+            for (String name : names) {
+                output.putNextEntry(new ZipEntry(name));
+                output.closeEntry();
+            }
+        }
+    }
+
+    @Test
+    public void testDetectEncoding(@TempDir Path dir) throws IOException {
+        Charset gbk = Charset.forName("GBK");
+
+        // Many ASCII names before the names to detect the encoding with
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            names.add("assets/file" + i + ".txt");
+        }
+        for (int i = 0; i < 1000; i++) {
+            names.add("存档/中文" + i + ".txt");
+        }
+
+        Path zipFile = dir.resolve("gbk.zip");
+        createZip(zipFile, gbk, names);
+        assertFalse(CompressingUtils.testEncoding(zipFile, StandardCharsets.UTF_8));
+        assertTrue(CompressingUtils.testEncoding(zipFile, gbk));
+        assertNotEquals(StandardCharsets.UTF_8, CompressingUtils.findSuitableEncoding(zipFile));
+
+        try (ZipArchiveReader reader = CompressingUtils.openZipFileWithPossibleEncoding(zipFile, gbk)) {
+            assertNotNull(reader.getEntry("存档/中文999.txt"));
+        }
+
+        Path asciiZipFile = dir.resolve("ascii.zip");
+        createZip(asciiZipFile, gbk, names.subList(0, 10000));
+        assertEquals(StandardCharsets.UTF_8, CompressingUtils.findSuitableEncoding(asciiZipFile));
+        try (ZipArchiveReader reader = CompressingUtils.openZipFileWithPossibleEncoding(asciiZipFile, null)) {
+            assertEquals(10000, reader.getEntries().size());
+        }
+    }
+
+    @Test
+    public void testModified(@TempDir Path dir) throws IOException {
+        Path zipFile = dir.resolve("test.zip");
+        createZip(zipFile, StandardCharsets.UTF_8, List.of("中文.txt"));
+        FileTime lastModified = Files.getLastModifiedTime(zipFile);
+        assertEquals(StandardCharsets.UTF_8, CompressingUtils.findSuitableEncoding(zipFile));
+
+        createZip(zipFile, Charset.forName("GBK"), List.of("中文中文.txt"));
+        Files.setLastModifiedTime(zipFile, FileTime.fromMillis(lastModified.toMillis() + 10_000));
+        assertNotEquals(StandardCharsets.UTF_8, CompressingUtils.findSuitableEncoding(zipFile));
+        try (ZipArchiveReader reader = CompressingUtils.openZipFileWithPossibleEncoding(zipFile, null)) {
+            ZipArchiveEntry entry = reader.getEntries().get(0);
+            assertEquals("中文中文.txt", entry.getName());
+        }
+    }
 }
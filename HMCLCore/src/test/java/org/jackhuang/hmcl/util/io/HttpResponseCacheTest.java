@@ -0,0 +1,178 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.util.io;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class HttpResponseCacheTest {
+
+    private static final HttpResponseCache.Policy FRESH = new HttpResponseCache.Policy(Duration.ofHours(1), Duration.ZERO);
+    private static final HttpResponseCache.Policy REVALIDATE = new HttpResponseCache.Policy(Duration.ZERO, Duration.ZERO);
+    private static final HttpResponseCache.Policy STALE_WHILE_REVALIDATE = new HttpResponseCache.Policy(Duration.ZERO, Duration.ofHours(1));
+
+    /// A server whose response can be changed, which records the `If-None-Match` header of each request.
+    private static final class StubServer implements AutoCloseable {
+        private final HttpServer server;
+        private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+        private volatile String body = "first";
+        private volatile String eTag = "\"1\"";
+        private volatile int statusCode = 200;
+
+        StubServer() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", this::handle);
+            server.start();
+        }
+
+        String url(String path) {
+            return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            requests.add(String.valueOf(ifNoneMatch));
+
+            if (statusCode != 200) {
+                exchange.sendResponseHeaders(statusCode, -1);
+            } else if (eTag != null && eTag.equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                byte[] bytes = body.getBytes(UTF_8);
+                if (eTag != null)
+                    exchange.getResponseHeaders().set("ETag", eTag);
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+            }
+            exchange.close();
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+        }
+    }
+
+    private static String get(HttpResponseCache cache, String url, HttpResponseCache.Policy policy) throws IOException {
+        return HttpRequest.GET(url).cache(cache, policy).getString();
+    }
+
+    @Test
+    public void testFreshResponse(@TempDir Path dir) throws IOException {
+        try (StubServer server = new StubServer()) {
+            HttpResponseCache cache = new HttpResponseCache(dir, HttpResponseCache.DEFAULT_MAX_SIZE);
+            assertEquals("first", get(cache, server.url("/a"), FRESH));
+            server.body = "second";
+            assertEquals("first", get(cache, server.url("/a"), FRESH));
+            assertEquals(1, server.requests.size());
+
+            // The query is part of the key
+            assertEquals("second", get(cache, server.url("/a?page=2"), FRESH));
+            assertEquals(2, server.requests.size());
+
+            // Another instance of the launcher shares the cached responses
+            HttpResponseCache other = new HttpResponseCache(dir, HttpResponseCache.DEFAULT_MAX_SIZE);
+            assertEquals("first", get(other, server.url("/a"), FRESH));
+            assertEquals(2, server.requests.size());
+        }
+    }
+
+    @Test
+    public void testRevalidate(@TempDir Path dir) throws IOException {
+        try (StubServer server = new StubServer()) {
+            HttpResponseCache cache = new HttpResponseCache(dir, HttpResponseCache.DEFAULT_MAX_SIZE);
+            assertEquals("first", get(cache, server.url("/a"), REVALIDATE));
+            assertEquals("first", get(cache, server.url("/a"), REVALIDATE));
+
+            server.body = "second";
+            server.eTag = "\"2\"";
+            assertEquals("second", get(cache, server.url("/a"), REVALIDATE));
+            assertEquals(List.of("null", "\"1\"", "\"1\""), server.requests);
+
+            // Use the cached response if the server is unavailable
+            server.statusCode = 500;
+            assertEquals("second", get(cache, server.url("/a"), REVALIDATE));
+            assertThrows(ResponseCodeException.class, () -> get(cache, server.url("/b"), REVALIDATE));
+
+            // Responses without ETag are fetched again
+            server.statusCode = 200;
+            server.eTag = null;
+            server.body = "third";
+            assertEquals("third", get(cache, server.url("/c"), REVALIDATE));
+            assertEquals("third", get(cache, server.url("/c"), REVALIDATE));
+            assertEquals("null", server.requests.get(server.requests.size() - 1));
+        }
+    }
+
+    @Test
+    public void testStaleWhileRevalidate(@TempDir Path dir) throws Exception {
+        try (StubServer server = new StubServer()) {
+            HttpResponseCache cache = new HttpResponseCache(dir, HttpResponseCache.DEFAULT_MAX_SIZE);
+            assertEquals("first", get(cache, server.url("/a"), STALE_WHILE_REVALIDATE));
+
+            server.body = "second";
+            server.eTag = "\"2\"";
+            assertEquals("first", get(cache, server.url("/a"), STALE_WHILE_REVALIDATE));
+
+            // The response is updated in the background
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (!"second".equals(get(cache, server.url("/a"), FRESH))) {
+                assertTrue(System.nanoTime() < deadline, "The response was not revalidated");
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @Test
+    public void testSizeLimit(@TempDir Path dir) throws IOException {
+        try (StubServer server = new StubServer()) {
+            server.body = "x".repeat(1000);
+            long maxSize = 16 * 1024;
+            HttpResponseCache cache = new HttpResponseCache(dir, maxSize);
+            for (int i = 0; i < 100; i++) {
+                get(cache, server.url("/" + i), FRESH);
+            }
+
+            long size;
+            try (Stream<Path> stream = Files.walk(dir)) {
+                size = stream.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+            }
+            assertTrue(size > 0 && size <= maxSize, "size: " + size);
+
+            // The most recent responses are kept
+            int count = server.requests.size();
+            get(cache, server.url("/99"), FRESH);
+            assertEquals(count, server.requests.size());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.util.io;
+
+import org.jackhuang.hmcl.util.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class UnzipperTest {
+
+    /// Creates a zip file like a modpack, with many small files in nested directories
+    private static void createZip(Path zipFile, int count) throws IOException {
+        Random random = new Random(0);
+        try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            output.putNextEntry(new ZipEntry("overrides/"));
+            output.closeEntry();
+            for (int i = 0; i < count; i++) {
+                output.putNextEntry(new ZipEntry("overrides/config/mod" + (i % 50) + "/file" + i + ".json"));
+                byte[] data = new byte[random.nextInt(4096)];
+                random.nextBytes(data);
+                output.write(data);
+                output.closeEntry();
+            }
+            output.putNextEntry(new ZipEntry("overrides/options.txt"));
+            output.write("options".getBytes(UTF_8));
+            output.closeEntry();
+            output.putNextEntry(new ZipEntry("manifest.json"));
+            output.write("{}".getBytes(UTF_8));
+            output.closeEntry();
+        }
+    }
+
+    private static Map<String, String> readTree(Path dir) throws IOException {
+        Map<String, String> result = new TreeMap<>();
+        try (Stream<Path> stream = Files.walk(dir)) {
+            for (Path file : stream.filter(Files::isRegularFile).toList()) {
+                result.put(dir.relativize(file).toString().replace('\\', '/'), DigestUtils.digestToString("SHA-1", file));
+            }
+        }
+        return result;
+    }
+
+    private static List<String> unzip(Path zipFile, Path dest, Unzipper.EntryFilter filter, ExecutorService executor) throws IOException {
+        List<String> digests = new ArrayList<>();
+        new Unzipper(zipFile, dest)
+                .setSubDirectory("/overrides/")
+                .setExecutor(executor, 4)
+                .setFilter(filter)
+                .setDigest("SHA-1", (entry, relativePath, digest) -> digests.add(relativePath + " " + digest))
+                .unzip();
+        return digests;
+    }
+
+    @Test
+    public void testSerialAndParallel(@TempDir Path dir) throws IOException {
+        Path zipFile = dir.resolve("test.zip");
+        createZip(zipFile, 500);
+
+        // The filter and the digest consumer are called on the calling thread, in the order of the entries
+        Thread thread = Thread.currentThread();
+        Unzipper.EntryFilter filter = (entry, destFile, relativePath) -> {
+            assertSame(thread, Thread.currentThread());
+            return !relativePath.endsWith("7.json");
+        };
+
+        Path serial = dir.resolve("serial");
+        List<String> serialDigests = unzip(zipFile, serial, filter, null);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Path parallel = dir.resolve("parallel");
+        List<String> parallelDigests;
+        try {
+            parallelDigests = unzip(zipFile, parallel, filter, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        Map<String, String> files = readTree(serial);
+        assertEquals(451, files.size());
+        assertEquals(DigestUtils.digestToString("SHA-1", "options".getBytes(UTF_8)), files.get("options.txt"));
+        assertFalse(files.containsKey("config/mod7/file7.json"));
+        assertEquals(files, readTree(parallel));
+
+        // Files left uncompressed by the filter are reported as well
+        assertEquals(501, serialDigests.size());
+        assertEquals(serialDigests, parallelDigests);
+    }
+
+    @Test
+    public void testOutsideOfDestination(@TempDir Path dir) throws IOException {
+        Path zipFile = dir.resolve("test.zip");
+        try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            output.putNextEntry(new ZipEntry("a.txt"));
+            output.closeEntry();
+            output.putNextEntry(new ZipEntry("../evil.txt"));
+            output.closeEntry();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            assertThrows(IOException.class, () -> new Unzipper(zipFile, dir.resolve("dest")).setExecutor(executor, 2).unzip());
+        } finally {
+            executor.shutdown();
+        }
+        assertFalse(Files.exists(dir.resolve("evil.txt")));
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "HMCL_BENCHMARK", matches = "true")
+    public void benchmarkUnzip(@TempDir Path dir) throws IOException {
+        Path zipFile = dir.resolve("test.zip");
+        createZip(zipFile, 20000);
+
+        for (int round = 0; round < 3; round++) {
+            long serialTime = System.nanoTime();
+            new Unzipper(zipFile, dir.resolve("serial-" + round)).unzip();
+            serialTime = System.nanoTime() - serialTime;
+
+            int parallelism = Math.max(4, Runtime.getRuntime().availableProcessors());
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+            long parallelTime = System.nanoTime();
+            try {
+                new Unzipper(zipFile, dir.resolve("parallel-" + round)).setExecutor(executor, parallelism).unzip();
+            } finally {
+                executor.shutdown();
+            }
+            parallelTime = System.nanoTime() - parallelTime;
+
+            System.out.printf("Extracting 20000 files: serial %d ms, parallel (%d threads) %d ms%n",
+                    serialTime / 1_000_000, parallelism, parallelTime / 1_000_000);
+        }
+    }
+}
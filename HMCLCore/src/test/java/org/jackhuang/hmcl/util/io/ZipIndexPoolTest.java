@@ -0,0 +1,192 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.util.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class ZipIndexPoolTest {
+
+    private static void createZip(Path zipFile, String... contents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream output = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < contents.length; i++) {
+                output.putNextEntry(new ZipEntry("file" + i + ".txt"));
+                output.write(contents[i].getBytes(UTF_8));
+                output.closeEntry();
+            }
+        }
+        Files.write(zipFile, bytes.toByteArray());
+    }
+
+    @Test
+    public void testReuse(@TempDir Path dir) throws IOException {
+        ZipIndexPool pool = new ZipIndexPool(16, 1000);
+        Path zipFile = dir.resolve("test.zip");
+        createZip(zipFile, "a", "b");
+
+        ZipIndex.Entry entry;
+        try (ZipIndex zip = pool.open(zipFile)) {
+            entry = zip.getEntry("file0.txt");
+            assertEquals("a", zip.readTextEntry("file0.txt"));
+        }
+        try (ZipIndex first = pool.open(dir.resolve("../" + dir.getFileName() + "/test.zip"));
+             ZipIndex second = pool.open(zipFile)) {
+            assertSame(entry, first.getEntry("file0.txt"));
+            assertSame(entry, second.getEntry("file0.txt"));
+            assertEquals("b", first.readTextEntry("file1.txt"));
+            assertEquals("b", second.readTextEntry("file1.txt"));
+        }
+        assertEquals(1, pool.size());
+
+        // The pool does not keep the file open
+        Files.delete(zipFile);
+        assertThrows(IOException.class, () -> pool.open(zipFile));
+    }
+
+    @Test
+    public void testModified(@TempDir Path dir) throws IOException {
+        ZipIndexPool pool = new ZipIndexPool(16, 1000);
+        Path zipFile = dir.resolve("test.zip");
+        createZip(zipFile, "a");
+        FileTime lastModified = Files.getLastModifiedTime(zipFile);
+
+        ZipIndex.Entry entry;
+        try (ZipIndex zip = pool.open(zipFile)) {
+            entry = zip.getEntry("file0.txt");
+        }
+
+        // Different size
+        createZip(zipFile, "abc");
+        Files.setLastModifiedTime(zipFile, lastModified);
+        try (ZipIndex zip = pool.open(zipFile)) {
+            assertNotSame(entry, zip.getEntry("file0.txt"));
+            assertEquals("abc", zip.readTextEntry("file0.txt"));
+            entry = zip.getEntry("file0.txt");
+        }
+
+        // Same size, different last modified time
+        createZip(zipFile, "xyz");
+        Files.setLastModifiedTime(zipFile, FileTime.fromMillis(lastModified.toMillis() - 10_000));
+        try (ZipIndex zip = pool.open(zipFile)) {
+            assertNotSame(entry, zip.getEntry("file0.txt"));
+            assertEquals("xyz", zip.readTextEntry("file0.txt"));
+            entry = zip.getEntry("file0.txt");
+        }
+
+        pool.invalidate(zipFile);
+        assertEquals(0, pool.size());
+        try (ZipIndex zip = pool.open(zipFile)) {
+            assertNotSame(entry, zip.getEntry("file0.txt"));
+        }
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void testEviction(@TempDir Path dir) throws IOException {
+        Path[] zipFiles = new Path[4];
+        for (int i = 0; i < zipFiles.length; i++) {
+            zipFiles[i] = dir.resolve(i + ".zip");
+            createZip(zipFiles[i], "a".repeat(i), "b", "c");
+        }
+
+        ZipIndexPool pool = new ZipIndexPool(2, 1000);
+        ZipIndex.Entry entry;
+        try (ZipIndex zip = pool.open(zipFiles[0])) {
+            entry = zip.getEntry("file0.txt");
+        }
+        pool.open(zipFiles[1]).close();
+        // Makes zipFiles[1] the least recently used one
+        pool.open(zipFiles[0]).close();
+        pool.open(zipFiles[2]).close();
+        assertEquals(2, pool.size());
+        try (ZipIndex zip = pool.open(zipFiles[0])) {
+            assertSame(entry, zip.getEntry("file0.txt"));
+        }
+
+        // At most 7 entries, so only 2 zip files with 3 entries each
+        pool = new ZipIndexPool(16, 7);
+        for (Path zipFile : zipFiles) {
+            pool.open(zipFile).close();
+        }
+        assertEquals(2, pool.size());
+        pool.clear();
+        assertEquals(0, pool.size());
+
+        // Zip files with too many entries are not cached
+        pool = new ZipIndexPool(16, 2);
+        try (ZipIndex zip = pool.open(zipFiles[0])) {
+            assertEquals(3, zip.getEntries().size());
+        }
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "HMCL_BENCHMARK", matches = "true")
+    public void benchmarkReopen(@TempDir Path dir) throws IOException {
+        // Like a mods directory which is scanned again after a mod is enabled or disabled
+        Random random = new Random(0);
+        List<Path> jars = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String[] contents = new String[500];
+            for (int j = 0; j < contents.length; j++) {
+                contents[j] = Long.toHexString(random.nextLong()).repeat(random.nextInt(64));
+            }
+            Path jar = dir.resolve("mod-" + i + ".jar");
+            createZip(jar, contents);
+            jars.add(jar);
+        }
+
+        ZipIndexPool pool = new ZipIndexPool(1024, 500_000);
+        for (int round = 0; round < 5; round++) {
+            long unpooledTime = System.nanoTime();
+            for (Path jar : jars) {
+                try (ZipIndex zip = new ZipIndex(jar)) {
+                    assertTrue(zip.contains("file0.txt"));
+                }
+            }
+            unpooledTime = System.nanoTime() - unpooledTime;
+
+            long pooledTime = System.nanoTime();
+            for (Path jar : jars) {
+                try (ZipIndex zip = pool.open(jar)) {
+                    assertTrue(zip.contains("file0.txt"));
+                }
+            }
+            pooledTime = System.nanoTime() - pooledTime;
+
+            System.out.printf("Opening %d jars: unpooled %d ms, pooled %d ms%n",
+                    jars.size(), unpooledTime / 1_000_000, pooledTime / 1_000_000);
+        }
+    }
+}
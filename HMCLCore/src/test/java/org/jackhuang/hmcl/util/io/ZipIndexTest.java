@@ -0,0 +1,215 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.util.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class ZipIndexTest {
+
+    private static byte[] createZip(Map<String, byte[]> files, String comment) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream output = new ZipOutputStream(bytes)) {
+            output.setComment(comment);
+            output.putNextEntry(new ZipEntry("META-INF/"));
+            output.closeEntry();
+            boolean stored = false;
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                ZipEntry entry = new ZipEntry(file.getKey());
+                if (stored) {
+                    CRC32 crc = new CRC32();
+                    crc.update(file.getValue());
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(file.getValue().length);
+                    entry.setCrc(crc.getValue());
+                }
+                stored = !stored;
+                output.putNextEntry(entry);
+                output.write(file.getValue());
+                output.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Map<String, byte[]> createFiles() {
+        Random random = new Random(0);
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("META-INF/mods.toml", "modLoader=\"javafml\"".getBytes(UTF_8));
+        files.put("pack.mcmeta", "{\"pack\":{\"pack_format\":15,\"description\":\"测试\"}}".getBytes(UTF_8));
+        files.put("empty.txt", new byte[0]);
+        byte[] random64k = new byte[65536];
+        random.nextBytes(random64k);
+        files.put("data/random.bin", random64k);
+        files.put("data/zeros.bin", new byte[1 << 20]);
+        return files;
+    }
+
+    private static void assertEntries(Map<String, byte[]> files, Path zipFile) throws IOException {
+        try (ZipIndex zip = new ZipIndex(zipFile)) {
+            assertEquals(files.size() + 1, zip.getEntries().size());
+            assertTrue(zip.getEntry("META-INF/").isDirectory());
+            assertTrue(zip.contains("META-INF/mods.toml"));
+            assertTrue(zip.contains("/pack.mcmeta"));
+            assertFalse(zip.contains("META-INF"));
+            assertFalse(zip.contains("fabric.mod.json"));
+            assertNull(zip.getEntry("fabric.mod.json"));
+            assertThrows(IOException.class, () -> zip.readBinaryEntry("fabric.mod.json"));
+
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                ZipIndex.Entry entry = zip.getEntry(file.getKey());
+                assertNotNull(entry, file.getKey());
+                assertEquals(file.getValue().length, entry.size());
+                assertArrayEquals(file.getValue(), zip.readBinaryEntry(file.getKey()), file.getKey());
+            }
+            assertEquals("{\"pack\":{\"pack_format\":15,\"description\":\"测试\"}}", zip.readTextEntry("pack.mcmeta"));
+
+            // Entries can be read in any order and at the same time
+            try (InputStream first = zip.getInputStream("data/random.bin");
+                 InputStream second = zip.getInputStream("data/random.bin")) {
+                first.skipNBytes(1000);
+                assertEquals(Byte.toUnsignedInt(files.get("data/random.bin")[0]), second.read());
+                assertEquals(Byte.toUnsignedInt(files.get("data/random.bin")[1000]), first.read());
+            }
+        }
+    }
+
+    @Test
+    public void testRead(@TempDir Path dir) throws IOException {
+        Map<String, byte[]> files = createFiles();
+        Path zipFile = dir.resolve("test.zip");
+        Files.write(zipFile, createZip(files, null));
+        assertEntries(files, zipFile);
+
+        try (ZipFile jdkZipFile = new ZipFile(zipFile.toFile());
+             ZipIndex zip = new ZipIndex(zipFile)) {
+            for (ZipIndex.Entry entry : zip.getEntries()) {
+                ZipEntry jdkEntry = jdkZipFile.getEntry(entry.name());
+                assertEquals(jdkEntry.getCrc(), entry.crc());
+                assertEquals(jdkEntry.getCompressedSize(), entry.compressedSize());
+                assertEquals(jdkEntry.getMethod(), entry.method());
+            }
+        }
+    }
+
+    @Test
+    public void testCommentAndPrependedData(@TempDir Path dir) throws IOException {
+        Map<String, byte[]> files = createFiles();
+
+        Path commented = dir.resolve("commented.zip");
+        Files.write(commented, createZip(files, "comment" + "PK\5\6".repeat(100)));
+        assertEntries(files, commented);
+
+        // For example, self-extracting archives
+        Path prepended = dir.resolve("prepended.zip");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(new byte[12345]);
+        bytes.write(createZip(files, "comment"));
+        Files.write(prepended, bytes.toByteArray());
+        assertEntries(files, prepended);
+    }
+
+    @Test
+    public void testInvalid(@TempDir Path dir) throws IOException {
+        Path empty = dir.resolve("empty.zip");
+        Files.write(empty, new byte[0]);
+        assertThrows(ZipException.class, () -> new ZipIndex(empty).close());
+
+        Path text = dir.resolve("text.zip");
+        Files.writeString(text, "Not a zip file".repeat(100));
+        assertThrows(ZipException.class, () -> new ZipIndex(text).close());
+
+        byte[] data = createZip(createFiles(), null);
+
+        Path truncated = dir.resolve("truncated.zip");
+        Files.write(truncated, Arrays.copyOfRange(data, 1000, data.length));
+        assertThrows(ZipException.class, () -> new ZipIndex(truncated).close());
+
+        Path corrupted = dir.resolve("corrupted.zip");
+        byte[] corruptedData = data.clone();
+        for (int i = corruptedData.length - 4; i >= 0; i--) {
+            // Breaks the signature of the last central directory header
+            if (corruptedData[i] == 'P' && corruptedData[i + 1] == 'K' && corruptedData[i + 2] == 1 && corruptedData[i + 3] == 2) {
+                corruptedData[i] = 0;
+                break;
+            }
+        }
+        Files.write(corrupted, corruptedData);
+        assertThrows(ZipException.class, () -> new ZipIndex(corrupted).close());
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "HMCL_BENCHMARK", matches = "true")
+    public void benchmarkProbe(@TempDir Path dir) throws IOException {
+        // Like a mods directory, with many jars which have many entries
+        Random random = new Random(0);
+        List<Path> jars = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Map<String, byte[]> files = new LinkedHashMap<>();
+            files.put("fabric.mod.json", "{}".getBytes(UTF_8));
+            for (int j = 0; j < 500; j++) {
+                byte[] data = new byte[random.nextInt(2048)];
+                random.nextBytes(data);
+                files.put("com/example/mod" + i + "/Class" + j + ".class", data);
+            }
+            Path jar = dir.resolve("mod-" + i + ".jar");
+            Files.write(jar, createZip(files, null));
+            jars.add(jar);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            long zipFileSystemTime = System.nanoTime();
+            for (Path jar : jars) {
+                try (FileSystem fs = CompressingUtils.createReadOnlyZipFileSystem(jar)) {
+                    assertTrue(Files.exists(fs.getPath("fabric.mod.json")));
+                    assertFalse(Files.exists(fs.getPath("quilt.mod.json")));
+                }
+            }
+            zipFileSystemTime = System.nanoTime() - zipFileSystemTime;
+
+            long zipIndexTime = System.nanoTime();
+            for (Path jar : jars) {
+                try (ZipIndex zip = new ZipIndex(jar)) {
+                    assertTrue(zip.contains("fabric.mod.json"));
+                    assertFalse(zip.contains("quilt.mod.json"));
+                }
+            }
+            zipIndexTime = System.nanoTime() - zipIndexTime;
+
+            System.out.printf("Probing %d jars: zip file system %d ms, zip index %d ms%n",
+                    jars.size(), zipFileSystemTime / 1_000_000, zipIndexTime / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.util.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class ZipStreamValidatorTest {
+
+    /// Creates a zip file like a jar, whose deflated entries are followed by data descriptors
+    private static byte[] createZip(int count) throws IOException {
+        Random random = new Random(0);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream output = new ZipOutputStream(bytes)) {
+            output.putNextEntry(new ZipEntry("META-INF/"));
+            output.closeEntry();
+            output.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            output.write("Manifest-Version: 1.0\n".getBytes(UTF_8));
+            output.closeEntry();
+            for (int i = 0; i < count; i++) {
+                byte[] data = new byte[random.nextInt(8192)];
+                if (i % 2 == 0)
+                    random.nextBytes(data);
+                ZipEntry entry = new ZipEntry("com/example/Class" + i + ".class");
+                if (i % 3 == 0) {
+                    CRC32 crc = new CRC32();
+                    crc.update(data);
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(data.length);
+                    entry.setCrc(crc.getValue());
+                }
+                entry.setExtra(i % 5 == 0 ? new byte[]{0x34, 0x12, 2, 0, 1, 2} : null);
+                output.putNextEntry(entry);
+                output.write(data);
+                output.closeEntry();
+            }
+            output.setComment("comment");
+        }
+        return bytes.toByteArray();
+    }
+
+    /// Feeds the data in chunks of random sizes, like a download
+    private static boolean validate(byte[] data) throws ZipException {
+        Random random = new Random(data.length);
+        ZipStreamValidator validator = new ZipStreamValidator();
+        int offset = 0;
+        while (offset < data.length) {
+            int len = Math.min(data.length - offset, random.nextInt(3) == 0 ? random.nextInt(8) : random.nextInt(16384));
+            validator.update(data, offset, len);
+            offset += len;
+        }
+        return validator.finish();
+    }
+
+    private static byte[] corrupt(byte[] data, int signature, int occurrence, int offset) {
+        byte[] result = data.clone();
+        int found = 0;
+        for (int i = 0; i + 4 <= result.length; i++) {
+            if ((result[i] & 0xFF | (result[i + 1] & 0xFF) << 8 | (result[i + 2] & 0xFF) << 16 | (result[i + 3] & 0xFF) << 24) == signature
+                    && found++ == occurrence) {
+                result[i + offset]++;
+                return result;
+            }
+        }
+        throw new AssertionError("Signature not found");
+    }
+
+    @Test
+    public void testValid(@TempDir Path dir) throws IOException {
+        assertTrue(validate(createZip(0)));
+        assertTrue(validate(createZip(200)));
+
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        new ZipOutputStream(empty).close();
+        assertTrue(validate(empty.toByteArray()));
+
+        // Zip files created by Zipper have no data descriptors
+        Path zipFile = dir.resolve("test.zip");
+        try (Zipper zipper = new Zipper(zipFile)) {
+            zipper.putTextFile("{}", "manifest.json");
+            zipper.putTextFile("a".repeat(100000), "overrides/a.txt");
+        }
+        assertTrue(validate(Files.readAllBytes(zipFile)));
+    }
+
+    @Test
+    public void testUnchecked(@TempDir Path dir) throws IOException {
+        byte[] data = createZip(10);
+        byte[] prepended = new byte[data.length + 100];
+        System.arraycopy(data, 0, prepended, 100, data.length);
+        assertFalse(validate(prepended));
+
+        // An archive extra data record between the entries and the central directory, like an APK signing block
+        ByteBuffer endRecord = ByteBuffer.wrap(data, data.length - 22 - "comment".length(), 22).order(ByteOrder.LITTLE_ENDIAN);
+        int centralDirectoryOffset = endRecord.getInt(endRecord.position() + 16);
+        byte[] record = new byte[64];
+        ByteBuffer.wrap(record).order(ByteOrder.LITTLE_ENDIAN).putInt(0x08064b50).putInt(record.length - 8);
+        byte[] inserted = new byte[data.length + record.length];
+        System.arraycopy(data, 0, inserted, 0, centralDirectoryOffset);
+        System.arraycopy(record, 0, inserted, centralDirectoryOffset, record.length);
+        System.arraycopy(data, centralDirectoryOffset, inserted, centralDirectoryOffset + record.length, data.length - centralDirectoryOffset);
+        ByteBuffer.wrap(inserted).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(inserted.length - 22 - "comment".length() + 16, centralDirectoryOffset + record.length);
+        assertFalse(validate(inserted));
+
+        // Left to be checked by ZipIndex after the download
+        Path zipFile = dir.resolve("inserted.zip");
+        Files.write(zipFile, inserted);
+        try (ZipIndex zip = new ZipIndex(zipFile)) {
+            assertEquals(12, zip.getEntries().size());
+            assertEquals("Manifest-Version: 1.0\n", zip.readTextEntry("META-INF/MANIFEST.MF"));
+        }
+    }
+
+    @Test
+    public void testCorrupted(@TempDir Path dir) throws IOException {
+        byte[] data = createZip(50);
+
+        assertThrows(ZipException.class, () -> validate(new byte[0]));
+        assertThrows(ZipException.class, () -> validate(Arrays.copyOf(data, data.length - 1)));
+        assertThrows(ZipException.class, () -> validate(Arrays.copyOf(data, data.length / 2)));
+
+        byte[] missingEntry = new byte[data.length - 10];
+        System.arraycopy(data, 0, missingEntry, 0, 5000);
+        System.arraycopy(data, 5010, missingEntry, 5000, data.length - 5010);
+        // The bytes after the removed ones are not a header, so the zip file is left to ZipIndex, which rejects it
+        assertFalse(validate(missingEntry));
+        Path missingEntryFile = dir.resolve("missing-entry.zip");
+        Files.write(missingEntryFile, missingEntry);
+        assertThrows(IOException.class, () -> new ZipIndex(missingEntryFile).close());
+
+        // The signature of a local file header, which may be data before the central directory, so it is left to ZipIndex
+        assertFalse(validate(corrupt(data, 0x04034b50, 10, 0)));
+        // The compressed size in a data descriptor
+        assertThrows(ZipException.class, () -> validate(corrupt(data, 0x08074b50, 10, 8)));
+        // The compressed size in a central directory header
+        assertThrows(ZipException.class, () -> validate(corrupt(data, 0x02014b50, 10, 20)));
+        // The local file header offset in a central directory header
+        assertThrows(ZipException.class, () -> validate(corrupt(data, 0x02014b50, 10, 42)));
+        // The offset of the central directory
+        assertThrows(ZipException.class, () -> validate(corrupt(data, 0x06054b50, 0, 16)));
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "HMCL_BENCHMARK", matches = "true")
+    public void benchmarkValidate(@TempDir Path dir) throws IOException {
+        byte[] data = createZip(20000);
+        Path zipFile = dir.resolve("test.jar");
+        Files.write(zipFile, data);
+
+        for (int round = 0; round < 5; round++) {
+            long streamingTime = System.nanoTime();
+            ZipStreamValidator validator = new ZipStreamValidator();
+            for (int offset = 0; offset < data.length; offset += IOUtils.DEFAULT_BUFFER_SIZE) {
+                validator.update(data, offset, Math.min(IOUtils.DEFAULT_BUFFER_SIZE, data.length - offset));
+            }
+            assertTrue(validator.finish());
+            streamingTime = System.nanoTime() - streamingTime;
+
+            long reopenTime = System.nanoTime();
+            try (var ignored = CompressingUtils.createReadOnlyZipFileSystem(zipFile)) {
+                // test for zip format
+            }
+            reopenTime = System.nanoTime() - reopenTime;
+
+            System.out.printf("Validating %d MiB zip file: streaming %d ms, zip file system %d ms%n",
+                    data.length >> 20, streamingTime / 1_000_000, reopenTime / 1_000_000);
+        }
+    }
+}
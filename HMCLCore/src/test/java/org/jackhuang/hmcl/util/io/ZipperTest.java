@@ -0,0 +1,544 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.util.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class ZipperTest {
+
+    private static final FileTime TIME = FileTime.fromMillis(1700000000000L);
+
+    private static Path createSource(Path dir) throws IOException {
+        Path source = dir.resolve("source");
+        Files.createDirectories(source.resolve("sub/dir"));
+
+        Random random = new Random(0);
+        byte[] incompressible = new byte[3 * 1024 * 1024];
+        random.nextBytes(incompressible);
+        Files.write(source.resolve("random.bin"), incompressible);
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 200000; i++) {
+            builder.append("[12:34:56] [Render thread/INFO]: Line ").append(i).append('\n');
+        }
+        Files.writeString(source.resolve("sub/latest.log"), builder);
+        Files.writeString(source.resolve("sub/dir/hello.txt"), "你好");
+        Files.createFile(source.resolve("empty.txt"));
+
+        try (var stream = Files.walk(source)) {
+            for (Path path : stream.toList()) {
+                Files.setLastModifiedTime(path, TIME);
+            }
+        }
+        return source;
+    }
+
+    private static void writeZip(Zipper zipper, Path source) throws IOException {
+        zipper.putDirectory(source, "root");
+        zipper.putTextFile("text", "text.txt");
+        zipper.putTextFile("你好", "你好.txt");
+        zipper.putLinesAsync(() -> IntStream.range(0, 100000).mapToObj(i -> "line " + i), "lines.txt");
+        try (OutputStream output = zipper.putStream("stream.txt")) {
+            output.write("stream".getBytes(UTF_8));
+        }
+        zipper.putFile(source.resolve("sub/latest.log"), "latest.log");
+        zipper.putFile(source.resolve("sub/latest.log"), "latest.log");
+    }
+
+    private static Map<String, String> readZip(Path zipFile) throws IOException {
+        Map<String, String> result = new LinkedHashMap<>();
+        try (ZipFile zip = new ZipFile(zipFile.toFile(), UTF_8)) {
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                byte[] data = zip.getInputStream(entry).readAllBytes();
+                result.put(entry.getName(), data.length > 1024 ? "<" + data.length + ">" : new String(data, UTF_8));
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testSerialAndParallel(@TempDir Path dir) throws IOException {
+        Path source = createSource(dir);
+
+        Path serial = dir.resolve("serial.zip");
+        try (Zipper zipper = new Zipper(serial, true)) {
+            writeZip(zipper, source);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Path parallel = dir.resolve("parallel.zip");
+        try (Zipper zipper = new Zipper(parallel, true, executor, 4)) {
+            writeZip(zipper, source);
+        } finally {
+            executor.shutdown();
+        }
+
+        Map<String, String> entries = readZip(serial);
+        assertEquals(Set.of(
+                "root/", "root/empty.txt", "root/random.bin", "root/sub/", "root/sub/dir/", "root/sub/dir/hello.txt", "root/sub/latest.log", "你好.txt",
+                "text.txt", "lines.txt", "stream.txt", "latest.log", "latest.log.1"
+        ), entries.keySet());
+        assertEquals(List.of("text.txt", "你好.txt", "lines.txt", "stream.txt", "latest.log", "latest.log.1"),
+                new ArrayList<>(entries.keySet()).subList(entries.size() - 6, entries.size()));
+        assertEquals("", entries.get("root/empty.txt"));
+        assertEquals("你好", entries.get("root/sub/dir/hello.txt"));
+        assertEquals("text", entries.get("text.txt"));
+        assertEquals("你好", entries.get("你好.txt"));
+        assertEquals("stream", entries.get("stream.txt"));
+        assertEquals("<" + (3 * 1024 * 1024) + ">", entries.get("root/random.bin"));
+
+        try (ZipFile zip = new ZipFile(serial.toFile(), UTF_8)) {
+            assertEquals(TIME.toMillis(), zip.getEntry("root/sub/latest.log").getLastModifiedTime().toMillis());
+            assertEquals(Files.readString(source.resolve("sub/latest.log")), new String(zip.getInputStream(zip.getEntry("latest.log.1")).readAllBytes(), UTF_8));
+            String lines = new String(zip.getInputStream(zip.getEntry("lines.txt")).readAllBytes(), UTF_8);
+            assertTrue(lines.startsWith("line 0\nline 1\n"));
+            assertTrue(lines.endsWith("line 99999\n"));
+        }
+
+        assertEquals(-1, Files.mismatch(serial, parallel));
+    }
+
+    @Test
+    public void testDeterministic(@TempDir Path dir) throws IOException {
+        Path source = createSource(dir);
+
+        byte[] expected = null;
+        for (int i = 0; i < 3; i++) {
+            ExecutorService executor = Executors.newFixedThreadPool(1 + i * 2);
+            Path zipFile = dir.resolve(i + ".zip");
+            try (Zipper zipper = new Zipper(zipFile, false, executor, 1 + i * 2)) {
+                zipper.putDirectory(source, "");
+            } finally {
+                executor.shutdown();
+            }
+
+            byte[] actual = Files.readAllBytes(zipFile);
+            if (expected == null)
+                expected = actual;
+            else
+                assertArrayEquals(expected, actual);
+        }
+
+        Path serial = dir.resolve("serial.zip");
+        try (Zipper zipper = new Zipper(serial)) {
+            zipper.putDirectory(source, "");
+        }
+        assertArrayEquals(expected, Files.readAllBytes(serial));
+
+        Path shared = dir.resolve("shared.zip");
+        try (Zipper zipper = Zipper.parallel(shared)) {
+            zipper.putDirectory(source, "");
+        }
+        assertArrayEquals(expected, Files.readAllBytes(shared));
+    }
+
+    @Test
+    public void testReproducible(@TempDir Path dir) throws IOException, InterruptedException {
+        Path source = createSource(dir);
+        Path log = source.resolve("sub/latest.log");
+
+        byte[] expected = null;
+        for (int i = 0; i < 2; i++) {
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            Path zipFile = dir.resolve(i + ".zip");
+            try (Zipper zipper = new Zipper(zipFile, true, executor, 4)) {
+                writeZip(zipper, source);
+                zipper.putLinesAsync(() -> Files.lines(log), "logs/latest.log", Files.getLastModifiedTime(log));
+            } finally {
+                executor.shutdown();
+            }
+
+            byte[] actual = Files.readAllBytes(zipFile);
+            if (expected == null) {
+                expected = actual;
+                // Entries without a source file would have a different time if they had the current time
+                Thread.sleep(2100);
+            } else {
+                assertArrayEquals(expected, actual);
+            }
+        }
+
+        try (ZipFile zip = new ZipFile(dir.resolve("0.zip").toFile(), UTF_8)) {
+            assertEquals(LocalDateTime.of(1980, 1, 1, 0, 0), zip.getEntry("text.txt").getTimeLocal());
+            assertEquals(LocalDateTime.of(1980, 1, 1, 0, 0), zip.getEntry("lines.txt").getTimeLocal());
+            assertEquals(TIME.toMillis(), zip.getEntry("logs/latest.log").getLastModifiedTime().toMillis());
+        }
+    }
+
+    private static Set<Path> listChunkFiles() throws IOException {
+        try (var stream = Files.newDirectoryStream(Path.of(System.getProperty("java.io.tmpdir")), "hmcl-zipper-*.tmp")) {
+            Set<Path> files = new HashSet<>();
+            stream.forEach(files::add);
+            return files;
+        }
+    }
+
+    @Test
+    public void testFailedEntryCleanup(@TempDir Path dir) throws Exception {
+        Set<Path> oldChunkFiles = listChunkFiles();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch closed = new CountDownLatch(1);
+        Random random = new Random(0);
+        // About 4 MiB of hexadecimal digits, which is spilled to a temporary file after compressed
+        List<String> lines = IntStream.range(0, 200000).mapToObj(i -> Long.toHexString(random.nextLong())).toList();
+
+        try {
+            IOException exception = assertThrows(IOException.class, () -> {
+                try (Zipper zipper = new Zipper(dir.resolve("test.zip"), false, executor, 3)) {
+                    zipper.putLinesAsync(() -> {
+                        try {
+                            started.await();
+                        } catch (InterruptedException e) {
+                            throw new IOException(e);
+                        }
+                        throw new IOException("test");
+                    }, "failed.txt");
+
+                    for (int i = 0; i < 2; i++) {
+                        // Still compressing when the zipper is closed
+                        zipper.putLinesAsync(() -> Stream.concat(lines.stream(), Stream.of("end").peek(line -> {
+                            started.countDown();
+                            try {
+                                closed.await();
+                            } catch (InterruptedException e) {
+                                throw new AssertionError(e);
+                            }
+                        })), "large-" + i + ".txt");
+                    }
+                }
+            });
+            assertEquals("test", exception.getMessage());
+        } finally {
+            closed.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        Set<Path> chunkFiles = listChunkFiles();
+        chunkFiles.removeAll(oldChunkFiles);
+        assertEquals(Set.of(), chunkFiles);
+    }
+
+    @Test
+    public void testDuplicateEntry(@TempDir Path dir) throws IOException {
+        try (Zipper zipper = new Zipper(dir.resolve("test.zip"))) {
+            zipper.putTextFile("a", "a.txt");
+            assertThrows(ZipException.class, () -> zipper.putTextFile("b", "a.txt"));
+        }
+        assertEquals(Map.of("a.txt", "a"), readZip(dir.resolve("test.zip")));
+    }
+
+    @Test
+    public void testFailedEntry(@TempDir Path dir) throws IOException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Path zipFile = dir.resolve("test.zip");
+        try {
+            IOException exception = assertThrows(IOException.class, () -> {
+                try (Zipper zipper = new Zipper(zipFile, false, executor, 1)) {
+                    zipper.putLinesAsync(() -> {
+                        throw new IOException("test");
+                    }, "failed.txt");
+                    zipper.putTextFile("text", "text.txt");
+                }
+            });
+            assertEquals("test", exception.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testAdaptiveCompression(@TempDir Path dir) throws IOException {
+        Path source = createSource(dir);
+        Random random = new Random(0);
+        byte[] incompressible = new byte[1000];
+        random.nextBytes(incompressible);
+        Files.write(source.resolve("small.bin"), incompressible);
+        Files.writeString(source.resolve("mod.jar"), "a".repeat(100000));
+
+        for (boolean parallel : new boolean[]{false, true}) {
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            Path adaptive = dir.resolve("adaptive-" + parallel + ".zip");
+            try (Zipper zipper = new Zipper(adaptive, false, parallel ? executor : null, 2)) {
+                zipper.putDirectory(source, "");
+                zipper.putTextFile("text", "text.txt");
+                zipper.putTextFile("a".repeat(100000), "stream.png");
+            } finally {
+                executor.shutdown();
+            }
+
+            try (ZipFile zip = new ZipFile(adaptive.toFile(), UTF_8)) {
+                // Already compressed, judged by the content or the extension
+                assertEquals(ZipEntry.STORED, zip.getEntry("random.bin").getMethod());
+                assertEquals(ZipEntry.STORED, zip.getEntry("small.bin").getMethod());
+                assertEquals(ZipEntry.STORED, zip.getEntry("mod.jar").getMethod());
+                assertEquals(ZipEntry.STORED, zip.getEntry("stream.png").getMethod());
+                // Too small to be deflated
+                assertEquals(ZipEntry.STORED, zip.getEntry("text.txt").getMethod());
+                assertEquals(ZipEntry.STORED, zip.getEntry("empty.txt").getMethod());
+
+                assertEquals(ZipEntry.DEFLATED, zip.getEntry("sub/latest.log").getMethod());
+                assertEquals(Files.readString(source.resolve("sub/latest.log")),
+                        new String(zip.getInputStream(zip.getEntry("sub/latest.log")).readAllBytes(), UTF_8));
+                assertArrayEquals(incompressible, zip.getInputStream(zip.getEntry("small.bin")).readAllBytes());
+                assertEquals(3 * 1024 * 1024, zip.getInputStream(zip.getEntry("random.bin")).readAllBytes().length);
+                assertEquals("text", new String(zip.getInputStream(zip.getEntry("text.txt")).readAllBytes(), UTF_8));
+            }
+        }
+
+        Path deflated = dir.resolve("deflated.zip");
+        try (Zipper zipper = new Zipper(deflated).setAdaptiveCompression(false)) {
+            zipper.putDirectory(source, "");
+        }
+        try (ZipFile zip = new ZipFile(deflated.toFile(), UTF_8)) {
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                assertEquals(entry.isDirectory() ? ZipEntry.STORED : ZipEntry.DEFLATED, entry.getMethod(), entry.getName());
+            }
+        }
+    }
+
+    @Test
+    public void testCompressionLevel(@TempDir Path dir) throws IOException {
+        Path source = createSource(dir);
+        StringBuilder builder = new StringBuilder();
+        Random random = new Random(0);
+        for (int i = 0; i < 20000; i++) {
+            builder.append("option").append(random.nextInt(1000)).append(" = ").append(random.nextInt(1000)).append('\n');
+        }
+        Files.writeString(source.resolve("options.txt"), builder);
+
+        Path normal = dir.resolve("normal.zip");
+        try (Zipper zipper = new Zipper(normal)) {
+            zipper.putDirectory(source, "");
+        }
+
+        for (boolean parallel : new boolean[]{false, true}) {
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            Path fast = dir.resolve("fast-" + parallel + ".zip");
+            try (Zipper zipper = new Zipper(fast, false, parallel ? executor : null, 2)) {
+                zipper.setCompressionLevel(Deflater.BEST_SPEED);
+                zipper.putDirectory(source, "");
+            } finally {
+                executor.shutdown();
+            }
+
+            assertEquals(readZip(normal), readZip(fast));
+            assertTrue(Files.size(fast) >= Files.size(normal));
+            if (parallel)
+                assertEquals(-1, Files.mismatch(dir.resolve("fast-false.zip"), fast));
+        }
+
+        try (Zipper zipper = new Zipper(dir.resolve("invalid.zip"))) {
+            assertThrows(IllegalArgumentException.class, () -> zipper.setCompressionLevel(10));
+            assertThrows(IllegalArgumentException.class, () -> zipper.setCompressionLevel(-2));
+        }
+    }
+
+    /// Creates a tree like a large world, with region files which compress well and some which do not
+    private static long createLargeSource(Path source, long totalSize) throws IOException {
+        Random random = new Random(0);
+        byte[][] words = new byte[64][];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = ("minecraft:block_" + i + " ").getBytes(UTF_8);
+        }
+
+        byte[] data = new byte[4 * 1024 * 1024];
+        long size = 0;
+        for (int i = 0; size < totalSize; i++) {
+            if (i % 4 == 0) {
+                random.nextBytes(data);
+            } else {
+                for (int offset = 0; offset < data.length; ) {
+                    byte[] word = words[random.nextInt(words.length)];
+                    int length = Math.min(word.length, data.length - offset);
+                    System.arraycopy(word, 0, data, offset, length);
+                    offset += length;
+                }
+            }
+
+            Path file = source.resolve("region/r." + (i / 32) + "." + (i % 32) + ".mca");
+            Files.createDirectories(file.getParent());
+            Files.write(file, data);
+            size += data.length;
+        }
+        return size;
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "HMCL_BENCHMARK", matches = "true")
+    public void benchmarkCompression(@TempDir Path dir) throws IOException {
+        // The size of the tree in MiB can be changed with HMCL_BENCHMARK_ZIPPER_SIZE
+        String sizeProperty = System.getenv("HMCL_BENCHMARK_ZIPPER_SIZE");
+        long totalSize = (sizeProperty != null ? Long.parseLong(sizeProperty) : 2048) * 1024 * 1024;
+        Path source = dir.resolve("source");
+        long size = createLargeSource(source, totalSize);
+
+        Path serial = dir.resolve("serial.zip");
+        long serialTime = System.nanoTime();
+        try (Zipper zipper = new Zipper(serial)) {
+            zipper.putDirectory(source, "world");
+        }
+        serialTime = System.nanoTime() - serialTime;
+
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        Path parallel = dir.resolve("parallel.zip");
+        long parallelTime = System.nanoTime();
+        try (Zipper zipper = new Zipper(parallel, false, executor, parallelism)) {
+            zipper.putDirectory(source, "world");
+        } finally {
+            executor.shutdown();
+        }
+        parallelTime = System.nanoTime() - parallelTime;
+
+        assertEquals(-1, Files.mismatch(serial, parallel));
+        System.out.printf("Compressing %d MiB into %d MiB: serial %.1f MiB/s, parallel (%d threads) %.1f MiB/s%n",
+                size >> 20, Files.size(serial) >> 20,
+                size / 1048576.0 / (serialTime / 1e9), parallelism, size / 1048576.0 / (parallelTime / 1e9));
+    }
+
+    /// Creates a tree like a game directory with mods, resource packs, a world, configs and logs
+    private static long createInstance(Path source) throws IOException {
+        Random random = new Random(0);
+        long size = 0;
+
+        // Jars, images and sounds are already compressed
+        for (int i = 0; i < 150; i++) {
+            byte[] data = new byte[64 * 1024 + random.nextInt(2 * 1024 * 1024)];
+            random.nextBytes(data);
+            Path file = source.resolve(switch (i % 3) {
+                case 0 -> "mods/mod-" + i + ".jar";
+                case 1 -> "resourcepacks/pack-" + i + ".zip";
+                default -> "config/mod-" + i + "/textures/icon-" + i + ".png";
+            });
+            Files.createDirectories(file.getParent());
+            Files.write(file, data);
+            size += data.length;
+        }
+
+        // Region files consist of zlib compressed chunks, padded to sectors of 4 KiB
+        byte[][] words = new byte[64][];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = ("minecraft:block_" + i + " ").getBytes(UTF_8);
+        }
+        byte[] chunk = new byte[64 * 1024];
+        byte[] compressed = new byte[128 * 1024];
+        for (int i = 0; i < 64; i++) {
+            ByteArrayOutputStream region = new ByteArrayOutputStream();
+            region.write(new byte[8192]);
+            for (int j = 0; j < 128; j++) {
+                for (int offset = 0; offset < chunk.length; ) {
+                    byte[] word = words[random.nextInt(words.length)];
+                    int length = Math.min(word.length, chunk.length - offset);
+                    System.arraycopy(word, 0, chunk, offset, length);
+                    offset += length;
+                }
+                Deflater deflater = new Deflater();
+                deflater.setInput(chunk);
+                deflater.finish();
+                int length = deflater.deflate(compressed);
+                deflater.end();
+                region.write(compressed, 0, length);
+                region.write(new byte[4096 - length % 4096]);
+            }
+            Path file = source.resolve("saves/world/region/r." + (i / 8) + "." + (i % 8) + ".mca");
+            Files.createDirectories(file.getParent());
+            Files.write(file, region.toByteArray());
+            size += region.size();
+        }
+
+        // Configs and logs compress well
+        for (int i = 0; i < 500; i++) {
+            StringBuilder builder = new StringBuilder();
+            for (int j = random.nextInt(2000); j >= 0; j--) {
+                builder.append("option").append(j).append(" = ").append(random.nextInt(1000)).append('\n');
+            }
+            Path file = source.resolve(i == 0 ? "logs/latest.log" : "config/config-" + i + ".toml");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, builder);
+            size += builder.length();
+        }
+        return size;
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "HMCL_BENCHMARK", matches = "true")
+    public void benchmarkAdaptiveCompression(@TempDir Path dir) throws IOException {
+        Path source = dir.resolve("source");
+        long size = createInstance(source);
+
+        for (int round = 0; round < 3; round++) {
+            for (boolean adaptive : new boolean[]{false, true}) {
+                Path zipFile = dir.resolve("instance-" + adaptive + ".zip");
+                long time = System.nanoTime();
+                try (Zipper zipper = new Zipper(zipFile).setAdaptiveCompression(adaptive)) {
+                    zipper.putDirectory(source, "");
+                }
+                time = System.nanoTime() - time;
+                System.out.printf("Compressing %d MiB instance %s adaptive compression: %d ms, %.2f MiB%n",
+                        size >> 20, adaptive ? "with" : "without", time / 1_000_000, Files.size(zipFile) / 1048576.0);
+            }
+        }
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "HMCL_BENCHMARK", matches = "true")
+    public void benchmarkCompressionLevel(@TempDir Path dir) throws IOException {
+        Path source = dir.resolve("source");
+        long size = createInstance(source);
+
+        for (int round = 0; round < 3; round++) {
+            for (int level : new int[]{Deflater.DEFAULT_COMPRESSION, Deflater.BEST_SPEED}) {
+                Path zipFile = dir.resolve("instance" + level + ".zip");
+                long time = System.nanoTime();
+                try (Zipper zipper = Zipper.parallel(zipFile)) {
+                    zipper.setCompressionLevel(level);
+                    zipper.putDirectory(source, "");
+                }
+                time = System.nanoTime() - time;
+                System.out.printf("Compressing %d MiB instance with level %d: %d ms, %.2f MiB%n",
+                        size >> 20, level, time / 1_000_000, Files.size(zipFile) / 1048576.0);
+            }
+        }
+    }
+}
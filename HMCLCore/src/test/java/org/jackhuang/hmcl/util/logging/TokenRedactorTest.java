@@ -0,0 +1,114 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.util.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class TokenRedactorTest {
+
+    private static final String REPLACEMENT = "<token>";
+
+    private static TokenRedactor redactor(String... tokens) {
+        return new TokenRedactor(tokens, REPLACEMENT);
+    }
+
+    @Test
+    public void testNoToken() {
+        String text = "Setting user: Steve";
+        assertSame(text, redactor().redact(text));
+        assertSame(text, redactor("abcdef", "123456").redact(text));
+        assertNull(redactor("abc").redact(null));
+    }
+
+    @Test
+    public void testReplace() {
+        TokenRedactor redactor = redactor("abcdef", "123456");
+        assertEquals("--accessToken <token>", redactor.redact("--accessToken abcdef"));
+        assertEquals("<token><token>", redactor.redact("abcdef123456"));
+        assertEquals("a<token>b<token>c", redactor.redact("a123456babcdefc"));
+        assertEquals("abcde 12345", redactor.redact("abcde 12345"));
+    }
+
+    @Test
+    public void testOverlappingTokens() {
+        assertEquals("x<token>y", redactor("bc", "abcd").redact("xabcdy"));
+        assertEquals("x<token>y", redactor("abcd", "bc").redact("xabcdy"));
+        assertEquals("<token>d", redactor("abc", "bcd").redact("abcd"));
+        assertEquals("<token>", redactor("aa", "aaa").redact("aaa"));
+        assertEquals("<token>a", redactor("aa").redact("aaa"));
+        assertEquals("x<token>", redactor("ab", "abc").redact("xabc"));
+        assertEquals("a<token>", redactor("bcd", "abcx", "c").redact("abcd"));
+    }
+
+    @Test
+    public void testRedactTo() {
+        StringBuilder builder = new StringBuilder("[INFO] ");
+        redactor("secret").redactTo(builder, "token=secret;");
+        assertEquals("[INFO] token=<token>;", builder.toString());
+    }
+
+    @Test
+    public void testWithToken() {
+        TokenRedactor redactor = redactor("first");
+        TokenRedactor newRedactor = redactor.withToken("second");
+        assertEquals("<token> second", redactor.redact("first second"));
+        assertEquals("<token> <token>", newRedactor.redact("first second"));
+        assertTrue(newRedactor.containsToken("xsecondx"));
+        assertFalse(newRedactor.containsToken("xsecon"));
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(0);
+        for (int round = 0; round < 1000; round++) {
+            // Tokens drawn from disjoint alphabets can never overlap, so String.replace yields the same result
+            // as long as the replacement does not contain any of these letters
+            String[] tokens = new String[1 + random.nextInt(5)];
+            for (int i = 0; i < tokens.length; i++) {
+                tokens[i] = randomString(random, (char) ('a' + i * 4), 4, 1 + random.nextInt(8));
+            }
+
+            StringBuilder text = new StringBuilder();
+            for (int i = 0, n = random.nextInt(20); i < n; i++) {
+                if (random.nextInt(4) == 0)
+                    text.append(tokens[random.nextInt(tokens.length)]);
+                else
+                    text.append(randomString(random, 'a', 26, random.nextInt(6)));
+            }
+
+            String expected = text.toString();
+            for (String token : tokens) {
+                expected = expected.replace(token, "#");
+            }
+
+            assertEquals(expected, new TokenRedactor(tokens, "#").redact(text.toString()), () -> "Input: " + text);
+        }
+    }
+
+    private static String randomString(Random random, char from, int range, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (from + random.nextInt(range));
+        }
+        return new String(chars);
+    }
+}
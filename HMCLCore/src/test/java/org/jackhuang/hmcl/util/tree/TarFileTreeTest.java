@@ -0,0 +1,191 @@
+/*
+ * Hello Minecraft! Launcher
+ * Copyright (C) 2026 huangyuhui <huanghongxun2008@126.com> and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.jackhuang.hmcl.util.tree;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class TarFileTreeTest {
+
+    private static void putOctal(byte[] header, int offset, int length, long value) {
+        byte[] digits = String.format("%0" + (length - 1) + "o", value).getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(digits, 0, header, offset, digits.length);
+    }
+
+    /// Writes the entries in the ustar format, ending a xz block after every `blockSize` bytes if the output is a [XZOutputStream]
+    private static void writeTar(OutputStream output, Map<String, byte[]> files, long blockSize) throws IOException {
+        long blockStart = 0;
+        long written = 0;
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            byte[] header = new byte[512];
+            byte[] name = file.getKey().getBytes(StandardCharsets.UTF_8);
+            System.arraycopy(name, 0, header, 0, name.length);
+            putOctal(header, 100, 8, 0644);
+            putOctal(header, 108, 8, 0);
+            putOctal(header, 116, 8, 0);
+            putOctal(header, 124, 12, file.getValue().length);
+            putOctal(header, 136, 12, 1700000000L);
+            header[156] = '0';
+            System.arraycopy("ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+
+            Arrays.fill(header, 148, 156, (byte) ' ');
+            int checksum = 0;
+            for (byte b : header) {
+                checksum += b & 0xFF;
+            }
+            putOctal(header, 148, 7, checksum);
+            header[154] = 0;
+
+            output.write(header);
+            output.write(file.getValue());
+            int padding = (512 - file.getValue().length % 512) % 512;
+            output.write(new byte[padding]);
+            written += 512 + file.getValue().length + padding;
+
+            if (output instanceof XZOutputStream xz && written - blockStart >= blockSize) {
+                xz.endBlock();
+                blockStart = written;
+            }
+        }
+        output.write(new byte[1024]);
+    }
+
+    private static Map<String, byte[]> createFiles(int count, int maxSize) {
+        Random random = new Random(0);
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            // Compressible, but not trivially
+            byte[] data = new byte[random.nextInt(maxSize)];
+            for (int j = 0; j < data.length; j++) {
+                data[j] = (byte) ('a' + random.nextInt(8));
+            }
+            files.put("jdk/lib/dir" + (i / 16) + "/file" + i + ".bin", data);
+        }
+        files.put("jdk/release", "JAVA_VERSION=\"21.0.1\"\n".getBytes(StandardCharsets.UTF_8));
+        return files;
+    }
+
+    private static Path createTarXZ(Path dir, String name, Map<String, byte[]> files, long blockSize) throws IOException {
+        Path file = dir.resolve(name);
+        try (XZOutputStream output = new XZOutputStream(Files.newOutputStream(file), new LZMA2Options(1))) {
+            writeTar(output, files, blockSize);
+        }
+        return file;
+    }
+
+    private static Path createTarGz(Path dir, String name, Map<String, byte[]> files) throws IOException {
+        Path file = dir.resolve(name);
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(file))) {
+            writeTar(output, files, Long.MAX_VALUE);
+        }
+        return file;
+    }
+
+    private static void assertFiles(Map<String, byte[]> files, Path file) throws IOException {
+        try (TarFileTree tree = TarFileTree.open(file)) {
+            for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+                assertArrayEquals(entry.getValue(), tree.readBinaryEntry(tree.getEntry(entry.getKey())), entry.getKey());
+            }
+
+            // In the reverse order, seeking backward
+            List<String> names = new ArrayList<>(files.keySet());
+            Collections.reverse(names);
+            for (String name : names) {
+                assertArrayEquals(files.get(name), tree.readBinaryEntry(tree.getEntry(name)), name);
+            }
+
+            assertEquals("JAVA_VERSION=\"21.0.1\"\n", tree.readTextEntry("/jdk/release"));
+            assertNull(tree.getEntry("jdk/bin/java"));
+
+            // The files of a directory are in the order of the archive
+            assertEquals(List.of("file16.bin", "file17.bin", "file18.bin"),
+                    tree.getDirectory("jdk/lib/dir1").getFiles().keySet().stream().limit(3).toList());
+        }
+    }
+
+    @Test
+    public void testOpen(@TempDir Path dir) throws IOException {
+        Map<String, byte[]> files = createFiles(200, 16384);
+
+        Path tar = dir.resolve("test.tar");
+        try (OutputStream output = Files.newOutputStream(tar)) {
+            writeTar(output, files, Long.MAX_VALUE);
+        }
+        assertFiles(files, tar);
+
+        assertFiles(files, createTarGz(dir, "test.tar.gz", files));
+        assertFiles(files, createTarGz(dir, "test.tgz", files));
+
+        // Read in place
+        assertFiles(files, createTarXZ(dir, "blocks.tar.xz", files, 64 * 1024));
+        // Decompressed to a temporary file
+        assertFiles(files, createTarXZ(dir, "test.txz", files, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testInvalid(@TempDir Path dir) throws IOException {
+        Path notXZ = dir.resolve("invalid.tar.xz");
+        Files.writeString(notXZ, "Not a xz file");
+        assertThrows(IOException.class, () -> TarFileTree.open(notXZ).close());
+
+        Path notGz = dir.resolve("invalid.tar.gz");
+        Files.writeString(notGz, "Not a gzip file");
+        assertThrows(IOException.class, () -> TarFileTree.open(notGz).close());
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "HMCL_BENCHMARK", matches = "true")
+    public void benchmarkSingleEntry(@TempDir Path dir) throws IOException {
+        // About 128 MiB, like a Java runtime
+        Map<String, byte[]> files = createFiles(4096, 64 * 1024);
+        List<Path> archives = List.of(
+                createTarGz(dir, "jdk.tar.gz", files),
+                createTarXZ(dir, "jdk-single-block.tar.xz", files, Long.MAX_VALUE),
+                createTarXZ(dir, "jdk-blocks.tar.xz", files, 1024 * 1024)
+        );
+
+        for (int round = 0; round < 3; round++) {
+            for (Path archive : archives) {
+                long openTime = System.nanoTime();
+                try (TarFileTree tree = TarFileTree.open(archive)) {
+                    openTime = System.nanoTime() - openTime;
+
+                    long readTime = System.nanoTime();
+                    assertEquals("JAVA_VERSION=\"21.0.1\"\n", tree.readTextEntry("jdk/release"));
+                    readTime = System.nanoTime() - readTime;
+
+                    System.out.printf("%s: opened in %d ms, read one entry in %.2f ms%n",
+                            archive.getFileName(), openTime / 1_000_000, readTime / 1_000_000.0);
+                }
+            }
+        }
+    }
+}
@@ -17,14 +17,23 @@
  */
 package org.jackhuang.hmcl.util.tree;
 
+import kala.compress.archivers.zip.ZipArchiveEntry;
 import kala.compress.archivers.zip.ZipArchiveReader;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.URISyntaxException;
 import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -73,4 +82,118 @@ public final class ZipFileTreeTest {
             assertNull(root.getFiles().get("other.txt"));
         }
     }
+
+    private static Path createZip(Path dir, List<String> names) throws IOException {
+        Path zipFile = dir.resolve("test.zip");
+        try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            for (String name : names) {
+                output.putNextEntry(new ZipEntry(name));
+                output.closeEntry();
+            }
+        }
+        return zipFile;
+    }
+
+    @Test
+    public void testLookup(@TempDir Path dir) throws IOException {
+        Path zipFile = createZip(dir, List.of("a/b/c.txt", "a/", "a/d.txt", "./e.txt", "f.txt", "a/b/", "g/h/i/j.txt"));
+
+        try (var tree = new ZipFileTree(new ZipArchiveReader(zipFile))) {
+            assertEquals("a/b/c.txt", tree.getEntry("a/b/c.txt").getName());
+            assertEquals("a/b/c.txt", tree.getEntry("/a//b/c.txt").getName());
+            assertEquals("./e.txt", tree.getEntry("e.txt").getName());
+            assertEquals("f.txt", tree.getEntry("f.txt").getName());
+            assertNull(tree.getEntry("a/b"));
+            assertNull(tree.getEntry("a/x.txt"));
+            assertNull(tree.getEntry("x/d.txt"));
+
+            var root = tree.getRoot();
+            assertSame(root, tree.getDirectory(""));
+            assertEquals(Set.of("a", "g"), root.getSubDirs().keySet());
+            assertEquals(Set.of("e.txt", "f.txt"), root.getFiles().keySet());
+
+            var a = tree.getDirectory("a");
+            assertEquals("a/", a.getEntry().getName());
+            assertEquals(Set.of("d.txt"), a.getFiles().keySet());
+            assertSame(a.getSubDirs().get("b"), tree.getDirectory("/a/b/"));
+
+            var b = tree.getDirectory("a/b");
+            assertEquals("b", b.getName());
+            assertEquals("a/b", b.getFullName());
+            assertEquals("a/b/", b.getEntry().getName());
+            assertSame(tree.getEntry("a/b/c.txt"), b.getFiles().get("c.txt"));
+
+            // Directories without their own entries are created as well
+            var i = tree.getDirectory("g/h/i");
+            assertEquals("g/h/i", i.getFullName());
+            assertNull(i.getEntry());
+            assertEquals(Set.of("j.txt"), i.getFiles().keySet());
+            assertNull(tree.getDirectory("g/x"));
+            assertNull(tree.getDirectory("f.txt"));
+        }
+    }
+
+    @Test
+    public void testInvalidEntries(@TempDir Path dir) throws IOException {
+        for (List<String> names : List.of(
+                List.of("a.txt", "a.txt/b.txt"),
+                List.of("a/b.txt", "a"),
+                List.of("a/", "a"),
+                List.of("../a.txt"),
+                List.of("a/../b.txt"))) {
+            Path zipFile = createZip(dir, names);
+            assertThrows(IOException.class, () -> new ZipFileTree(new ZipArchiveReader(zipFile)).close(), names.toString());
+            Files.delete(zipFile);
+        }
+    }
+
+    private static long usedMemory() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "HMCL_BENCHMARK", matches = "true")
+    public void benchmarkLargeTree(@TempDir Path dir) throws Exception {
+        // Laid out like a large resource pack
+        List<String> names = new java.util.ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            names.add("assets/minecraft/textures/block/group" + (i / 100) + "/texture" + i + ".png");
+        }
+        Path zipFile = createZip(dir, names);
+
+        var threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        try (ZipArchiveReader reader = new ZipArchiveReader(zipFile)) {
+            List<ZipArchiveEntry> entries = reader.getEntries();
+
+            for (int round = 0; round < 3; round++) {
+                long memory = usedMemory();
+                long allocated = threadMXBean.getCurrentThreadAllocatedBytes();
+                long buildTime = System.nanoTime();
+                var tree = new ZipFileTree(reader, false);
+                buildTime = System.nanoTime() - buildTime;
+                allocated = threadMXBean.getCurrentThreadAllocatedBytes() - allocated;
+                memory = usedMemory() - memory;
+
+                long lookupTime = System.nanoTime();
+                for (String name : names) {
+                    assertNotNull(tree.getEntry(name));
+                }
+                lookupTime = System.nanoTime() - lookupTime;
+
+                long treeTime = System.nanoTime();
+                assertEquals(1000, tree.getDirectory("assets/minecraft/textures/block").getSubDirs().size());
+                treeTime = System.nanoTime() - treeTime;
+
+                System.out.printf("Tree of %d entries: %.1f MiB retained, %.1f MiB allocated, built in %d ms, %d lookups in %d ms, directory view in %d ms%n",
+                        entries.size(), memory / 1048576.0, allocated / 1048576.0, buildTime / 1_000_000,
+                        names.size(), lookupTime / 1_000_000, treeTime / 1_000_000);
+                tree.close();
+            }
+        }
+    }
 }